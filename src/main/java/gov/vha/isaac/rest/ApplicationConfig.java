@@ -37,6 +37,8 @@ import gov.vha.isaac.ochre.api.util.DownloadUnzipTask;
 import gov.vha.isaac.ochre.api.util.WorkExecutors;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.data.RestSystemInfo;
+import gov.vha.isaac.rest.cache.CommitWatcher;
+import gov.vha.isaac.rest.cache.IdentifierIndex;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
@@ -256,7 +258,9 @@ public class ApplicationConfig extends ResourceConfig implements ContainerLifecy
 						
 						status_.set("Starting ISAAC");
 						LookupService.startupIsaac();
-						
+						CommitWatcher.start();
+						IdentifierIndex.start();
+
 						systemInfo_ = new RestSystemInfo();
 						log.info(systemInfo_.toString());
 						
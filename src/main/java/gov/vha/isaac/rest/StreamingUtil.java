@@ -0,0 +1,227 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import gov.vha.isaac.rest.api.data.Pagination;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link StreamingUtil}
+ *
+ * Support for APIs which return large collections, and write them to the client as each element is produced, rather than
+ * building the entire collection in memory first.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class StreamingUtil
+{
+	private static Logger log = LogManager.getLogger();
+
+	/**
+	 * The media type of newline delimited JSON
+	 */
+	public static final String NDJSON = "application/x-ndjson";
+	public static final MediaType NDJSON_TYPE = new MediaType("application", "x-ndjson");
+
+	// How many elements to write between flushes of the generator, so the client starts receiving data early
+	private static final int FLUSH_INTERVAL = 100;
+
+	// Writes the content of an output, returning the number of elements written
+	private interface Body
+	{
+		int write(JsonGenerator generator) throws IOException;
+	}
+
+	private StreamingUtil()
+	{
+	}
+
+	/**
+	 * Create an output which writes a JSON array, containing one element for each item in the source.
+	 *
+	 * The items are read, and converted, as the response is written - which happens after the request filters have cleared the
+	 * {@link RequestInfo} of the request from the thread.  The RequestInfo of the calling thread is captured here, and installed
+	 * while the output is written, so converters may use it as usual.
+	 *
+	 * @param source the items to write
+	 * @param converter converts each item into the object to serialize (typically, one of the Rest* data classes).  Converters should
+	 * handle their own errors - a runtime exception thrown by a converter aborts the response, after the status has been sent.
+	 * @return the output to pass as the entity of the response
+	 */
+	public static <T> StreamingOutput jsonArray(Iterable<T> source, Function<T, Object> converter)
+	{
+		return stream(source, converter, false);
+	}
+
+	/**
+	 * As {@link #jsonArray(Iterable, Function)}, but writes newline delimited JSON ({@link #NDJSON}) - one JSON object per line, 
+	 * with no enclosing array.
+	 */
+	public static <T> StreamingOutput ndjson(Iterable<T> source, Function<T, Object> converter)
+	{
+		return stream(source, converter, true);
+	}
+
+	/**
+	 * @param headers the headers of the request
+	 * @return true, if the most acceptable response type of the request is {@link #NDJSON}
+	 */
+	public static boolean prefersNdjson(HttpHeaders headers)
+	{
+		List<MediaType> acceptable = headers.getAcceptableMediaTypes();
+		return acceptable.size() > 0 && NDJSON_TYPE.isCompatible(acceptable.get(0)) && !acceptable.get(0).isWildcardType()
+				&& !acceptable.get(0).isWildcardSubtype();
+	}
+
+	/**
+	 * Create an output which writes one page of a paged result - a JSON object of the given type, carrying the pagination data, 
+	 * and a 'results' array containing one element for each item in the source.  The object has the same form as Jackson writes 
+	 * for a type with the fields 'paginationData' and 'results' (such as RestSememeVersions), but the results are converted and 
+	 * written one at a time, as for {@link #jsonArray(Iterable, Function)}.
+	 *
+	 * @param type the class of the paged result, which is written as its type id
+	 * @param paginationData the pagination data of the page
+	 * @param source the items of the page
+	 * @param converter converts each item into the object to serialize
+	 * @return the output to pass as the entity of the response
+	 */
+	public static <T> StreamingOutput page(Class<?> type, Pagination paginationData, Iterable<T> source, Function<T, Object> converter)
+	{
+		final boolean compact = RequestInfo.get().useCompactJson();
+		final ObjectWriter writer = writer();
+		return output((generator) ->
+		{
+			generator.writeStartObject();
+			generator.writeStringField(MyJacksonMapperConfig.TYPE_PROPERTY, MyJacksonMapperConfig.getTypeId(type, compact));
+			generator.writeFieldName("paginationData");
+			writer.writeValue(generator, paginationData);
+			generator.writeArrayFieldStart("results");
+			int written = writeElements(generator, writer, source, converter, false);
+			generator.writeEndArray();
+			generator.writeEndObject();
+			return written;
+		});
+	}
+
+	/**
+	 * @param headers the headers of the request
+	 * @return true, if the most acceptable response type of the request is one that the streaming outputs don't produce (XML, or a
+	 * binary encoding such as Smile) - in which case, the API should return its result as an entity, to be written by the provider of 
+	 * the negotiated type
+	 */
+	public static boolean prefersEntity(HttpHeaders headers)
+	{
+		List<MediaType> acceptable = headers.getAcceptableMediaTypes();
+		if (acceptable.size() == 0)
+		{
+			return false;
+		}
+		MediaType preferred = acceptable.get(0);
+		return !preferred.isWildcardType() && !preferred.isWildcardSubtype() && !MediaType.APPLICATION_JSON_TYPE.isCompatible(preferred)
+				&& !NDJSON_TYPE.isCompatible(preferred);
+	}
+
+	/**
+	 * @return the mapper of the JSON profile requested by the current request
+	 */
+	private static ObjectMapper mapper()
+	{
+		return RequestInfo.get().useCompactJson() ? MyJacksonMapperConfig.getCompactObjectMapper() : MyJacksonMapperConfig.getObjectMapper();
+	}
+
+	private static ObjectWriter writer()
+	{
+		// Flush in batches, rather than after every element.  No indenting, which would break up the lines of NDJSON.
+		return mapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, SerializationFeature.INDENT_OUTPUT);
+	}
+
+	private static <T> StreamingOutput stream(Iterable<T> source, Function<T, Object> converter, boolean ndjson)
+	{
+		final ObjectWriter writer = writer();
+		return output((generator) ->
+		{
+			if (ndjson)
+			{
+				generator.setRootValueSeparator(null);
+				return writeElements(generator, writer, source, converter, true);
+			}
+			generator.writeStartArray();
+			int written = writeElements(generator, writer, source, converter, false);
+			generator.writeEndArray();
+			return written;
+		});
+	}
+
+	private static StreamingOutput output(Body body)
+	{
+		final RequestInfo requestInfo = RequestInfo.get();
+		final ObjectMapper mapper = mapper();
+
+		return outputStream ->
+		{
+			RequestInfo.set(requestInfo);
+			// Jersey owns the output stream - closing the generator should only flush it
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET))
+			{
+				int written = body.write(generator);
+				log.debug("Streamed {} items", written);
+			}
+			finally
+			{
+				RequestInfo.remove();
+			}
+		};
+	}
+
+	private static <T> int writeElements(JsonGenerator generator, ObjectWriter writer, Iterable<T> source, Function<T, Object> converter,
+			boolean ndjson) throws IOException
+	{
+		int written = 0;
+		for (T item : source)
+		{
+			writer.writeValue(generator, converter.apply(item));
+			if (ndjson)
+			{
+				generator.writeRaw('\n');
+			}
+			if (++written % FLUSH_INTERVAL == 0)
+			{
+				generator.flush();
+			}
+		}
+		return written;
+	}
+}
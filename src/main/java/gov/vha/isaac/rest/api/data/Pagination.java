@@ -18,6 +18,10 @@
  */
 package gov.vha.isaac.rest.api.data;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 
@@ -61,11 +65,49 @@ public class Pagination
 	@XmlElement
 	int approximateTotal;
 
+	/**
+	 * An opaque cursor which may be passed back via the 'cursor' parameter to retrieve the next page as a continuation of this page.
+	 * Only populated by APIs that support cursor paging, and only when more results may be available.  When populated, the nextUrl
+	 * also carries the cursor.
+	 */
+	@XmlElement
+	String nextCursor;
+
 	protected Pagination()
 	{
 		//For jaxb
 	}
 
+	/**
+	 * @param pageNum page number index > 0
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal total size of set of which this page is a subset. May be affected by filtering.
+	 * @param baseUrl base URL used to construct and return example previous and next URLs
+	 * @param nextCursor optional serialized cursor that continues from the end of this page.  Null if cursor paging isn't supported,
+	 * or if there are no further results.
+	 * @throws RestException
+	 */
+	public Pagination(int pageNum, int maxPageSize, int approximateTotal, String baseUrl, String nextCursor) throws RestException {
+		this(pageNum, maxPageSize, approximateTotal, baseUrl);
+		if (nextCursor != null) {
+			this.nextCursor = nextCursor;
+			this.nextUrl = this.nextUrl + "&" + RequestParameters.cursor + "=" + encode(nextCursor);
+		}
+	}
+
+	private static String encode(String parameterValue)
+	{
+		try
+		{
+			return URLEncoder.encode(parameterValue, StandardCharsets.UTF_8.name());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			// Every java platform is required to support UTF-8
+			throw new RuntimeException(e);
+		}
+	}
+
 	/**
 	 * @param pageNum page number index > 0
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
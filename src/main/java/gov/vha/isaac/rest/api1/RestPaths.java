@@ -44,7 +44,13 @@ public class RestPaths
 	public static final String byReferencedComponentComponent = "byReferencedComponent/";
 	public static final String sememeDefinitionComponent = "sememeDefinition/";
 	public static final String systemInfoComponent = "systemInfo/";
+	public static final String cacheStatisticsComponent = "cacheStatistics/";
+	public static final String timingStatisticsComponent = "timingStatistics/";
+	public static final String compressionStatisticsComponent = "compressionStatistics/";
+	public static final String responseCacheStatisticsComponent = "responseCacheStatistics/";
 	public static final String termRequestComponent = "termRequest/";
+	public static final String batchComponent = "batch/";
+	public static final String exportComponent = "export/";
 	
 	public static final String enumerationComponent = "enumeration/";
 	public static final String enumerationRestDynamicSememeDataTypeComponent = enumerationComponent + "restDynamicSememeDataType/";
@@ -72,6 +78,8 @@ public class RestPaths
 	public static final String searchAppPathComponent = appPathComponent + searchAPIsPathComponent;
 	
 	public static final String taxonomyAPIsPathComponent = apiVersionComponent + "taxonomy/";
+	public static final String taxonomyChildrenComponent = "children/";
+	public static final String taxonomyChildrenAppPathComponent = appPathComponent + taxonomyAPIsPathComponent + taxonomyChildrenComponent;
 	
 	public static final String idComponent = "id/";
 	public static final String idAPIsPathComponent = apiVersionComponent + idComponent;
@@ -18,41 +18,54 @@
  */
 package gov.vha.isaac.rest.api1.concept;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.webcohesion.enunciate.metadata.rs.TypeHint;
+
 import gov.vha.isaac.MetaData;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.component.concept.ConceptService;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.util.NumericUtils;
 import gov.vha.isaac.ochre.api.util.UUIDUtil;
 import gov.vha.isaac.ochre.impl.utility.Frills;
 import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.rest.ExpandUtil;
+import gov.vha.isaac.rest.StreamingUtil;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
+import gov.vha.isaac.rest.api1.data.RestBatchResult;
 import gov.vha.isaac.rest.api1.data.concept.RestConceptChronology;
 import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeDescriptionVersion;
-import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersion;
 import gov.vha.isaac.rest.api1.sememe.SememeAPIs;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -63,6 +76,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 @Path(RestPaths.conceptAPIsPathComponent)
+@CommitVersioned
 public class ConceptAPIs
 {
 	private static Logger log = LogManager.getLogger();
@@ -92,7 +106,7 @@ public class ConceptAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id + "}")
 	public RestConceptVersion getConceptVersion(
 			@PathParam(RequestParameters.id) String id, 
@@ -104,21 +118,101 @@ public class ConceptAPIs
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken
 			) throws RestException
+	{
+		return readConceptVersion(id,
+				RequestInfo.get().getStampCoordinate(),
+				RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable),
+				Boolean.parseBoolean(includeParents.trim()),
+				Boolean.parseBoolean(countParents.trim()),
+				Boolean.parseBoolean(includeChildren.trim()),
+				Boolean.parseBoolean(countChildren.trim()),
+				RequestInfo.get().getStated(),
+				Boolean.parseBoolean(sememeMembership.trim()));
+	}
+
+	/**
+	 * Returns a single version of each of many concepts.  This is equivalent to calling getConceptVersion for each id, but the 
+	 * ids are resolved in one request, with one set of coordinates, and the response is written as each concept is read.
+	 * 
+	 * An id which can't be resolved doesn't fail the request - its element in the response carries the error instead.
+	 * 
+	 * @param ids - A JSON array of concept ids - each a UUID, nid, or concept sequence
+	 * @param includeParents - Include the direct parent concepts of each requested concept in the response.  Defaults to false.
+	 * @param countParents - true to count the number of parents above each concept.  See getConceptVersion.  Defaults to false.
+	 * @param includeChildren - Include the direct child concepts of each requested concept in the response.  Defaults to false. 
+	 * @param countChildren - true to count the number of children below each concept.  See getConceptVersion.  Defaults to false.
+	 * @param sememeMembership - when true, the sememeMembership field of each RestConceptVersion object will be populated.  See 
+	 * getConceptVersion.  Defaults to false.
+	 * @param expand - comma separated list of fields to expand.  Supports 'chronology'
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
+	 *
+	 * @return A JSON array of RestBatchResult, one per requested id, in the order requested.  The result of each successful element 
+	 * is a RestConceptVersion.
+	 * @throws RestException if no ids are provided
+	 */
+	@POST
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@Path(RestPaths.versionsComponent + RestPaths.batchComponent)
+	@TypeHint(RestBatchResult[].class)
+	public Response getConceptVersions(
+			List<String> ids,
+			@QueryParam("includeParents") @DefaultValue("false") String includeParents,
+			@QueryParam("countParents") @DefaultValue("false") String countParents,
+			@QueryParam("includeChildren") @DefaultValue("false") String includeChildren,
+			@QueryParam("countChildren") @DefaultValue("false") String countChildren,
+			@QueryParam("sememeMembership") @DefaultValue("false") String sememeMembership,
+			@QueryParam(RequestParameters.expand) String expand,
+			@QueryParam(RequestParameters.coordToken) String coordToken
+			) throws RestException
+	{
+		validateBatch(ids);
+
+		final StampCoordinate stampCoordinate = RequestInfo.get().getStampCoordinate();
+		final boolean expandChronology = RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable);
+		final boolean stated = RequestInfo.get().getStated();
+		final boolean includeParentsValue = Boolean.parseBoolean(includeParents.trim());
+		final boolean countParentsValue = Boolean.parseBoolean(countParents.trim());
+		final boolean includeChildrenValue = Boolean.parseBoolean(includeChildren.trim());
+		final boolean countChildrenValue = Boolean.parseBoolean(countChildren.trim());
+		final boolean sememeMembershipValue = Boolean.parseBoolean(sememeMembership.trim());
+
+		return Response.ok(StreamingUtil.jsonArray(ids, id -> 
+		{
+			try
+			{
+				return RestBatchResult.success(id, readConceptVersion(id, stampCoordinate, expandChronology, includeParentsValue, countParentsValue, 
+						includeChildrenValue, countChildrenValue, stated, sememeMembershipValue));
+			}
+			catch (RestException e)
+			{
+				return RestBatchResult.failure(id, e.toString());
+			}
+			catch (RuntimeException e)
+			{
+				log.error("Unexpected error reading concept " + id, e);
+				return RestBatchResult.failure(id, "Unexpected error: " + e.toString());
+			}
+		})).build();
+	}
+
+	private static RestConceptVersion readConceptVersion(String id, StampCoordinate stampCoordinate, boolean expandChronology, boolean includeParents, 
+			boolean countParents, boolean includeChildren, boolean countChildren, boolean stated, boolean sememeMembership) throws RestException
 	{
 		@SuppressWarnings("rawtypes")
 		ConceptChronology concept = findConceptChronology(id);
 		@SuppressWarnings("unchecked")
-		Optional<LatestVersion<ConceptVersionImpl>> cv = concept.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
+		Optional<LatestVersion<ConceptVersionImpl>> cv = concept.getLatestVersion(ConceptVersionImpl.class, stampCoordinate);
 		if (cv.isPresent())
 		{
 			return new RestConceptVersion(cv.get().value(), 
-					RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable), 
-					Boolean.parseBoolean(includeParents.trim()),
-					Boolean.parseBoolean(countParents.trim()), 
-					Boolean.parseBoolean(includeChildren.trim()),
-					Boolean.parseBoolean(countChildren.trim()),
-					RequestInfo.get().getStated(),
-					Boolean.parseBoolean(sememeMembership.trim()));
+					expandChronology, 
+					includeParents,
+					countParents, 
+					includeChildren,
+					countChildren,
+					stated,
+					sememeMembership);
 		}
 		throw new RestException(RequestParameters.id, id, "No version on coordinate path for concept with the specified id");
 	}
@@ -133,7 +227,7 @@ public class ConceptAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.chronologyComponent + "{" + RequestParameters.id + "}")
 	public RestConceptChronology getConceptChronology(
 			@PathParam(RequestParameters.id) String id,
@@ -150,6 +244,63 @@ public class ConceptAPIs
 
 		return chronology;
 	}
+
+	/**
+	 * Returns the chronology of each of many concepts.  This is equivalent to calling getConceptChronology for each id, but the 
+	 * ids are resolved in one request, and the response is written as each concept is read.
+	 * 
+	 * An id which can't be resolved doesn't fail the request - its element in the response carries the error instead.
+	 * 
+	 * @param ids - A JSON array of concept ids - each a UUID, nid, or concept sequence
+	 * @param expand - comma separated list of fields to expand.  Supports 'versionsAll', 'versionsLatestOnly'
+	 * If latest only is specified in combination with versionsAll, it is ignored (all versions are returned)
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
+	 * 
+	 * @return A JSON array of RestBatchResult, one per requested id, in the order requested.  The result of each successful element 
+	 * is a RestConceptChronology.
+	 * @throws RestException if no ids are provided
+	 */
+	@POST
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@Path(RestPaths.chronologyComponent + RestPaths.batchComponent)
+	@TypeHint(RestBatchResult[].class)
+	public Response getConceptChronologies(
+			List<String> ids,
+			@QueryParam(RequestParameters.expand) String expand,
+			@QueryParam(RequestParameters.coordToken) String coordToken
+			) throws RestException
+	{
+		validateBatch(ids);
+
+		final boolean versionsAll = RequestInfo.get().shouldExpand(ExpandUtil.versionsAllExpandable);
+		final boolean versionsLatestOnly = RequestInfo.get().shouldExpand(ExpandUtil.versionsLatestOnlyExpandable);
+
+		return Response.ok(StreamingUtil.jsonArray(ids, id -> 
+		{
+			try
+			{
+				return RestBatchResult.success(id, new RestConceptChronology(findConceptChronology(id), versionsAll, versionsLatestOnly));
+			}
+			catch (RestException e)
+			{
+				return RestBatchResult.failure(id, e.toString());
+			}
+			catch (RuntimeException e)
+			{
+				log.error("Unexpected error reading concept " + id, e);
+				return RestBatchResult.failure(id, "Unexpected error: " + e.toString());
+			}
+		})).build();
+	}
+
+	private static void validateBatch(List<String> ids) throws RestException
+	{
+		if (ids == null || ids.isEmpty())
+		{
+			throw new RestException("The request body must be a JSON array of one or more concept ids");
+		}
+	}
 	
 	public static ConceptChronology<? extends ConceptVersion<?>> findConceptChronology(String id) throws RestException
 	{
@@ -203,40 +354,53 @@ public class ConceptAPIs
 	 * if they represent a concept or a description sememe.  
 	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
 	 * 
-	 * @return The descriptions associated with the concept
+	 * @return The descriptions associated with the concept (a list of RestSememeDescriptionVersion).  JSON results are written as they 
+	 * are built, and are returned as newline delimited JSON, one RestSememeDescriptionVersion per line, when application/x-ndjson is 
+	 * accepted.
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE, StreamingUtil.NDJSON })
 	@Path(RestPaths.descriptionsComponent + "{" + RequestParameters.id + "}")
-	public List<RestSememeDescriptionVersion> getDescriptions(
+	@TypeHint(RestSememeDescriptionVersion[].class)
+	public Response getDescriptions(
 			@PathParam(RequestParameters.id) String id, 
 			@QueryParam(RequestParameters.includeAttributes) @DefaultValue(RequestParameters.includeAttributesDefault) String includeAttributes,
 			@QueryParam(RequestParameters.expand) String expand,
-			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
+			@QueryParam(RequestParameters.coordToken) String coordToken,
+			@Context HttpHeaders headers) throws RestException
 	{
-		ArrayList<RestSememeDescriptionVersion> result = new ArrayList<>();
-		
-		List<RestSememeVersion> descriptions = SememeAPIs.get(
+		Stream<RestSememeDescriptionVersion> descriptions = SememeAPIs.getLatestVersions(
 				findConceptChronology(id).getNid() + "",
 				getAllDescriptionTypes(),
+				true)
+			.map(SememeAPIs.restSememeVersionConverter(
 				true, 
 				Boolean.parseBoolean(includeAttributes.trim()),
-				RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails),
-				true);
-		for (RestSememeVersion d : descriptions)
-		{
-			//This cast is expected to be safe, if not, the data model is messed up
-			if (!(d instanceof RestSememeDescriptionVersion))
+				RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails)))
+			.filter(d ->
 			{
-				log.warn("SememeAPIs.get(...) didn't filter properly!  Is the DB broken again?");
-			}
-			else
-			{
-				result.add((RestSememeDescriptionVersion) d);
-			}
+				//This cast is expected to be safe, if not, the data model is messed up
+				if (!(d instanceof RestSememeDescriptionVersion))
+				{
+					log.warn("SememeAPIs.get(...) didn't filter properly!  Is the DB broken again?");
+					return false;
+				}
+				return true;
+			})
+			.map(d -> (RestSememeDescriptionVersion) d);
+
+		if (StreamingUtil.prefersEntity(headers))
+		{
+			List<RestSememeDescriptionVersion> result = descriptions.collect(Collectors.toList());
+			return Response.ok(new GenericEntity<List<RestSememeDescriptionVersion>>(result) {}).build();
+		}
+		Iterable<RestSememeDescriptionVersion> source = descriptions::iterator;
+		if (StreamingUtil.prefersNdjson(headers))
+		{
+			return Response.ok(StreamingUtil.ndjson(source, d -> d), StreamingUtil.NDJSON_TYPE).build();
 		}
-		return result;
+		return Response.ok(StreamingUtil.jsonArray(source, d -> d), MediaType.APPLICATION_JSON_TYPE).build();
 	}
 	
 	private Set<Integer> getAllDescriptionTypes()
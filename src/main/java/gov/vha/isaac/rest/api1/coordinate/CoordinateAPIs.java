@@ -35,6 +35,7 @@ import gov.vha.isaac.rest.api1.data.coordinate.RestLanguageCoordinate;
 import gov.vha.isaac.rest.api1.data.coordinate.RestLogicCoordinate;
 import gov.vha.isaac.rest.api1.data.coordinate.RestStampCoordinate;
 import gov.vha.isaac.rest.api1.data.coordinate.RestTaxonomyCoordinate;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -45,6 +46,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 @Path(RestPaths.coordinateAPIsPathComponent)
+@CommitVersioned
 public class CoordinateAPIs
 {
 	private static Logger log = LogManager.getLogger(CoordinateAPIs.class);
@@ -0,0 +1,93 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * {@link RestBatchResult}
+ *
+ * One element of the response of a batch API - the outcome for one of the requested ids.  Exactly one of result and error
+ * is populated.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestBatchResult
+{
+	/**
+	 * The id, exactly as it was passed in the request
+	 */
+	@XmlElement
+	public String id;
+
+	/**
+	 * The object found for the id - the type is documented by each batch API.  Null, if the id could not be processed.
+	 */
+	@XmlElement
+	public Object result;
+
+	/**
+	 * The reason the id could not be processed.  Null, if the id was processed successfully.
+	 */
+	@XmlElement
+	public String error;
+
+	protected RestBatchResult()
+	{
+		//For jaxb
+	}
+
+	private RestBatchResult(String id, Object result, String error)
+	{
+		this.id = id;
+		this.result = result;
+		this.error = error;
+	}
+
+	/**
+	 * @param id the requested id
+	 * @param result the object found for the id
+	 * @return a successful result
+	 */
+	public static RestBatchResult success(String id, Object result)
+	{
+		return new RestBatchResult(id, result, null);
+	}
+
+	/**
+	 * @param id the requested id
+	 * @param error the reason the id could not be processed
+	 * @return a failed result
+	 */
+	public static RestBatchResult failure(String id, String error)
+	{
+		return new RestBatchResult(id, null, error);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestBatchResult [id=" + id + ", result=" + result + ", error=" + error + "]";
+	}
+}
@@ -21,22 +21,19 @@ package gov.vha.isaac.rest.api1.data.concept;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.State;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
-import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
 import gov.vha.isaac.ochre.api.util.AlphanumComparator;
 import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.api.data.Expandable;
 import gov.vha.isaac.rest.api.data.Expandables;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.data.RestIdentifiedObject;
+import gov.vha.isaac.rest.cache.DescriptionResolver;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -138,51 +135,11 @@ public class RestConceptChronology implements Comparable<RestConceptChronology>
 	/**
 	 * Utility method to find the 'best' description for the concept at hand.
 	 * @param conceptNid
-	 * @return
+	 * @return the description, as resolved (and cached) by the {@link DescriptionResolver}
 	 */
 	public static String readBestDescription(int conceptNid)
 	{
-		Optional<LatestVersion<DescriptionSememe<?>>> descriptionOptional = Optional.empty();
-		
-		if (RequestInfo.get().useFsn())
-		{
-			descriptionOptional = RequestInfo.get().getLanguageCoordinate().getFullySpecifiedDescription(
-				Get.sememeService().getDescriptionsForComponent(conceptNid).collect(Collectors.toList()), RequestInfo.get().getStampCoordinate());
-		}
-		
-		if (!descriptionOptional.isPresent())
-		{
-			descriptionOptional = RequestInfo.get().getLanguageCoordinate().getPreferredDescription(
-				Get.sememeService().getDescriptionsForComponent(conceptNid).collect(Collectors.toList()), RequestInfo.get().getStampCoordinate());
-		}
-		
-		if (descriptionOptional.isPresent())
-		{
-			if (descriptionOptional.get().contradictions().isPresent())
-			{
-				//Prefer active descriptions over inactive, if there was a contradiction (which means they tied the sort - have the same time)
-				//common for a replacement description to have the same time as the retired one.
-				if (descriptionOptional.get().value().getState() == State.ACTIVE)
-				{
-					return descriptionOptional.get().value().getText();
-				}
-				else
-				{
-					for (DescriptionSememe<?> ds : descriptionOptional.get().contradictions().get())
-					{
-						if (ds.getState() == State.ACTIVE)
-						{
-							return ds.getText();
-						}
-					}
-				}
-			}
-			return descriptionOptional.get().value().getText();
-		}
-		else
-		{
-			return null;
-		}
+		return DescriptionResolver.resolve(conceptNid);
 	}
 
 	/**
@@ -32,13 +32,11 @@ import javax.xml.bind.annotation.XmlTransient;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
-import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.component.concept.ConceptVersion;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeType;
 import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
-import gov.vha.isaac.ochre.api.tree.Tree;
 import gov.vha.isaac.ochre.impl.utility.Frills;
 import gov.vha.isaac.ochre.model.sememe.version.SememeVersionImpl;
 import gov.vha.isaac.rest.ExpandUtil;
@@ -47,6 +45,8 @@ import gov.vha.isaac.rest.api.data.Expandables;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.data.RestStampedVersion;
 import gov.vha.isaac.rest.api1.taxonomy.TaxonomyAPIs;
+import gov.vha.isaac.rest.cache.AssemblageMembershipIndex;
+import gov.vha.isaac.rest.cache.DefinedConceptIndex;
 import gov.vha.isaac.rest.session.RequestInfo;
 
 /**
@@ -109,6 +109,13 @@ public class RestConceptVersion implements Comparable<RestConceptVersion>
 	 */
 	@XmlElement
 	Integer parentCount;
+
+	/**
+	 * The number of distinct concepts below the concept in the taxonomy at this point in time - its children, their children, and so on.
+	 * Only returned when descendant counts are requested.
+	 */
+	@XmlElement
+	Integer descendantCount;
 	
 	/**
 	 * The concept sequences of the sememe assemblage concepts that this concept is a member of (there exists a sememe instance where the referencedComponent 
@@ -135,42 +142,60 @@ public class RestConceptVersion implements Comparable<RestConceptVersion>
 	{
 		conVersion = new RestStampedVersion(cv);
 		
-		Optional<SememeChronology<? extends SememeVersion<?>>> sememe = Get.sememeService().getSememesForComponentFromAssemblage(cv.getNid(), 
-				(RequestInfo.get().getStated() ? 
-						RequestInfo.get().getLogicCoordinate().getStatedAssemblageSequence() :
-							RequestInfo.get().getLogicCoordinate().getInferredAssemblageSequence())).findAny();
-
-		if (sememe.isPresent())
+		Optional<DefinedConceptIndex> definedConcepts = DefinedConceptIndex.get(RequestInfo.get().getStated());
+		if (definedConcepts.isPresent())
+		{
+			isConceptDefined = definedConcepts.get().isConceptDefined(cv.getChronology().getConceptSequence());
+		}
+		else
 		{
-			Optional<LatestVersion<LogicGraphSememe>> sv = ((SememeChronology)sememe.get()).getLatestVersion(LogicGraphSememe.class, RequestInfo.get().getStampCoordinate());
-			if (sv.isPresent())
+			//The index is still being built - read the logic graph
+			Optional<SememeChronology<? extends SememeVersion<?>>> sememe = Get.sememeService().getSememesForComponentFromAssemblage(cv.getNid(), 
+					(RequestInfo.get().getStated() ? 
+							RequestInfo.get().getLogicCoordinate().getStatedAssemblageSequence() :
+								RequestInfo.get().getLogicCoordinate().getInferredAssemblageSequence())).findAny();
+	
+			if (sememe.isPresent())
 			{
-				isConceptDefined = Frills.isConceptFullyDefined(sv.get().value());
+				Optional<LatestVersion<LogicGraphSememe>> sv = ((SememeChronology)sememe.get()).getLatestVersion(LogicGraphSememe.class, RequestInfo.get().getStampCoordinate());
+				if (sv.isPresent())
+				{
+					isConceptDefined = Frills.isConceptFullyDefined(sv.get().value());
+				}
 			}
 		}
 		
 		if (includeSememeMembership)
 		{
-			sememeMembership = new HashSet<>();
-			
-			Consumer<SememeChronology<? extends SememeVersion<?>>> consumer = new Consumer<SememeChronology<? extends SememeVersion<?>>>()
+			Optional<AssemblageMembershipIndex> membershipIndex = AssemblageMembershipIndex.get();
+			if (membershipIndex.isPresent())
 			{
-				@Override
-				public void accept(SememeChronology sc)
+				sememeMembership = membershipIndex.get().getAssemblages(cv.getChronology().getConceptSequence());
+			}
+			else
+			{
+				//The index is still being built - read the sememes of the concept
+				sememeMembership = new HashSet<>();
+			
+				Consumer<SememeChronology<? extends SememeVersion<?>>> consumer = new Consumer<SememeChronology<? extends SememeVersion<?>>>()
 				{
-					if (!sememeMembership.contains(sc.getAssemblageSequence()) 
-						&& sc.getSememeType() != SememeType.LOGIC_GRAPH 
-						&& sc.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
-						&& sc.getSememeType() != SememeType.DESCRIPTION 
-						&& sc.getLatestVersion(SememeVersionImpl.class, RequestInfo.get().getStampCoordinate()).isPresent()) 
+					@Override
+					public void accept(SememeChronology sc)
 					{
-						sememeMembership.add(sc.getAssemblageSequence());
+						if (!sememeMembership.contains(sc.getAssemblageSequence()) 
+							&& sc.getSememeType() != SememeType.LOGIC_GRAPH 
+							&& sc.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
+							&& sc.getSememeType() != SememeType.DESCRIPTION 
+							&& sc.getLatestVersion(SememeVersionImpl.class, RequestInfo.get().getStampCoordinate()).isPresent()) 
+						{
+							sememeMembership.add(sc.getAssemblageSequence());
+						}
 					}
-				}
-			};
+				};
 			
-			Stream<SememeChronology<? extends SememeVersion<?>>> sememes = Get.sememeService().getSememesForComponent(cv.getNid());
-			sememes.forEach(consumer);
+				Stream<SememeChronology<? extends SememeVersion<?>>> sememes = Get.sememeService().getSememesForComponent(cv.getNid());
+				sememes.forEach(consumer);
+			}
 		}
 		else
 		{
@@ -193,28 +218,22 @@ public class RestConceptVersion implements Comparable<RestConceptVersion>
 						.add(new Expandable(ExpandUtil.chronologyExpandable, RestPaths.conceptChronologyAppPathComponent + cv.getChronology().getConceptSequence()));
 				}
 			}
-			Tree tree = null;
-			if (includeParents || includeChildren || countChildren || countParents)
-			{
-				tree = Get.taxonomyService().getTaxonomyTree(RequestInfo.get().getTaxonomyCoordinate(stated));
-			}
-			
 			if (includeParents)
 			{
-				TaxonomyAPIs.addParents(cv.getChronology().getConceptSequence(), this, tree, countParents, 0, includeSememeMembership, new ConceptSequenceSet());
+				TaxonomyAPIs.addParents(cv.getChronology().getConceptSequence(), this, stated, countParents, false, 0, includeSememeMembership);
 			}
 			else if (countParents)
 			{
-				TaxonomyAPIs.countParents(cv.getChronology().getConceptSequence(), this, tree);
+				TaxonomyAPIs.countParents(cv.getChronology().getConceptSequence(), this, stated);
 			}
 			
 			if (includeChildren)
 			{
-				TaxonomyAPIs.addChildren(cv.getChronology().getConceptSequence(), this, tree, countChildren, countParents, 0, includeSememeMembership, new ConceptSequenceSet());
+				TaxonomyAPIs.addChildren(cv.getChronology().getConceptSequence(), this, stated, countChildren, countParents, false, 0, includeSememeMembership);
 			}
 			else if (countChildren)
 			{
-				TaxonomyAPIs.countChildren(cv.getChronology().getConceptSequence(), this, tree);
+				TaxonomyAPIs.countChildren(cv.getChronology().getConceptSequence(), this, stated);
 			}
 			
 			if (includeParents || includeChildren)
@@ -272,6 +291,11 @@ public class RestConceptVersion implements Comparable<RestConceptVersion>
 		this.parentCount = count;
 	}
 	
+	public void setDescendantCount(int count)
+	{
+		this.descendantCount = count;
+	}
+	
 	public void sortParentsAndChildren()
 	{
 		if (parents != null)
@@ -0,0 +1,74 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.concept;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import gov.vha.isaac.rest.api.data.Pagination;
+import gov.vha.isaac.rest.api.exceptions.RestException;
+
+/**
+ * {@link RestConceptVersionPage}
+ * 
+ * This class carries back one page of a (potentially very large) set of concepts, such as the children of a concept.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestConceptVersionPage
+{
+	/**
+	 * Links to retrieve the previous and next pages, and the cursor that continues from the end of this page
+	 */
+	@XmlElement
+	Pagination paginationData;
+
+	/**
+	 * The concepts of this page
+	 */
+	@XmlElement
+	public List<RestConceptVersion> results = null;
+
+	protected RestConceptVersionPage()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param pageNum The pagination page number >= 1 to return
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal approximate size of full set of which this page is a subset
+	 * @param baseUrl url used to construct example previous and next urls
+	 * @param nextCursor the cursor which continues from the end of this page, or null, if this is the last page
+	 * @param results the concepts of this page
+	 * @throws RestException 
+	 */
+	public RestConceptVersionPage(int pageNum, int maxPageSize, int approximateTotal, String baseUrl, String nextCursor, 
+			List<RestConceptVersion> results) throws RestException
+	{
+		this.results = results;
+		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, baseUrl, nextCursor);
+	}
+}
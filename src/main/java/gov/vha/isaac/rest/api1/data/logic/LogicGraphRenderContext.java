@@ -0,0 +1,196 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.logic;
+
+import java.util.HashMap;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotService;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
+import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.LogicCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.impl.utility.Frills;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
+import gov.vha.isaac.rest.ExpandUtil;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
+import gov.vha.isaac.rest.cache.DefinedConceptIndex;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link LogicGraphRenderContext}
+ *
+ * The state shared by all of the nodes of the logic graphs rendered for one request.  The coordinates and expand options are read
+ * from the {@link RequestInfo} once, a single concept snapshot is used for all descriptions, and the description, the defined 
+ * state and the (expanded) {@link RestConceptVersion} of each referenced concept are computed once, no matter how many nodes of 
+ * the graph refer to the concept.
+ * 
+ * Not thread safe - create one per request (or per graph), on the thread processing the request.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class LogicGraphRenderContext
+{
+	private static Logger log = LogManager.getLogger();
+
+	private final StampCoordinate stampCoordinate_;
+	private final LanguageCoordinate languageCoordinate_;
+	private final LogicCoordinate logicCoordinate_;
+	private final boolean stated_;
+	private final boolean expandVersions_;
+	private final boolean expandNodeUuids_;
+
+	private final Optional<DefinedConceptIndex> definedConcepts_;
+	private ConceptSnapshotService snapshot_;
+
+	private final HashMap<Integer, String> descriptions_ = new HashMap<>();
+	private final HashMap<Integer, Boolean> conceptDefined_ = new HashMap<>();
+	private final HashMap<Integer, RestConceptVersion> conceptVersions_ = new HashMap<>();
+
+	/**
+	 * Create a context for the coordinates and expand options of the current request
+	 */
+	public LogicGraphRenderContext()
+	{
+		RequestInfo requestInfo = RequestInfo.get();
+		stampCoordinate_ = requestInfo.getStampCoordinate();
+		languageCoordinate_ = requestInfo.getLanguageCoordinate();
+		logicCoordinate_ = requestInfo.getLogicCoordinate();
+		stated_ = requestInfo.getStated();
+		expandVersions_ = requestInfo.shouldExpand(ExpandUtil.versionExpandable);
+		expandNodeUuids_ = requestInfo.shouldExpand(ExpandUtil.logicNodeUuidsExpandable);
+		definedConcepts_ = DefinedConceptIndex.get(stated_);
+	}
+
+	/**
+	 * @return the concept snapshot of the coordinates of the request - created on first use, and reused thereafter
+	 */
+	public ConceptSnapshotService getSnapshot()
+	{
+		if (snapshot_ == null)
+		{
+			snapshot_ = Get.conceptService().getSnapshot(stampCoordinate_, languageCoordinate_);
+		}
+		return snapshot_;
+	}
+
+	/**
+	 * @return true, if the versions of the referenced concepts should be included
+	 */
+	public boolean expandVersions()
+	{
+		return expandVersions_;
+	}
+
+	/**
+	 * @return true, if the UUIDs of the logic nodes should be included
+	 */
+	public boolean expandNodeUuids()
+	{
+		return expandNodeUuids_;
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the description text of the concept, per the coordinates of the request
+	 */
+	public String getDescription(int conceptSequence)
+	{
+		if (descriptions_.containsKey(conceptSequence))
+		{
+			return descriptions_.get(conceptSequence);
+		}
+		String description = getSnapshot().conceptDescriptionText(conceptSequence);
+		descriptions_.put(conceptSequence, description);
+		return description;
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return true, if the logic graph (stated or inferred, per the request) of the concept is fully defined.  False if it is 
+	 * primitive, or if the logic graph couldn't be read.
+	 */
+	public boolean isConceptDefined(int conceptSequence)
+	{
+		Boolean defined = conceptDefined_.get(conceptSequence);
+		if (defined == null)
+		{
+			defined = readConceptDefined(conceptSequence);
+			conceptDefined_.put(conceptSequence, defined);
+		}
+		return defined;
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the version of the concept (with its chronology) if versions were requested to be expanded, otherwise null.
+	 * The same instance is returned for every node which refers to the concept.
+	 */
+	public RestConceptVersion getConceptVersion(int conceptSequence)
+	{
+		if (!expandVersions_)
+		{
+			return null;
+		}
+		RestConceptVersion version = conceptVersions_.get(conceptSequence);
+		if (version == null)
+		{
+			@SuppressWarnings("rawtypes")
+			ConceptChronology cc = Get.conceptService().getConcept(conceptSequence);
+			@SuppressWarnings("unchecked")
+			Optional<LatestVersion<ConceptVersionImpl>> olcv = cc.getLatestVersion(ConceptVersionImpl.class, stampCoordinate_);
+			version = new RestConceptVersion(olcv.get().value(), true);
+			conceptVersions_.put(conceptSequence, version);
+		}
+		return version;
+	}
+
+	private boolean readConceptDefined(int conceptSequence)
+	{
+		if (definedConcepts_.isPresent())
+		{
+			Boolean defined = definedConcepts_.get().isConceptDefined(conceptSequence);
+			if (defined != null)
+			{
+				return defined;
+			}
+		}
+		try
+		{
+			// TODO Fine tune this when data problems resolved
+			Optional<SememeChronology<? extends LogicGraphSememe<?>>> lgcOptional = Frills.getLogicGraphChronology(conceptSequence, stated_, 
+					stampCoordinate_, languageCoordinate_, logicCoordinate_);
+			Optional<LatestVersion<LogicGraphSememe<?>>> lgs = Frills.getLogicGraphVersion(lgcOptional.get(), stampCoordinate_);
+			return Frills.isConceptFullyDefined(lgs.get().value());
+		}
+		catch (Exception e)
+		{
+			log.warn("Problem getting isConceptDefined value (defaulting to false) for ConceptNode with {}", 
+					() -> Frills.getIdInfo(conceptSequence, stampCoordinate_, languageCoordinate_));
+			return false;
+		}
+	}
+}
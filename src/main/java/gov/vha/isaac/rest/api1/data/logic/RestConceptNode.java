@@ -19,26 +19,14 @@
 
 package gov.vha.isaac.rest.api1.data.logic;
 
-import java.util.Optional;
 import javax.xml.bind.annotation.XmlElement;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
-import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
-import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
-import gov.vha.isaac.ochre.impl.utility.Frills;
-import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.ochre.model.logic.node.external.ConceptNodeWithUuids;
 import gov.vha.isaac.ochre.model.logic.node.internal.ConceptNodeWithSequences;
-import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
-import gov.vha.isaac.rest.session.RequestInfo;
 
 /**
  * 
@@ -51,7 +39,6 @@ import gov.vha.isaac.rest.session.RequestInfo;
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
 public class RestConceptNode extends RestLogicNode {
-	private static Logger LOG = LogManager.getLogger();
 
 	/**
 	 * The int sequence of the concept referred to by this REST logic graph node
@@ -83,40 +70,25 @@ public class RestConceptNode extends RestLogicNode {
 
 	/**
 	 * @param conceptNodeWithSequences
+	 * @param context the render context of the graph
 	 */
-	public RestConceptNode(ConceptNodeWithSequences conceptNodeWithSequences) {
-		super(conceptNodeWithSequences);
-		finishSetup(conceptNodeWithSequences.getConceptSequence());
+	public RestConceptNode(ConceptNodeWithSequences conceptNodeWithSequences, LogicGraphRenderContext context) {
+		super(conceptNodeWithSequences, context);
+		finishSetup(conceptNodeWithSequences.getConceptSequence(), context);
 	}
 	/**
 	 * @param conceptNodeWithUuids
+	 * @param context the render context of the graph
 	 */
-	public RestConceptNode(ConceptNodeWithUuids conceptNodeWithUuids) {
-		super(conceptNodeWithUuids);
-		finishSetup(Get.identifierService().getConceptSequenceForUuids(conceptNodeWithUuids.getConceptUuid()));
+	public RestConceptNode(ConceptNodeWithUuids conceptNodeWithUuids, LogicGraphRenderContext context) {
+		super(conceptNodeWithUuids, context);
+		finishSetup(Get.identifierService().getConceptSequenceForUuids(conceptNodeWithUuids.getConceptUuid()), context);
 	}
 	
-	private void finishSetup(int conceptSequence) {
-	this.conceptSequence = conceptSequence;
-	conceptDescription = Get.conceptService().getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).conceptDescriptionText(conceptSequence);
-	try {
-		// TODO Fine tune this when data problems resolved
-		Optional<SememeChronology<? extends LogicGraphSememe<?>>> lgcOptional = Frills.getLogicGraphChronology(conceptSequence, RequestInfo.get().getStated(), RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate(), RequestInfo.get().getLogicCoordinate());
-		Optional<LatestVersion<LogicGraphSememe<?>>> lgs = Frills.getLogicGraphVersion(lgcOptional.get(), RequestInfo.get().getStampCoordinate());
-		isConceptDefined = Frills.isConceptFullyDefined(lgs.get().value());
-	} catch (Exception e) {
-		LOG.warn("Problem getting isConceptDefined value (defaulting to false) for ConceptNode with {}", () -> Frills.getIdInfo(conceptSequence, RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()));
-		isConceptDefined = false;
-	}
-
-	if (RequestInfo.get().shouldExpand(ExpandUtil.versionExpandable)) {
-		@SuppressWarnings("rawtypes")
-		ConceptChronology cc = Get.conceptService().getConcept(conceptSequence);
-		@SuppressWarnings("unchecked")
-		Optional<LatestVersion<ConceptVersionImpl>> olcv = cc.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-		conceptVersion = new RestConceptVersion(olcv.get().value(), true);
-	} else {
-		conceptVersion = null;
+	private void finishSetup(int conceptSequence, LogicGraphRenderContext context) {
+		this.conceptSequence = conceptSequence;
+		conceptDescription = context.getDescription(conceptSequence);
+		isConceptDefined = context.isConceptDefined(conceptSequence);
+		conceptVersion = context.getConceptVersion(conceptSequence);
 	}
-}
 }
\ No newline at end of file
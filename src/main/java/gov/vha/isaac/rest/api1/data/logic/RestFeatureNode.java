@@ -62,16 +62,18 @@ public class RestFeatureNode extends RestTypedConnectorNode {
 	}
 	/**
 	 * @param featureNodeWithSequences
+	 * @param context the render context of the graph
 	 */
-	public RestFeatureNode(FeatureNodeWithSequences featureNodeWithSequences) {
-		super(featureNodeWithSequences);
+	public RestFeatureNode(FeatureNodeWithSequences featureNodeWithSequences, LogicGraphRenderContext context) {
+		super(featureNodeWithSequences, context);
 		operator = new RestConcreteDomainOperatorsType(featureNodeWithSequences.getOperator());
 	}
 	/**
 	 * @param featureNodeWithUuids
+	 * @param context the render context of the graph
 	 */
-	public RestFeatureNode(FeatureNodeWithUuids featureNodeWithUuids) {
-		super(featureNodeWithUuids);
+	public RestFeatureNode(FeatureNodeWithUuids featureNodeWithUuids, LogicGraphRenderContext context) {
+		super(featureNodeWithUuids, context);
 		operator = new RestConcreteDomainOperatorsType(featureNodeWithUuids.getOperator());
 	}
 }
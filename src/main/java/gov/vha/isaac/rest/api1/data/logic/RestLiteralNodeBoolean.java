@@ -52,9 +52,10 @@ public class RestLiteralNodeBoolean extends RestLogicNode {
 	}
 	/**
 	 * @param literalNodeBoolean
+	 * @param context the render context of the graph
 	 */
-	public RestLiteralNodeBoolean(LiteralNodeBoolean literalNodeBoolean) {
-		super(literalNodeBoolean);
+	public RestLiteralNodeBoolean(LiteralNodeBoolean literalNodeBoolean, LogicGraphRenderContext context) {
+		super(literalNodeBoolean, context);
 		literalValue = literalNodeBoolean.getLiteralValue();
 	}
 }
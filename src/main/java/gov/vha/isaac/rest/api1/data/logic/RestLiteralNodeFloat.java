@@ -50,9 +50,10 @@ public class RestLiteralNodeFloat extends RestLogicNode {
 	}
 	/**
 	 * @param literalNodeFloat
+	 * @param context the render context of the graph
 	 */
-	public RestLiteralNodeFloat(LiteralNodeFloat literalNodeFloat) {
-		super(literalNodeFloat);
+	public RestLiteralNodeFloat(LiteralNodeFloat literalNodeFloat, LogicGraphRenderContext context) {
+		super(literalNodeFloat, context);
 		literalValue = literalNodeFloat.getLiteralValue();
 	}
 }
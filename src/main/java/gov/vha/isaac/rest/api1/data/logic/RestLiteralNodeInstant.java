@@ -52,9 +52,10 @@ public class RestLiteralNodeInstant extends RestLogicNode {
 	}
 	/**
 	 * @param literalNodeInstant
+	 * @param context the render context of the graph
 	 */
-	public RestLiteralNodeInstant(LiteralNodeInstant literalNodeInstant) {
-		super(literalNodeInstant);
+	public RestLiteralNodeInstant(LiteralNodeInstant literalNodeInstant, LogicGraphRenderContext context) {
+		super(literalNodeInstant, context);
 		literalValue = literalNodeInstant.getLiteralValue();
 	}
 }
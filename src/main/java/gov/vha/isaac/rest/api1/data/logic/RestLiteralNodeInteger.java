@@ -51,9 +51,10 @@ public class RestLiteralNodeInteger extends RestLogicNode {
 	}
 	/**
 	 * @param literalNodeInteger
+	 * @param context the render context of the graph
 	 */
-	public RestLiteralNodeInteger(LiteralNodeInteger literalNodeInteger) {
-		super(literalNodeInteger);
+	public RestLiteralNodeInteger(LiteralNodeInteger literalNodeInteger, LogicGraphRenderContext context) {
+		super(literalNodeInteger, context);
 		literalValue = literalNodeInteger.getLiteralValue();
 	}
 }
@@ -51,9 +51,10 @@ public class RestLiteralNodeString extends RestLogicNode {
 	}
 	/**
 	 * @param literalNodeString
+	 * @param context the render context of the graph
 	 */
-	public RestLiteralNodeString(LiteralNodeString literalNodeString) {
-		super(literalNodeString);
+	public RestLiteralNodeString(LiteralNodeString literalNodeString, LogicGraphRenderContext context) {
+		super(literalNodeString, context);
 		literalValue = literalNodeString.getLiteralValue();
 	}
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.logic;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
+import gov.vha.isaac.ochre.impl.utility.Frills;
+import gov.vha.isaac.rest.api1.data.RestStampedVersion;
+
+/**
+ * {@link RestLogicGraphDefinition}
+ *
+ * One element of a logic graph export - the latest version of the definition of one concept, with the graph in the
+ * {@link RestLogicGraphTable} form.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestLogicGraphDefinition
+{
+	private static Logger log = LogManager.getLogger();
+
+	/**
+	 * The sequence of the concept defined by the logic graph
+	 */
+	@XmlElement
+	int conceptSequence;
+
+	/**
+	 * The description of the concept defined by the logic graph
+	 */
+	@XmlElement
+	String conceptDescription;
+
+	/**
+	 * True, if the logic graph fully defines the concept - false if the concept is primitive
+	 */
+	@XmlElement
+	boolean isConceptDefined;
+
+	/**
+	 * The sequence of the logic graph sememe
+	 */
+	@XmlElement
+	int sememeSequence;
+
+	/**
+	 * The stamp of the version of the logic graph sememe
+	 */
+	@XmlElement
+	RestStampedVersion sememeVersion;
+
+	/**
+	 * The logic graph
+	 */
+	@XmlElement
+	RestLogicGraphTable logicGraphTable;
+
+	protected RestLogicGraphDefinition()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param lgs the version of the logic graph
+	 * @param context the render context - which may be shared by many definitions, to avoid reading the concepts they have in
+	 * common more than once
+	 */
+	public RestLogicGraphDefinition(LogicGraphSememe<?> lgs, LogicGraphRenderContext context)
+	{
+		conceptSequence = Get.identifierService().getConceptSequence(lgs.getReferencedComponentNid());
+		conceptDescription = context.getDescription(conceptSequence);
+		try
+		{
+			isConceptDefined = Frills.isConceptFullyDefined(lgs);
+		}
+		catch (Exception e)
+		{
+			log.warn("Problem getting isConceptDefined value (defaulting to false) for the logic graph of concept {}", conceptSequence);
+			isConceptDefined = false;
+		}
+		sememeSequence = lgs.getSememeSequence();
+		sememeVersion = new RestStampedVersion(lgs);
+		logicGraphTable = new RestLogicGraphTable(lgs.getLogicalExpression(), context);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestLogicGraphDefinition [conceptSequence=" + conceptSequence + ", conceptDescription=" + conceptDescription 
+				+ ", sememeSequence=" + sememeSequence + "]";
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.logic.LogicalExpression;
+import gov.vha.isaac.ochre.model.logic.ConcreteDomainOperators;
+import gov.vha.isaac.ochre.model.logic.node.AbstractLogicNode;
+import gov.vha.isaac.ochre.model.logic.node.LiteralNodeBoolean;
+import gov.vha.isaac.ochre.model.logic.node.LiteralNodeFloat;
+import gov.vha.isaac.ochre.model.logic.node.LiteralNodeInstant;
+import gov.vha.isaac.ochre.model.logic.node.LiteralNodeInteger;
+import gov.vha.isaac.ochre.model.logic.node.LiteralNodeString;
+import gov.vha.isaac.ochre.model.logic.node.external.ConceptNodeWithUuids;
+import gov.vha.isaac.ochre.model.logic.node.external.FeatureNodeWithUuids;
+import gov.vha.isaac.ochre.model.logic.node.external.TypedNodeWithUuids;
+import gov.vha.isaac.ochre.model.logic.node.internal.ConceptNodeWithSequences;
+import gov.vha.isaac.ochre.model.logic.node.internal.FeatureNodeWithSequences;
+import gov.vha.isaac.ochre.model.logic.node.internal.TypedNodeWithSequences;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
+import gov.vha.isaac.rest.api1.data.enumerations.RestConcreteDomainOperatorsType;
+import gov.vha.isaac.rest.api1.data.enumerations.RestNodeSemanticType;
+
+/**
+ * {@link RestLogicGraphTable}
+ *
+ * A compact, array encoded form of a logic graph - an alternative to the tree of {@link RestLogicNode}, which is much smaller, 
+ * and much cheaper for a client to parse.
+ * 
+ * The nodes are held in a table of parallel arrays, indexed by node.  The nodes are in breadth first order - the root is node 0,
+ * and the children of each node are contiguous, from firstChild to firstChild + childCount - 1.  Each concept referenced by the
+ * graph appears once in a dictionary, also held in parallel arrays (indexed by the payload of the nodes which reference it).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestLogicGraphTable
+{
+	/**
+	 * The semantic of each node - the enumId of the {@link RestNodeSemanticType}
+	 */
+	@XmlElement
+	int[] semantic;
+
+	/**
+	 * The payload of each node, which depends on its semantic:
+	 * CONCEPT, ROLE_SOME, ROLE_ALL and FEATURE nodes - the index, in the concept dictionary, of the concept (or the type concept)
+	 * LITERAL_BOOLEAN nodes - 1 for true, 0 for false
+	 * LITERAL_INTEGER nodes - the value
+	 * LITERAL_FLOAT, LITERAL_INSTANT and LITERAL_STRING nodes - the index of the value in literals
+	 * all other nodes - -1
+	 */
+	@XmlElement
+	int[] payload;
+
+	/**
+	 * The index of the first child of each node.  Meaningless, if the node has no children.
+	 */
+	@XmlElement
+	int[] firstChild;
+
+	/**
+	 * The number of children of each node
+	 */
+	@XmlElement
+	int[] childCount;
+
+	/**
+	 * The operator of each FEATURE node - the enumId of the {@link RestConcreteDomainOperatorsType} - and -1 for all other nodes.
+	 * Null, if the graph has no FEATURE nodes.
+	 */
+	@XmlElement
+	int[] operator;
+
+	/**
+	 * The values of the LITERAL_FLOAT, LITERAL_INSTANT (ISO-8601) and LITERAL_STRING nodes, as strings.  Null, if the graph
+	 * has no such nodes.
+	 */
+	@XmlElement
+	String[] literals;
+
+	/**
+	 * The UUID of each node.  Only populated when logicNodeUuids is expanded.
+	 */
+	@XmlElement
+	UUID[] nodeUuid;
+
+	/**
+	 * The concept dictionary - the sequence of each concept referenced by the graph
+	 */
+	@XmlElement
+	int[] conceptSequence;
+
+	/**
+	 * The description of each concept of the dictionary
+	 */
+	@XmlElement
+	String[] conceptDescription;
+
+	/**
+	 * Whether each concept of the dictionary is defined, rather than primitive.  Only evaluated for concepts referenced by 
+	 * CONCEPT nodes - false for concepts which are only referenced as the type of a ROLE or FEATURE node.
+	 */
+	@XmlElement
+	boolean[] conceptDefined;
+
+	/**
+	 * The version of each concept of the dictionary.  Only populated when version is expanded.
+	 */
+	@XmlElement
+	RestConceptVersion[] conceptVersion;
+
+	protected RestLogicGraphTable()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param le the logical expression to encode
+	 * @param context the render context of the graph
+	 */
+	public RestLogicGraphTable(LogicalExpression le, LogicGraphRenderContext context)
+	{
+		// Lay the nodes out breadth first, so the children of each node are contiguous
+		List<AbstractLogicNode> nodes = new ArrayList<>(le.getNodeCount());
+		nodes.add((AbstractLogicNode)le.getRoot());
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			nodes.addAll(Arrays.asList(nodes.get(i).getChildren()));
+		}
+
+		semantic = new int[nodes.size()];
+		payload = new int[nodes.size()];
+		firstChild = new int[nodes.size()];
+		childCount = new int[nodes.size()];
+
+		List<String> literals = new ArrayList<>();
+		HashMap<Integer, Integer> conceptIndexes = new HashMap<>();
+		List<Integer> concepts = new ArrayList<>();
+		List<Boolean> conceptDefined = new ArrayList<>();
+
+		int nextChild = 1;
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			AbstractLogicNode node = nodes.get(i);
+			semantic[i] = node.getNodeSemantic().ordinal();
+			firstChild[i] = nextChild;
+			childCount[i] = node.getChildren().length;
+			nextChild += childCount[i];
+
+			if (node instanceof ConceptNodeWithSequences || node instanceof ConceptNodeWithUuids)
+			{
+				int sequence = node instanceof ConceptNodeWithSequences ? ((ConceptNodeWithSequences)node).getConceptSequence()
+						: Get.identifierService().getConceptSequenceForUuids(((ConceptNodeWithUuids)node).getConceptUuid());
+				payload[i] = conceptIndex(sequence, conceptIndexes, concepts, conceptDefined);
+				conceptDefined.set(payload[i], context.isConceptDefined(sequence));
+			}
+			else if (node instanceof TypedNodeWithSequences || node instanceof TypedNodeWithUuids)
+			{
+				int sequence = node instanceof TypedNodeWithSequences ? ((TypedNodeWithSequences)node).getTypeConceptSequence()
+						: Get.identifierService().getConceptSequenceForUuids(((TypedNodeWithUuids)node).getTypeConceptUuid());
+				payload[i] = conceptIndex(sequence, conceptIndexes, concepts, conceptDefined);
+				if (node instanceof FeatureNodeWithSequences || node instanceof FeatureNodeWithUuids)
+				{
+					ConcreteDomainOperators operator = node instanceof FeatureNodeWithSequences ? ((FeatureNodeWithSequences)node).getOperator() 
+							: ((FeatureNodeWithUuids)node).getOperator();
+					if (this.operator == null)
+					{
+						this.operator = new int[nodes.size()];
+						Arrays.fill(this.operator, -1);
+					}
+					this.operator[i] = operator.ordinal();
+				}
+			}
+			else if (node instanceof LiteralNodeBoolean)
+			{
+				payload[i] = ((LiteralNodeBoolean)node).getLiteralValue() ? 1 : 0;
+			}
+			else if (node instanceof LiteralNodeInteger)
+			{
+				payload[i] = ((LiteralNodeInteger)node).getLiteralValue();
+			}
+			else if (node instanceof LiteralNodeFloat)
+			{
+				payload[i] = literals.size();
+				literals.add(Float.toString(((LiteralNodeFloat)node).getLiteralValue()));
+			}
+			else if (node instanceof LiteralNodeInstant)
+			{
+				payload[i] = literals.size();
+				literals.add(((LiteralNodeInstant)node).getLiteralValue().toString());
+			}
+			else if (node instanceof LiteralNodeString)
+			{
+				payload[i] = literals.size();
+				literals.add(((LiteralNodeString)node).getLiteralValue());
+			}
+			else
+			{
+				payload[i] = -1;
+			}
+		}
+
+		if (context.expandNodeUuids())
+		{
+			nodeUuid = new UUID[nodes.size()];
+			for (int i = 0; i < nodeUuid.length; i++)
+			{
+				nodeUuid[i] = nodes.get(i).getNodeUuidSetForDepth(1).first();
+			}
+		}
+
+		this.literals = literals.size() > 0 ? literals.toArray(new String[literals.size()]) : null;
+
+		conceptSequence = new int[concepts.size()];
+		conceptDescription = new String[concepts.size()];
+		this.conceptDefined = new boolean[concepts.size()];
+		for (int i = 0; i < concepts.size(); i++)
+		{
+			conceptSequence[i] = concepts.get(i);
+			conceptDescription[i] = context.getDescription(concepts.get(i));
+			this.conceptDefined[i] = conceptDefined.get(i);
+		}
+		if (context.expandVersions())
+		{
+			conceptVersion = new RestConceptVersion[concepts.size()];
+			for (int i = 0; i < concepts.size(); i++)
+			{
+				conceptVersion[i] = context.getConceptVersion(concepts.get(i));
+			}
+		}
+	}
+
+	private static int conceptIndex(int conceptSequence, HashMap<Integer, Integer> conceptIndexes, List<Integer> concepts, 
+			List<Boolean> conceptDefined)
+	{
+		Integer index = conceptIndexes.get(conceptSequence);
+		if (index == null)
+		{
+			index = concepts.size();
+			conceptIndexes.put(conceptSequence, index);
+			concepts.add(conceptSequence);
+			conceptDefined.add(Boolean.FALSE);
+		}
+		return index;
+	}
+}
@@ -30,9 +30,7 @@ import org.apache.logging.log4j.Logger;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import gov.vha.isaac.ochre.api.logic.LogicNode;
 import gov.vha.isaac.ochre.model.logic.node.AbstractLogicNode;
-import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.api1.data.enumerations.RestNodeSemanticType;
-import gov.vha.isaac.rest.session.RequestInfo;
 
 /**
  * 
@@ -104,9 +102,10 @@ public abstract class RestLogicNode {
 	/**
 	 * @param passedLogicNode constructor takes an AbstractLogicNode representing the
 	 * root of a logic graph tree or tree fragment and recursively creates and populates an equivalent RestLogicNode
+	 * @param context the render context of the graph, shared by all of its nodes
 	 */
-	public RestLogicNode(AbstractLogicNode passedLogicNode) {
-		if (RequestInfo.get().shouldExpand(ExpandUtil.logicNodeUuidsExpandable)) {
+	public RestLogicNode(AbstractLogicNode passedLogicNode, LogicGraphRenderContext context) {
+		if (context.expandNodeUuids()) {
 			nodeUuid = passedLogicNode.getNodeUuidSetForDepth(1).first();
 		} else {
 			nodeUuid = null;
@@ -116,15 +115,20 @@ public abstract class RestLogicNode {
 		AbstractLogicNode[] childrenOfPassedLogicNode = passedLogicNode.getChildren();
 		this.children = new ArrayList<>(childrenOfPassedLogicNode.length);
 
-		LOG.debug("Constructing " + getClassBaseName(this) + " " + this.nodeSemantic + " from " + passedLogicNode.toString() + " with {} child nodes", childrenOfPassedLogicNode.length);			
-		for (int i = 0; i < childrenOfPassedLogicNode.length; ++i) {
-			LOG.debug(childrenOfPassedLogicNode[i].getNodeSemantic() + " node #" + ((int)i + 1) + " of " + childrenOfPassedLogicNode.length + " (node index=" + childrenOfPassedLogicNode[i].getNodeIndex() + "): class=" + getClassBaseName(childrenOfPassedLogicNode[i]) + ", " + childrenOfPassedLogicNode[i]);
+		// The node descriptions are expensive (toString() of a node describes its subtree) so only build them when they will be logged
+		final boolean debug = LOG.isDebugEnabled();
+		if (debug) {
+			LOG.debug("Constructing " + getClassBaseName(this) + " " + this.nodeSemantic + " from " + passedLogicNode.toString() + " with {} child nodes", childrenOfPassedLogicNode.length);
 		}
 		for (int i = 0; i < childrenOfPassedLogicNode.length; ++i) {
 			LogicNode childOfPassedLogicNode = childrenOfPassedLogicNode[i];
-			LOG.debug(getClassBaseName(this) + " " + this.nodeSemantic + " constructing child node from " + childOfPassedLogicNode + " with {} child nodes", childOfPassedLogicNode.getChildren().length);			
-			RestLogicNode newRestNode = RestLogicNodeFactory.create(childOfPassedLogicNode);
-			LOG.debug(getClassBaseName(this) + " " + this.nodeSemantic + " ctor inserting new " + getClassBaseName(newRestNode) + " " + newRestNode.nodeSemantic + " (index=" + childOfPassedLogicNode.getNodeIndex() + ") into child list at index " + i);
+			if (debug) {
+				LOG.debug(childOfPassedLogicNode.getNodeSemantic() + " node #" + ((int)i + 1) + " of " + childrenOfPassedLogicNode.length + " (node index=" + childOfPassedLogicNode.getNodeIndex() + "): class=" + getClassBaseName(childOfPassedLogicNode) + ", " + childOfPassedLogicNode);
+			}
+			RestLogicNode newRestNode = RestLogicNodeFactory.create(childOfPassedLogicNode, context);
+			if (debug) {
+				LOG.debug(getClassBaseName(this) + " " + this.nodeSemantic + " ctor inserting new " + getClassBaseName(newRestNode) + " " + newRestNode.nodeSemantic + " (index=" + childOfPassedLogicNode.getNodeIndex() + ") into child list at index " + i);
+			}
 			children.add(newRestNode);
 		}
 	}
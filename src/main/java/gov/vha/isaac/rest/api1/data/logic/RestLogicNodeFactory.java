@@ -48,51 +48,65 @@ import gov.vha.isaac.ochre.model.logic.node.internal.RoleNodeSomeWithSequences;
  *
  * Static factory that constructs an appropriate RestLogicNode according to the type of passed LogicNode.
  * The RestLogicNode constructor is recursive, so each node returned will be a fully populated
- * logic graph tree or tree fragment.
+ * logic graph tree or tree fragment.  All of the nodes of the tree are built in a single pass, sharing one
+ * {@link LogicGraphRenderContext}.
  */
 public final class RestLogicNodeFactory {
 	private RestLogicNodeFactory() {}
 
+	/**
+	 * @param logicNode the root of a logic graph tree or tree fragment
+	 * @return the equivalent RestLogicNode tree, rendered with a new {@link LogicGraphRenderContext} for the current request
+	 */
 	public static RestLogicNode create(LogicNode logicNode) {
+		return create(logicNode, new LogicGraphRenderContext());
+	}
+
+	/**
+	 * @param logicNode the root of a logic graph tree or tree fragment
+	 * @param context the render context to share between all of the nodes of the tree
+	 * @return the equivalent RestLogicNode tree
+	 */
+	public static RestLogicNode create(LogicNode logicNode, LogicGraphRenderContext context) {
 
 		if (logicNode instanceof AndNode) 
-			return new RestUntypedConnectorNode((AndNode)logicNode);
+			return new RestUntypedConnectorNode((AndNode)logicNode, context);
 		else if (logicNode instanceof ConceptNodeWithSequences)
-			return new RestConceptNode((ConceptNodeWithSequences)logicNode);
+			return new RestConceptNode((ConceptNodeWithSequences)logicNode, context);
 		else if (logicNode instanceof ConceptNodeWithUuids)
-			return new RestConceptNode((ConceptNodeWithUuids)logicNode);
+			return new RestConceptNode((ConceptNodeWithUuids)logicNode, context);
 		else if (logicNode instanceof DisjointWithNode)
-			return new RestUntypedConnectorNode((DisjointWithNode)logicNode);
+			return new RestUntypedConnectorNode((DisjointWithNode)logicNode, context);
 		else if (logicNode instanceof FeatureNodeWithSequences)
-			return new RestFeatureNode((FeatureNodeWithSequences)logicNode);
+			return new RestFeatureNode((FeatureNodeWithSequences)logicNode, context);
 		else if (logicNode instanceof FeatureNodeWithUuids)
-			return new RestFeatureNode((FeatureNodeWithUuids)logicNode);
+			return new RestFeatureNode((FeatureNodeWithUuids)logicNode, context);
 		else if (logicNode instanceof LiteralNodeBoolean)
-			return new RestLiteralNodeBoolean((LiteralNodeBoolean)logicNode);
+			return new RestLiteralNodeBoolean((LiteralNodeBoolean)logicNode, context);
 		else if (logicNode instanceof LiteralNodeFloat)
-			return new RestLiteralNodeFloat((LiteralNodeFloat)logicNode);
+			return new RestLiteralNodeFloat((LiteralNodeFloat)logicNode, context);
 		else if (logicNode instanceof LiteralNodeInstant)
-			return new RestLiteralNodeInstant((LiteralNodeInstant)logicNode);
+			return new RestLiteralNodeInstant((LiteralNodeInstant)logicNode, context);
 		else if (logicNode instanceof LiteralNodeInteger)
-			return new RestLiteralNodeInteger((LiteralNodeInteger)logicNode);
+			return new RestLiteralNodeInteger((LiteralNodeInteger)logicNode, context);
 		else if (logicNode instanceof LiteralNodeString)
-			return new RestLiteralNodeString((LiteralNodeString)logicNode);
+			return new RestLiteralNodeString((LiteralNodeString)logicNode, context);
 		else if (logicNode instanceof NecessarySetNode)
-			return new RestUntypedConnectorNode((NecessarySetNode)logicNode);
+			return new RestUntypedConnectorNode((NecessarySetNode)logicNode, context);
 		else if (logicNode instanceof OrNode)
-			return new RestUntypedConnectorNode((OrNode)logicNode);
+			return new RestUntypedConnectorNode((OrNode)logicNode, context);
 		else if (logicNode instanceof RoleNodeAllWithSequences)
-			return new RestRoleNode((RoleNodeAllWithSequences)logicNode);
+			return new RestRoleNode((RoleNodeAllWithSequences)logicNode, context);
 		else if (logicNode instanceof RoleNodeAllWithUuids)
-			return new RestRoleNode((RoleNodeAllWithUuids)logicNode);
+			return new RestRoleNode((RoleNodeAllWithUuids)logicNode, context);
 		else if (logicNode instanceof RoleNodeSomeWithSequences)
-			return new RestRoleNode((RoleNodeSomeWithSequences)logicNode);
+			return new RestRoleNode((RoleNodeSomeWithSequences)logicNode, context);
 		else if (logicNode instanceof RoleNodeSomeWithUuids)
-			return new RestRoleNode((RoleNodeSomeWithUuids)logicNode);
+			return new RestRoleNode((RoleNodeSomeWithUuids)logicNode, context);
 		else if (logicNode instanceof RootNode)
-			return new RestUntypedConnectorNode((RootNode)logicNode);
+			return new RestUntypedConnectorNode((RootNode)logicNode, context);
 		else if (logicNode instanceof SufficientSetNode)
-			return new RestUntypedConnectorNode((SufficientSetNode)logicNode);
+			return new RestUntypedConnectorNode((SufficientSetNode)logicNode, context);
 		else
 			throw new IllegalArgumentException("create() Failed: Unsupported LogicNode " + logicNode.getClass().getName() + " " + logicNode);
 	}
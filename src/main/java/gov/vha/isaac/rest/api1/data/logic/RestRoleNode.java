@@ -50,27 +50,31 @@ public class RestRoleNode extends RestTypedConnectorNode {
 
 	/**
 	 * @param roleNodeSomeWithSequences
+	 * @param context the render context of the graph
 	 */
-	public RestRoleNode(RoleNodeSomeWithSequences roleNodeSomeWithSequences) {
-		super(roleNodeSomeWithSequences);
+	public RestRoleNode(RoleNodeSomeWithSequences roleNodeSomeWithSequences, LogicGraphRenderContext context) {
+		super(roleNodeSomeWithSequences, context);
 	}
 	/**
 	 * @param roleNodeSomeWithUuids
+	 * @param context the render context of the graph
 	 */
-	public RestRoleNode(RoleNodeSomeWithUuids roleNodeSomeWithUuids) {
-		super(roleNodeSomeWithUuids);
+	public RestRoleNode(RoleNodeSomeWithUuids roleNodeSomeWithUuids, LogicGraphRenderContext context) {
+		super(roleNodeSomeWithUuids, context);
 	}
 
 	/**
 	 * @param roleNodeAllWithSequences
+	 * @param context the render context of the graph
 	 */
-	public RestRoleNode(RoleNodeAllWithSequences roleNodeAllWithSequences) {
-		super(roleNodeAllWithSequences);
+	public RestRoleNode(RoleNodeAllWithSequences roleNodeAllWithSequences, LogicGraphRenderContext context) {
+		super(roleNodeAllWithSequences, context);
 	}
 	/**
 	 * @param roleNodeAllWithUuids
+	 * @param context the render context of the graph
 	 */
-	public RestRoleNode(RoleNodeAllWithUuids roleNodeAllWithUuids) {
-		super(roleNodeAllWithUuids);
+	public RestRoleNode(RoleNodeAllWithUuids roleNodeAllWithUuids, LogicGraphRenderContext context) {
+		super(roleNodeAllWithUuids, context);
 	}
 }
@@ -19,23 +19,15 @@
 
 package gov.vha.isaac.rest.api1.data.logic;
 
-import java.util.Optional;
-
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlSeeAlso;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import gov.vha.isaac.ochre.api.Get;
-import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
-import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.component.concept.ConceptSnapshotService;
-import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.ochre.model.logic.node.external.TypedNodeWithUuids;
 import gov.vha.isaac.ochre.model.logic.node.internal.TypedNodeWithSequences;
-import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
-import gov.vha.isaac.rest.session.RequestInfo;
 
 /**
  * 
@@ -81,40 +73,24 @@ public abstract class RestTypedConnectorNode extends RestLogicNode {
 	}
 	/**
 	 * @param typedNodeWithSequences
+	 * @param context the render context of the graph
 	 */
-	public RestTypedConnectorNode(TypedNodeWithSequences typedNodeWithSequences) {
-		super(typedNodeWithSequences);
-		connectorTypeConceptSequence = typedNodeWithSequences.getTypeConceptSequence();
-		connectorTypeConceptDescription = Get.conceptService().getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).conceptDescriptionText(connectorTypeConceptSequence);
-		
-		if (RequestInfo.get().shouldExpand(ExpandUtil.versionExpandable)) {
-			@SuppressWarnings("rawtypes")
-			ConceptChronology cc = Get.conceptService().getConcept(connectorTypeConceptSequence);
-			@SuppressWarnings("unchecked")
-			Optional<LatestVersion<ConceptVersionImpl>> olcv = cc.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-			connectorTypeConceptVersion = new RestConceptVersion(olcv.get().value(), true);
-		} else {
-			connectorTypeConceptVersion = null;
-		}
+	public RestTypedConnectorNode(TypedNodeWithSequences typedNodeWithSequences, LogicGraphRenderContext context) {
+		super(typedNodeWithSequences, context);
+		finishSetup(typedNodeWithSequences.getTypeConceptSequence(), context);
 	}
 	/**
 	 * @param typedNodeWithUuids
+	 * @param context the render context of the graph
 	 */
-	public RestTypedConnectorNode(TypedNodeWithUuids typedNodeWithUuids) {
-		super(typedNodeWithUuids);
-		connectorTypeConceptSequence = Get.identifierService().getConceptSequenceForUuids(typedNodeWithUuids.getTypeConceptUuid());
-
-		ConceptSnapshotService snapshotService = Get.conceptService().getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate());
-		connectorTypeConceptDescription = snapshotService.conceptDescriptionText(connectorTypeConceptSequence);
+	public RestTypedConnectorNode(TypedNodeWithUuids typedNodeWithUuids, LogicGraphRenderContext context) {
+		super(typedNodeWithUuids, context);
+		finishSetup(Get.identifierService().getConceptSequenceForUuids(typedNodeWithUuids.getTypeConceptUuid()), context);
+	}
 
-		if (RequestInfo.get().shouldExpand(ExpandUtil.versionExpandable)) {
-			@SuppressWarnings("rawtypes")
-			ConceptChronology cc = Get.conceptService().getConcept(connectorTypeConceptSequence);
-			@SuppressWarnings("unchecked")
-			Optional<LatestVersion<ConceptVersionImpl>> olcv = cc.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-			connectorTypeConceptVersion = new RestConceptVersion(olcv.get().value(), true);
-		} else {
-			connectorTypeConceptVersion = null;
-		}
+	private void finishSetup(int connectorTypeConceptSequence, LogicGraphRenderContext context) {
+		this.connectorTypeConceptSequence = connectorTypeConceptSequence;
+		connectorTypeConceptDescription = context.getDescription(connectorTypeConceptSequence);
+		connectorTypeConceptVersion = context.getConceptVersion(connectorTypeConceptSequence);
 	}
 }
@@ -49,38 +49,44 @@ public class RestUntypedConnectorNode extends RestLogicNode {
 
 	/**
 	 * @param rootNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(RootNode rootNode) {
-		super(rootNode);
+	public RestUntypedConnectorNode(RootNode rootNode, LogicGraphRenderContext context) {
+		super(rootNode, context);
 	}
 	/**
 	 * @param andNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(AndNode andNode) {
-		super(andNode);
+	public RestUntypedConnectorNode(AndNode andNode, LogicGraphRenderContext context) {
+		super(andNode, context);
 	}
 	/**
 	 * @param orNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(OrNode orNode) {
-		super(orNode);
+	public RestUntypedConnectorNode(OrNode orNode, LogicGraphRenderContext context) {
+		super(orNode, context);
 	}
 	/**
 	 * @param disjointWithNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(DisjointWithNode disjointWithNode) {
-		super(disjointWithNode);
+	public RestUntypedConnectorNode(DisjointWithNode disjointWithNode, LogicGraphRenderContext context) {
+		super(disjointWithNode, context);
 	}
 	/**
 	 * @param necessarySetNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(NecessarySetNode necessarySetNode) {
-		super(necessarySetNode);
+	public RestUntypedConnectorNode(NecessarySetNode necessarySetNode, LogicGraphRenderContext context) {
+		super(necessarySetNode, context);
 	}
 	/**
 	 * @param sufficientSetNode
+	 * @param context the render context of the graph
 	 */
-	public RestUntypedConnectorNode(SufficientSetNode sufficientSetNode) {
-		super(sufficientSetNode);
+	public RestUntypedConnectorNode(SufficientSetNode sufficientSetNode, LogicGraphRenderContext context) {
+		super(sufficientSetNode, context);
 	}
 }
\ No newline at end of file
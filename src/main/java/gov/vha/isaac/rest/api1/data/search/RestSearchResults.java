@@ -70,4 +70,19 @@ public class RestSearchResults
 		this.results = results;
 		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, baseUrl);
 	}
+
+	/**
+	 * @param pageNum The pagination page number >= 1 to return
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal approximate size of full matching set of which this paginated result is a subset
+	 * @param baseUrl url used to construct example previous and next urls
+	 * @param nextCursor serialized cursor that continues from the end of this page, or null, if there are no more results
+	 * @param results list of RestSearchResult
+	 * @throws RestException
+	 */
+	public RestSearchResults(int pageNum, int maxPageSize, int approximateTotal, String baseUrl, String nextCursor, List<RestSearchResult> results)
+			throws RestException {
+		this.results = results;
+		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, baseUrl, nextCursor);
+	}
 }
\ No newline at end of file
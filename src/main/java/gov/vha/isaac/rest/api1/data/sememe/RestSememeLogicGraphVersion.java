@@ -26,7 +26,6 @@ import org.apache.logging.log4j.Logger;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
-import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
 import gov.vha.isaac.ochre.api.logic.LogicalExpression;
 import gov.vha.isaac.ochre.impl.utility.Frills;
@@ -34,6 +33,8 @@ import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.api.data.Expandable;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
+import gov.vha.isaac.rest.api1.data.logic.LogicGraphRenderContext;
+import gov.vha.isaac.rest.api1.data.logic.RestLogicGraphTable;
 import gov.vha.isaac.rest.api1.data.logic.RestLogicNode;
 import gov.vha.isaac.rest.api1.data.logic.RestLogicNodeFactory;
 import gov.vha.isaac.rest.session.RequestInfo;
@@ -64,11 +65,19 @@ public class RestSememeLogicGraphVersion extends RestSememeVersion {
 	boolean isReferencedConceptDefined;
 
 	/**
-	 * The root node of the logical expression tree associated with the concept
+	 * The root node of the logical expression tree associated with the concept.  Null, if the logic graph was requested
+	 * as a table.
 	 */
 	@XmlElement
 	RestLogicNode rootLogicNode;
 
+	/**
+	 * The logical expression associated with the concept, as a flat table of nodes and a dictionary of the referenced concepts.
+	 * Only populated if the logic graph was requested as a table (in place of rootLogicNode).
+	 */
+	@XmlElement
+	RestLogicGraphTable logicGraphTable;
+
 	protected RestSememeLogicGraphVersion() {
 		// for Jaxb
 	}
@@ -95,14 +104,35 @@ public class RestSememeLogicGraphVersion extends RestSememeVersion {
 	 *             LogicGraphSememe
 	 */
 	public RestSememeLogicGraphVersion(LogicGraphSememe<?> lgs, boolean includeChronology) throws RestException {
+		this(lgs, includeChronology, false);
+	}
+
+	/**
+	 * @param lgs
+	 *            - A LogicGraphSememe
+	 * @param includeChronology
+	 *            - A boolean value indicating whether or not the
+	 *            RestSememeLogicGraphVersion should include a populated
+	 *            chronology
+	 * @param asTable
+	 *            - true to populate logicGraphTable, rather than the tree of
+	 *            rootLogicNode
+	 * @throws RestException
+	 */
+	public RestSememeLogicGraphVersion(LogicGraphSememe<?> lgs, boolean includeChronology, boolean asTable) throws RestException {
 		super();
 		setup(lgs, includeChronology, false, false, null);
 
-		referencedConceptDescription = Get.conceptService()
-				.getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).conceptDescriptionText(lgs.getReferencedComponentNid());
+		// One context for the whole graph, so the snapshot and the data of each referenced concept are only read once
+		LogicGraphRenderContext context = new LogicGraphRenderContext();
+		referencedConceptDescription = context.getSnapshot().conceptDescriptionText(lgs.getReferencedComponentNid());
 		LOG.debug("Constructing REST logic graph for {} from LogicalExpression\n{}",
 				() -> Frills.getIdInfo(lgs.getReferencedComponentNid(), RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).toString(), () -> lgs.getLogicalExpression().toString());
-		rootLogicNode = constructRootRestLogicNodeFromLogicGraphSememe(lgs);
+		if (asTable) {
+			logicGraphTable = new RestLogicGraphTable(lgs.getLogicalExpression(), context);
+		} else {
+			rootLogicNode = constructRootRestLogicNodeFromLogicGraphSememe(lgs, context);
+		}
 		try {
 			isReferencedConceptDefined = Frills.isConceptFullyDefined(lgs);
 		} catch (Exception e) {
@@ -121,29 +151,35 @@ public class RestSememeLogicGraphVersion extends RestSememeVersion {
 	/**
 	 * @param lgs
 	 *            - A LogicGraphSememe
+	 * @param context
+	 *            - The render context shared by all of the nodes of the graph
 	 * @return - A RestUntypedConnectorNode with NodeSemantic of DEFINITION_ROOT
 	 * 
 	 *         Constructs a RestUntypedConnectorNode with NodeSemantic of
 	 *         DEFINITION_ROOT which is the root of the logic graph tree
 	 */
-	private static RestLogicNode constructRootRestLogicNodeFromLogicGraphSememe(LogicGraphSememe<?> lgs) {
+	private static RestLogicNode constructRootRestLogicNodeFromLogicGraphSememe(LogicGraphSememe<?> lgs, LogicGraphRenderContext context) {
 		LogicalExpression le = lgs.getLogicalExpression();
 
-		LOG.debug("Processing LogicalExpression for concept {}", Get.conceptService().getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).conceptDescriptionText(le.getConceptSequence()));
-		LOG.debug(le.toString());
-		LOG.debug("Root is a {}", le.getRoot().getNodeSemantic().name());
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Processing LogicalExpression for concept {}", context.getDescription(le.getConceptSequence()));
+			LOG.debug(le.toString());
+			LOG.debug("Root is a {}", le.getRoot().getNodeSemantic().name());
+		}
 
 		if (le.getNodeCount() > 0) {
-			LOG.debug("Passed LogicalExpression with {} > 0 nodes", le.getNodeCount());
-			for (int i = 0; i < le.getNodeCount(); ++i) {
-				LOG.debug("{} node #{} of {}: class={}, {}", le.getNode(i).getNodeSemantic(), ((int) i + 1),
-						le.getNodeCount(), le.getNode(i).getClass().getName(), le.getNode(i));
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Passed LogicalExpression with {} > 0 nodes", le.getNodeCount());
+				for (int i = 0; i < le.getNodeCount(); ++i) {
+					LOG.debug("{} node #{} of {}: class={}, {}", le.getNode(i).getNodeSemantic(), ((int) i + 1),
+							le.getNodeCount(), le.getNode(i).getClass().getName(), le.getNode(i));
+				}
 			}
 
-			return RestLogicNodeFactory.create(le.getRoot());
+			return RestLogicNodeFactory.create(le.getRoot(), context);
 		} else { // (le.getNodeCount() <= 0) {
 			LOG.warn("Passed LogicalExpression with no children");
-			throw new RuntimeException("No children found in LogicalExpression for " + Get.conceptService().getSnapshot(RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate()).conceptDescriptionText(le.getConceptSequence()) + ": " + lgs);
+			throw new RuntimeException("No children found in LogicalExpression for " + context.getDescription(le.getConceptSequence()) + ": " + lgs);
 		}
 	}
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.systeminfo;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * {@link RestCacheStatistics}
+ *
+ * This class carries the usage counters of one of the caches maintained by the REST server
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestCacheStatistics
+{
+	/**
+	 * The name of the cache
+	 */
+	@XmlElement
+	public String name;
+
+	/**
+	 * The number of entries currently held by the cache
+	 */
+	@XmlElement
+	public long size;
+
+	/**
+	 * The maximum number of entries that the cache will hold
+	 */
+	@XmlElement
+	public long maxSize;
+
+	/**
+	 * The number of lookups that were answered from the cache since the server started
+	 */
+	@XmlElement
+	public long hits;
+
+	/**
+	 * The number of lookups that were not answered from the cache since the server started
+	 */
+	@XmlElement
+	public long misses;
+
+	/**
+	 * The number of entries removed from the cache since the server started - due to size limits, expiration, or commits
+	 */
+	@XmlElement
+	public long evictions;
+
+	protected RestCacheStatistics()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param name The name of the cache
+	 * @param size The number of entries currently held by the cache
+	 * @param maxSize The maximum number of entries that the cache will hold
+	 * @param hits The number of lookups answered from the cache
+	 * @param misses The number of lookups not answered from the cache
+	 * @param evictions The number of entries removed from the cache
+	 */
+	public RestCacheStatistics(String name, long size, long maxSize, long hits, long misses, long evictions)
+	{
+		this.name = name;
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestCacheStatistics [name=" + name + ", size=" + size + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + "]";
+	}
+}
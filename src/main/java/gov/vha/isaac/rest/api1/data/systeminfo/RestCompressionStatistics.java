@@ -0,0 +1,104 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.systeminfo;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * {@link RestCompressionStatistics}
+ *
+ * This class carries the counters of the response compression performed by the REST server - the time spent compressing is
+ * reported with the timing statistics, as 'compression'.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestCompressionStatistics
+{
+	/**
+	 * The minimum size, in bytes, of a response body that is compressed.  Negative, if compression is disabled.
+	 */
+	@XmlElement
+	public int minimumSize;
+
+	/**
+	 * The number of responses written, since the server started, to clients that accept a compressed encoding
+	 */
+	@XmlElement
+	public long responses;
+
+	/**
+	 * The number of those responses that were compressed (including those served from the cache of compressed bodies) - the rest 
+	 * were smaller than the minimum size
+	 */
+	@XmlElement
+	public long compressedResponses;
+
+	/**
+	 * The total size, in bytes, of the compressed responses before compression
+	 */
+	@XmlElement
+	public long uncompressedBytes;
+
+	/**
+	 * The total size, in bytes, of the compressed responses as written to the clients
+	 */
+	@XmlElement
+	public long compressedBytes;
+
+	/**
+	 * compressedBytes / uncompressedBytes - 0, if nothing was compressed
+	 */
+	@XmlElement
+	public double ratio;
+
+	protected RestCompressionStatistics()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param minimumSize The minimum size of a compressed response body
+	 * @param responses The number of responses written to clients that accept a compressed encoding
+	 * @param compressedResponses The number of those responses that were compressed
+	 * @param uncompressedBytes The total size of the compressed responses before compression
+	 * @param compressedBytes The total size of the compressed responses after compression
+	 */
+	public RestCompressionStatistics(int minimumSize, long responses, long compressedResponses, long uncompressedBytes, long compressedBytes)
+	{
+		this.minimumSize = minimumSize;
+		this.responses = responses;
+		this.compressedResponses = compressedResponses;
+		this.uncompressedBytes = uncompressedBytes;
+		this.compressedBytes = compressedBytes;
+		this.ratio = uncompressedBytes == 0 ? 0 : (double)compressedBytes / uncompressedBytes;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestCompressionStatistics [minimumSize=" + minimumSize + ", responses=" + responses + ", compressedResponses=" 
+				+ compressedResponses + ", uncompressedBytes=" + uncompressedBytes 
+				+ ", compressedBytes=" + compressedBytes + ", ratio=" + ratio + "]";
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.systeminfo;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * {@link RestResponseCacheStatistics}
+ *
+ * This class carries the usage counters of the cache of serialized responses, which is limited by the memory its entries use, 
+ * rather than by their number
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestResponseCacheStatistics
+{
+	/**
+	 * The number of responses currently held by the cache
+	 */
+	@XmlElement
+	public long entries;
+
+	/**
+	 * The total size, in bytes, of the responses currently held by the cache
+	 */
+	@XmlElement
+	public long bytes;
+
+	/**
+	 * The maximum total size, in bytes, of the responses the cache will hold.  0, if the cache is disabled.
+	 */
+	@XmlElement
+	public long maxBytes;
+
+	/**
+	 * True, if the responses are held outside of the java heap
+	 */
+	@XmlElement
+	public boolean offHeap;
+
+	/**
+	 * The number of requests that were answered from the cache since the server started
+	 */
+	@XmlElement
+	public long hits;
+
+	/**
+	 * The number of requests that were not answered from the cache since the server started
+	 */
+	@XmlElement
+	public long misses;
+
+	/**
+	 * The total size, in bytes, of the responses answered from the cache since the server started
+	 */
+	@XmlElement
+	public long hitBytes;
+
+	/**
+	 * The number of responses that were not cached since the server started - because they were too large, or because the cache 
+	 * was full, and they were not requested often enough to displace other responses
+	 */
+	@XmlElement
+	public long rejections;
+
+	/**
+	 * The number of responses removed from the cache since the server started - due to the size limit, or commits
+	 */
+	@XmlElement
+	public long evictions;
+
+	protected RestResponseCacheStatistics()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param entries The number of responses currently held by the cache
+	 * @param bytes The total size of the responses currently held by the cache
+	 * @param maxBytes The maximum total size of the responses the cache will hold
+	 * @param offHeap True, if the responses are held outside of the java heap
+	 * @param hits The number of requests answered from the cache
+	 * @param misses The number of requests not answered from the cache
+	 * @param hitBytes The total size of the responses answered from the cache
+	 * @param rejections The number of responses that were not cached
+	 * @param evictions The number of responses removed from the cache
+	 */
+	public RestResponseCacheStatistics(long entries, long bytes, long maxBytes, boolean offHeap, long hits, long misses, long hitBytes, 
+			long rejections, long evictions)
+	{
+		this.entries = entries;
+		this.bytes = bytes;
+		this.maxBytes = maxBytes;
+		this.offHeap = offHeap;
+		this.hits = hits;
+		this.misses = misses;
+		this.hitBytes = hitBytes;
+		this.rejections = rejections;
+		this.evictions = evictions;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestResponseCacheStatistics [entries=" + entries + ", bytes=" + bytes + ", maxBytes=" + maxBytes + ", offHeap=" + offHeap 
+				+ ", hits=" + hits + ", misses=" + misses + ", hitBytes=" + hitBytes + ", rejections=" + rejections + ", evictions=" 
+				+ evictions + "]";
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.data.systeminfo;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * {@link RestTimingStatistics}
+ *
+ * This class carries the accumulated timings of one of the operations timed by the REST server
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestTimingStatistics
+{
+	/**
+	 * The name of the timed operation
+	 */
+	@XmlElement
+	public String name;
+
+	/**
+	 * The number of times the operation was performed since the server started
+	 */
+	@XmlElement
+	public long count;
+
+	/**
+	 * The total time spent in the operation, in microseconds
+	 */
+	@XmlElement
+	public long totalMicros;
+
+	/**
+	 * The mean time of the operation, in microseconds
+	 */
+	@XmlElement
+	public double meanMicros;
+
+	/**
+	 * The longest time taken by a single operation, in microseconds
+	 */
+	@XmlElement
+	public long maxMicros;
+
+	protected RestTimingStatistics()
+	{
+		//For jaxb
+	}
+
+	/**
+	 * @param name The name of the timed operation
+	 * @param count The number of times the operation was performed
+	 * @param totalMicros The total time spent in the operation, in microseconds
+	 * @param maxMicros The longest time taken by a single operation, in microseconds
+	 */
+	public RestTimingStatistics(String name, long count, long totalMicros, long maxMicros)
+	{
+		this.name = name;
+		this.count = count;
+		this.totalMicros = totalMicros;
+		this.meanMicros = count == 0 ? 0 : (double)totalMicros / count;
+		this.maxMicros = maxMicros;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "RestTimingStatistics [name=" + name + ", count=" + count + ", totalMicros=" + totalMicros + ", meanMicros=" + meanMicros
+				+ ", maxMicros=" + maxMicros + "]";
+	}
+}
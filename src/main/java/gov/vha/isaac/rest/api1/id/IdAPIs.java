@@ -18,34 +18,60 @@
  */
 package gov.vha.isaac.rest.api1.id;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.webcohesion.enunciate.metadata.rs.TypeHint;
+
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronology;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.externalizable.OchreExternalizableObjectType;
 import gov.vha.isaac.ochre.api.util.NumericUtils;
 import gov.vha.isaac.ochre.api.util.UUIDUtil;
 import gov.vha.isaac.ochre.impl.utility.Frills;
+import gov.vha.isaac.rest.StreamingUtil;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
+import gov.vha.isaac.rest.api1.data.RestBatchResult;
 import gov.vha.isaac.rest.api1.data.RestId;
 import gov.vha.isaac.rest.api1.data.enumerations.IdType;
 import gov.vha.isaac.rest.api1.data.enumerations.RestSupportedIdType;
+import gov.vha.isaac.rest.cache.IdentifierIndex;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -56,6 +82,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 @Path(RestPaths.idAPIsPathComponent)
+@CommitVersioned
 public class IdAPIs
 {
 	private static Logger log = LogManager.getLogger();
@@ -78,9 +105,8 @@ public class IdAPIs
 	 * the translation may depend on the STAMP!
 	 * @throws RestException
 	 */
-	@SuppressWarnings("rawtypes")
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.idTranslateComponent + "{" + RequestParameters.id + "}")  
 	public RestId translateId(
 			@PathParam(RequestParameters.id) String id,
@@ -88,13 +114,185 @@ public class IdAPIs
 			@QueryParam("outputType") @DefaultValue("uuid") String outputType,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
-		IdType inputTypeFormat = IdType.parse(inputType).orElse(IdType.UUID);
+		return translate(id, IdType.parse(inputType).orElse(IdType.UUID), IdType.parse(outputType).orElse(IdType.UUID), 
+				RequestInfo.get().getStampCoordinate());
+	}
+
+	/**
+	 * Translate many IDs from one type to another.  This is equivalent to calling translateId for each id, but the ids are 
+	 * translated in one request, and the response is written as each id is translated.
+	 * 
+	 * An id which can't be translated doesn't fail the request - its element in the response carries the error instead.
+	 * 
+	 * @param ids The ids to translate.  Either a JSON array of ids (Content-Type application/json) or one id per line 
+	 * (Content-Type application/x-ndjson or text/plain).  Lines may be bare, or JSON strings.  The body is read as the response is 
+	 * written, so it may hold any number of ids - a JSON body which turns out to be malformed after the first id ends the response 
+	 * early, as the status has already been sent.
+	 * @param inputType - the type of all of the ids - see translateId.
+	 * @param outputType - the type to translate all of the ids to - see translateId.  Defaults to uuid.
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
+	 * 
+	 * @return A JSON array of RestBatchResult, one per requested id, in the order requested.  The result of each successful element 
+	 * is a RestId.  If the request Accepts application/x-ndjson, the elements are written one per line, rather than as an array.
+	 * @throws RestException if no ids are provided, or a JSON body isn't an array
+	 */
+	@POST
+	@Consumes({ MediaType.APPLICATION_JSON, StreamingUtil.NDJSON, MediaType.TEXT_PLAIN })
+	@Produces({ MediaType.APPLICATION_JSON, StreamingUtil.NDJSON })
+	@Path(RestPaths.idTranslateComponent + RestPaths.batchComponent)
+	@TypeHint(RestBatchResult[].class)
+	public Response translateIds(
+			InputStream ids,
+			@QueryParam("inputType") String inputType, 
+			@QueryParam("outputType") @DefaultValue("uuid") String outputType,
+			@QueryParam(RequestParameters.coordToken) String coordToken,
+			@Context HttpHeaders headers) throws RestException
+	{
+		final IdReader idReader = new IdReader(ids, headers.getMediaType());
+		if (!idReader.hasNext())
+		{
+			throw new RestException("The request body must contain one or more ids");
+		}
+		final Iterable<String> source = () -> idReader;
+
+		final IdType inputTypeFormat = IdType.parse(inputType).orElse(IdType.UUID);
+		final IdType outputTypeFormat = IdType.parse(outputType).orElse(IdType.UUID);
+		final StampCoordinate stampCoordinate = RequestInfo.get().getStampCoordinate();
+
+		Function<String, Object> converter = id ->
+		{
+			try
+			{
+				return RestBatchResult.success(id, translate(id, inputTypeFormat, outputTypeFormat, stampCoordinate));
+			}
+			catch (RestException e)
+			{
+				return RestBatchResult.failure(id, e.toString());
+			}
+			catch (RuntimeException e)
+			{
+				log.error("Unexpected error translating id " + id, e);
+				return RestBatchResult.failure(id, "Unexpected error: " + e.toString());
+			}
+		};
+
+		if (StreamingUtil.prefersNdjson(headers))
+		{
+			return Response.ok(StreamingUtil.ndjson(source, converter), StreamingUtil.NDJSON_TYPE).build();
+		}
+		return Response.ok(StreamingUtil.jsonArray(source, converter), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+	/**
+	 * Reads the ids of a batch request from its body, one at a time - either the elements of a JSON array, or the non blank lines of 
+	 * a text body.
+	 */
+	private static class IdReader implements Iterator<String>
+	{
+		private final JsonParser parser_;
+		private final BufferedReader lines_;
+		private String next_;
+
+		private IdReader(InputStream body, MediaType mediaType) throws RestException
+		{
+			try
+			{
+				if (mediaType == null || MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType))
+				{
+					parser_ = MyJacksonMapperConfig.getObjectMapper().getFactory().createParser(body);
+					lines_ = null;
+					JsonToken first = parser_.nextToken();
+					if (first != null && first != JsonToken.START_ARRAY)
+					{
+						throw new RestException("The request body must be a JSON array of ids");
+					}
+				}
+				else
+				{
+					String charset = mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+					parser_ = null;
+					lines_ = new BufferedReader(new InputStreamReader(body, charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset)));
+				}
+				next_ = read();
+			}
+			catch (IOException | IllegalArgumentException e)
+			{
+				throw new RestException("The request body must be a JSON array of ids, or one id per line");
+			}
+		}
+
+		/**
+		 * @return the next id, or null, at the end of the body
+		 */
+		private String read() throws IOException
+		{
+			if (parser_ != null)
+			{
+				JsonToken token = parser_.nextToken();
+				if (token == null || token == JsonToken.END_ARRAY)
+				{
+					return null;
+				}
+				if (token.isScalarValue())
+				{
+					return parser_.getText().trim();
+				}
+				// As with JsonNode.asText(), an object or array element is an empty id
+				parser_.skipChildren();
+				return "";
+			}
+			String line;
+			while ((line = lines_.readLine()) != null)
+			{
+				String id = line.trim();
+				if (id.length() > 1 && id.startsWith("\"") && id.endsWith("\""))
+				{
+					id = id.substring(1, id.length() - 1).trim();
+				}
+				if (id.length() > 0)
+				{
+					return id;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next_ != null;
+		}
+
+		@Override
+		public String next()
+		{
+			if (next_ == null)
+			{
+				throw new NoSuchElementException();
+			}
+			String id = next_;
+			try
+			{
+				next_ = read();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException("The ids of the request body could not be read", e);
+			}
+			return id;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static RestId translate(String id, IdType inputTypeFormat, IdType outputTypeFormat, StampCoordinate stampCoordinate) throws RestException
+	{
 		Optional<? extends ObjectChronology> object = Optional.empty();
 		switch (inputTypeFormat)
 		{
 			case VUID: {
 				long l = NumericUtils.getLong(id).orElse(0l);
-				Optional<Integer> nid = Frills.getNidForVUID(l);
+				Optional<IdentifierIndex> index = IdentifierIndex.get(IdentifierIndex.Type.VUID);
+				Optional<Integer> nid = index.isPresent() ? index.get().getNid(l) : Frills.getNidForVUID(l);
 				if (nid.isPresent())
 				{
 					object = Get.identifiedObjectService().getIdentifiedObjectChronology(nid.get());
@@ -103,7 +301,8 @@ public class IdAPIs
 			}
 			case SCTID: {
 				long l = NumericUtils.getLong(id).orElse(0l);
-				Optional<Integer> nid = Frills.getNidForSCTID(l);
+				Optional<IdentifierIndex> index = IdentifierIndex.get(IdentifierIndex.Type.SCTID);
+				Optional<Integer> nid = index.isPresent() ? index.get().getNid(l) : Frills.getNidForSCTID(l);
 				if (nid.isPresent())
 				{
 					object = Get.identifiedObjectService().getIdentifiedObjectChronology(nid.get());
@@ -143,13 +342,12 @@ public class IdAPIs
 		
 		if (object.isPresent())
 		{
-			IdType outputTypeFormat = IdType.parse(outputType).orElse(IdType.UUID);
 			switch (outputTypeFormat)
 			{
 				case NID:
 					return new RestId(outputTypeFormat, object.get().getNid() + "");
 				case SCTID:
-					return new RestId(outputTypeFormat, "" + Frills.getSctId(object.get().getNid(), RequestInfo.get().getStampCoordinate()).
+					return new RestId(outputTypeFormat, "" + currentId(IdentifierIndex.Type.SCTID, object.get().getNid(), stampCoordinate).
 						orElseThrow(() -> new RestException("No SCTID was found on the specified component")));
 				case CONCEPT_SEQUENCE:
 					if (object.get().getOchreObjectType() == OchreExternalizableObjectType.CONCEPT)
@@ -172,10 +370,10 @@ public class IdAPIs
 				case UUID:
 					return new RestId(outputTypeFormat, object.get().getPrimordialUuid().toString());
 				case VUID:
-					return new RestId(outputTypeFormat, "" + Frills.getVuId(object.get().getNid(), RequestInfo.get().getStampCoordinate()).
+					return new RestId(outputTypeFormat, "" + currentId(IdentifierIndex.Type.VUID, object.get().getNid(), stampCoordinate).
 							orElseThrow(() -> new RestException("No VUID was found on the specified component")));
 				default :
-					log.error("Design error - case not handled: " + inputTypeFormat);
+					log.error("Design error - case not handled: " + outputTypeFormat);
 					throw new RestException("Internal server error");
 			}
 		}
@@ -185,11 +383,21 @@ public class IdAPIs
 		}
 	}
 
+	private static Optional<Long> currentId(IdentifierIndex.Type type, int nid, StampCoordinate stampCoordinate)
+	{
+		Optional<IdentifierIndex> index = IdentifierIndex.get(type);
+		if (index.isPresent() && IdentifierIndex.covers(RequestInfo.get().getCoordinatesToken()))
+		{
+			return index.get().getId(nid);
+		}
+		return type == IdentifierIndex.Type.VUID ? Frills.getVuId(nid, stampCoordinate) : Frills.getSctId(nid, stampCoordinate);
+	}
+
 	/**
 	 * Enumerate the valid types for the system.  These values can be cached for the life of the connection.
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.idTypesComponent)  
 	public RestSupportedIdType[] getSupportedTypes() throws RestException
 	{
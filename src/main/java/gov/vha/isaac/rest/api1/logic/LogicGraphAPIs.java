@@ -20,17 +20,24 @@ package gov.vha.isaac.rest.api1.logic;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.webcohesion.enunciate.metadata.rs.TypeHint;
+
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronologyType;
@@ -43,10 +50,15 @@ import gov.vha.isaac.ochre.api.util.NumericUtils;
 import gov.vha.isaac.ochre.api.util.UUIDUtil;
 import gov.vha.isaac.ochre.impl.utility.Frills;
 import gov.vha.isaac.rest.ExpandUtil;
+import gov.vha.isaac.rest.StreamingUtil;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
+import gov.vha.isaac.rest.api1.data.logic.LogicGraphRenderContext;
+import gov.vha.isaac.rest.api1.data.logic.RestLogicGraphDefinition;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeChronology;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeLogicGraphVersion;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -57,6 +69,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  */
 
 @Path(RestPaths.logicGraphAPIsPathComponent)
+@CommitVersioned
 public class LogicGraphAPIs
 {	
 	private static Logger LOG = LogManager.getLogger();
@@ -67,18 +80,24 @@ public class LogicGraphAPIs
 	 * If no version parameter is specified, returns the latest version.
 	 * @param id - A UUID, nid, or concept sequence identifying the concept at the root of the logic graph
 	 * @param expand - comma separated list of fields to expand.  Supports 'chronology', 'logicNodeUuids' and/or 'version'
+	 * @param format - 'tree' (the default) to return the logic graph as a tree of RestLogicNode, in rootLogicNode.  'table' to return
+	 * it as a RestLogicGraphTable, in logicGraphTable - a flat table of nodes, with a dictionary of the referenced concepts, which is 
+	 * much smaller, and much faster for a client to parse.
 	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
 	 * @return the logic graph version object
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id + "}")
 	public RestSememeLogicGraphVersion getLogicGraphVersion(
 			@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.expand) String expand,
+			@QueryParam(RequestParameters.format) @DefaultValue(RequestParameters.formatTree) String format,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
+		boolean asTable = readFormat(format);
+
 		@SuppressWarnings("rawtypes")
 		//TODO bug - the methods below findLogicGraphChronology are relying on some default logic graph coordiantes...  Also seems to be a lot 
 		//of optional to not optional to optional stuff going on below this call... look at cleaning up.
@@ -94,11 +113,107 @@ public class LogicGraphAPIs
 		Optional<LatestVersion<LogicGraphSememe>> lgs = logicGraphSememeChronology.getLatestVersion(LogicGraphSememe.class, RequestInfo.get().getStampCoordinate());
 		if (lgs.isPresent())
 		{
-			return new RestSememeLogicGraphVersion(lgs.get().value(), RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable));
+			return new RestSememeLogicGraphVersion(lgs.get().value(), RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable), asTable);
 		}
 		throw new RestException(RequestParameters.id, id, "No concept was found");
 	}
 	
+	/**
+	 * Exports the latest version of every logic graph of the stated assemblage (or with stated=false, the inferred assemblage)
+	 * of the logic coordinate, in a single pass over the assemblage.  The definitions are written as they are built, ordered by 
+	 * the sequence of the concept they define, with each graph in the table form (as returned by the version API with format=table).
+	 * 
+	 * The definitions of a range of concept sequences may be requested with fromSequence and toSequence.  To resume an export which
+	 * was interrupted, pass the conceptSequence of the last definition received plus one as fromSequence.  To split an export 
+	 * across several clients, give each client a distinct range - the ranges needn't be aligned with the concept sequences in use.
+	 * 
+	 * @param fromSequence - the lowest concept sequence to export.  Defaults to 0.
+	 * @param toSequence - the concept sequence to stop at (exclusive).  Defaults to no limit.
+	 * @param expand - comma separated list of fields to expand.  Supports 'logicNodeUuids' and/or 'version'
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
+	 * @return a JSON array of RestLogicGraphDefinition - or newline delimited JSON (one RestLogicGraphDefinition per line, with 
+	 * no enclosing array) when application/x-ndjson is accepted
+	 * @throws RestException if the range is invalid
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, StreamingUtil.NDJSON })
+	@Path(RestPaths.exportComponent)
+	@TypeHint(RestLogicGraphDefinition[].class)
+	public Response exportLogicGraphs(
+			@QueryParam(RequestParameters.fromSequence) @DefaultValue("0") int fromSequence,
+			@QueryParam(RequestParameters.toSequence) Integer toSequence,
+			@QueryParam(RequestParameters.expand) String expand,
+			@QueryParam(RequestParameters.coordToken) String coordToken,
+			@Context HttpHeaders headers) throws RestException
+	{
+		if (fromSequence < 0)
+		{
+			throw new RestException(RequestParameters.fromSequence, fromSequence + "", "The fromSequence may not be negative");
+		}
+		int to = toSequence == null ? Integer.MAX_VALUE : toSequence.intValue();
+		if (to < fromSequence)
+		{
+			throw new RestException(RequestParameters.toSequence, to + "", "The toSequence may not be less than the fromSequence");
+		}
+
+		LogicCoordinate logicCoordinate = RequestInfo.get().getLogicCoordinate();
+		int assemblage = RequestInfo.get().getStated() ? logicCoordinate.getStatedAssemblageSequence() : logicCoordinate.getInferredAssemblageSequence();
+		int[] sememeSequences = LogicGraphExportIndex.getRange(assemblage, fromSequence, to);
+		LOG.debug("Exporting {} logic graphs of assemblage {}, concept sequences {} to {}", sememeSequences.length, assemblage, fromSequence, to);
+
+		// Built as the response is written - the RequestInfo is installed by StreamingUtil
+		final StampCoordinate stampCoordinate = RequestInfo.get().getStampCoordinate();
+		final ExportConverter converter = new ExportConverter();
+		Iterable<RestLogicGraphDefinition> source = () -> IntStream.of(sememeSequences)
+				.mapToObj(sememeSequence -> converter.convert(sememeSequence, stampCoordinate))
+				.filter(definition -> definition != null).iterator();
+
+		if (StreamingUtil.prefersNdjson(headers))
+		{
+			return Response.ok(StreamingUtil.ndjson(source, definition -> definition), StreamingUtil.NDJSON_TYPE).build();
+		}
+		return Response.ok(StreamingUtil.jsonArray(source, definition -> definition), MediaType.APPLICATION_JSON_TYPE).build();
+	}
+
+	/**
+	 * Converts the members of an export, sharing a render context between runs of definitions, so the concepts which are 
+	 * referenced by many definitions are only read once per run.  The context is replaced every {@link #CONTEXT_DEFINITIONS} 
+	 * definitions, so the memory it holds is bounded.
+	 */
+	private static class ExportConverter
+	{
+		private static final int CONTEXT_DEFINITIONS = 5000;
+
+		private LogicGraphRenderContext context_;
+		private int converted_;
+
+		private RestLogicGraphDefinition convert(int sememeSequence, StampCoordinate stampCoordinate)
+		{
+			@SuppressWarnings("rawtypes")
+			SememeChronology chronology = Get.sememeService().getSememe(sememeSequence);
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Optional<LatestVersion<LogicGraphSememe>> lgs = chronology.getLatestVersion(LogicGraphSememe.class, stampCoordinate);
+			if (!lgs.isPresent())
+			{
+				return null;
+			}
+			if (converted_++ % CONTEXT_DEFINITIONS == 0)
+			{
+				context_ = new LogicGraphRenderContext();
+			}
+			try
+			{
+				return new RestLogicGraphDefinition(lgs.get().value(), context_);
+			}
+			catch (RuntimeException e)
+			{
+				// Skip it, rather than abort the export - which would leave the client nowhere to resume from
+				LOG.warn("Omitting the logic graph sememe " + sememeSequence + " from an export, as it couldn't be read", e);
+				return null;
+			}
+		}
+	}
+
 	/**
 	 * Returns the chronology of a logic graph.
 	 * @param id - A UUID, nid, or concept sequence identifying the concept at the root of the logic graph
@@ -110,7 +225,7 @@ public class LogicGraphAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.chronologyComponent + "{" + RequestParameters.id + "}")
 	public RestSememeChronology getLogicGraphChronology(
 			@PathParam(RequestParameters.id) String id,
@@ -134,6 +249,26 @@ public class LogicGraphAPIs
 				);
 	}
 
+	/**
+	 * @param format the value of the format parameter
+	 * @return true, if the logic graph was requested as a table
+	 * @throws RestException if the format isn't one of the supported values
+	 */
+	private static boolean readFormat(String format) throws RestException
+	{
+		String trimmed = format == null ? RequestParameters.formatTree : format.trim();
+		if (trimmed.equalsIgnoreCase(RequestParameters.formatTable))
+		{
+			return true;
+		}
+		else if (trimmed.length() == 0 || trimmed.equalsIgnoreCase(RequestParameters.formatTree))
+		{
+			return false;
+		}
+		throw new RestException(RequestParameters.format, format, "The format must be '" + RequestParameters.formatTree + "' or '" 
+				+ RequestParameters.formatTable + "'");
+	}
+
 	/**
 	 * @param id - A UUID, nid, or concept sequence identifying the concept at the root of the logic graph
 	 * @param stated - A boolean specifying whether to use the stated definition of the logic graph 
@@ -0,0 +1,140 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.logic;
+
+import java.util.Arrays;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.rest.cache.CommitWatcher;
+import gov.vha.isaac.rest.cache.ConcurrentLruCache;
+
+/**
+ * {@link LogicGraphExportIndex}
+ *
+ * Supports exporting the logic graphs of an assemblage in ranges of concept sequence.  For each assemblage, we hold the sememe
+ * sequences of its members, sorted by the sequence of the concept each one defines - built in a single pass over the 
+ * assemblage, and shared by all of the exports (and ranges of an export) of the assemblage.  A range is then found with a binary 
+ * search, so a client may resume an export, or split it across several clients, without any member outside of its range being 
+ * read.
+ *
+ * Entries are keyed by the commit generation, and the cache is cleared whenever a commit is observed by the {@link CommitWatcher}.
+ * The cache only holds a cheap entry for each key - the pass over the assemblage is made by the first request to read the entry, 
+ * outside the lock of the cache, while concurrent requests for the same assemblage wait for it rather than making their own.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class LogicGraphExportIndex
+{
+	private static final ConcurrentLruCache<String, Entry> entries_ = new ConcurrentLruCache<>("logicGraphExport", 4);
+
+	static
+	{
+		CommitWatcher.addCommitListener(() -> entries_.clear());
+	}
+
+	private LogicGraphExportIndex()
+	{
+	}
+
+	private static class Entry
+	{
+		private final int assemblageSequence;
+		// Parallel arrays, ordered by concept sequence (and then by sememe sequence) - set together, once built
+		private volatile int[] conceptSequences;
+		private int[] sememeSequences;
+
+		private Entry(int assemblageSequence)
+		{
+			this.assemblageSequence = assemblageSequence;
+		}
+
+		private synchronized void build()
+		{
+			if (conceptSequences != null)
+			{
+				return;
+			}
+			int[] members = Get.sememeService().getSememeSequencesFromAssemblage(assemblageSequence).stream().toArray();
+			// Sort the (concept sequence, sememe sequence) pairs together, packed into longs - sequences are never negative
+			long[] pairs = new long[members.length];
+			for (int i = 0; i < members.length; i++)
+			{
+				int conceptSequence = Get.identifierService().getConceptSequence(Get.sememeService().getSememe(members[i]).getReferencedComponentNid());
+				pairs[i] = ((long)conceptSequence << 32) | (members[i] & 0xFFFFFFFFL);
+			}
+			Arrays.sort(pairs);
+
+			int[] concepts = new int[pairs.length];
+			int[] sememes = new int[pairs.length];
+			for (int i = 0; i < pairs.length; i++)
+			{
+				concepts[i] = (int)(pairs[i] >>> 32);
+				sememes[i] = (int)pairs[i];
+			}
+			sememeSequences = sememes;
+			// Written last - the volatile write publishes both arrays
+			conceptSequences = concepts;
+		}
+	}
+
+	private static Entry getEntry(int assemblageSequence)
+	{
+		Entry entry = entries_.computeIfAbsent(CommitWatcher.getGeneration() + "|" + assemblageSequence, k -> new Entry(assemblageSequence));
+		if (entry.conceptSequences == null)
+		{
+			entry.build();
+		}
+		return entry;
+	}
+
+	/**
+	 * @param assemblageSequence the logic graph assemblage to export
+	 * @param fromConceptSequence the lowest concept sequence to include
+	 * @param toConceptSequence the concept sequence to stop at (exclusive)
+	 * @return the sequences of the members of the assemblage which define concepts within the range, ordered by concept sequence
+	 */
+	static int[] getRange(int assemblageSequence, int fromConceptSequence, int toConceptSequence)
+	{
+		Entry entry = getEntry(assemblageSequence);
+		return Arrays.copyOfRange(entry.sememeSequences, firstPosition(entry.conceptSequences, fromConceptSequence), 
+				firstPosition(entry.conceptSequences, toConceptSequence));
+	}
+
+	/**
+	 * @return the position of the first element of the sorted array which is >= value
+	 */
+	private static int firstPosition(int[] sorted, int value)
+	{
+		int low = 0;
+		int high = sorted.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] < value)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -59,8 +59,10 @@ import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.data.search.RestSearchResult;
 import gov.vha.isaac.rest.api1.data.search.RestSearchResults;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
+import gov.vha.isaac.rest.tokens.CursorToken;
 
 /**
  * {@link SearchAPIs}
@@ -75,33 +77,89 @@ public class SearchAPIs
 	/**
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
 	 * @param pageNum The pagination page number >= 1 to return
+	 * @param cursor optional cursor from a previous page - if provided, takes precedence over pageNum
 	 * @return limit to pass to query to return requested subset without blowing out lucene.
 	 * If requested batch size is less than truncationThreshold then sets limit to truncationThreshold,
 	 * making total returned value for small searches more accurate
 	 */
-	private static int calculateQueryLimit(int maxPageSize, int pageNum) {
-		int requestedBatch = maxPageSize * pageNum;
+	private static int calculateQueryLimit(int maxPageSize, int pageNum, CursorToken cursor) {
+		int requestedBatch = (cursor == null ? maxPageSize * pageNum : cursor.getOffset() + maxPageSize);
 		int calculatedLimit = (int) Math.round(requestedBatch * 1.5);
 		int truncationThreshold = 1000;
 		return 	requestedBatch < truncationThreshold ? truncationThreshold : calculatedLimit;
 	}
-	
+
+	/**
+	 * @param cursor the serialized cursor passed in by the caller, if any
+	 * @param restPath the rest path of the query - which uniquely identifies the query, for the purpose of validating the cursor
+	 * @return the parsed cursor, or null, if no cursor was provided
+	 * @throws RestException if the cursor is invalid, or came from a different query
+	 */
+	private static CursorToken readCursor(String cursor, String restPath) throws RestException {
+		if (StringUtils.isBlank(cursor)) {
+			return null;
+		}
+		return new CursorToken(cursor.trim(), restPath);
+	}
+
+	/**
+	 * Locate the position in the (fresh) result set at which the page following the cursor begins.
+	 * If the result set hasn't changed since the cursor was issued, this is simply the offset of the cursor.  If it has changed,
+	 * we resume just after the last result that was returned, if it is still present, otherwise, at the first result which ranks
+	 * below the last result that was returned.
+	 */
+	private static int findCursorStart(List<SearchResult> ochreSearchResults, CursorToken cursor) {
+		int last = cursor.getOffset() - 1;
+		if (last >= 0 && last < ochreSearchResults.size() && ochreSearchResults.get(last).getNid() == cursor.getLastNid()) {
+			return cursor.getOffset();
+		}
+		log.debug("Result set changed since cursor {} was issued, relocating", cursor);
+		for (int i = 0; i < ochreSearchResults.size(); i++) {
+			if (ochreSearchResults.get(i).getNid() == cursor.getLastNid()) {
+				return i + 1;
+			}
+		}
+		for (int i = 0; i < ochreSearchResults.size(); i++) {
+			if (ochreSearchResults.get(i).getScore() < cursor.getLastScore()) {
+				return i;
+			}
+		}
+		return ochreSearchResults.size();
+	}
+
 	private RestSearchResults getRestSearchResultsFromOchreSearchResults(
 			List<SearchResult> ochreSearchResults,
 			int pageNum,
 			int maxPageSize,
 			String restPath,
-			String query) throws RestException {
+			String query,
+			CursorToken cursor,
+			int limit) throws RestException {
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+
+		int start = (cursor == null ? Math.min((pageNum - 1) * maxPageSize, ochreSearchResults.size()) : findCursorStart(ochreSearchResults, cursor));
+		int end = Math.min(start + maxPageSize, ochreSearchResults.size());
+		if (cursor != null && maxPageSize > 0) {
+			pageNum = (start / maxPageSize) + 1;
+		}
+
 		List<RestSearchResult> restSearchResults = new ArrayList<>();
-		for (SearchResult ochreSearchResult : PaginationUtils.getResults(ochreSearchResults, pageNum, maxPageSize)) {
+		for (SearchResult ochreSearchResult : ochreSearchResults.subList(start, end)) {
 			Optional<RestSearchResult> restSearchResultOptional = createRestSearchResult(ochreSearchResult, query);
 			if (restSearchResultOptional.isPresent()) {
 				restSearchResults.add(restSearchResultOptional.get());
 			}
 		}
-		
+
+		//Hand back a cursor if there are (or, since the query was truncated at the limit, may be) more results past this page
+		String nextCursor = null;
+		if (end > start && (end < ochreSearchResults.size() || ochreSearchResults.size() >= limit)) {
+			SearchResult lastResult = ochreSearchResults.get(end - 1);
+			nextCursor = new CursorToken(restPath, end, lastResult.getNid(), lastResult.getScore()).getSerialized();
+		}
+
 		return new RestSearchResults(
-				pageNum, maxPageSize, ochreSearchResults.size(), restPath,
+				pageNum, maxPageSize, ochreSearchResults.size(), restPath, nextCursor,
 				restSearchResults);
 	}
 	/**
@@ -114,6 +172,8 @@ public class SearchAPIs
 	 * a concept identifier of a concept that was a LEAF child of the concept 'description type in source terminology (ISAAC)'
 	 * @param pageNum The pagination page number >= 1 to return
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor (optional) the nextCursor value from the paginationData of a previous page of this query.  When provided, the returned 
+	 * page continues from the end of the previous page, and pageNum is ignored.
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results.  Supports:
 	 *  - 'uuid' (return the UUID of the matched sememe, rather than just the nid)
 	 *  - 'referencedConcept' (return the conceptChronology  of the nearest concept found by following the referencedComponent references 
@@ -130,7 +190,7 @@ public class SearchAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.descriptionsComponent)
 	public RestSearchResults descriptionSearch(
 			@QueryParam(RequestParameters.query) String query,
@@ -138,6 +198,7 @@ public class SearchAPIs
 			@QueryParam(RequestParameters.extendedDescriptionTypeId) String extendedDescriptionTypeId,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -157,7 +218,11 @@ public class SearchAPIs
 		
 		final String restPath =
 				RestPaths.searchAppPathComponent + RestPaths.descriptionsComponent
-				+ "?" + RequestParameters.query + "=" + query;
+				+ "?" + RequestParameters.query + "=" + query
+				+ (dt != null ? "&" + RequestParameters.descriptionType + "=" + descriptionType.trim() : "")
+				+ (StringUtils.isNotBlank(extendedDescriptionTypeId) ? "&" + RequestParameters.extendedDescriptionTypeId + "=" 
+						+ extendedDescriptionTypeId.trim() : "");
+		CursorToken cursorToken = readCursor(cursor, restPath);
 		if (StringUtils.isNotBlank(extendedDescriptionTypeId))
 		{
 			if (dt != null)
@@ -166,25 +231,34 @@ public class SearchAPIs
 			}
 			UUID extendedDescTypeSequence = Util.convertToConceptUUID(extendedDescriptionTypeId);
 			
-			int limit = calculateQueryLimit(maxPageSize, pageNum);
-			List<SearchResult> ochreSearchResults = LookupService.get().getService(DescriptionIndexer.class).query(query, extendedDescTypeSequence, limit, null);
+			int limit = calculateQueryLimit(maxPageSize, pageNum, cursorToken);
+			List<SearchResult> ochreSearchResults = SearchResultCache.getInstance().get(
+					SearchResultCache.key(RestPaths.descriptionsComponent, query, extendedDescTypeSequence.toString(), null), limit,
+					() -> LookupService.get().getService(DescriptionIndexer.class).query(query, extendedDescTypeSequence, limit, null));
 			
 			return getRestSearchResultsFromOchreSearchResults(
 					ochreSearchResults,
 					pageNum,
 					maxPageSize,
 					restPath,
-					query);
+					query,
+					cursorToken,
+					limit);
 		} else {
 			log.debug("Performing description search for '" + query + "'");
-			int limit = calculateQueryLimit(maxPageSize, pageNum);
-			List<SearchResult> ochreSearchResults = LookupService.get().getService(DescriptionIndexer.class).query(query, dt, limit, null);
+			int limit = calculateQueryLimit(maxPageSize, pageNum, cursorToken);
+			final LuceneDescriptionType descType = dt;
+			List<SearchResult> ochreSearchResults = SearchResultCache.getInstance().get(
+					SearchResultCache.key(RestPaths.descriptionsComponent, query, dt == null ? null : dt.name(), null), limit,
+					() -> LookupService.get().getService(DescriptionIndexer.class).query(query, descType, limit, null));
 			return getRestSearchResultsFromOchreSearchResults(
 					ochreSearchResults,
 					pageNum,
 					maxPageSize,
 					restPath,
-					query);
+					query,
+					cursorToken,
+					limit);
 		}
 	}
 	
@@ -204,6 +278,8 @@ public class SearchAPIs
 	 * @param query The query to be evaluated. 
 	 * @param pageNum The pagination page number >= 1 to return
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor (optional) the nextCursor value from the paginationData of a previous page of this query.  When provided, the returned 
+	 * page continues from the end of the previous page, and pageNum is ignored.
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results.  Supports:
 	 *  - 'uuid' (return the UUID of the matched sememe, rather than just the nid)
 	 *  - 'referencedConcept' (return the conceptChronology  of the nearest concept found by following the referencedComponent references 
@@ -220,12 +296,13 @@ public class SearchAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.prefixComponent)
 	public RestSearchResults prefixSearch(
 			@QueryParam(RequestParameters.query) String query,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -235,15 +312,19 @@ public class SearchAPIs
 		}
 		log.debug("Performing prefix search for '" + query + "'");
 		
-		int limit = calculateQueryLimit(maxPageSize, pageNum);
-		List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexServiceBI.class, "description indexer").query(query, true, null, limit, null);
 		String restPath = RestPaths.searchAppPathComponent + RestPaths.prefixComponent + "?" + RequestParameters.query + "=" + query;
+		CursorToken cursorToken = readCursor(cursor, restPath);
+		int limit = calculateQueryLimit(maxPageSize, pageNum, cursorToken);
+		List<SearchResult> ochreSearchResults = SearchResultCache.getInstance().get(SearchResultCache.key(RestPaths.prefixComponent, query, null, null), limit,
+				() -> LookupService.get().getService(IndexServiceBI.class, "description indexer").query(query, true, null, limit, null));
 		return getRestSearchResultsFromOchreSearchResults(
 				ochreSearchResults,
 				pageNum,
 				maxPageSize,
 				restPath,
-				query);
+				query,
+				cursorToken,
+				limit);
 	}
 	
 	@SuppressWarnings({ "unchecked", "rawtypes" })
@@ -323,6 +404,8 @@ public class SearchAPIs
 	 * has multiple columns of data.
 	 * @param pageNum The pagination page number >= 1 to return
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor (optional) the nextCursor value from the paginationData of a previous page of this query.  When provided, the returned 
+	 * page continues from the end of the previous page, and pageNum is ignored.
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results.  Supports:
 	 *  - 'uuid' (return the UUID of the matched sememe, rather than just the nid)
 	 *  - 'referencedConcept' (return the conceptChronology  of the nearest concept found by following the referencedComponent references 
@@ -339,7 +422,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.sememesComponent)
 	public RestSearchResults sememeSearch(
 			@QueryParam(RequestParameters.query) String query,
@@ -348,6 +431,7 @@ public class SearchAPIs
 			@QueryParam(RequestParameters.dynamicSememeColumns) Set<Integer> dynamicSememeColumns, 
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -372,7 +456,8 @@ public class SearchAPIs
 			throw new RestException("The query must contain at least one character");
 		}
 
-		int limit = calculateQueryLimit(maxPageSize, pageNum);
+		CursorToken cursorToken = readCursor(cursor, restPath);
+		int limit = calculateQueryLimit(maxPageSize, pageNum, cursorToken);
 	
 		if (treatAsString != null && treatAsString.booleanValue())
 		{
@@ -388,7 +473,9 @@ public class SearchAPIs
 					pageNum,
 					maxPageSize,
 					restPath,
-					query);
+					query,
+					cursorToken,
+					limit);
 		}
 		else
 		{
@@ -406,7 +493,9 @@ public class SearchAPIs
 						pageNum,
 						maxPageSize,
 						restPath,
-						query);
+						query,
+						cursorToken,
+						limit);
 			}
 			catch (NumberFormatException e)
 			{
@@ -424,7 +513,9 @@ public class SearchAPIs
 							pageNum,
 							maxPageSize,
 							restPath,
-							query);
+							query,
+							cursorToken,
+							limit);
 				}
 				catch (NumberFormatException e1)
 				{
@@ -438,7 +529,9 @@ public class SearchAPIs
 							pageNum,
 							maxPageSize,
 							restPath,
-							query);
+							query,
+							cursorToken,
+							limit);
 				}
 			}
 			finally
@@ -479,6 +572,8 @@ public class SearchAPIs
 	 * has multiple columns of data.
 	 * @param pageNum The pagination page number >= 1 to return
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor (optional) the nextCursor value from the paginationData of a previous page of this query.  When provided, the returned 
+	 * page continues from the end of the previous page, and pageNum is ignored.
 	 * @param start The index within the full result set from which to begin this result set
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results.  Supports:
 	 *  - 'uuid' (return the UUID of the matched sememe, rather than just the nid)
@@ -496,7 +591,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.byReferencedComponentComponent)
 	public RestSearchResults nidReferences(
 			@QueryParam(RequestParameters.nid) int nid,
@@ -504,6 +599,7 @@ public class SearchAPIs
 			@QueryParam(RequestParameters.dynamicSememeColumns) Set<Integer> dynamicSememeColumns,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -521,7 +617,8 @@ public class SearchAPIs
 		}
 		restPath += (! StringUtils.isBlank(expand) ? ("&" + RequestParameters.expand + "=" + expand) : "");
 		
-		int limit = calculateQueryLimit(maxPageSize, pageNum);
+		CursorToken cursorToken = readCursor(cursor, restPath);
+		int limit = calculateQueryLimit(maxPageSize, pageNum, cursorToken);
 
 		List<SearchResult> ochreSearchResults = LookupService.get().getService(SememeIndexer.class)
 				.query(nid, processAssemblageRestrictions(sememeAssemblageId), toArray(dynamicSememeColumns), limit, null);
@@ -530,7 +627,9 @@ public class SearchAPIs
 				pageNum,
 				maxPageSize,
 				restPath,
-				nid + "");
+				nid + "",
+				cursorToken,
+				limit);
 	}
 	
 	private Integer[] processAssemblageRestrictions(Set<String> sememeAssemblageIds) throws RestException
@@ -0,0 +1,217 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.search;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.index.SearchResult;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.cache.CommitWatcher;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link SearchResultCache}
+ *
+ * A bounded cache of the raw (nid / score) results of lucene queries, so that clients which repeatedly issue the same
+ * query - type-ahead, or paging through a result set - don't re-execute the query each time.  Entries are evicted in LRU
+ * order once the cache is full, expire after {@link #TTL_MILLIS}, and are discarded on commit.
+ *
+ * An entry that was produced by a query with a smaller limit than the current request can only be used if the query returned
+ * fewer hits than its limit (in which case, it holds the complete result set).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class SearchResultCache
+{
+	private static Logger log = LogManager.getLogger();
+
+	static final int MAX_ENTRIES = 512;
+	static final long TTL_MILLIS = 5 * 60 * 1000;
+
+	private static final SearchResultCache instance_ = new SearchResultCache(System::currentTimeMillis, CommitWatcher::getGeneration);
+
+	static
+	{
+		CommitWatcher.addCommitListener(() -> instance_.clear());
+	}
+
+	// The sources of the time, and of the commit generation
+	private final LongSupplier clock_;
+	private final LongSupplier generation_;
+
+	private final AtomicLong hits_ = new AtomicLong();
+	private final AtomicLong misses_ = new AtomicLong();
+	private final AtomicLong evictions_ = new AtomicLong();
+
+	private final Map<String, Entry> cache_ = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75F, true)
+	{
+		private static final long serialVersionUID = -4619325427633087331L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+		{
+			if (size() > MAX_ENTRIES)
+			{
+				evictions_.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * @param clock the source of the time, in milliseconds
+	 * @param generation the source of the commit generation (see {@link CommitWatcher#getGeneration()})
+	 */
+	SearchResultCache(LongSupplier clock, LongSupplier generation)
+	{
+		clock_ = clock;
+		generation_ = generation;
+	}
+
+	/**
+	 * @return the cache used by the search APIs, which is cleared on commit
+	 */
+	public static SearchResultCache getInstance()
+	{
+		return instance_;
+	}
+
+	private class Entry
+	{
+		private final List<SearchResult> results;
+		private final int limit;
+		private final long generation;
+		private final long created = clock_.getAsLong();
+
+		private Entry(List<SearchResult> results, int limit, long generation)
+		{
+			this.results = results;
+			this.limit = limit;
+			this.generation = generation;
+		}
+
+		private boolean isExpired()
+		{
+			return generation != generation_.getAsLong() || (clock_.getAsLong() - created) > TTL_MILLIS;
+		}
+
+		private boolean satisfies(int requestedLimit)
+		{
+			return limit >= requestedLimit || results.size() < limit;
+		}
+	}
+
+	/**
+	 * @param endpoint the name of the API being served
+	 * @param query the query text
+	 * @param descriptionType the description type restriction, if any
+	 * @param assemblageRestrictions the assemblage restrictions, if any
+	 * @return a key for the query, which includes the coordinates of the current request
+	 */
+	static String key(String endpoint, String query, String descriptionType, Integer[] assemblageRestrictions)
+	{
+		return key(endpoint, query, descriptionType, assemblageRestrictions, RequestInfo.get().getCoordinatesToken().getSerialized());
+	}
+
+	/**
+	 * As {@link #key(String, String, String, Integer[])}, for the given coordinates
+	 * @param coordinates the serialized coordinates token of the request
+	 */
+	static String key(String endpoint, String query, String descriptionType, Integer[] assemblageRestrictions, String coordinates)
+	{
+		Integer[] assemblages = assemblageRestrictions == null ? null : assemblageRestrictions.clone();
+		if (assemblages != null)
+		{
+			Arrays.sort(assemblages);
+		}
+		return endpoint + "|" + query + "|" + descriptionType + "|" + Arrays.toString(assemblages) + "|" + coordinates;
+	}
+
+	/**
+	 * Return the cached results for the query, if available, otherwise, execute the query and cache the result.
+	 * @param key the key produced by {@link #key(String, String, String, Integer[])}
+	 * @param limit the limit the caller needs the query executed with
+	 * @param query the query to execute on a cache miss
+	 * @return the results of the query - which may contain more than limit results, if the cached query was executed with a larger limit.
+	 */
+	List<SearchResult> get(String key, int limit, Supplier<List<SearchResult>> query)
+	{
+		Entry entry;
+		synchronized (cache_)
+		{
+			entry = cache_.get(key);
+			if (entry != null && entry.isExpired())
+			{
+				cache_.remove(key);
+				evictions_.incrementAndGet();
+				entry = null;
+			}
+		}
+		if (entry != null && entry.satisfies(limit))
+		{
+			hits_.incrementAndGet();
+			return entry.results;
+		}
+
+		misses_.incrementAndGet();
+		long generation = generation_.getAsLong();
+		List<SearchResult> results = query.get();
+		synchronized (cache_)
+		{
+			cache_.put(key, new Entry(results, limit, generation));
+		}
+		return results;
+	}
+
+	/**
+	 * Discard all cached results
+	 */
+	public void clear()
+	{
+		synchronized (cache_)
+		{
+			log.debug("Clearing {} cached search results", cache_.size());
+			evictions_.addAndGet(cache_.size());
+			cache_.clear();
+		}
+	}
+
+	/**
+	 * @return the usage statistics of the cache
+	 */
+	public RestCacheStatistics getStatistics()
+	{
+		int size;
+		synchronized (cache_)
+		{
+			size = cache_.size();
+		}
+		return new RestCacheStatistics("searchResults", size, MAX_ENTRIES, hits_.get(), misses_.get(), evictions_.get());
+	}
+}
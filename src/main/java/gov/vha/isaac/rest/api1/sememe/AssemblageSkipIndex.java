@@ -0,0 +1,179 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.sememe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.model.sememe.version.SememeVersionImpl;
+import gov.vha.isaac.rest.cache.CommitWatcher;
+
+/**
+ * {@link AssemblageSkipIndex}
+ *
+ * Supports paging through the members of one or more assemblages without resolving the latest version of every member that
+ * precedes the requested page.
+ *
+ * For each (assemblage(s), stamp coordinate) combination, we hold the sorted sememe sequences of the assemblage, and a list of
+ * checkpoints.  Checkpoint i is the position in the sorted sequence array at which a scan may begin, knowing that exactly
+ * i * {@link #CHECKPOINT_INTERVAL} sememes with a version visible on the stamp coordinate precede it.  Checkpoints are recorded
+ * as a side effect of serving pages, so once a deep page has been requested, any other page up to that depth only requires
+ * the resolution of at most {@link #CHECKPOINT_INTERVAL} - 1 versions beyond the page itself.
+ *
+ * Entries are discarded whenever a commit is observed by the {@link CommitWatcher}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class AssemblageSkipIndex
+{
+	static final int CHECKPOINT_INTERVAL = 128;
+	private static final int MAX_ENTRIES = 16;
+
+	private static final Map<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75F, true)
+	{
+		private static final long serialVersionUID = 6023116287366427016L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private AssemblageSkipIndex()
+	{
+	}
+
+	private static class Entry
+	{
+		private final long generation;
+		private final int[] sememeSequences;
+		private int[] checkpoints = new int[16];
+		private int checkpointCount = 1;  //checkpoint 0 is always position 0
+
+		private Entry(long generation, int[] sememeSequences)
+		{
+			this.generation = generation;
+			this.sememeSequences = sememeSequences;
+		}
+
+		private synchronized int getCheckpointPosition(int checkpoint)
+		{
+			return checkpoints[checkpoint];
+		}
+
+		private synchronized int getCheckpointCount()
+		{
+			return checkpointCount;
+		}
+
+		private synchronized void recordCheckpoint(int checkpoint, int position)
+		{
+			//Checkpoints are only ever appended in order - any thread that gets here computed the same value
+			if (checkpoint == checkpointCount)
+			{
+				if (checkpointCount == checkpoints.length)
+				{
+					checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+				}
+				checkpoints[checkpointCount++] = position;
+			}
+		}
+	}
+
+	private static Entry getEntry(Set<Integer> assemblageSequences, String stampCoordinateKey)
+	{
+		TreeSet<Integer> sorted = new TreeSet<>(assemblageSequences);
+		String key = sorted.toString() + "@" + stampCoordinateKey;
+		long generation = CommitWatcher.getGeneration();
+
+		synchronized (ENTRIES)
+		{
+			Entry entry = ENTRIES.get(key);
+			if (entry != null && entry.generation == generation)
+			{
+				return entry;
+			}
+		}
+
+		int[] sequences = sorted.stream()
+				.flatMapToInt(assemblageSequence -> Get.sememeService().getSememeSequencesFromAssemblage(assemblageSequence).stream())
+				.sorted().distinct().toArray();
+		Entry entry = new Entry(generation, sequences);
+
+		synchronized (ENTRIES)
+		{
+			ENTRIES.put(key, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * @param assemblageSequences the assemblage(s) to page through
+	 * @param stampCoordinate the coordinate to resolve the latest versions with
+	 * @param stampCoordinateKey a key which uniquely identifies the stamp coordinate
+	 * @param pageNum the page number, starting at 1
+	 * @param maxPageSize the max page size
+	 * @return the requested page of latest sememe versions, and the approximate total number of members
+	 */
+	static SememeAPIs.SememeVersions getPage(Set<Integer> assemblageSequences, StampCoordinate stampCoordinate, String stampCoordinateKey,
+			int pageNum, int maxPageSize)
+	{
+		Entry entry = getEntry(assemblageSequences, stampCoordinateKey);
+
+		long offset = (long)(pageNum - 1) * maxPageSize;
+		int checkpoint = (int)Math.min(offset / CHECKPOINT_INTERVAL, entry.getCheckpointCount() - 1);
+		int position = entry.getCheckpointPosition(checkpoint);
+		long visible = (long)checkpoint * CHECKPOINT_INTERVAL;
+
+		List<SememeVersion<?>> results = new ArrayList<>(Math.min(maxPageSize, 1024));
+		while (position < entry.sememeSequences.length && results.size() < maxPageSize)
+		{
+			@SuppressWarnings("rawtypes")
+			SememeChronology chronology = Get.sememeService().getSememe(entry.sememeSequences[position]);
+			@SuppressWarnings("unchecked")
+			Optional<LatestVersion<SememeVersion<?>>> sv = chronology.getLatestVersion(SememeVersionImpl.class, stampCoordinate);
+			if (sv.isPresent())
+			{
+				if (visible % CHECKPOINT_INTERVAL == 0)
+				{
+					entry.recordCheckpoint((int)(visible / CHECKPOINT_INTERVAL), position);
+				}
+				if (visible >= offset)
+				{
+					results.add(sv.get().value());
+				}
+				visible++;
+			}
+			position++;
+		}
+		return new SememeAPIs.SememeVersions(results, entry.sememeSequences.length);
+	}
+}
@@ -19,15 +19,21 @@
 package gov.vha.isaac.rest.api1.sememe;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
-import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -35,10 +41,16 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.webcohesion.enunciate.metadata.rs.TypeHint;
+
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.collections.SememeSequenceSet;
@@ -46,12 +58,15 @@ import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
 import gov.vha.isaac.ochre.api.component.sememe.SememeService;
 import gov.vha.isaac.ochre.api.component.sememe.SememeType;
 import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.util.NumericUtils;
 import gov.vha.isaac.ochre.api.util.UUIDUtil;
 import gov.vha.isaac.ochre.model.sememe.DynamicSememeUsageDescriptionImpl;
 import gov.vha.isaac.ochre.model.sememe.version.SememeVersionImpl;
 import gov.vha.isaac.rest.ExpandUtil;
+import gov.vha.isaac.rest.StreamingUtil;
 import gov.vha.isaac.rest.Util;
+import gov.vha.isaac.rest.api.data.Pagination;
 import gov.vha.isaac.rest.api.data.PaginationUtils;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
@@ -60,6 +75,8 @@ import gov.vha.isaac.rest.api1.data.sememe.RestDynamicSememeDefinition;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersions;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeChronology;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersion;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 
@@ -70,6 +87,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 @Path(RestPaths.sememeAPIsPathComponent)
+@CommitVersioned
 public class SememeAPIs
 {
 	/**
@@ -84,7 +102,7 @@ public class SememeAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.sememeTypeComponent + "{" + RequestParameters.id + "}")  
 	public RestSememeType getSememeType(
 			@PathParam(RequestParameters.id) String id,
@@ -144,7 +162,7 @@ public class SememeAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.chronologyComponent + "{" + RequestParameters.id + "}")
 	public RestSememeChronology getSememeChronology(
 			@PathParam(RequestParameters.id) String id,
@@ -178,7 +196,7 @@ public class SememeAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id +"}")
 	public RestSememeVersion getSememeVersion(
 			@PathParam(RequestParameters.id) String id,
@@ -250,18 +268,22 @@ public class SememeAPIs
 	 * may be obtained by a separate (prior) call to getCoordinatesToken().
 	 * 
 	 * @return the sememe version objects.  Note that the returned type here - RestSememeVersion is actually an abstract base class, 
-	 * the actual return type will be either a RestDynamicSememeVersion or a RestSememeDescriptionVersion.
+	 * the actual return type will be either a RestDynamicSememeVersion or a RestSememeDescriptionVersion.  The results are wrapped in a
+	 * RestSememeVersions, unless application/x-ndjson is accepted - in which case, the results of the page are returned as newline 
+	 * delimited JSON, one RestSememeVersion per line.  JSON results are written as they are built.
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE, StreamingUtil.NDJSON })
 	@Path(RestPaths.byAssemblageComponent + "{" + RequestParameters.id +  "}")
-	public RestSememeVersions getByAssemblage(
+	@TypeHint(RestSememeVersions.class)
+	public Response getByAssemblage(
 			@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
 			@QueryParam(RequestParameters.expand) String expand,
-			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
+			@QueryParam(RequestParameters.coordToken) String coordToken,
+			@Context HttpHeaders headers) throws RestException
 	{
 		HashSet<Integer> temp = new HashSet<>();
 		temp.add(Util.convertToConceptSequence(id));
@@ -274,25 +296,30 @@ public class SememeAPIs
 						pageNum,
 						maxPageSize,
 						true);
-		//TODO this is a performance mess, we only should be converting the page of results they want.
-		List<RestSememeVersion> restSememeVersions = new ArrayList<>();
-		for (SememeVersion<?> sv : versions.getValues()) {
-			restSememeVersions.add(
-					RestSememeVersion.buildRestSememeVersion(sv,
-							RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable),
-							RequestInfo.get().shouldExpand(ExpandUtil.nestedSememesExpandable),
-							RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails)));
+		Function<SememeVersion<?>, RestSememeVersion> converter = restSememeVersionConverter(
+				RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable),
+				RequestInfo.get().shouldExpand(ExpandUtil.nestedSememesExpandable),
+				RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails));
+
+		if (StreamingUtil.prefersEntity(headers))
+		{
+			RestSememeVersions results =
+					new RestSememeVersions(
+							pageNum,
+							maxPageSize,
+							versions.getTotal(),
+							RestPaths.sememeByAssemblageAppPathComponent + id,
+							versions.getValues().stream().map(converter).collect(Collectors.toList())
+							);
+			return Response.ok(results).build();
 		}
-		RestSememeVersions results =
-				new RestSememeVersions(
-						pageNum,
-						maxPageSize,
-						versions.getTotal(),
-						RestPaths.sememeByAssemblageAppPathComponent + id,
-						restSememeVersions
-						);
-		
-		return results;
+		if (StreamingUtil.prefersNdjson(headers))
+		{
+			return Response.ok(StreamingUtil.ndjson(versions.getValues(), sv -> converter.apply(sv)), StreamingUtil.NDJSON_TYPE).build();
+		}
+		Pagination paginationData = new Pagination(pageNum, maxPageSize, versions.getTotal(), RestPaths.sememeByAssemblageAppPathComponent + id);
+		return Response.ok(StreamingUtil.page(RestSememeVersions.class, paginationData, versions.getValues(), sv -> converter.apply(sv)), 
+				MediaType.APPLICATION_JSON_TYPE).build();
 	}
 	
 	/**
@@ -312,18 +339,22 @@ public class SememeAPIs
 	 * obtained by a separate (prior) call to getCoordinatesToken().
 	 * 
 	 * @return the sememe version objects.  Note that the returned type here - RestSememeVersion is actually an abstract base class, 
-	 * the actual return type will be either a RestDynamicSememeVersion or a RestSememeDescriptionVersion.
+	 * the actual return type will be either a RestDynamicSememeVersion or a RestSememeDescriptionVersion.  JSON results are written
+	 * as they are built, and are returned as newline delimited JSON, one RestSememeVersion per line, when application/x-ndjson is
+	 * accepted.
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE, StreamingUtil.NDJSON })
 	@Path(RestPaths.byReferencedComponentComponent + "{" + RequestParameters.id + "}")
-	public List<RestSememeVersion> getByReferencedComponent(
+	@TypeHint(RestSememeVersion[].class)
+	public Response getByReferencedComponent(
 			@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.assemblage) Set<String> assemblage, 
 			@QueryParam(RequestParameters.includeDescriptions) @DefaultValue("false") String includeDescriptions,
 			@QueryParam(RequestParameters.expand) String expand,
-			@QueryParam(RequestParameters.coordToken) String coordToken) 
+			@QueryParam(RequestParameters.coordToken) String coordToken,
+			@Context HttpHeaders headers) 
 			throws RestException
 	{
 		HashSet<Integer> allowedAssemblages = new HashSet<>();
@@ -332,14 +363,23 @@ public class SememeAPIs
 			allowedAssemblages.add(Util.convertToConceptSequence(a));
 		}
 
-		return
-				get(
-						id,
-						allowedAssemblages,
-						RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable),
-						RequestInfo.get().shouldExpand(ExpandUtil.nestedSememesExpandable),
-						RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails),
-						Boolean.parseBoolean(includeDescriptions.trim()));
+		Stream<SememeVersion<?>> versions = getLatestVersions(id, allowedAssemblages, Boolean.parseBoolean(includeDescriptions.trim()));
+		Function<SememeVersion<?>, RestSememeVersion> converter = restSememeVersionConverter(
+				RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable),
+				RequestInfo.get().shouldExpand(ExpandUtil.nestedSememesExpandable),
+				RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails));
+
+		if (StreamingUtil.prefersEntity(headers))
+		{
+			List<RestSememeVersion> results = versions.map(converter).collect(Collectors.toList());
+			return Response.ok(new GenericEntity<List<RestSememeVersion>>(results) {}).build();
+		}
+		Iterable<SememeVersion<?>> source = versions::iterator;
+		if (StreamingUtil.prefersNdjson(headers))
+		{
+			return Response.ok(StreamingUtil.ndjson(source, sv -> converter.apply(sv)), StreamingUtil.NDJSON_TYPE).build();
+		}
+		return Response.ok(StreamingUtil.jsonArray(source, sv -> converter.apply(sv)), MediaType.APPLICATION_JSON_TYPE).build();
 	}
 
 	/**
@@ -352,7 +392,7 @@ public class SememeAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.sememeDefinitionComponent + "{" + RequestParameters.id + "}")
 	public RestDynamicSememeDefinition getSememeDefinition(
 			@PathParam(RequestParameters.id) String id,
@@ -504,69 +544,30 @@ public class SememeAPIs
 				throw new RestException("If a referenced component is not provided, then an allowedAssemblage must be provided");
 			}
 			
-			SememeSequenceSet allSememeSequences = new SememeSequenceSet();
-			for (int assemblageId : allowedAssemblages)
-			{
-				allSememeSequences.addAll(Get.sememeService().getSememeSequencesFromAssemblage(assemblageId).stream());
-			}
-			
-			for (PrimitiveIterator.OfInt it = allSememeSequences.getIntIterator(); it.hasNext();) {
-				if (ochreResults.size() >= (pageNum * maxPageSize)) {
-					break;
-				} else {
-					SememeChronology<? extends SememeVersion<?>> chronology = Get.sememeService().getSememe(it.nextInt());
-					@SuppressWarnings({ "unchecked", "rawtypes" })
-					Optional<LatestVersion<SememeVersion<?>>> sv = ((SememeChronology)chronology).getLatestVersion(SememeVersionImpl.class, RequestInfo.get().getStampCoordinate());
-					if (sv.isPresent()) {
-						ochreResults.add(sv.get().value());
-					}
-				}
-			}
-
-			return new SememeVersions(PaginationUtils.getResults(ochreResults, pageNum, maxPageSize), allSememeSequences.size());
+			//Seek straight to the requested page - only the versions on the page (and at most one checkpoint interval before it) are resolved
+			return AssemblageSkipIndex.getPage(allowedAssemblages, RequestInfo.get().getStampCoordinate(),
+					RequestInfo.get().getCoordinatesToken().getStampCoordinateKey(), pageNum, maxPageSize);
 		}
 	}
 	
 	/**
+	 * Find the latest versions of the sememes (on the coordinates of the current request) of a referenced component, or of assemblages.
+	 * LOGIC_GRAPH and RELATIONSHIP_ADAPTOR sememes are skipped.  The versions are returned as a lazy stream - the sememes are only read 
+	 * as the stream is consumed, so a caller which writes each version out as it is produced never holds the whole result in memory.
+	 * The arguments are validated before this returns.
+	 * 
 	 * @param referencedComponent - optional - if provided - takes precedence
-	 * @param assemblage - optional - if provided, either limits the referencedComponent search by this type, or, if 
+	 * @param allowedAssemblages - optional - if provided, either limits the referencedComponent search by this type, or, if 
 	 * referencedComponent is not provided - focuses the search on just this assemblage
-	 * @param expandChronology
-	 * @param expandNested
-	 * @param expandReferenced
 	 * @param allowDescriptions true to include description type sememes, false to skip
-	 * @return
+	 * @return the latest version of each sememe found
 	 * @throws RestException
 	 */
-	public static List<RestSememeVersion> get(String referencedComponent, Set<Integer> allowedAssemblages, boolean expandChronology, boolean expandNested, 
-		boolean expandReferenced, boolean allowDescriptions) throws RestException
+	public static Stream<SememeVersion<?>> getLatestVersions(String referencedComponent, Set<Integer> allowedAssemblages, boolean allowDescriptions) 
+			throws RestException
 	{
-		final ArrayList<RestSememeVersion> results = new ArrayList<>();
-		Consumer<SememeChronology<? extends SememeVersion<?>>> consumer = new Consumer<SememeChronology<? extends SememeVersion<?>>>()
-		{
-			@Override
-			public void accept(@SuppressWarnings("rawtypes") SememeChronology sc)
-			{
-				if (sc.getSememeType() != SememeType.LOGIC_GRAPH 
-						&& sc.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
-						&& (allowDescriptions || sc.getSememeType() != SememeType.DESCRIPTION))
-				{
-					@SuppressWarnings("unchecked")
-					Optional<LatestVersion<SememeVersion<?>>> sv = sc.getLatestVersion(SememeVersionImpl.class, RequestInfo.get().getStampCoordinate());
-
-					if (sv.isPresent()) {
-						try
-						{
-							results.add(RestSememeVersion.buildRestSememeVersion(sv.get().value(), expandChronology, expandNested, expandReferenced));
-						}
-						catch (RestException e)
-						{
-							throw new RuntimeException("Unexpected error", e);
-						}
-					}
-				}
-			}
-		};
+		final StampCoordinate stampCoordinate = RequestInfo.get().getStampCoordinate();
+		Stream<SememeChronology<? extends SememeVersion<?>>> sememes;
 
 		if (StringUtils.isNotBlank(referencedComponent))
 		{
@@ -590,8 +591,7 @@ public class SememeAPIs
 			
 			if (refCompNid.isPresent() && refCompNid.get() < 0)
 			{
-				Stream<SememeChronology<? extends SememeVersion<?>>> sememes = Get.sememeService().getSememesForComponentFromAssemblages(refCompNid.get(), allowedAssemblages);
-				sememes.forEach(consumer);
+				sememes = Get.sememeService().getSememesForComponentFromAssemblages(refCompNid.get(), allowedAssemblages);
 			}
 			else
 			{
@@ -604,11 +604,77 @@ public class SememeAPIs
 			{
 				throw new RestException("If a referenced component is not provided, then an allowedAssemblage must be provided");
 			}
-			for (int assemblageId : allowedAssemblages)
+			sememes = getSememesFromAssemblages(allowedAssemblages);
+		}
+
+		return sememes
+				.filter(sc -> sc.getSememeType() != SememeType.LOGIC_GRAPH 
+						&& sc.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
+						&& (allowDescriptions || sc.getSememeType() != SememeType.DESCRIPTION))
+				.map(sc -> getLatestVersion(sc, stampCoordinate))
+				.filter(sv -> sv.isPresent())
+				.map(sv -> sv.get());
+	}
+
+	/**
+	 * @return the sememes of each assemblage in turn, reading an assemblage only once the sememes of the previous one are consumed.
+	 * Unlike flatMap, this doesn't read each assemblage fully when the result is consumed through an iterator - and unlike a chain 
+	 * of Stream.concat calls, it doesn't nest deeper with each assemblage, so any number of assemblages may be requested.
+	 */
+	private static Stream<SememeChronology<? extends SememeVersion<?>>> getSememesFromAssemblages(Set<Integer> assemblages)
+	{
+		Iterator<Integer> remaining = new ArrayList<>(assemblages).iterator();
+		Iterator<SememeChronology<? extends SememeVersion<?>>> sememes = new Iterator<SememeChronology<? extends SememeVersion<?>>>()
+		{
+			private Iterator<SememeChronology<? extends SememeVersion<?>>> current_ = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext()
 			{
-				Get.sememeService().getSememesFromAssemblage(assemblageId).forEach(consumer);
+				while (!current_.hasNext() && remaining.hasNext())
+				{
+					current_ = Get.sememeService().getSememesFromAssemblage(remaining.next()).iterator();
+				}
+				return current_.hasNext();
 			}
-		}
-		return results;
+
+			@Override
+			public SememeChronology<? extends SememeVersion<?>> next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return current_.next();
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sememes, Spliterator.ORDERED), false);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Optional<SememeVersion<?>> getLatestVersion(SememeChronology sc, StampCoordinate stampCoordinate)
+	{
+		Optional<LatestVersion<SememeVersion<?>>> sv = sc.getLatestVersion(SememeVersionImpl.class, stampCoordinate);
+		return sv.isPresent() ? Optional.of(sv.get().value()) : Optional.empty();
+	}
+
+	/**
+	 * @return a function which builds the RestSememeVersion of a sememe version - for use in streams, so a RestException is
+	 * rethrown as a RuntimeException
+	 */
+	public static Function<SememeVersion<?>, RestSememeVersion> restSememeVersionConverter(boolean expandChronology, boolean expandNested, 
+			boolean expandReferenced)
+	{
+		return sv -> 
+		{
+			try
+			{
+				return RestSememeVersion.buildRestSememeVersion(sv, expandChronology, expandNested, expandReferenced);
+			}
+			catch (RestException e)
+			{
+				throw new RuntimeException("Unexpected error", e);
+			}
+		};
 	}
 }
@@ -18,6 +18,8 @@
  */
 package gov.vha.isaac.rest.api1.system;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -75,9 +77,23 @@ import gov.vha.isaac.rest.api1.data.sememe.dataTypes.RestDynamicSememeNid;
 import gov.vha.isaac.rest.api1.data.sememe.dataTypes.RestDynamicSememeSequence;
 import gov.vha.isaac.rest.api1.data.sememe.dataTypes.RestDynamicSememeString;
 import gov.vha.isaac.rest.api1.data.sememe.dataTypes.RestDynamicSememeUUID;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCompressionStatistics;
 import gov.vha.isaac.rest.api1.data.systeminfo.RestIdentifiedObjectsResult;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestResponseCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.api1.search.SearchResultCache;
+import gov.vha.isaac.rest.cache.AssemblageMembershipIndex;
+import gov.vha.isaac.rest.cache.DefinedConceptIndex;
+import gov.vha.isaac.rest.cache.DescriptionResolver;
+import gov.vha.isaac.rest.cache.ResponseCache;
+import gov.vha.isaac.rest.cache.TaxonomyTreeCache;
+import gov.vha.isaac.rest.jerseyConfig.CompressionWriterInterceptor;
+import gov.vha.isaac.rest.jerseyConfig.ImmutableResponse;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
+import gov.vha.isaac.rest.tokens.CoordinatesToken;
+import gov.vha.isaac.rest.tokens.CoordinatesTokens;
 
 
 /**
@@ -309,6 +325,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestDynamicSememeDataTypeComponent)  
+	@ImmutableResponse
 	public RestDynamicSememeDataType[] getRestDynamicSememeDataTypes()
 	{
 		return RestDynamicSememeDataType.getAll();
@@ -320,6 +337,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestDynamicSememeValidatorTypeComponent)  
+	@ImmutableResponse
 	public RestDynamicSememeValidatorType[] getRestDynamicSememeValidatorTypes()
 	{
 		return RestDynamicSememeValidatorType.getAll();
@@ -331,6 +349,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestObjectChronologyTypeComponent)
+	@ImmutableResponse
 	public RestObjectChronologyType[] getRestObjectChronologyTypes()
 	{
 		return RestObjectChronologyType.getAll();
@@ -342,6 +361,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestSememeTypeComponent)
+	@ImmutableResponse
 	public RestSememeType[] getRestObjectSememeTypes()
 	{
 		return RestSememeType.getAll();
@@ -353,6 +373,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestConcreteDomainOperatorTypes)
+	@ImmutableResponse
 	public RestConcreteDomainOperatorsType[] getRestConcreteDomainOperatorTypes()
 	{
 		return RestConcreteDomainOperatorsType.getAll();
@@ -364,6 +385,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestNodeSemanticTypes)
+	@ImmutableResponse
 	public RestNodeSemanticType[] getRestNodeSemanticTypes()
 	{
 		return RestNodeSemanticType.getAll();
@@ -375,6 +397,7 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.enumerationRestSupportedIdTypes)
+	@ImmutableResponse
 	public RestSupportedIdType[] getRestSupportedIdTypes()
 	{
 		return RestSupportedIdType.getAll();
@@ -387,11 +410,76 @@ public class SystemAPIs
 	@GET
 	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
 	@Path(RestPaths.systemInfoComponent)
+	@ImmutableResponse
 	public RestSystemInfo getSystemInfo()
 	{
 		return ApplicationConfig.getInstance().getSystemInfo();
 	}
-	
+
+	/**
+	 * Usage statistics (hits, misses, evictions) of the caches maintained by the REST server.  The counters are cumulative since the
+	 * server was started.
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Path(RestPaths.cacheStatisticsComponent)
+	public RestCacheStatistics[] getCacheStatistics()
+	{
+		ArrayList<RestCacheStatistics> statistics = new ArrayList<>();
+		statistics.add(SearchResultCache.getInstance().getStatistics());
+		statistics.addAll(Arrays.asList(CoordinatesTokens.getStatistics()));
+		statistics.add(TaxonomyTreeCache.getStatistics());
+		statistics.add(DescriptionResolver.getStatistics());
+		statistics.add(DefinedConceptIndex.getStatistics());
+		statistics.add(AssemblageMembershipIndex.getStatistics());
+		statistics.add(CompressionWriterInterceptor.getCacheStatistics());
+		return statistics.toArray(new RestCacheStatistics[statistics.size()]);
+	}
+
+	/**
+	 * Timings (count, total, mean and max) of operations on the request path that the REST server monitors.  The timings are
+	 * cumulative since the server was started.
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Path(RestPaths.timingStatisticsComponent)
+	public RestTimingStatistics[] getTimingStatistics()
+	{
+		ArrayList<RestTimingStatistics> statistics = new ArrayList<>();
+		statistics.addAll(Arrays.asList(CoordinatesToken.getTimingStatistics()));
+		statistics.add(TaxonomyTreeCache.getTimingStatistics());
+		statistics.add(DescriptionResolver.getTimingStatistics());
+		statistics.add(DefinedConceptIndex.getTimingStatistics());
+		statistics.add(AssemblageMembershipIndex.getTimingStatistics());
+		statistics.add(CompressionWriterInterceptor.getTimingStatistics());
+		return statistics.toArray(new RestTimingStatistics[statistics.size()]);
+	}
+
+	/**
+	 * Counters of the response compression (gzip or deflate, as accepted by the client) performed by the REST server - the number 
+	 * of responses compressed, and their size before and after compression.  The counters are cumulative since the server was started.
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Path(RestPaths.compressionStatisticsComponent)
+	public RestCompressionStatistics getCompressionStatistics()
+	{
+		return CompressionWriterInterceptor.getStatistics();
+	}
+
+	/**
+	 * Usage statistics (hits, misses, bytes, rejections, evictions) of the cache of serialized responses, which answers repeated
+	 * reads of the concept, sememe, logicGraph, taxonomy, id and coordinate APIs until the next commit.  The counters are cumulative
+	 * since the server was started.
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Path(RestPaths.responseCacheStatisticsComponent)
+	public RestResponseCacheStatistics getResponseCacheStatistics()
+	{
+		return ResponseCache.getInstance().getStatistics();
+	}
+
 	//TODO the code below this point (noop, class Z) is a hack workaround for the bug 
 	//https://github.com/stoicflame/enunciate/issues/336
 	/**
@@ -18,6 +18,9 @@
  */
 package gov.vha.isaac.rest.api1.taxonomy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import javax.ws.rs.DefaultValue;
@@ -27,22 +30,28 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
-import gov.vha.isaac.ochre.api.collections.ConceptSequenceSet;
 import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
-import gov.vha.isaac.ochre.api.tree.Tree;
 import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.rest.ExpandUtil;
+import gov.vha.isaac.rest.api.data.PaginationUtils;
 import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.concept.ConceptAPIs;
 import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptVersionPage;
+import gov.vha.isaac.rest.cache.DescriptionResolver;
+import gov.vha.isaac.rest.cache.TaxonomyTreeCache;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
 import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
+import gov.vha.isaac.rest.tokens.CursorToken;
 
 /**
  * {@link TaxonomyAPIs}
@@ -51,6 +60,7 @@ import gov.vha.isaac.rest.session.RequestParameters;
  */
 
 @Path(RestPaths.taxonomyAPIsPathComponent)
+@CommitVersioned
 public class TaxonomyAPIs
 {
 	private static Logger log = LogManager.getLogger();
@@ -65,10 +75,14 @@ public class TaxonomyAPIs
 	 *  - it works independently.  When used in combination with the parentHeight parameter, only the last level of items returned will return
 	 *  parent counts.  This parameter also applies to the expanded children - if childDepth is requested, and countParents is set, this will 
 	 *  return a count of parents of each child, which can be used to determine if a child has multiple parents.
-	 * @param childDepth - How far to walk down (expand) the tree 
+	 * @param childDepth - How far to walk down (expand) the tree.  At most 5000 children are returned under any one concept - use
+	 * {@link #getChildren} to page through the children of concepts with more children than that.
 	 * @param countChildren - true to count the number of children below this node.  May be used with or without the childDepth parameter
 	 *  - it works independently.  When used in combination with the childDepth parameter, only the last level of items returned will return
 	 *  child counts.  
+	 * @param countDescendants - true to count the number of distinct concepts below this node (and each node returned) - its children, 
+	 *  their children, and so on.  Counting the descendants of a node with a large subtree is expensive the first time it is requested,
+	 *  on a given set of coordinates.
 	 * @param sememeMembership - when true, the sememeMembership field of the RestConceptVersion object will be populated with the set of unique
 	 * concept sequences that describe sememes that this concept is referenced by.  (there exists a sememe instance where the referencedComponent 
 	 * is the RestConceptVersion being returned here, then the value of the assemblage is also included in the RestConceptVersion).
@@ -80,7 +94,7 @@ public class TaxonomyAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
 	@Path(RestPaths.versionComponent)
 	public RestConceptVersion getConceptVersionTaxonomy(
 			//ISAAC_Root - any variable ref here breaks the compiler and/or enunciate
@@ -89,13 +103,16 @@ public class TaxonomyAPIs
 			@QueryParam("countParents") @DefaultValue("false") String countParents,
 			@QueryParam("childDepth") @DefaultValue("1") int childDepth,
 			@QueryParam("countChildren") @DefaultValue("false") String countChildren,
+			@QueryParam("countDescendants") @DefaultValue("false") String countDescendants,
 			@QueryParam("sememeMembership") @DefaultValue("false") String sememeMembership,
 			@QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
 		boolean countChildrenBoolean = Boolean.parseBoolean(countChildren.trim());
 		boolean countParentsBoolean = Boolean.parseBoolean(countParents.trim());
+		boolean countDescendantsBoolean = Boolean.parseBoolean(countDescendants.trim());
 		boolean includeSememeMembership = Boolean.parseBoolean(sememeMembership.trim());
+		boolean stated = RequestInfo.get().getStated();
 		
 		@SuppressWarnings("rawtypes")
 		ConceptChronology concept = ConceptAPIs.findConceptChronology(id);
@@ -108,24 +125,28 @@ public class TaxonomyAPIs
 					RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable), 
 					false, false, false, false, RequestInfo.get().getStated(), includeSememeMembership);  
 			
-			Tree tree = Get.taxonomyService().getTaxonomyTree(RequestInfo.get().getTaxonomyCoordinate(RequestInfo.get().getStated()));
+			if (countDescendantsBoolean)
+			{
+				rcv.setDescendantCount(TaxonomyTreeCache.getCounts(stated).getDescendantCount(concept.getConceptSequence()));
+			}
 			
 			if (parentHeight > 0)
 			{
-				addParents(concept.getConceptSequence(), rcv, tree, countParentsBoolean, parentHeight - 1, includeSememeMembership, new ConceptSequenceSet());
+				addParents(concept.getConceptSequence(), rcv, stated, countParentsBoolean, countDescendantsBoolean, parentHeight - 1, includeSememeMembership);
 			}
 			else if (countParentsBoolean)
 			{
-				countParents(concept.getConceptSequence(), rcv, tree);
+				countParents(concept.getConceptSequence(), rcv, stated);
 			}
 			
 			if (childDepth > 0)
 			{
-				addChildren(concept.getConceptSequence(), rcv, tree, countChildrenBoolean, countParentsBoolean, childDepth - 1, includeSememeMembership, new ConceptSequenceSet());
+				addChildren(concept.getConceptSequence(), rcv, stated, countChildrenBoolean, countParentsBoolean, countDescendantsBoolean, childDepth - 1, 
+						includeSememeMembership);
 			}
 			else if (countChildrenBoolean)
 			{
-				countChildren(concept.getConceptSequence(), rcv, tree);
+				countChildren(concept.getConceptSequence(), rcv, stated);
 			}
 			rcv.sortParentsAndChildren();
 			return rcv;
@@ -133,154 +154,162 @@ public class TaxonomyAPIs
 		throw new RestException("id", id, "No concept was found");
 	}
 
-	public static void addChildren(
-			int conceptSequence,
-			RestConceptVersion rcv,
-			Tree tree,
-			boolean countLeafChildren,
-			boolean countParents,
-			int remainingChildDepth,
-			boolean includeSemmemMembership,
-			ConceptSequenceSet alreadyAddedChildren)
+	/**
+	 * Returns one page of the children of a concept.  Unlike the childDepth parameter of {@link #getConceptVersionTaxonomy}, 
+	 * which returns (up to 5000 of) the children in one response, this builds only the children of the requested page - so it is 
+	 * suitable for browsing concepts with very large numbers of children.
+	 * 
+	 * The children are returned in a stable order (by concept sequence) rather than sorted by description, so that each page 
+	 * continues from the last.  Inactive children (on the coordinates of the request) are not returned, and are not counted by
+	 * the pages - page n holds the active children from position (n - 1) * maxPageSize.
+	 * 
+	 * @param id - A UUID, nid, or concept sequence of the concept whose children are returned.  If not provided, the default value 
+	 * is the UUID for the ISAAC_ROOT concept.
+	 * @param pageNum The pagination page number >= 1 to return
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor (optional) the nextCursor value from the paginationData of a previous page.  When provided, the returned 
+	 * page continues from the end of the previous page, and pageNum is ignored.
+	 * @param countChildren - true to count the number of children below each returned child.
+	 * @param countParents - true to count the number of parents of each returned child, which can be used to determine if a child 
+	 * has multiple parents.
+	 * @param countDescendants - true to count the number of distinct concepts below each returned child.
+	 * @param sememeMembership - when true, the sememeMembership field of each RestConceptVersion object will be populated - see 
+	 * {@link #getConceptVersionTaxonomy}.
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be obtained by a separate (prior) call to getCoordinatesToken().
+	 * 
+	 * @return the page of children.  The approximateTotal of the paginationData is the number of active children of the concept.
+	 * @throws RestException 
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MySmileProvider.SMILE })
+	@Path(RestPaths.taxonomyChildrenComponent)
+	public RestConceptVersionPage getChildren(
+			//ISAAC_Root - any variable ref here breaks the compiler and/or enunciate
+			@QueryParam(RequestParameters.id) @DefaultValue("7c21b6c5-cf11-5af9-893b-743f004c97f5") String id,
+			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
+			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
+			@QueryParam("countChildren") @DefaultValue("false") String countChildren,
+			@QueryParam("countParents") @DefaultValue("false") String countParents,
+			@QueryParam("countDescendants") @DefaultValue("false") String countDescendants,
+			@QueryParam("sememeMembership") @DefaultValue("false") String sememeMembership,
+			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
-		if (alreadyAddedChildren.contains(conceptSequence)) {
-			// Avoiding infinite loop
-			log.warn("addChildren(" + conceptSequence + ") aborted potential infinite recursion");
-			return;
-		} else {
-			alreadyAddedChildren.add(conceptSequence);
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+		boolean countChildrenBoolean = Boolean.parseBoolean(countChildren.trim());
+		boolean countParentsBoolean = Boolean.parseBoolean(countParents.trim());
+		boolean countDescendantsBoolean = Boolean.parseBoolean(countDescendants.trim());
+		boolean includeSememeMembership = Boolean.parseBoolean(sememeMembership.trim());
+
+		int conceptSequence = ConceptAPIs.findConceptChronology(id).getConceptSequence();
+		final String restPath = RestPaths.taxonomyChildrenAppPathComponent + "?" + RequestParameters.id + "=" + id;
+
+		boolean stated = RequestInfo.get().getStated();
+		// Page over the active children only, so that the pages (and a page number derived from a cursor) don't overlap
+		int[] children = TaxonomyTreeCache.getCounts(stated).getActiveChildren(conceptSequence);
+		Arrays.sort(children);
+
+		int start;
+		if (StringUtils.isBlank(cursor))
+		{
+			// In long, as a large page number and page size overflow an int
+			start = (int)Math.min((long)(pageNum - 1) * maxPageSize, children.length);
 		}
-		//TODO we need to guard against very large result returns - we must cap this, and, ideally, introduce paging, 
-		//or something along those lines to handle very large result sets.
-		for (int childSequence : tree.getChildrenSequences(conceptSequence))
+		else
 		{
-			if (rcv.getChildCount() > 5000)
-			{
-				log.warn("Limiting the number of taxonomy children under concept " + childSequence);
-				break;
-			}
-			@SuppressWarnings("rawtypes")
-			ConceptChronology childConcept;
-			try
+			// Continue after the last child returned - which is found by sequence, in case children were added or removed since
+			CursorToken cursorToken = new CursorToken(cursor.trim(), restPath);
+			int position = Arrays.binarySearch(children, Get.identifierService().getConceptSequence(cursorToken.getLastNid()));
+			start = position >= 0 ? position + 1 : -(position + 1);
+			if (maxPageSize > 0)
 			{
-				childConcept = ConceptAPIs.findConceptChronology(childSequence + "");
-			}
-			catch (RestException e)
-			{
-				throw new RuntimeException("Internal Error!", e);
+				pageNum = (start / maxPageSize) + 1;
 			}
+		}
+
+		// Resolve the descriptions of the page as one batch - the children built below then find them cached
+		int[] pageNids = new int[Math.min(maxPageSize, children.length - start)];
+		for (int i = 0; i < pageNids.length; i++)
+		{
+			pageNids[i] = Get.identifierService().getConceptNid(children[start + i]);
+		}
+		DescriptionResolver.resolve(pageNids);
+
+		List<RestConceptVersion> results = new ArrayList<>(pageNids.length);
+		int next = start;
+		int lastNid = 0;
+		while (next < start + pageNids.length)
+		{
+			int childSequence = children[next++];
+			@SuppressWarnings({ "rawtypes" })
+			ConceptChronology childConcept = Get.conceptService().getConcept(childSequence);
 			@SuppressWarnings("unchecked")
 			Optional<LatestVersion<ConceptVersionImpl>> cv = childConcept.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
 			if (cv.isPresent())
 			{
 				//expand chronology of child even if unrequested, otherwise, you can't identify what the child is
-				RestConceptVersion childVersion = new RestConceptVersion(cv.get().value(), true, false, countParents, false, false, RequestInfo.get().getStated(), 
-					includeSemmemMembership);
-				rcv.addChild(childVersion);
-				if (remainingChildDepth > 0)
+				RestConceptVersion childVersion = new RestConceptVersion(cv.get().value(), true, false, countParentsBoolean, false, false, 
+						stated, includeSememeMembership);
+				if (countChildrenBoolean)
 				{
-					addChildren(childConcept.getConceptSequence(), childVersion, tree, countLeafChildren, countParents, remainingChildDepth - 1, includeSemmemMembership, 
-						alreadyAddedChildren);
+					countChildren(childSequence, childVersion, stated);
 				}
-				else if (countLeafChildren)
+				if (countDescendantsBoolean)
 				{
-					countChildren(childConcept.getConceptSequence(), childVersion, tree);
+					childVersion.setDescendantCount(TaxonomyTreeCache.getCounts(stated).getDescendantCount(childSequence));
 				}
+				results.add(childVersion);
+				lastNid = childConcept.getNid();
 			}
 		}
+
+		String nextCursor = (next < children.length && lastNid != 0) ? new CursorToken(restPath, next, lastNid, 0).getSerialized() : null;
+		return new RestConceptVersionPage(pageNum, maxPageSize, children.length, restPath, nextCursor, results);
 	}
-	
-	public static void countParents(int conceptSequence, RestConceptVersion rcv, Tree tree)
+
+	/**
+	 * Add the children of the concept to rcv, and, if remainingChildDepth is greater than 0, their children, and so on.
+	 * @param stated true to expand the stated taxonomy, false for the inferred taxonomy
+	 * @param remainingChildDepth the number of levels to expand beyond the immediate children
+	 * @param countLeafChildren true to count the children of the concepts at the last level expanded
+	 * @param countParents true to count the parents of each child added
+	 * @param countDescendants true to count the descendants of each child added
+	 */
+	public static void addChildren(
+			int conceptSequence,
+			RestConceptVersion rcv,
+			boolean stated,
+			boolean countLeafChildren,
+			boolean countParents,
+			boolean countDescendants,
+			int remainingChildDepth,
+			boolean includeSemmemMembership)
 	{
-		int count = 0;
-		for (int parentSequence : tree.getParentSequences(conceptSequence))
-		{
-			@SuppressWarnings("rawtypes")
-			ConceptChronology parentConcept;
-			try
-			{
-				parentConcept = ConceptAPIs.findConceptChronology(parentSequence + "");
-			}
-			catch (RestException e)
-			{
-				throw new RuntimeException("Internal Error!", e);
-			}
-			@SuppressWarnings("unchecked")
-			Optional<LatestVersion<ConceptVersionImpl>> cv = parentConcept.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-			if (cv.isPresent())
-			{
-				count++;
-			}
-		}
-		rcv.setParentCount(count);
+		new TaxonomyExpander(stated, true, countLeafChildren, countParents, countDescendants, includeSemmemMembership)
+			.expand(conceptSequence, rcv, remainingChildDepth);
 	}
 	
+	public static void countParents(int conceptSequence, RestConceptVersion rcv, boolean stated)
+	{
+		rcv.setParentCount(TaxonomyTreeCache.getCounts(stated).getParentCount(conceptSequence));
+	}
 	
-	public static void countChildren(int conceptSequence, RestConceptVersion rcv, Tree tree)
+	public static void countChildren(int conceptSequence, RestConceptVersion rcv, boolean stated)
 	{
-		int count = 0;
-		for (int childSequence : tree.getChildrenSequences(conceptSequence))
-		{
-			@SuppressWarnings("rawtypes")
-			ConceptChronology childConcept;
-			try
-			{
-				childConcept = ConceptAPIs.findConceptChronology(childSequence + "");
-			}
-			catch (RestException e)
-			{
-				throw new RuntimeException("Internal Error!", e);
-			}
-			@SuppressWarnings("unchecked")
-			Optional<LatestVersion<ConceptVersionImpl>> cv = childConcept.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-			if (cv.isPresent())
-			{
-				count++;
-			}
-		}
-		rcv.setChildCount(count);
+		rcv.setChildCount(TaxonomyTreeCache.getCounts(stated).getChildCount(conceptSequence));
 	}
 
-	public static void addParents(int conceptSequence, RestConceptVersion rcv, Tree tree, boolean countLeafParents, int remainingParentDepth, 
-		boolean includeSememeMembership, ConceptSequenceSet handledConcepts)
+	/**
+	 * Add the parents of the concept to rcv, and, if remainingParentDepth is greater than 0, their parents, and so on.
+	 * @param stated true to expand the stated taxonomy, false for the inferred taxonomy
+	 * @param remainingParentDepth the number of levels to expand beyond the immediate parents
+	 * @param countLeafParents true to count the parents of the concepts at the last level expanded
+	 * @param countDescendants true to count the descendants of each parent added
+	 */
+	public static void addParents(int conceptSequence, RestConceptVersion rcv, boolean stated, boolean countLeafParents, boolean countDescendants, 
+		int remainingParentDepth, boolean includeSememeMembership)
 	{
-		if (handledConcepts.contains(conceptSequence)) {
-			// Avoiding infinite loop
-			log.warn("addParents(" + conceptSequence + ") aborted potential infinite recursion");
-			return;
-		} else {
-			handledConcepts.add(conceptSequence);
-		}
-		for (int parentSequence : tree.getParentSequences(conceptSequence))
-		{
-			@SuppressWarnings("rawtypes")
-			ConceptChronology parentConceptChronlogy;
-			try
-			{
-				parentConceptChronlogy = ConceptAPIs.findConceptChronology(parentSequence + "");
-			}
-			catch (RestException e)
-			{
-				throw new RuntimeException("Internal Error!", e);
-			}
-			@SuppressWarnings("unchecked")
-			Optional<LatestVersion<ConceptVersionImpl>> cv = parentConceptChronlogy.getLatestVersion(ConceptVersionImpl.class, RequestInfo.get().getStampCoordinate());
-			if (cv.isPresent())
-			{
-				//expand chronology of the parent even if unrequested, otherwise, you can't identify what the child is
-				RestConceptVersion parentVersion = new RestConceptVersion(cv.get().value(),true, false, false, false, false, RequestInfo.get().getStated(), 
-					includeSememeMembership);
-				rcv.addParent(parentVersion);
-				if (remainingParentDepth > 0)
-				{
-					addParents(parentConceptChronlogy.getConceptSequence(), parentVersion, tree, countLeafParents, remainingParentDepth - 1, includeSememeMembership, 
-						handledConcepts);
-				}
-				else if (countLeafParents)
-				{
-					countParents(parentConceptChronlogy.getConceptSequence(), parentVersion, tree);
-				}
-			}
-		}
+		new TaxonomyExpander(stated, false, countLeafParents, false, countDescendants, includeSememeMembership)
+			.expand(conceptSequence, rcv, remainingParentDepth);
 	}
 }
@@ -0,0 +1,315 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.taxonomy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.tree.Tree;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
+import gov.vha.isaac.rest.cache.TaxonomyCounts;
+import gov.vha.isaac.rest.cache.TaxonomyTreeCache;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link TaxonomyExpander}
+ *
+ * Expands the children (or parents) of a concept, to a requested depth, one level at a time.  The concepts of each level are
+ * read, and their {@link RestConceptVersion}s built, in parallel on a bounded fork / join pool, and then attached to their
+ * parents, in taxonomy order, by the calling thread - so the result is the same as a sequential expansion would produce.
+ *
+ * The {@link RequestInfo} of the request is passed explicitly to each task, and installed on the worker thread only for the
+ * duration of the task, as the code that builds the concepts reads the coordinates from it.
+ *
+ * A concept reached by more than one path is only expanded at its first occurrence (in level order) - this also guards against
+ * cycles in the taxonomy.
+ *
+ * The size of the pool is set by the system property {@link #THREADS_PROPERTY} when the class is loaded.  Setting the property to 1,
+ * at any time, makes subsequent expansions run entirely in the calling thread.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class TaxonomyExpander
+{
+	private static Logger log = LogManager.getLogger();
+
+	// The most children returned under a single concept
+	//TODO we need to guard against very large result returns - ideally, introduce paging, or something along those lines 
+	//to handle very large result sets.
+	private static final int MAX_CHILDREN = 5000;
+	// Ranges of at most this many concepts are processed by a single task - and levels this small, by the calling thread
+	private static final int SPLIT_THRESHOLD = 4;
+
+	static final String THREADS_PROPERTY = "isaac.rest.taxonomyExpansionThreads";
+
+	private static final ForkJoinPool pool_ = new ForkJoinPool(Math.max(1, Integer.getInteger(THREADS_PROPERTY, 
+			Runtime.getRuntime().availableProcessors())));
+
+	private final boolean stated_;
+	private final Tree tree_;
+	private final TaxonomyCounts counts_;
+	private final boolean expandChildren_;
+	private final boolean countLeaves_;
+	private final boolean countParents_;
+	private final boolean countDescendants_;
+	private final boolean includeSememeMembership_;
+	private final RequestInfo requestInfo_;
+	private final boolean parallel_;
+	private final Set<Integer> expanded_ = ConcurrentHashMap.newKeySet();
+
+	private static class Node
+	{
+		private final int conceptSequence;
+		private final RestConceptVersion version;
+
+		private Node(int conceptSequence, RestConceptVersion version)
+		{
+			this.conceptSequence = conceptSequence;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * @param stated true to expand the stated taxonomy, false for the inferred taxonomy
+	 * @param expandChildren true to expand children, false to expand parents
+	 * @param countLeaves true to count the children (or parents) of the concepts at the last level expanded
+	 * @param countParents true to count the parents of each child added (ignored when expanding parents)
+	 * @param countDescendants true to count the descendants of each concept added
+	 * @param includeSememeMembership passed through to each {@link RestConceptVersion} built
+	 */
+	TaxonomyExpander(boolean stated, boolean expandChildren, boolean countLeaves, boolean countParents, boolean countDescendants, 
+			boolean includeSememeMembership)
+	{
+		stated_ = stated;
+		tree_ = TaxonomyTreeCache.get(stated);
+		counts_ = countLeaves || countDescendants || expandChildren ? TaxonomyTreeCache.getCounts(stated) : null;
+		expandChildren_ = expandChildren;
+		countLeaves_ = countLeaves;
+		countParents_ = countParents && expandChildren;
+		countDescendants_ = countDescendants;
+		includeSememeMembership_ = includeSememeMembership;
+		requestInfo_ = RequestInfo.get();
+		parallel_ = Integer.getInteger(THREADS_PROPERTY, 0) != 1;
+	}
+
+	/**
+	 * @param conceptSequence the concept to expand from
+	 * @param rcv the version of the concept, to which the children (or parents) are added
+	 * @param remainingDepth the number of levels to expand beyond the first - 0 expands only the immediate children (or parents)
+	 */
+	void expand(int conceptSequence, RestConceptVersion rcv, int remainingDepth)
+	{
+		List<Node> level = Collections.singletonList(new Node(conceptSequence, rcv));
+		int remaining = remainingDepth;
+		while (true)
+		{
+			List<Node> next = expandLevel(level);
+			if (remaining == 0)
+			{
+				if (countLeaves_)
+				{
+					forEach(next.size(), i -> count(next.get(i)));
+				}
+				break;
+			}
+			if (next.isEmpty())
+			{
+				break;
+			}
+			level = next;
+			remaining--;
+		}
+	}
+
+	/**
+	 * Add the children (or parents) of each concept of the level, and return them, in order, as the next level
+	 */
+	private List<Node> expandLevel(List<Node> level)
+	{
+		List<Node> owners = new ArrayList<>();
+		List<Integer> candidates = new ArrayList<>();
+		for (Node node : level)
+		{
+			if (!expanded_.add(node.conceptSequence))
+			{
+				log.warn("Expansion of " + node.conceptSequence + " skipped, as it was already expanded (or to avoid infinite recursion)");
+				continue;
+			}
+			int added = 0;
+			for (int related : related(node.conceptSequence))
+			{
+				if (expandChildren_)
+				{
+					// Inactive children aren't returned, so only the active ones count towards the limit
+					if (!counts_.isActive(related))
+					{
+						continue;
+					}
+					if (added++ > MAX_CHILDREN)
+					{
+						log.warn("Limiting the number of taxonomy children under concept " + node.conceptSequence);
+						break;
+					}
+				}
+				owners.add(node);
+				candidates.add(related);
+			}
+		}
+
+		RestConceptVersion[] built = new RestConceptVersion[candidates.size()];
+		forEach(candidates.size(), i -> built[i] = build(candidates.get(i)));
+
+		List<Node> next = new ArrayList<>();
+		for (int i = 0; i < built.length; i++)
+		{
+			if (built[i] == null)
+			{
+				continue;
+			}
+			Node owner = owners.get(i);
+			if (expandChildren_)
+			{
+				if (owner.version.getChildCount() > MAX_CHILDREN)
+				{
+					continue;
+				}
+				owner.version.addChild(built[i]);
+			}
+			else
+			{
+				owner.version.addParent(built[i]);
+			}
+			next.add(new Node(candidates.get(i), built[i]));
+		}
+		return next;
+	}
+
+	private int[] related(int conceptSequence)
+	{
+		return expandChildren_ ? tree_.getChildrenSequences(conceptSequence) : tree_.getParentSequences(conceptSequence);
+	}
+
+	/**
+	 * @return the version of the concept, or null, if there is no version on the coordinates of the request
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private RestConceptVersion build(int conceptSequence)
+	{
+		ConceptChronology concept = Get.conceptService().getConcept(conceptSequence);
+		Optional<LatestVersion<ConceptVersionImpl>> cv = concept.getLatestVersion(ConceptVersionImpl.class, requestInfo_.getStampCoordinate());
+		if (cv.isPresent())
+		{
+			//expand chronology of the concept even if unrequested, otherwise, you can't identify what the concept is
+			RestConceptVersion version = new RestConceptVersion(cv.get().value(), true, false, countParents_, false, false, stated_, 
+					includeSememeMembership_);
+			if (countDescendants_)
+			{
+				version.setDescendantCount(counts_.getDescendantCount(conceptSequence));
+			}
+			return version;
+		}
+		return null;
+	}
+
+	private void count(Node node)
+	{
+		if (expandChildren_)
+		{
+			node.version.setChildCount(counts_.getChildCount(node.conceptSequence));
+		}
+		else
+		{
+			node.version.setParentCount(counts_.getParentCount(node.conceptSequence));
+		}
+	}
+
+	/**
+	 * Run the action for each index from 0 to size - in the calling thread for small sizes (or when parallel expansion is 
+	 * disabled), otherwise, on the pool.
+	 */
+	private void forEach(int size, IntConsumer action)
+	{
+		if (size <= SPLIT_THRESHOLD || !parallel_)
+		{
+			for (int i = 0; i < size; i++)
+			{
+				action.accept(i);
+			}
+		}
+		else
+		{
+			pool_.invoke(new RangeTask(0, size, action));
+		}
+	}
+
+	private class RangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int start_;
+		private final int end_;
+		private final IntConsumer action_;
+
+		private RangeTask(int start, int end, IntConsumer action)
+		{
+			start_ = start;
+			end_ = end;
+			action_ = action;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end_ - start_ > SPLIT_THRESHOLD)
+			{
+				int middle = (start_ + end_) >>> 1;
+				invokeAll(new RangeTask(start_, middle, action_), new RangeTask(middle, end_, action_));
+				return;
+			}
+			// A worker that steals this task while joining a task of another request must get that request's info back
+			RequestInfo previous = RequestInfo.get();
+			RequestInfo.set(requestInfo_);
+			try
+			{
+				for (int i = start_; i < end_; i++)
+				{
+					action_.accept(i);
+				}
+			}
+			finally
+			{
+				RequestInfo.set(previous);
+			}
+		}
+	}
+}
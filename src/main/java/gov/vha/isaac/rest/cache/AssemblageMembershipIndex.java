@@ -0,0 +1,299 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.ObjectChronologyType;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.model.sememe.version.SememeVersionImpl;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link AssemblageMembershipIndex}
+ *
+ * The sememe assemblages that each concept is a member of (it is the referenced component of a sememe of the assemblage, which has
+ * a version on the stamp coordinate) - held as a sorted array of assemblage sequences per concept sequence, so that the 
+ * sememeMembership of a concept is a single lookup, rather than a read of every sememe of the concept.  Only the memberships take 
+ * space - most concepts are members of few assemblages, if any, which a bitset of members per assemblage would not take advantage 
+ * of.  As with the sememeMembership of {@link gov.vha.isaac.rest.api1.data.concept.RestConceptVersion}, logic graph, relationship 
+ * and description sememes are not counted.
+ *
+ * There is an index for each stamp coordinate requested, built by a single pass over the sememes of each assemblage in use, and kept
+ * current by recalculating the membership of the concepts referenced by the committed sememes (see {@link IncrementalIndex}).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class AssemblageMembershipIndex extends IncrementalIndex
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final ConcurrentLruCache<String, AssemblageMembershipIndex> indexes_ = new ConcurrentLruCache<>("assemblageMembership", 
+			Integer.getInteger("isaac.rest.assemblageMembershipIndexSize", 4));
+
+	private static final TimingStatistics buildTimer_ = new TimingStatistics("assemblageMembershipIndexBuild");
+
+	static
+	{
+		applyCommits(indexes_);
+	}
+
+	private final StampCoordinate stampCoordinate_;
+	// The sorted assemblage sequences of each concept (by concept sequence), or null, if the concept isn't a member of any.  The arrays
+	// are replaced, rather than modified, when the membership of a concept changes.
+	private int[][] assemblages_;
+
+	private AssemblageMembershipIndex(String key, StampCoordinate stampCoordinate)
+	{
+		super("assemblage membership", key, indexes_, buildTimer_);
+		stampCoordinate_ = stampCoordinate;
+	}
+
+	/**
+	 * @return the index of the stamp coordinate of the current request, if it has been built, and has applied every commit.  If it 
+	 * hasn't been built, the build is started (in the background) if necessary.
+	 */
+	public static Optional<AssemblageMembershipIndex> get()
+	{
+		RequestInfo requestInfo = RequestInfo.get();
+		return get(indexes_, requestInfo.getCoordinatesToken().getStampCoordinateKey(), 
+				k -> new AssemblageMembershipIndex(k, requestInfo.getStampCoordinate()));
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the concept sequences of the assemblages that the concept is a member of
+	 */
+	public Set<Integer> getAssemblages(int conceptSequence)
+	{
+		int[] assemblages;
+		lock_.readLock().lock();
+		try
+		{
+			assemblages = conceptSequence < assemblages_.length ? assemblages_[conceptSequence] : null;
+		}
+		finally
+		{
+			lock_.readLock().unlock();
+		}
+		HashSet<Integer> result = new HashSet<>();
+		if (assemblages != null)
+		{
+			for (int assemblage : assemblages)
+			{
+				result.add(assemblage);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @see gov.vha.isaac.rest.cache.IncrementalIndex#build()
+	 */
+	@Override
+	protected void build()
+	{
+		int[][] assemblages = new int[Get.conceptService().getConceptCount() + 1][];
+		int[] counts = new int[assemblages.length];
+		int assemblageCount = 0;
+		// Only the assemblages which have sememes - not every concept which could be one
+		for (int assemblage : Get.sememeService().getAssemblageTypes().mapToInt(sequence -> sequence).toArray())
+		{
+			PrimitiveIterator.OfInt sememes = Get.sememeService().getSememeSequencesFromAssemblage(assemblage).stream().iterator();
+			while (sememes.hasNext())
+			{
+				SememeChronology<?> sc = Get.sememeService().getSememe(sememes.nextInt());
+				if (isCounted(sc) && isCurrent(sc))
+				{
+					int conceptSequence = Get.identifierService().getConceptSequence(sc.getReferencedComponentNid());
+					if (conceptSequence >= assemblages.length)
+					{
+						// A concept created since the build started
+						assemblages = Arrays.copyOf(assemblages, conceptSequence + 1);
+						counts = Arrays.copyOf(counts, conceptSequence + 1);
+					}
+					int[] members = assemblages[conceptSequence];
+					int count = counts[conceptSequence];
+					// The assemblages are read one at a time, so a concept with several sememes of this one has just been given it
+					if (count > 0 && members[count - 1] == assemblage)
+					{
+						continue;
+					}
+					if (members == null || count == members.length)
+					{
+						members = members == null ? new int[2] : Arrays.copyOf(members, count * 2);
+						assemblages[conceptSequence] = members;
+					}
+					members[count] = assemblage;
+					counts[conceptSequence]++;
+				}
+			}
+			assemblageCount++;
+		}
+		for (int conceptSequence = 0; conceptSequence < assemblages.length; conceptSequence++)
+		{
+			if (assemblages[conceptSequence] != null)
+			{
+				assemblages[conceptSequence] = Arrays.copyOf(assemblages[conceptSequence], counts[conceptSequence]);
+				Arrays.sort(assemblages[conceptSequence]);
+			}
+		}
+
+		lock_.writeLock().lock();
+		try
+		{
+			assemblages_ = assemblages;
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+		log.debug("Indexed the members of {} assemblages", assemblageCount);
+	}
+
+	/**
+	 * Recalculates the membership of the concepts referenced by the committed sememes.
+	 * 
+	 * @see gov.vha.isaac.rest.cache.IncrementalIndex#apply(int[])
+	 */
+	@Override
+	protected void apply(int[] sememeSequences)
+	{
+		// The concept sequence, assemblage sequence and (1 or 0) membership of each counted sememe
+		List<int[]> changes = new ArrayList<>();
+		for (int sememeSequence : sememeSequences)
+		{
+			SememeChronology<?> sc = Get.sememeService().getSememe(sememeSequence);
+			if (isCounted(sc))
+			{
+				// The concept remains a member while any of its sememes of the assemblage are current
+				int assemblage = sc.getAssemblageSequence();
+				boolean member = Get.sememeService().getSememesForComponentFromAssemblage(sc.getReferencedComponentNid(), assemblage)
+						.anyMatch(other -> isCurrent(other));
+				changes.add(new int[] {Get.identifierService().getConceptSequence(sc.getReferencedComponentNid()), assemblage, member ? 1 : 0});
+			}
+		}
+		if (changes.isEmpty())
+		{
+			return;
+		}
+		lock_.writeLock().lock();
+		try
+		{
+			for (int[] change : changes)
+			{
+				setMember(change[0], change[1], change[2] == 1);
+			}
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Must be called with the write lock held.
+	 */
+	private void setMember(int conceptSequence, int assemblage, boolean member)
+	{
+		if (conceptSequence >= assemblages_.length)
+		{
+			if (!member)
+			{
+				return;
+			}
+			assemblages_ = Arrays.copyOf(assemblages_, Math.max(conceptSequence + 1, assemblages_.length + (assemblages_.length >> 3)));
+		}
+		int[] current = assemblages_[conceptSequence];
+		int length = current == null ? 0 : current.length;
+		int index = current == null ? -1 : Arrays.binarySearch(current, assemblage);
+		if (member && index < 0)
+		{
+			int insert = -index - 1;
+			int[] updated = new int[length + 1];
+			if (current != null)
+			{
+				System.arraycopy(current, 0, updated, 0, insert);
+				System.arraycopy(current, insert, updated, insert + 1, length - insert);
+			}
+			updated[insert] = assemblage;
+			assemblages_[conceptSequence] = updated;
+		}
+		else if (!member && index >= 0)
+		{
+			if (length == 1)
+			{
+				assemblages_[conceptSequence] = null;
+			}
+			else
+			{
+				int[] updated = new int[length - 1];
+				System.arraycopy(current, 0, updated, 0, index);
+				System.arraycopy(current, index + 1, updated, index, length - index - 1);
+				assemblages_[conceptSequence] = updated;
+			}
+		}
+	}
+
+	/**
+	 * @return true, if the sememe is of a type which counts towards membership, and references a concept
+	 */
+	private static boolean isCounted(SememeChronology<?> sc)
+	{
+		return sc.getSememeType() != SememeType.LOGIC_GRAPH && sc.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
+				&& sc.getSememeType() != SememeType.DESCRIPTION
+				&& Get.identifierService().getChronologyTypeForNid(sc.getReferencedComponentNid()) == ObjectChronologyType.CONCEPT;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private boolean isCurrent(SememeChronology sc)
+	{
+		return sc.getLatestVersion(SememeVersionImpl.class, stampCoordinate_).isPresent();
+	}
+
+	/**
+	 * @return the usage statistics of the cache of indexes
+	 */
+	public static RestCacheStatistics getStatistics()
+	{
+		return indexes_.getStatistics();
+	}
+
+	/**
+	 * @return the time taken to build the indexes
+	 */
+	public static RestTimingStatistics getTimingStatistics()
+	{
+		return buildTimer_.getStatistics();
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * {@link CommitQueue}
+ *
+ * The commits that an index has yet to apply.  The commit thread only queues the sememes of each commit - they are applied in the 
+ * background, one commit at a time and in the order they were committed, so that the commit thread never reads the store or waits 
+ * for the lock of an index.
+ *
+ * Since the {@link CommitWatcher} only publishes the generation of a commit once every listener has queued it, an index which is 
+ * {@link #isCurrent()} has applied every commit that a request may have seen - an index which isn't should not be used, as it may 
+ * disagree with the store (and with the generation the response is cached under).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class CommitQueue
+{
+	private static Logger log = LogManager.getLogger();
+
+	private final String name_;
+	private final Executor executor_;
+	private final Consumer<int[]> apply_;
+	private final Runnable onFailure_;
+	private final ConcurrentLinkedQueue<int[]> queue_ = new ConcurrentLinkedQueue<>();
+	private final AtomicLong queued_ = new AtomicLong();
+	private final AtomicLong applied_ = new AtomicLong();
+	private final AtomicBoolean draining_ = new AtomicBoolean(false);
+	private volatile boolean started_ = false;
+	private volatile boolean failed_ = false;
+
+	/**
+	 * @param name the name of the index, for logging
+	 * @param executor the executor to apply the commits on
+	 * @param apply applies the sememes of one commit to the index.  Applying a commit which the index has already seen must be 
+	 * harmless, as the commits which arrive while an index is being built may or may not be seen by the build.
+	 * @param onFailure called (once) if a commit can't be applied - the index is then never current again, and should be discarded
+	 */
+	CommitQueue(String name, Executor executor, Consumer<int[]> apply, Runnable onFailure)
+	{
+		name_ = name;
+		executor_ = executor;
+		apply_ = apply;
+		onFailure_ = onFailure;
+	}
+
+	/**
+	 * Queue a commit.  Called on the commit thread.  Commits are held until {@link #start()} is called.
+	 * 
+	 * @param sememes the sequences of the sememes in the commit
+	 */
+	void add(int[] sememes)
+	{
+		// Counted before it is queued, so that the index isn't current until it has been applied
+		queued_.incrementAndGet();
+		queue_.add(sememes);
+		if (started_)
+		{
+			schedule();
+		}
+	}
+
+	/**
+	 * Start applying commits - called once the index has been built.
+	 */
+	void start()
+	{
+		started_ = true;
+		schedule();
+	}
+
+	/**
+	 * @return true, if the queue has been started, and every commit that was queued before this call has been applied
+	 */
+	boolean isCurrent()
+	{
+		long queued = queued_.get();
+		return started_ && !failed_ && applied_.get() >= queued;
+	}
+
+	private void schedule()
+	{
+		if (!failed_ && draining_.compareAndSet(false, true))
+		{
+			executor_.execute(() -> drain());
+		}
+	}
+
+	private void drain()
+	{
+		try
+		{
+			int[] sememes;
+			while ((sememes = queue_.poll()) != null)
+			{
+				apply_.accept(sememes);
+				applied_.incrementAndGet();
+			}
+		}
+		catch (RuntimeException e)
+		{
+			log.error("Failed to apply a commit to the " + name_ + " index", e);
+			failed_ = true;
+			onFailure_.run();
+		}
+		finally
+		{
+			draining_.set(false);
+		}
+		// A commit which was queued after the last poll, but before draining_ was cleared, wasn't scheduled by add()
+		if (!queue_.isEmpty())
+		{
+			schedule();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.commit.ChronologyChangeListener;
+import gov.vha.isaac.ochre.api.commit.CommitRecord;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.identity.StampedVersion;
+
+/**
+ * {@link CommitWatcher}
+ *
+ * Listens to the ISAAC commit service, and maintains a commit generation counter that the caches in the REST layer
+ * use to determine if what they are holding may be stale.  Caches may either remember the generation that they were
+ * built against, and compare it to {@link #getGeneration()}, or register a listener to be notified of each commit.
+ *
+ * The generation is incremented both before and after the listeners are notified of a commit.  The first increment stops anything
+ * built against the state before the commit from being cached under the current generation, while the listeners are still running.
+ * The second makes anything built while they were running (when some caches and indexes may not have processed the commit yet) 
+ * stale - so the generation which is current once the listeners are done is only ever seen with caches that have all processed 
+ * the commit.  Listeners which process a commit asynchronously must account for that themselves (see {@link CommitQueue}).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class CommitWatcher implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger();
+
+	//The commit service only holds a weak reference to its listeners, so we must hold the strong reference.
+	private static final CommitWatcher instance_ = new CommitWatcher();
+
+	private final UUID listenerUuid_ = UUID.randomUUID();
+	private final AtomicLong generation_ = new AtomicLong(0);
+	private final CopyOnWriteArrayList<Consumer<CommitRecord>> commitListeners_ = new CopyOnWriteArrayList<>();
+	private volatile boolean started_ = false;
+
+	private CommitWatcher()
+	{
+	}
+
+	/**
+	 * Register with the commit service.  Must not be called until after ISAAC has been started.  Subsequent calls are ignored.
+	 */
+	public static synchronized void start()
+	{
+		if (!instance_.started_)
+		{
+			Get.commitService().addChangeListener(instance_);
+			instance_.started_ = true;
+			log.info("Commit watcher registered with the commit service");
+		}
+	}
+
+	/**
+	 * @return a number that is incremented every time a commit is processed by the commit service - and again, once all of the
+	 * listeners have been notified of the commit.
+	 */
+	public static long getGeneration()
+	{
+		return instance_.generation_.get();
+	}
+
+	/**
+	 * @param listener - a listener to be notified (on the commit thread) after each commit.  Listeners should be quick - typically
+	 * they just clear a cache.
+	 */
+	public static void addCommitListener(Runnable listener)
+	{
+		instance_.commitListeners_.add(commitRecord -> listener.run());
+	}
+
+	/**
+	 * @param listener - a listener to be notified (on the commit thread) after each commit, with the record of what was committed.
+	 * As with {@link #addCommitListener(Runnable)}, listeners should be quick.
+	 */
+	public static void addCommitRecordListener(Consumer<CommitRecord> listener)
+	{
+		instance_.commitListeners_.add(listener);
+	}
+
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid_;
+	}
+
+	@Override
+	public void handleChange(ConceptChronology<? extends StampedVersion> cc)
+	{
+		//noop - we only care about changes once they are committed
+	}
+
+	@Override
+	public void handleChange(SememeChronology<? extends SememeVersion<?>> sc)
+	{
+		//noop - we only care about changes once they are committed
+	}
+
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		generation_.incrementAndGet();
+		for (Consumer<CommitRecord> listener : commitListeners_)
+		{
+			try
+			{
+				listener.accept(commitRecord);
+			}
+			catch (Exception e)
+			{
+				log.error("Unexpected error notifying commit listener", e);
+			}
+		}
+		long generation = generation_.incrementAndGet();
+		log.debug("Commit observed, cache generation is now {}", generation);
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+
+/**
+ * {@link ConcurrentLruCache}
+ *
+ * A bounded cache with lock-free reads, which evicts in approximately least-recently-used order.
+ *
+ * Unlike an access-ordered {@link java.util.LinkedHashMap}, a read does not restructure anything - it only stamps the entry
+ * with the value of a logical clock.  When a write pushes the cache over its capacity, a single thread scans the entries and
+ * evicts the least recently stamped ones until the cache is back to {@link #EVICTION_TARGET} of its capacity, so the cost of the
+ * scan is amortized over many writes.  Writers that find another thread already evicting don't wait for it, so the cache may
+ * briefly hold a few more entries than its capacity.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ConcurrentLruCache<K, V>
+{
+	/**
+	 * The fraction of the capacity that an eviction pass trims the cache down to
+	 */
+	public static final float EVICTION_TARGET = 0.9f;
+
+	private final String name_;
+	private final int capacity_;
+	private final ConcurrentHashMap<K, Node<V>> map_;
+	private final AtomicLong clock_ = new AtomicLong();
+	private final ReentrantLock evictionLock_ = new ReentrantLock();
+
+	private final LongAdder hits_ = new LongAdder();
+	private final LongAdder misses_ = new LongAdder();
+	private final LongAdder evictions_ = new LongAdder();
+
+	private static class Node<V>
+	{
+		private final V value;
+		private volatile long lastAccess;
+
+		private Node(V value, long lastAccess)
+		{
+			this.value = value;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	/**
+	 * @param name the name to report in the statistics of this cache
+	 * @param capacity the maximum number of entries to hold
+	 */
+	public ConcurrentLruCache(String name, int capacity)
+	{
+		if (capacity < 1)
+		{
+			throw new IllegalArgumentException("The capacity must be at least 1");
+		}
+		name_ = name;
+		capacity_ = capacity;
+		map_ = new ConcurrentHashMap<>((int)(capacity / 0.75f) + 1);
+	}
+
+	/**
+	 * The clock only needs to be approximately ordered, so readers take the current value without incrementing it - only
+	 * writes advance it.  This keeps the read path free of contended writes to a shared counter.
+	 */
+	private long now()
+	{
+		return clock_.get();
+	}
+
+	/**
+	 * @param key the key to look up
+	 * @return the cached value, or null
+	 */
+	public V get(K key)
+	{
+		Node<V> node = map_.get(key);
+		if (node == null)
+		{
+			misses_.increment();
+			return null;
+		}
+		long now = now();
+		if (node.lastAccess != now)
+		{
+			node.lastAccess = now;
+		}
+		hits_.increment();
+		return node.value;
+	}
+
+	/**
+	 * @param key the key to store the value under
+	 * @param value the value to cache
+	 * @return the value previously cached for the key, or null
+	 */
+	public V put(K key, V value)
+	{
+		Node<V> old = map_.put(key, new Node<>(value, clock_.incrementAndGet()));
+		if (old == null)
+		{
+			evictIfNecessary();
+		}
+		return old == null ? null : old.value;
+	}
+
+	/**
+	 * Return the cached value for the key, computing and caching it if it isn't present.  As with
+	 * {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}, the computation is performed at most once per key at a time,
+	 * while other threads requesting the same key wait for it.
+	 * 
+	 * The function runs while holding a lock of the underlying map, which may also cover other keys - and which {@link #clear()} 
+	 * and eviction wait for.  So the function must be short: to cache something expensive to build, compute a cheap holder here, 
+	 * which builds the value the first time it is read.
+	 *
+	 * @param key the key to look up
+	 * @param function the function to compute the value - if it returns null, nothing is cached
+	 * @return the cached or computed value
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> function)
+	{
+		V value = get(key);
+		if (value != null)
+		{
+			return value;
+		}
+		boolean[] computed = new boolean[1];
+		Node<V> node = map_.computeIfAbsent(key, k ->
+		{
+			V v = function.apply(k);
+			if (v == null)
+			{
+				return null;
+			}
+			computed[0] = true;
+			return new Node<>(v, clock_.incrementAndGet());
+		});
+		if (computed[0])
+		{
+			evictIfNecessary();
+		}
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * @param key the key to remove
+	 * @return the value that was cached for the key, or null
+	 */
+	public V remove(K key)
+	{
+		Node<V> node = map_.remove(key);
+		return node == null ? null : node.value;
+	}
+
+	/**
+	 * Remove the entry of the key, only if it holds the given value - so that a stale holder of a value can't remove a value which 
+	 * has since replaced it.
+	 * 
+	 * @param key the key to remove
+	 * @param value the value the entry must hold
+	 * @return true, if the entry was removed
+	 */
+	public boolean remove(K key, Object value)
+	{
+		Node<V> node = map_.get(key);
+		return node != null && node.value == value && map_.remove(key, node);
+	}
+
+	/**
+	 * Discard all entries.  Discarded entries are counted as evictions.
+	 */
+	public void clear()
+	{
+		for (K key : map_.keySet())
+		{
+			if (map_.remove(key) != null)
+			{
+				evictions_.increment();
+			}
+		}
+	}
+
+	/**
+	 * @return the values currently cached.  Reading the values doesn't count as an access of their entries, and the list isn't
+	 * affected by later changes to the cache.
+	 */
+	public List<V> values()
+	{
+		ArrayList<V> values = new ArrayList<>(map_.size());
+		for (Node<V> node : map_.values())
+		{
+			values.add(node.value);
+		}
+		return values;
+	}
+
+	/**
+	 * @return the number of entries currently cached
+	 */
+	public int size()
+	{
+		return map_.size();
+	}
+
+	/**
+	 * @return the maximum number of entries this cache will hold
+	 */
+	public int getCapacity()
+	{
+		return capacity_;
+	}
+
+	/**
+	 * The size is checked again after the lock is released, so that entries added by writers which found the lock held, while
+	 * this thread was evicting, are not left in place beyond the capacity.
+	 */
+	private void evictIfNecessary()
+	{
+		while (map_.size() > capacity_ && evictionLock_.tryLock())
+		{
+			try
+			{
+				evict();
+			}
+			finally
+			{
+				evictionLock_.unlock();
+			}
+		}
+	}
+
+	private void evict()
+	{
+		int size = map_.size();
+		if (size <= capacity_)
+		{
+			return;
+		}
+		int toEvict = size - (int)(capacity_ * EVICTION_TARGET);
+
+		long[] stamps = new long[size];
+		int count = 0;
+		for (Node<V> node : map_.values())
+		{
+			if (count == stamps.length)
+			{
+				break;
+			}
+			stamps[count++] = node.lastAccess;
+		}
+		if (toEvict >= count)
+		{
+			toEvict = count;
+		}
+		Arrays.sort(stamps, 0, count);
+		long threshold = stamps[Math.max(0, toEvict - 1)];
+
+		for (Map.Entry<K, Node<V>> entry : map_.entrySet())
+		{
+			if (toEvict <= 0)
+			{
+				break;
+			}
+			if (entry.getValue().lastAccess <= threshold && map_.remove(entry.getKey(), entry.getValue()))
+			{
+				evictions_.increment();
+				toEvict--;
+			}
+		}
+	}
+
+	/**
+	 * @return the usage statistics of this cache
+	 */
+	public RestCacheStatistics getStatistics()
+	{
+		return new RestCacheStatistics(name_, map_.size(), capacity_, hits_.sum(), misses_.sum(), evictions_.sum());
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.BitSet;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.impl.utility.Frills;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link DefinedConceptIndex}
+ *
+ * Whether each concept is fully defined (or primitive), per the latest version of its stated or inferred logic graph on one stamp 
+ * coordinate - held in bitsets indexed by concept sequence, so that filling in the 'isConceptDefined' field of a concept doesn't 
+ * require reading its logic graph.
+ *
+ * There is an index for each logic graph assemblage and stamp coordinate requested, built by a single pass over the logic graphs of 
+ * the assemblage, and kept current by recalculating the concepts whose logic graphs are committed (see {@link IncrementalIndex}).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class DefinedConceptIndex extends IncrementalIndex
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final ConcurrentLruCache<String, DefinedConceptIndex> indexes_ = new ConcurrentLruCache<>("definedConcepts", 
+			Integer.getInteger("isaac.rest.definedConceptIndexSize", 8));
+
+	private static final TimingStatistics buildTimer_ = new TimingStatistics("definedConceptIndexBuild");
+
+	static
+	{
+		applyCommits(indexes_);
+	}
+
+	private final int assemblage_;
+	private final StampCoordinate stampCoordinate_;
+	// The concepts which have a logic graph on the stamp coordinate
+	private BitSet hasGraph_;
+	// Of those, the concepts whose logic graph is fully defined
+	private BitSet defined_;
+
+	private DefinedConceptIndex(String key, int assemblage, StampCoordinate stampCoordinate)
+	{
+		super("defined concept", key, indexes_, buildTimer_);
+		assemblage_ = assemblage;
+		stampCoordinate_ = stampCoordinate;
+	}
+
+	/**
+	 * @param stated true for the stated logic graphs, false for the inferred logic graphs
+	 * @return the index of the logic graphs and stamp coordinate of the current request, if it has been built, and has applied 
+	 * every commit.  If it hasn't been built, the build is started (in the background) if necessary.
+	 */
+	public static Optional<DefinedConceptIndex> get(boolean stated)
+	{
+		RequestInfo requestInfo = RequestInfo.get();
+		int assemblage = stated ? requestInfo.getLogicCoordinate().getStatedAssemblageSequence() 
+				: requestInfo.getLogicCoordinate().getInferredAssemblageSequence();
+		String key = assemblage + "@" + requestInfo.getCoordinatesToken().getStampCoordinateKey();
+		return get(indexes_, key, k -> new DefinedConceptIndex(k, assemblage, requestInfo.getStampCoordinate()));
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return true, if the logic graph of the concept is fully defined, false if it is primitive - or null, if the concept has no
+	 * logic graph on the stamp coordinate.
+	 */
+	public Boolean isConceptDefined(int conceptSequence)
+	{
+		lock_.readLock().lock();
+		try
+		{
+			return hasGraph_.get(conceptSequence) ? defined_.get(conceptSequence) : null;
+		}
+		finally
+		{
+			lock_.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @see gov.vha.isaac.rest.cache.IncrementalIndex#build()
+	 */
+	@Override
+	protected void build()
+	{
+		BitSet hasGraph = new BitSet(Get.conceptService().getConceptCount() + 1);
+		BitSet defined = new BitSet(Get.conceptService().getConceptCount() + 1);
+		Get.sememeService().getSememeSequencesFromAssemblage(assemblage_).stream().forEach(sememeSequence -> 
+			index(Get.sememeService().getSememe(sememeSequence), hasGraph, defined));
+
+		lock_.writeLock().lock();
+		try
+		{
+			hasGraph_ = hasGraph;
+			defined_ = defined;
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+		log.debug("Indexed the defined state of {} concepts of assemblage {}", hasGraph.cardinality(), assemblage_);
+	}
+
+	/**
+	 * Recalculates the concepts whose logic graphs of the assemblage were committed.
+	 * 
+	 * @see gov.vha.isaac.rest.cache.IncrementalIndex#apply(int[])
+	 */
+	@Override
+	protected void apply(int[] sememeSequences)
+	{
+		BitSet changed = new BitSet();
+		BitSet hasGraph = new BitSet();
+		BitSet defined = new BitSet();
+		for (int sememeSequence : sememeSequences)
+		{
+			SememeChronology<?> sc = Get.sememeService().getSememe(sememeSequence);
+			if (sc.getAssemblageSequence() == assemblage_)
+			{
+				changed.set(index(sc, hasGraph, defined));
+			}
+		}
+		if (changed.isEmpty())
+		{
+			return;
+		}
+		lock_.writeLock().lock();
+		try
+		{
+			for (int conceptSequence = changed.nextSetBit(0); conceptSequence >= 0; conceptSequence = changed.nextSetBit(conceptSequence + 1))
+			{
+				hasGraph_.set(conceptSequence, hasGraph.get(conceptSequence));
+				defined_.set(conceptSequence, defined.get(conceptSequence));
+			}
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the sequence of the concept that the logic graph belongs to
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private int index(SememeChronology sc, BitSet hasGraph, BitSet defined)
+	{
+		int conceptSequence = Get.identifierService().getConceptSequence(sc.getReferencedComponentNid());
+		Optional<LatestVersion<LogicGraphSememe>> latest = sc.getLatestVersion(LogicGraphSememe.class, stampCoordinate_);
+		hasGraph.set(conceptSequence, latest.isPresent());
+		defined.set(conceptSequence, latest.isPresent() && Frills.isConceptFullyDefined(latest.get().value()));
+		return conceptSequence;
+	}
+
+	/**
+	 * @return the usage statistics of the cache of indexes
+	 */
+	public static RestCacheStatistics getStatistics()
+	{
+		return indexes_.getStatistics();
+	}
+
+	/**
+	 * @return the time taken to build the indexes
+	 */
+	public static RestTimingStatistics getTimingStatistics()
+	{
+		return buildTimer_.getStatistics();
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.State;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
+import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.session.RequestInfo;
+
+/**
+ * {@link DescriptionResolver}
+ *
+ * Finds the 'best' description of concepts, for the language and stamp coordinates of the current request, and remembers the 
+ * results in a bounded cache - keyed by the nid, and by the coordinates token of the request, which identifies both coordinates.
+ * The descriptions of a concept are read from the sememe service once per resolution, and both the fully specified and the 
+ * preferred description are selected from that one list.  The cache is cleared on commit, and a description resolved while a 
+ * commit occurred is never returned after it.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class DescriptionResolver
+{
+	private static final ConcurrentLruCache<Key, Optional<String>> descriptions_ = new ConcurrentLruCache<>("descriptions", 
+			Integer.getInteger("isaac.rest.descriptionCacheSize", 100000));
+
+	private static final TimingStatistics resolveTimer_ = new TimingStatistics("descriptionResolution");
+
+	static
+	{
+		CommitWatcher.addCommitListener(() -> descriptions_.clear());
+	}
+
+	private DescriptionResolver()
+	{
+	}
+
+	private static class Key
+	{
+		private final long generation;
+		private final String coordinates;
+		private final int nid;
+		private final int hash;
+
+		private Key(long generation, String coordinates, int nid)
+		{
+			this.generation = generation;
+			this.coordinates = coordinates;
+			this.nid = nid;
+			this.hash = (31 * coordinates.hashCode() + nid) * 31 + Long.hashCode(generation);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return nid == other.nid && generation == other.generation && coordinates.equals(other.coordinates);
+		}
+	}
+
+	/**
+	 * @param conceptNid the concept
+	 * @return the best description of the concept, for the coordinates of the current request - or null, if it has no description
+	 * on those coordinates
+	 */
+	public static String resolve(int conceptNid)
+	{
+		return resolve(new int[] {conceptNid})[0];
+	}
+
+	/**
+	 * Resolve the descriptions of a batch of concepts.  The coordinates of the request are read once for the whole batch.
+	 * 
+	 * @param conceptNids the concepts
+	 * @return the best description of each concept, in the order of the nids, for the coordinates of the current request - with
+	 * null for each concept that has no description on those coordinates
+	 */
+	public static String[] resolve(int[] conceptNids)
+	{
+		RequestInfo requestInfo = RequestInfo.get();
+		// The generation in the key ensures that a description read before a commit isn't returned after it
+		long generation = CommitWatcher.getGeneration();
+		String coordinates = requestInfo.getCoordinatesToken().getSerialized();
+		boolean useFsn = requestInfo.useFsn();
+		LanguageCoordinate languageCoordinate = requestInfo.getLanguageCoordinate();
+		StampCoordinate stampCoordinate = requestInfo.getStampCoordinate();
+
+		String[] results = new String[conceptNids.length];
+		for (int i = 0; i < conceptNids.length; i++)
+		{
+			results[i] = descriptions_.computeIfAbsent(new Key(generation, coordinates, conceptNids[i]), key -> 
+			{
+				long start = System.nanoTime();
+				Optional<String> description = Optional.ofNullable(read(key.nid, useFsn, languageCoordinate, stampCoordinate));
+				resolveTimer_.record(start);
+				return description;
+			}).orElse(null);
+		}
+		return results;
+	}
+
+	private static String read(int conceptNid, boolean useFsn, LanguageCoordinate languageCoordinate, StampCoordinate stampCoordinate)
+	{
+		List<SememeChronology<? extends DescriptionSememe<?>>> descriptions = Get.sememeService().getDescriptionsForComponent(conceptNid)
+				.collect(Collectors.toList());
+		if (descriptions.isEmpty())
+		{
+			return null;
+		}
+
+		Optional<LatestVersion<DescriptionSememe<?>>> descriptionOptional = Optional.empty();
+
+		if (useFsn)
+		{
+			descriptionOptional = languageCoordinate.getFullySpecifiedDescription(descriptions, stampCoordinate);
+		}
+
+		if (!descriptionOptional.isPresent())
+		{
+			descriptionOptional = languageCoordinate.getPreferredDescription(descriptions, stampCoordinate);
+		}
+
+		if (descriptionOptional.isPresent())
+		{
+			if (descriptionOptional.get().contradictions().isPresent())
+			{
+				//Prefer active descriptions over inactive, if there was a contradiction (which means they tied the sort - have the same time)
+				//common for a replacement description to have the same time as the retired one.
+				if (descriptionOptional.get().value().getState() == State.ACTIVE)
+				{
+					return descriptionOptional.get().value().getText();
+				}
+				else
+				{
+					for (DescriptionSememe<?> ds : descriptionOptional.get().contradictions().get())
+					{
+						if (ds.getState() == State.ACTIVE)
+						{
+							return ds.getText();
+						}
+					}
+				}
+			}
+			return descriptionOptional.get().value().getText();
+		}
+		else
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Discard all cached descriptions
+	 */
+	public static void clear()
+	{
+		descriptions_.clear();
+	}
+
+	/**
+	 * @return the usage statistics of the cache
+	 */
+	public static RestCacheStatistics getStatistics()
+	{
+		return descriptions_.getStatistics();
+	}
+
+	/**
+	 * @return the time taken to resolve the descriptions that were not cached
+	 */
+	public static RestTimingStatistics getTimingStatistics()
+	{
+		return resolveTimer_.getStatistics();
+	}
+}
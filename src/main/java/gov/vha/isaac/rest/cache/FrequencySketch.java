@@ -0,0 +1,102 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * {@link FrequencySketch}
+ *
+ * A count-min sketch, which estimates how often each key has been seen recently, in a fixed amount of memory - as used by the
+ * TinyLFU admission of {@link ResponseCache}.  Each key increments one counter in each of four rows; its estimated frequency is the
+ * smallest of those counters, which can only over count.  Counters saturate at 15, and after a sample of 10 increments per 
+ * counter every counter is halved, so the estimates favor recent history.
+ *
+ * Updates are lock free, and may occasionally be lost to races with the halving - which only makes the estimates slightly low.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class FrequencySketch
+{
+	private static final int[] SEEDS = {0x97cb3127, 0xb3f13b61, 0x2a48e5c5, 0x5f356495};
+	private static final int MAX_COUNT = 15;
+
+	private final AtomicIntegerArray counters_;
+	private final int mask_;
+	private final int sampleSize_;
+	private final AtomicInteger additions_ = new AtomicInteger();
+
+	/**
+	 * @param expectedKeys the number of distinct keys whose frequency should be tracked accurately
+	 */
+	FrequencySketch(int expectedKeys)
+	{
+		int length = Integer.highestOneBit(Math.max(16, expectedKeys) - 1) << 1;
+		counters_ = new AtomicIntegerArray(length);
+		mask_ = length - 1;
+		sampleSize_ = 10 * length;
+	}
+
+	/**
+	 * @param hash the hash of a key
+	 * @return the estimated number of times the key was seen recently, at most 15
+	 */
+	int frequency(int hash)
+	{
+		int frequency = MAX_COUNT;
+		for (int seed : SEEDS)
+		{
+			frequency = Math.min(frequency, counters_.get(index(hash, seed)));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an occurrence of a key
+	 * @param hash the hash of the key
+	 */
+	void increment(int hash)
+	{
+		for (int seed : SEEDS)
+		{
+			int index = index(hash, seed);
+			int count;
+			do
+			{
+				count = counters_.get(index);
+			}
+			while (count < MAX_COUNT && !counters_.compareAndSet(index, count, count + 1));
+		}
+		if (additions_.incrementAndGet() == sampleSize_)
+		{
+			for (int i = 0; i < counters_.length(); i++)
+			{
+				counters_.set(i, counters_.get(i) >>> 1);
+			}
+			additions_.set(0);
+		}
+	}
+
+	private int index(int hash, int seed)
+	{
+		int h = (hash ^ (hash >>> 16)) * seed;
+		return (h ^ (h >>> 15)) & mask_;
+	}
+}
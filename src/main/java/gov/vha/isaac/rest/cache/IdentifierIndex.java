@@ -0,0 +1,332 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.MetaData;
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.version.SememeVersion;
+import gov.vha.isaac.ochre.api.component.sememe.version.StringSememe;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.util.WorkExecutors;
+import gov.vha.isaac.rest.tokens.CoordinatesToken;
+import gov.vha.isaac.rest.tokens.CoordinatesTokens;
+
+/**
+ * {@link IdentifierIndex}
+ *
+ * An in memory index of the VUID or SCTID identifiers, in both directions, so that translating these ids doesn't require a
+ * lucene query (id to nid) or a walk of the sememes of the component (nid to id).  The indexes are built in the background,
+ * once ISAAC has started, and are kept current by processing each commit in the background (see {@link CommitQueue}).  Until an 
+ * index has been built, and has applied every commit, {@link #get(Type)} returns nothing, and callers should use the slower lookups 
+ * in Frills.
+ *
+ * The id to nid direction includes the value of every version of each identifier sememe, as an id that was ever assigned to a
+ * component still identifies it.  The nid to id direction holds the value of the latest version under the stamp coordinate of
+ * the default coordinates token, so it only answers for requests on that stamp coordinate - see {@link #covers(CoordinatesToken)}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class IdentifierIndex
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final long NO_ID = Long.MIN_VALUE;
+	private static final int NO_NID = 0;
+
+	/**
+	 * The identifiers which are indexed
+	 */
+	public enum Type
+	{
+		VUID(() -> MetaData.VUID.getConceptSequence()), SCTID(() -> MetaData.SCTID.getConceptSequence());
+
+		private final IntSupplier assemblage_;
+
+		private Type(IntSupplier assemblage)
+		{
+			assemblage_ = assemblage;
+		}
+	}
+
+	private static final IdentifierIndex vuids_ = new IdentifierIndex(Type.VUID);
+	private static final IdentifierIndex sctids_ = new IdentifierIndex(Type.SCTID);
+
+	// The stamp coordinate that the nid to id direction is built for, and its key
+	private static volatile StampCoordinate stampCoordinate_;
+	private static volatile String stampCoordinateKey_;
+
+	private final Type type_;
+	private final ReentrantReadWriteLock lock_ = new ReentrantReadWriteLock();
+	private LongIntHashMap nidById_;
+	private IntLongHashMap idByNid_;
+	// Replaced by each build, which starts it once the build is installed
+	private volatile CommitQueue commits_;
+
+	private IdentifierIndex(Type type)
+	{
+		type_ = type;
+		commits_ = newCommitQueue();
+	}
+
+	/**
+	 * The identifiers of one identifier sememe, as read from the store
+	 */
+	private static class Identifiers
+	{
+		private final int nid_;
+		// The id of each version
+		private final long[] ids_;
+		// The id of the latest version on the stamp coordinate, or NO_ID
+		private final long latestId_;
+
+		private Identifiers(int nid, long[] ids, long latestId)
+		{
+			nid_ = nid;
+			ids_ = ids;
+			latestId_ = latestId;
+		}
+	}
+
+	/**
+	 * Start building the indexes in the background, and register for the commits that keep them current.  Must not be called
+	 * until after ISAAC has been started, and the {@link CommitWatcher} has been started.
+	 */
+	public static void start()
+	{
+		CoordinatesToken defaultToken = CoordinatesTokens.getDefaultCoordinatesToken();
+		stampCoordinate_ = defaultToken.getStampCoordinate();
+		stampCoordinateKey_ = defaultToken.getStampCoordinateKey();
+		CommitWatcher.addCommitRecordListener(commitRecord -> 
+		{
+			int[] sememes = commitRecord.getSememesInCommit().stream().toArray();
+			if (sememes.length > 0)
+			{
+				vuids_.commits_.add(sememes);
+				sctids_.commits_.add(sememes);
+			}
+		});
+		LookupService.get().getService(WorkExecutors.class).getExecutor().execute(() -> rebuild());
+	}
+
+	/**
+	 * Build (or rebuild) the indexes, in the calling thread.  Only necessary, beyond {@link #start()}, if content was loaded 
+	 * without a commit.
+	 */
+	public static void rebuild()
+	{
+		vuids_.build();
+		sctids_.build();
+	}
+
+	/**
+	 * @param type the identifier
+	 * @return the index of the identifier, if it has been built, and has applied every commit
+	 */
+	public static Optional<IdentifierIndex> get(Type type)
+	{
+		IdentifierIndex index = type == Type.VUID ? vuids_ : sctids_;
+		return index.commits_.isCurrent() ? Optional.of(index) : Optional.empty();
+	}
+
+	/**
+	 * @param coordinatesToken the coordinates of the request
+	 * @return true, if {@link #getId(int)} answers for the coordinates - which is to say, they have the same stamp coordinate as
+	 * the default coordinates token.  The time, path, modules and allowed states of any other stamp coordinate may select a
+	 * different version of the identifier sememe.
+	 */
+	public static boolean covers(CoordinatesToken coordinatesToken)
+	{
+		return coordinatesToken.getStampCoordinateKey().equals(stampCoordinateKey_);
+	}
+
+	/**
+	 * @param id a VUID or SCTID (matching the type of this index)
+	 * @return the nid of the component identified by the id
+	 */
+	public Optional<Integer> getNid(long id)
+	{
+		lock_.readLock().lock();
+		try
+		{
+			int nid = nidById_.get(id, NO_NID);
+			return nid == NO_NID ? Optional.empty() : Optional.of(nid);
+		}
+		finally
+		{
+			lock_.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param nid the nid of a component
+	 * @return the current VUID or SCTID (matching the type of this index) of the component, under the default stamp coordinate
+	 */
+	public Optional<Long> getId(int nid)
+	{
+		lock_.readLock().lock();
+		try
+		{
+			long id = idByNid_.get(nid, NO_ID);
+			return id == NO_ID ? Optional.empty() : Optional.of(id);
+		}
+		finally
+		{
+			lock_.readLock().unlock();
+		}
+	}
+
+	private CommitQueue newCommitQueue()
+	{
+		// A failed commit leaves the index behind the store - rebuild it, with a new queue
+		return new CommitQueue(type_ + " identifier", task -> LookupService.get().getService(WorkExecutors.class).getExecutor().execute(task), 
+				sememes -> apply(sememes), () -> LookupService.get().getService(WorkExecutors.class).getExecutor().execute(() -> build()));
+	}
+
+	private synchronized void build()
+	{
+		long start = System.currentTimeMillis();
+		// The commits which arrive from here on are applied once the build is installed.  Those which arrived before were written 
+		// before the scan.
+		CommitQueue commits = newCommitQueue();
+		commits_ = commits;
+
+		// Scan without the lock, so that readers of a previous build aren't held up
+		int assemblage = type_.assemblage_.getAsInt();
+		int expectedSize = Get.sememeService().getSememeSequencesFromAssemblage(assemblage).size();
+		LongIntHashMap nidById = new LongIntHashMap(expectedSize);
+		IntLongHashMap idByNid = new IntLongHashMap(expectedSize);
+		Get.sememeService().getSememeSequencesFromAssemblage(assemblage).stream().forEach(sememeSequence -> 
+			index(read(Get.sememeService().getSememe(sememeSequence)), nidById, idByNid));
+
+		lock_.writeLock().lock();
+		try
+		{
+			nidById_ = nidById;
+			idByNid_ = idByNid;
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+		commits.start();
+		log.info("Indexed {} {}s for {} components in {}ms", nidById.size(), type_, idByNid.size(), System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Called in the background, for one commit at a time.  The sememes are read before the lock is taken, so that id lookups 
+	 * aren't held up by the store.
+	 */
+	private void apply(int[] sememeSequences)
+	{
+		int assemblage = type_.assemblage_.getAsInt();
+		List<Identifiers> changed = new ArrayList<>();
+		for (int sememeSequence : sememeSequences)
+		{
+			SememeChronology<?> sc = Get.sememeService().getSememe(sememeSequence);
+			if (sc.getAssemblageSequence() == assemblage)
+			{
+				changed.add(read(sc));
+			}
+		}
+		if (changed.isEmpty())
+		{
+			return;
+		}
+		lock_.writeLock().lock();
+		try
+		{
+			for (Identifiers identifiers : changed)
+			{
+				index(identifiers, nidById_, idByNid_);
+			}
+		}
+		finally
+		{
+			lock_.writeLock().unlock();
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Identifiers read(SememeChronology<?> sc)
+	{
+		long[] ids = new long[sc.getVersionList().size()];
+		int count = 0;
+		for (SememeVersion<?> version : sc.getVersionList())
+		{
+			if (version instanceof StringSememe)
+			{
+				long id = parse((StringSememe<?>)version);
+				if (id != NO_ID)
+				{
+					ids[count++] = id;
+				}
+			}
+		}
+		Optional<LatestVersion<StringSememe>> latest = ((SememeChronology)sc).getLatestVersion(StringSememe.class, stampCoordinate_);
+		return new Identifiers(sc.getReferencedComponentNid(), Arrays.copyOf(ids, count), 
+				latest.isPresent() ? parse(latest.get().value()) : NO_ID);
+	}
+
+	private static void index(Identifiers identifiers, LongIntHashMap nidById, IntLongHashMap idByNid)
+	{
+		for (long id : identifiers.ids_)
+		{
+			nidById.put(id, identifiers.nid_);
+		}
+
+		if (identifiers.latestId_ != NO_ID)
+		{
+			idByNid.put(identifiers.nid_, identifiers.latestId_);
+		}
+		else
+		{
+			// The id was retired, or isn't visible on the coordinate - but leave any id the component carries on another sememe
+			long current = idByNid.get(identifiers.nid_, NO_ID);
+			if (current != NO_ID && Arrays.stream(identifiers.ids_).anyMatch(id -> id == current))
+			{
+				idByNid.remove(identifiers.nid_);
+			}
+		}
+	}
+
+	private static long parse(StringSememe<?> sememe)
+	{
+		try
+		{
+			return Long.parseLong(sememe.getString().trim());
+		}
+		catch (NumberFormatException e)
+		{
+			return NO_ID;
+		}
+	}
+}
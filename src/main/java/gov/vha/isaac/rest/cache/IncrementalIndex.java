@@ -0,0 +1,155 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.util.WorkExecutors;
+
+/**
+ * {@link IncrementalIndex}
+ *
+ * The lifecycle shared by the indexes which are built once, by a pass over the store, and then kept current by applying each 
+ * commit - rather than being discarded on commit.  The indexes of a type are held in a bounded cache, by key (typically, the 
+ * coordinates they are built for).  An index is built in the background, the first time it is requested - until it is built, 
+ * {@link #get(ConcurrentLruCache, String, Function)} returns nothing, and callers should read the store, as they would without 
+ * the index.  The commits are applied in the background too (see {@link CommitQueue}) - those which arrive while an index is 
+ * being built are applied once it is built, and while an index has commits left to apply, it isn't returned either.
+ *
+ * An index which fails to build, or to apply a commit, is dropped from the cache, so that the next request starts another build.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+abstract class IncrementalIndex
+{
+	private static Logger log = LogManager.getLogger();
+
+	private final String name_;
+	private final String key_;
+	private final ConcurrentLruCache<String, ? extends IncrementalIndex> indexes_;
+	private final TimingStatistics buildTimer_;
+	private final AtomicBoolean started_ = new AtomicBoolean(false);
+	private final CommitQueue commits_;
+
+	/**
+	 * Guards the content of the index - {@link #apply(int[])} should only hold the write lock while it updates the content.
+	 */
+	protected final ReentrantReadWriteLock lock_ = new ReentrantReadWriteLock();
+
+	/**
+	 * @param name the name of the type of index, for logging
+	 * @param key the key the index is cached under
+	 * @param indexes the cache holding the index
+	 * @param buildTimer records the time taken to build the index
+	 */
+	protected IncrementalIndex(String name, String key, ConcurrentLruCache<String, ? extends IncrementalIndex> indexes, 
+			TimingStatistics buildTimer)
+	{
+		name_ = name;
+		key_ = key;
+		indexes_ = indexes;
+		buildTimer_ = buildTimer;
+		commits_ = new CommitQueue(name, LookupService.get().getService(WorkExecutors.class).getExecutor(), sememes -> apply(sememes), 
+				() -> indexes_.remove(key_, this));
+	}
+
+	/**
+	 * Queue the sememes of each commit on each index of the cache.  Called once for each cache, when the class of its indexes is 
+	 * initialized.
+	 * 
+	 * @param indexes the cache of the indexes
+	 */
+	static void applyCommits(ConcurrentLruCache<String, ? extends IncrementalIndex> indexes)
+	{
+		CommitWatcher.addCommitRecordListener(commitRecord ->
+		{
+			int[] sememes = commitRecord.getSememesInCommit().stream().toArray();
+			if (sememes.length > 0)
+			{
+				for (IncrementalIndex index : indexes.values())
+				{
+					index.commits_.add(sememes);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param indexes the cache of the indexes
+	 * @param key the key of the index required
+	 * @param create creates the index of the key, if it isn't cached - which should be cheap, as the index isn't built until later
+	 * @return the index, if it has been built, and has applied every commit.  If it hasn't been built, the build is started (in the
+	 * background) if necessary.
+	 */
+	static <T extends IncrementalIndex> Optional<T> get(ConcurrentLruCache<String, T> indexes, String key, Function<String, T> create)
+	{
+		T index = indexes.computeIfAbsent(key, create);
+		if (index.commits_.isCurrent())
+		{
+			return Optional.of(index);
+		}
+		// Started only once the index is in the cache (and so, receiving commits) - any commit which is missed was written before the
+		// build reads the store.
+		if (index.started_.compareAndSet(false, true))
+		{
+			LookupService.get().getService(WorkExecutors.class).getExecutor().execute(() -> index.runBuild());
+		}
+		return Optional.empty();
+	}
+
+	private void runBuild()
+	{
+		try
+		{
+			long start = System.nanoTime();
+			build();
+			// Apply the commits which arrived during the build - the index isn't used until they have been applied
+			commits_.start();
+			buildTimer_.record(start);
+			log.debug("Built the {} index of {} in {}ms", name_, key_, (System.nanoTime() - start) / 1000000);
+		}
+		catch (RuntimeException e)
+		{
+			log.error("Failed to build the " + name_ + " index of " + key_, e);
+			indexes_.remove(key_, this);
+		}
+	}
+
+	/**
+	 * Build the content of the index, by a pass over the store, and install it (with the write lock held).  Called once, in the 
+	 * background.
+	 */
+	protected abstract void build();
+
+	/**
+	 * Apply the sememes of one commit to the content of the index.  Called in the background, one commit at a time, once the index 
+	 * has been built.  The store should be read before the write lock is taken, so that readers of the index aren't held up.  
+	 * Applying a commit which the build has already seen must be harmless.
+	 * 
+	 * @param sememeSequences the sememes of the commit
+	 */
+	protected abstract void apply(int[] sememeSequences);
+}
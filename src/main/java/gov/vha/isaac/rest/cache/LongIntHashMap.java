@@ -0,0 +1,176 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.Arrays;
+
+/**
+ * {@link LongIntHashMap}
+ *
+ * A map of primitive long keys to primitive int values, stored in open addressing (linear probing) arrays, so that large
+ * maps carry no per entry objects.  Not thread safe - callers must provide their own locking.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class LongIntHashMap
+{
+	private static final long FREE = 0;
+
+	private long[] keys_;
+	private int[] values_;
+	private int mask_;
+	private int size_;
+	private boolean hasFreeKey_;
+	private int freeKeyValue_;
+
+	/**
+	 * @param expectedSize the number of entries to size the map for, without resizing
+	 */
+	public LongIntHashMap(int expectedSize)
+	{
+		allocate(tableSize(expectedSize));
+	}
+
+	private void allocate(int capacity)
+	{
+		keys_ = new long[capacity];
+		values_ = new int[capacity];
+		mask_ = capacity - 1;
+	}
+
+	/**
+	 * @param key the key
+	 * @param missing the value to return, if the key is not in the map
+	 * @return the value for the key, or missing
+	 */
+	public int get(long key, int missing)
+	{
+		if (key == FREE)
+		{
+			return hasFreeKey_ ? freeKeyValue_ : missing;
+		}
+		int i = mix(key) & mask_;
+		while (keys_[i] != FREE)
+		{
+			if (keys_[i] == key)
+			{
+				return values_[i];
+			}
+			i = (i + 1) & mask_;
+		}
+		return missing;
+	}
+
+	/**
+	 * @param key the key
+	 * @param value the value to store for the key, replacing any existing value
+	 */
+	public void put(long key, int value)
+	{
+		if (key == FREE)
+		{
+			if (!hasFreeKey_)
+			{
+				size_++;
+			}
+			hasFreeKey_ = true;
+			freeKeyValue_ = value;
+			return;
+		}
+		int i = mix(key) & mask_;
+		while (keys_[i] != FREE)
+		{
+			if (keys_[i] == key)
+			{
+				values_[i] = value;
+				return;
+			}
+			i = (i + 1) & mask_;
+		}
+		keys_[i] = key;
+		values_[i] = value;
+		if (++size_ > maxFill(keys_.length))
+		{
+			rehash(keys_.length * 2);
+		}
+	}
+
+	private void rehash(int capacity)
+	{
+		long[] oldKeys = keys_;
+		int[] oldValues = values_;
+		allocate(capacity);
+		for (int j = 0; j < oldKeys.length; j++)
+		{
+			if (oldKeys[j] != FREE)
+			{
+				int i = mix(oldKeys[j]) & mask_;
+				while (keys_[i] != FREE)
+				{
+					i = (i + 1) & mask_;
+				}
+				keys_[i] = oldKeys[j];
+				values_[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * @return the number of entries in the map
+	 */
+	public int size()
+	{
+		return size_;
+	}
+
+	/**
+	 * Remove all entries, retaining the allocated capacity
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys_, FREE);
+		hasFreeKey_ = false;
+		size_ = 0;
+	}
+
+	/**
+	 * @return the smallest power of two table which holds expectedSize entries at no more than half full
+	 */
+	private static int tableSize(int expectedSize)
+	{
+		int capacity = 16;
+		while (maxFill(capacity) < expectedSize)
+		{
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int maxFill(int capacity)
+	{
+		return capacity / 2;
+	}
+
+	// Spread the bits of sequential keys (nids, sequential ids) across the table
+	private static int mix(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+}
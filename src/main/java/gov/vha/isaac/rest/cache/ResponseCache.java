@@ -0,0 +1,484 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestResponseCacheStatistics;
+
+/**
+ * {@link ResponseCache}
+ *
+ * A cache of serialized response bodies, bounded by the total size of the bodies rather than by their number.  Bodies may be held
+ * on the java heap, or in direct (off heap) buffers, which keep large caches out of the way of the garbage collector.
+ * 
+ * The policy is TinyLFU.  Each read and write stamps the entry with the next value of a logical clock, which orders the entries 
+ * from least to most recently used, and every lookup is recorded in a {@link FrequencySketch}.  Once the cache is full, a new body
+ * is only admitted if its request has been made more often, recently, than the request of each least recently used body that it 
+ * would displace - so a scan of one-off requests can't flush out the popular responses.  The victims are taken from a list of the 
+ * entries in least recently used order, which is built by a scan of the cache, and used until it runs out.  There is no separate 
+ * admission window, as there is in W-TinyLFU - a new response is usually requested again soon after, so it is admitted then.
+ * 
+ * Keys carry the commit generation (see {@link CommitWatcher}) that the response was built against - a body built across a commit
+ * is never stored, and the shared instance is cleared on every commit.  The sketch only records the request, so the popularity of
+ * a request survives commits.
+ * 
+ * The shared instance is configured by the system properties isaac.rest.responseCacheMaxBytes (the budget - 64 MB by default, 0 
+ * disables the cache), isaac.rest.responseCacheMaxEntryBytes (the largest body to cache - 1 MB by default) and 
+ * isaac.rest.responseCacheOffHeap (false by default).
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ResponseCache
+{
+	private static Logger log = LogManager.getLogger();
+
+	// Used to size the frequency sketch for the number of bodies that fit in the budget
+	private static final int TYPICAL_ENTRY_BYTES = 8192;
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	private static final ResponseCache instance_ = new ResponseCache(Long.getLong("isaac.rest.responseCacheMaxBytes", 64L * 1024 * 1024),
+			Integer.getInteger("isaac.rest.responseCacheMaxEntryBytes", 1024 * 1024), Boolean.getBoolean("isaac.rest.responseCacheOffHeap"));
+
+	static
+	{
+		CommitWatcher.addCommitListener(() -> instance_.clear());
+	}
+
+	private final long maxBytes_;
+	private final int maxEntryBytes_;
+	private final boolean offHeap_;
+	private final ConcurrentHashMap<Key, Entry> map_ = new ConcurrentHashMap<>();
+	private final FrequencySketch sketch_;
+	private final AtomicLong bytes_ = new AtomicLong();
+	private final AtomicLong clock_ = new AtomicLong();
+	private final ReentrantLock evictionLock_ = new ReentrantLock();
+	// The next candidates for eviction, in least recently used order as of the scan that listed them.  Guarded by evictionLock_.
+	private List<Victim> victims_ = new ArrayList<>();
+	private int nextVictim_ = 0;
+
+	private final LongAdder hits_ = new LongAdder();
+	private final LongAdder misses_ = new LongAdder();
+	private final LongAdder hitBytes_ = new LongAdder();
+	private final LongAdder rejections_ = new LongAdder();
+	private final LongAdder evictions_ = new LongAdder();
+
+	/**
+	 * The key of a cached response - the canonical form of the request, and the commit generation the response was built against
+	 */
+	public static final class Key
+	{
+		private final long generation_;
+		private final String request_;
+		private final int hash_;
+
+		/**
+		 * @param generation the commit generation, read before the response is built
+		 * @param request the canonical form of the request
+		 */
+		public Key(long generation, String request)
+		{
+			generation_ = generation;
+			request_ = request;
+			hash_ = 31 * request.hashCode() + Long.hashCode(generation);
+		}
+
+		/**
+		 * @return the hash that the frequency of the request is recorded under - which, unlike {@link #hashCode()}, doesn't depend
+		 * on the generation
+		 */
+		private int requestHash()
+		{
+			return request_.hashCode();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash_;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return generation_ == other.generation_ && request_.equals(other.request_);
+		}
+	}
+
+	/**
+	 * A cached response body, and its media type
+	 */
+	public static final class Entry
+	{
+		private final String mediaType_;
+		private final ByteBuffer body_;
+		private volatile long lastAccess_;
+
+		private Entry(String mediaType, ByteBuffer body, long lastAccess)
+		{
+			mediaType_ = mediaType;
+			body_ = body;
+			lastAccess_ = lastAccess;
+		}
+
+		/**
+		 * @return the media type the body was written as
+		 */
+		public String getMediaType()
+		{
+			return mediaType_;
+		}
+
+		/**
+		 * @return the size of the body, in bytes
+		 */
+		public int getSize()
+		{
+			return body_.capacity();
+		}
+
+		/**
+		 * @param out the stream to write the body to
+		 * @throws IOException
+		 */
+		public void writeTo(OutputStream out) throws IOException
+		{
+			if (body_.hasArray())
+			{
+				out.write(body_.array(), body_.arrayOffset(), body_.capacity());
+				return;
+			}
+			// Each writer takes its own view of the buffer, so concurrent writes don't disturb each other's position
+			ByteBuffer body = body_.duplicate();
+			byte[] copy = new byte[Math.min(COPY_BUFFER_SIZE, body.remaining())];
+			while (body.hasRemaining())
+			{
+				int length = Math.min(copy.length, body.remaining());
+				body.get(copy, 0, length);
+				out.write(copy, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * An entry listed for eviction, with its stamp at the time - it is no longer a candidate if it has been used since
+	 */
+	private static final class Victim
+	{
+		private final Key key_;
+		private final long lastAccess_;
+
+		private Victim(Key key, long lastAccess)
+		{
+			key_ = key;
+			lastAccess_ = lastAccess;
+		}
+	}
+
+	/**
+	 * @param maxBytes the maximum total size of the bodies to hold - 0 disables the cache
+	 * @param maxEntryBytes the size of the largest body to hold
+	 * @param offHeap true, to hold the bodies in direct buffers
+	 */
+	public ResponseCache(long maxBytes, int maxEntryBytes, boolean offHeap)
+	{
+		maxBytes_ = Math.max(0, maxBytes);
+		maxEntryBytes_ = (int)Math.min(maxEntryBytes, maxBytes_);
+		offHeap_ = offHeap;
+		sketch_ = new FrequencySketch((int)Math.min(Integer.MAX_VALUE / 2, Math.max(16, maxBytes_ / TYPICAL_ENTRY_BYTES)));
+	}
+
+	/**
+	 * @return the cache shared by the REST server
+	 */
+	public static ResponseCache getInstance()
+	{
+		return instance_;
+	}
+
+	/**
+	 * @return false, if the cache was configured with no memory - in which case, nothing is ever cached
+	 */
+	public boolean isEnabled()
+	{
+		return maxBytes_ > 0;
+	}
+
+	/**
+	 * @return the size, in bytes, of the largest body the cache will hold
+	 */
+	public int getMaxEntryBytes()
+	{
+		return maxEntryBytes_;
+	}
+
+	/**
+	 * @param key the key of the request
+	 * @return the cached response, or null
+	 */
+	public Entry get(Key key)
+	{
+		sketch_.increment(key.requestHash());
+		Entry entry = map_.get(key);
+		if (entry == null)
+		{
+			misses_.increment();
+			return null;
+		}
+		// Only advance the clock if another entry was stamped since this one - repeated hits on the most recent entry don't contend
+		if (entry.lastAccess_ != clock_.get())
+		{
+			entry.lastAccess_ = clock_.incrementAndGet();
+		}
+		hits_.increment();
+		hitBytes_.add(entry.getSize());
+		return entry;
+	}
+
+	/**
+	 * Cache a response body, if it isn't too large, and if there is room for it - or, once the cache is full, if its request has
+	 * been made more often recently than those of the least recently used bodies it displaces.  Bodies built across a commit (where
+	 * the generation of the key is no longer current) are never cached.
+	 * 
+	 * @param key the key of the request
+	 * @param mediaType the media type of the body
+	 * @param body the array holding the body
+	 * @param length the length of the body, which starts at the beginning of the array
+	 * @return true, if the body was cached
+	 */
+	public boolean put(Key key, String mediaType, byte[] body, int length)
+	{
+		if (!isEnabled() || key.generation_ != CommitWatcher.getGeneration())
+		{
+			return false;
+		}
+		if (length > maxEntryBytes_)
+		{
+			rejections_.increment();
+			return false;
+		}
+
+		ByteBuffer buffer = offHeap_ ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+		buffer.put(body, 0, length);
+		buffer.flip();
+		if (bytes_.get() + length > maxBytes_)
+		{
+			evictionLock_.lock();
+			try
+			{
+				if (!admit(key, length))
+				{
+					rejections_.increment();
+					return false;
+				}
+				store(key, mediaType, buffer);
+			}
+			finally
+			{
+				evictionLock_.unlock();
+			}
+		}
+		else
+		{
+			store(key, mediaType, buffer);
+		}
+		// Bodies stored concurrently, while there appeared to be room, may take the cache over its budget
+		evictIfNecessary();
+		return true;
+	}
+
+	private void store(Key key, String mediaType, ByteBuffer buffer)
+	{
+		Entry old = map_.put(key, new Entry(mediaType, buffer, clock_.incrementAndGet()));
+		bytes_.addAndGet(buffer.capacity() - (old == null ? 0 : old.getSize()));
+	}
+
+	/**
+	 * The TinyLFU admission - find the least recently used entries which must be evicted to make room for the body, and evict them, 
+	 * if the request of the body is more frequent than each of theirs.  Must be called with the eviction lock held.
+	 * 
+	 * @return true, if the body should be stored
+	 */
+	private boolean admit(Key key, int length)
+	{
+		long needed = bytes_.get() + length - maxBytes_;
+		int frequency = sketch_.frequency(key.requestHash());
+		List<Victim> chosen = new ArrayList<>();
+		long freed = 0;
+		boolean rescanned = false;
+		int i;
+		for (i = nextVictim_; freed < needed; i++)
+		{
+			if (i >= victims_.size())
+			{
+				if (rescanned)
+				{
+					// Nothing left to evict - the remaining bodies were stored while the list was built
+					break;
+				}
+				listVictims();
+				rescanned = true;
+				chosen.clear();
+				freed = 0;
+				i = -1;
+				continue;
+			}
+			Victim victim = victims_.get(i);
+			Entry entry = map_.get(victim.key_);
+			if (entry == null || entry.lastAccess_ != victim.lastAccess_)
+			{
+				// Evicted, replaced or used since it was listed
+				continue;
+			}
+			if (sketch_.frequency(victim.key_.requestHash()) >= frequency)
+			{
+				return false;
+			}
+			chosen.add(victim);
+			freed += entry.getSize();
+		}
+		for (Victim victim : chosen)
+		{
+			Entry entry = map_.get(victim.key_);
+			if (entry != null && map_.remove(victim.key_, entry))
+			{
+				bytes_.addAndGet(-entry.getSize());
+				evictions_.increment();
+			}
+		}
+		// The entries before the last one chosen have been evicted, or are no longer candidates
+		nextVictim_ = i;
+		return true;
+	}
+
+	/**
+	 * List the entries in least recently used order, as the next candidates for eviction.  Must be called with the eviction lock held.
+	 */
+	private void listVictims()
+	{
+		List<Map.Entry<Key, Entry>> entries = new ArrayList<>(map_.entrySet());
+		// Sort on the stamps as they are now - stamps changed by concurrent reads must not reorder the list while it is sorted
+		List<Victim> victims = new ArrayList<>(entries.size());
+		for (Map.Entry<Key, Entry> entry : entries)
+		{
+			victims.add(new Victim(entry.getKey(), entry.getValue().lastAccess_));
+		}
+		victims.sort((a, b) -> Long.compare(a.lastAccess_, b.lastAccess_));
+		victims_ = victims;
+		nextVictim_ = 0;
+	}
+
+	/**
+	 * Discard all entries.  Discarded entries are counted as evictions.
+	 */
+	public void clear()
+	{
+		for (Map.Entry<Key, Entry> entry : map_.entrySet())
+		{
+			if (map_.remove(entry.getKey(), entry.getValue()))
+			{
+				bytes_.addAndGet(-entry.getValue().getSize());
+				evictions_.increment();
+			}
+		}
+	}
+
+	/**
+	 * As in {@link ConcurrentLruCache}, the size is checked again after the lock is released, so bodies added while this thread 
+	 * was evicting are not left in place beyond the budget.
+	 */
+	private void evictIfNecessary()
+	{
+		while (bytes_.get() > maxBytes_ && evictionLock_.tryLock())
+		{
+			try
+			{
+				evict();
+			}
+			finally
+			{
+				evictionLock_.unlock();
+			}
+		}
+	}
+
+	private void evict()
+	{
+		long target = (long)(maxBytes_ * ConcurrentLruCache.EVICTION_TARGET);
+		if (bytes_.get() <= maxBytes_)
+		{
+			return;
+		}
+
+		List<Map.Entry<Key, Entry>> entries = new ArrayList<>(map_.entrySet());
+		// Sort on the stamps as they are now - stamps changed by concurrent reads must not reorder the list while it is sorted
+		long[] stamps = new long[entries.size()];
+		Integer[] order = new Integer[entries.size()];
+		for (int i = 0; i < stamps.length; i++)
+		{
+			stamps[i] = entries.get(i).getValue().lastAccess_;
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(stamps[a], stamps[b]));
+
+		int evicted = 0;
+		for (int i = 0; i < order.length && bytes_.get() > target; i++)
+		{
+			Map.Entry<Key, Entry> entry = entries.get(order[i]);
+			if (map_.remove(entry.getKey(), entry.getValue()))
+			{
+				bytes_.addAndGet(-entry.getValue().getSize());
+				evictions_.increment();
+				evicted++;
+			}
+		}
+		log.debug("Evicted {} responses, {} bytes remain cached", evicted, bytes_.get());
+	}
+
+	/**
+	 * @return the usage statistics of this cache
+	 */
+	public RestResponseCacheStatistics getStatistics()
+	{
+		return new RestResponseCacheStatistics(map_.size(), bytes_.get(), maxBytes_, offHeap_, hits_.sum(), misses_.sum(), hitBytes_.sum(),
+				rejections_.sum(), evictions_.sum());
+	}
+}
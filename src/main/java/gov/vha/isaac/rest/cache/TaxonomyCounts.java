@@ -0,0 +1,229 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.LookupService;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.tree.Tree;
+import gov.vha.isaac.ochre.api.util.WorkExecutors;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
+
+/**
+ * {@link TaxonomyCounts}
+ *
+ * The number of (active, on the stamp coordinate) children and parents of each concept in one taxonomy {@link Tree}, held in
+ * int arrays indexed by concept sequence.  Counts are filled in by a background pass over all concepts, which starts when the 
+ * index is created - and any count requested before the pass reaches it is calculated on demand and stored.  Either way, each 
+ * count is calculated once, and then served from the array.
+ *
+ * The transitive number of descendants of a concept is also available - it is only ever calculated on demand (as it requires 
+ * a walk of the subtree), and then stored.
+ *
+ * Each value is derived solely from the (immutable) tree and stamp coordinate, so when two threads race to calculate the same 
+ * value, they store the same result - the arrays need no locking.  Indexes are obtained from {@link TaxonomyTreeCache}, which
+ * discards them (with their trees) on commit.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class TaxonomyCounts
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final int UNKNOWN = -1;
+	private static final byte ACTIVE = 1;
+	private static final byte INACTIVE = 2;
+
+	private final Tree tree_;
+	private final StampCoordinate stampCoordinate_;
+	private final long generation_;
+
+	private final byte[] active_;
+	private final int[] childCounts_;
+	private final int[] parentCounts_;
+	private final int[] descendantCounts_;
+
+	/**
+	 * @param tree the taxonomy to count
+	 * @param stampCoordinate the coordinate which determines which concepts are active
+	 */
+	TaxonomyCounts(Tree tree, StampCoordinate stampCoordinate)
+	{
+		tree_ = tree;
+		stampCoordinate_ = stampCoordinate;
+		generation_ = CommitWatcher.getGeneration();
+		// Sequences start at 1.  Concepts created after this point (which are beyond the arrays) are counted on every request,
+		// until the next commit replaces this index.
+		int size = Get.conceptService().getConceptCount() + 1;
+		active_ = new byte[size];
+		childCounts_ = new int[size];
+		parentCounts_ = new int[size];
+		descendantCounts_ = new int[size];
+		Arrays.fill(childCounts_, UNKNOWN);
+		Arrays.fill(parentCounts_, UNKNOWN);
+		Arrays.fill(descendantCounts_, UNKNOWN);
+		LookupService.get().getService(WorkExecutors.class).getExecutor().execute(() -> countAll());
+	}
+
+	private void countAll()
+	{
+		long start = System.currentTimeMillis();
+		for (int sequence = 1; sequence < childCounts_.length; sequence++)
+		{
+			if (generation_ != CommitWatcher.getGeneration())
+			{
+				log.debug("Abandoned taxonomy counts, as a commit replaced them");
+				return;
+			}
+			getChildCount(sequence);
+			getParentCount(sequence);
+		}
+		log.debug("Counted taxonomy children and parents of {} concepts in {}ms", childCounts_.length - 1, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the number of active children of the concept
+	 */
+	public int getChildCount(int conceptSequence)
+	{
+		return count(conceptSequence, childCounts_, true);
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the number of active parents of the concept
+	 */
+	public int getParentCount(int conceptSequence)
+	{
+		return count(conceptSequence, parentCounts_, false);
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the active children of the concept, in the order of the tree
+	 */
+	public int[] getActiveChildren(int conceptSequence)
+	{
+		int[] children = tree_.getChildrenSequences(conceptSequence);
+		int[] active = new int[children.length];
+		int count = 0;
+		for (int child : children)
+		{
+			if (isActive(child))
+			{
+				active[count++] = child;
+			}
+		}
+		return count == active.length ? active : Arrays.copyOf(active, count);
+	}
+
+	private int count(int conceptSequence, int[] counts, boolean children)
+	{
+		boolean stored = conceptSequence < counts.length;
+		if (stored && counts[conceptSequence] != UNKNOWN)
+		{
+			return counts[conceptSequence];
+		}
+		int count = 0;
+		for (int sequence : children ? tree_.getChildrenSequences(conceptSequence) : tree_.getParentSequences(conceptSequence))
+		{
+			if (isActive(sequence))
+			{
+				count++;
+			}
+		}
+		if (stored)
+		{
+			counts[conceptSequence] = count;
+		}
+		return count;
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return the number of distinct active concepts below the concept - its children, their children, and so on
+	 */
+	public int getDescendantCount(int conceptSequence)
+	{
+		boolean stored = conceptSequence < descendantCounts_.length;
+		if (stored && descendantCounts_[conceptSequence] != UNKNOWN)
+		{
+			return descendantCounts_[conceptSequence];
+		}
+		BitSet visited = new BitSet();
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = conceptSequence;
+		visited.set(conceptSequence);
+		int count = 0;
+		while (top > 0)
+		{
+			for (int child : tree_.getChildrenSequences(stack[--top]))
+			{
+				// Inactive concepts (and so, the concepts only reachable through them) aren't shown in the taxonomy, so aren't counted
+				if (!visited.get(child) && isActive(child))
+				{
+					visited.set(child);
+					count++;
+					if (top == stack.length)
+					{
+						stack = Arrays.copyOf(stack, stack.length * 2);
+					}
+					stack[top++] = child;
+				}
+			}
+		}
+		if (stored)
+		{
+			descendantCounts_[conceptSequence] = count;
+		}
+		return count;
+	}
+
+	/**
+	 * @param conceptSequence a concept
+	 * @return true, if the concept has a version on the stamp coordinate (and so, is shown in the taxonomy)
+	 */
+	public boolean isActive(int conceptSequence)
+	{
+		boolean stored = conceptSequence < active_.length;
+		if (stored && active_[conceptSequence] != 0)
+		{
+			return active_[conceptSequence] == ACTIVE;
+		}
+		@SuppressWarnings("rawtypes")
+		Optional<? extends ConceptChronology> concept = Get.conceptService().getOptionalConcept(conceptSequence);
+		@SuppressWarnings("unchecked")
+		boolean active = concept.isPresent() && concept.get().getLatestVersion(ConceptVersionImpl.class, stampCoordinate_).isPresent();
+		if (stored)
+		{
+			active_[conceptSequence] = active ? ACTIVE : INACTIVE;
+		}
+		return active;
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import gov.vha.isaac.ochre.api.Get;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
+import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
+import gov.vha.isaac.ochre.api.tree.Tree;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.session.RequestInfo;
+import gov.vha.isaac.rest.tokens.CoordinatesToken;
+
+/**
+ * {@link TaxonomyTreeCache}
+ *
+ * A bounded cache of the taxonomy {@link Tree}s built by the taxonomy service, so that a request which needs the tree in several 
+ * places (and subsequent requests on the same coordinates) don't each build it again.  Trees are keyed by the stamp and logic
+ * coordinates of the request, and by stated or inferred - the language coordinate doesn't affect the tree, so requests which only 
+ * differ in it share a tree.  The cache is cleared on commit, and a tree that was being built when a commit occurred is never 
+ * returned after it.
+ *
+ * The cache holds a cheap entry for each key, which builds its tree the first time it is requested - outside the lock of the 
+ * cache, so that the build (which takes seconds, on a large terminology) doesn't hold up requests for other trees, or the clearing
+ * of the cache on commit.  Requests for a tree which is being built wait for that build.  The {@link TaxonomyCounts} of each tree 
+ * are held with the tree, and created the first time they are requested.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class TaxonomyTreeCache
+{
+	private static final ConcurrentLruCache<String, Entry> trees_ = new ConcurrentLruCache<>("taxonomyTrees", 
+			Integer.getInteger("isaac.rest.taxonomyTreeCacheSize", 8));
+
+	private static final TimingStatistics buildTimer_ = new TimingStatistics("taxonomyTreeBuild");
+
+	static
+	{
+		CommitWatcher.addCommitListener(() -> trees_.clear());
+	}
+
+	private TaxonomyTreeCache()
+	{
+	}
+
+	private static class Entry
+	{
+		private final TaxonomyCoordinate taxonomyCoordinate;
+		private final StampCoordinate stampCoordinate;
+		private volatile Tree tree;
+		private volatile TaxonomyCounts counts;
+
+		private Entry(TaxonomyCoordinate taxonomyCoordinate, StampCoordinate stampCoordinate)
+		{
+			this.taxonomyCoordinate = taxonomyCoordinate;
+			this.stampCoordinate = stampCoordinate;
+		}
+
+		private Tree getTree()
+		{
+			if (tree == null)
+			{
+				synchronized (this)
+				{
+					if (tree == null)
+					{
+						long start = System.nanoTime();
+						tree = Get.taxonomyService().getTaxonomyTree(taxonomyCoordinate);
+						buildTimer_.record(start);
+					}
+				}
+			}
+			return tree;
+		}
+
+		private TaxonomyCounts getCounts()
+		{
+			if (counts == null)
+			{
+				synchronized (this)
+				{
+					if (counts == null)
+					{
+						counts = new TaxonomyCounts(getTree(), stampCoordinate);
+					}
+				}
+			}
+			return counts;
+		}
+	}
+
+	/**
+	 * @param stated true for the stated taxonomy, false for the inferred taxonomy
+	 * @return the taxonomy tree for the coordinates of the current request
+	 */
+	public static Tree get(boolean stated)
+	{
+		return getEntry(stated).getTree();
+	}
+
+	/**
+	 * @param stated true for the stated taxonomy, false for the inferred taxonomy
+	 * @return the child and parent counts of the taxonomy tree for the coordinates of the current request
+	 */
+	public static TaxonomyCounts getCounts(boolean stated)
+	{
+		return getEntry(stated).getCounts();
+	}
+
+	private static Entry getEntry(boolean stated)
+	{
+		RequestInfo requestInfo = RequestInfo.get();
+		CoordinatesToken token = requestInfo.getCoordinatesToken();
+		// The generation in the key ensures that a tree built before a commit isn't returned after it
+		String key = CommitWatcher.getGeneration() + "|" + stated + "|" + token.getStampCoordinateKey() + "|" + token.getLogicStatedAssemblage() 
+				+ ":" + token.getLogicInferredAssemblage() + ":" + token.getLogicDescLogicProfile() + ":" + token.getLogicClassifier();
+		return trees_.computeIfAbsent(key, k -> new Entry(requestInfo.getTaxonomyCoordinate(stated), requestInfo.getStampCoordinate()));
+	}
+
+	/**
+	 * @return the usage statistics of the cache
+	 */
+	public static RestCacheStatistics getStatistics()
+	{
+		return trees_.getStatistics();
+	}
+
+	/**
+	 * @return the time taken to build the trees
+	 */
+	public static RestTimingStatistics getTimingStatistics()
+	{
+		return buildTimer_.getStatistics();
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+
+/**
+ * {@link TimingStatistics}
+ *
+ * Accumulates the count, total and maximum duration of a frequently performed operation, without contention between
+ * the threads recording it.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class TimingStatistics
+{
+	private final String name_;
+	private final LongAdder count_ = new LongAdder();
+	private final LongAdder totalNanos_ = new LongAdder();
+	private final LongAccumulator maxNanos_ = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param name the name to report in the statistics
+	 */
+	public TimingStatistics(String name)
+	{
+		name_ = name;
+	}
+
+	/**
+	 * @param startNanos the value of {@link System#nanoTime()} when the operation started
+	 */
+	public void record(long startNanos)
+	{
+		recordElapsed(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @param elapsed the duration of the operation, in nanoseconds - for operations which are performed in several parts
+	 */
+	public void recordElapsed(long elapsed)
+	{
+		count_.increment();
+		totalNanos_.add(elapsed);
+		maxNanos_.accumulate(elapsed);
+	}
+
+	/**
+	 * @return the accumulated timings
+	 */
+	public RestTimingStatistics getStatistics()
+	{
+		return new RestTimingStatistics(name_, count_.sum(), TimeUnit.NANOSECONDS.toMicros(totalNanos_.sum()),
+				TimeUnit.NANOSECONDS.toMicros(maxNanos_.get()));
+	}
+}
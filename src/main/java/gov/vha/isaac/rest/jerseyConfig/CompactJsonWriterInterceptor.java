@@ -0,0 +1,100 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.jerseyConfig;
+
+import java.io.IOException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.vha.isaac.rest.session.RequestParameters;
+
+/**
+ * {@link CompactJsonWriterInterceptor}
+ *
+ * Writes the JSON responses of requests that asked for the compact profile (see {@link RequestParameters#profile}) with the
+ * compact mapper of {@link MyJacksonMapperConfig}, in place of the Jackson provider - which can only be given one mapper per type.
+ * 
+ * Streamed responses ({@link StreamingOutput}) are passed through, as they select the mapper themselves, when they are created.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER + 100)
+public class CompactJsonWriterInterceptor implements WriterInterceptor
+{
+	/**
+	 * The request property which is set (to true) on requests that asked for the compact profile
+	 */
+	public static final String COMPACT_JSON_PROPERTY = CompactJsonWriterInterceptor.class.getName() + ".compact";
+
+	/**
+	 * @param requestContext the request
+	 * @return true, if the request asked for the compact profile, either by the {@link RequestParameters#profile} query parameter, 
+	 * or by a profile parameter on an acceptable media type (application/json;profile=compact).  The query parameter wins, if both
+	 * are present.
+	 */
+	public static boolean isRequested(ContainerRequestContext requestContext)
+	{
+		String profile = requestContext.getUriInfo().getQueryParameters().getFirst(RequestParameters.profile);
+		if (profile != null)
+		{
+			return RequestParameters.profileCompact.equalsIgnoreCase(profile.trim());
+		}
+		for (MediaType mediaType : requestContext.getAcceptableMediaTypes())
+		{
+			if (RequestParameters.profileCompact.equalsIgnoreCase(mediaType.getParameters().get(RequestParameters.profile)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException
+	{
+		Object entity = context.getEntity();
+		if (Boolean.TRUE.equals(context.getProperty(COMPACT_JSON_PROPERTY)) && context.getMediaType() != null 
+				&& MediaType.APPLICATION_JSON_TYPE.isCompatible(context.getMediaType())
+				&& entity != null && !(entity instanceof StreamingOutput) && !(entity instanceof String))
+		{
+			ObjectMapper mapper = MyJacksonMapperConfig.getCompactObjectMapper();
+			// Jersey owns the output stream - closing the generator should only flush it
+			try (JsonGenerator generator = mapper.getFactory().createGenerator(context.getOutputStream())
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET))
+			{
+				// The generic type carries the element type of collections, which is needed to write the type id of each element
+				mapper.writerFor(mapper.getTypeFactory().constructType(context.getGenericType())).writeValue(generator, entity);
+			}
+			return;
+		}
+		context.proceed();
+	}
+}
@@ -0,0 +1,491 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.jerseyConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCompressionStatistics;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.cache.ConcurrentLruCache;
+import gov.vha.isaac.rest.cache.TimingStatistics;
+
+/**
+ * {@link CompressionWriterInterceptor}
+ *
+ * Compresses response bodies with gzip or deflate, for clients that accept either in their Accept-Encoding header.  The start of
+ * a body is held in memory until it reaches the minimum size (the system property isaac.rest.compressionMinSize - 1024 bytes by
+ * default, a negative value disables compression) - so small bodies are written as they are, and larger bodies are compressed as
+ * they are written, streamed responses included.
+ * 
+ * The compressed bodies of {@link ImmutableResponse} methods (the enumerations, system info) are kept in a small cache, keyed by
+ * the request URI, the representation and the encoding, so each is only compressed once.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionWriterInterceptor implements WriterInterceptor
+{
+	private static Logger log = LogManager.getLogger();
+
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+
+	/**
+	 * The request property which carries the encoding ({@link #GZIP} or {@link #DEFLATE}) selected for the response, if any
+	 */
+	public static final String ENCODING_PROPERTY = CompressionWriterInterceptor.class.getName() + ".encoding";
+
+	/**
+	 * The request property which carries the request URI of requests to {@link ImmutableResponse} methods
+	 */
+	public static final String CACHE_KEY_PROPERTY = CompressionWriterInterceptor.class.getName() + ".cacheKey";
+
+	private static final int MINIMUM_SIZE = Integer.getInteger("isaac.rest.compressionMinSize", 1024);
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final ConcurrentLruCache<String, CompressedBody> compressedBodies_ = new ConcurrentLruCache<>("compressedResponses", 
+			Integer.getInteger("isaac.rest.compressedResponseCacheSize", 256));
+
+	private static final TimingStatistics compressionTimer_ = new TimingStatistics("compression");
+	private static final LongAdder responses_ = new LongAdder();
+	private static final LongAdder compressedResponses_ = new LongAdder();
+	private static final LongAdder uncompressedBytes_ = new LongAdder();
+	private static final LongAdder compressedBytes_ = new LongAdder();
+
+	private static class CompressedBody
+	{
+		private final byte[] bytes;
+		private final int uncompressedSize;
+
+		private CompressedBody(byte[] bytes, int uncompressedSize)
+		{
+			this.bytes = bytes;
+			this.uncompressedSize = uncompressedSize;
+		}
+	}
+
+	/**
+	 * Select the encoding of the response to a request, and record it (and, for {@link ImmutableResponse} methods, the cache key) 
+	 * in the properties of the request.
+	 * 
+	 * @param requestContext the request
+	 * @param resourceInfo the resource method matched by the request
+	 */
+	public static void configure(ContainerRequestContext requestContext, ResourceInfo resourceInfo)
+	{
+		if (MINIMUM_SIZE < 0)
+		{
+			return;
+		}
+		String encoding = selectEncoding(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding == null)
+		{
+			return;
+		}
+		requestContext.setProperty(ENCODING_PROPERTY, encoding);
+
+		Method method = resourceInfo.getResourceMethod();
+		if (method != null && method.isAnnotationPresent(ImmutableResponse.class) && HttpMethod.GET.equals(requestContext.getMethod()))
+		{
+			requestContext.setProperty(CACHE_KEY_PROPERTY, requestContext.getUriInfo().getRequestUri().toString());
+		}
+	}
+
+	/**
+	 * @param acceptEncoding the value of an Accept-Encoding header, possibly null
+	 * @return the supported encoding with the highest quality in the header ({@link #GZIP}, on a tie), or null if the header doesn't
+	 * accept either
+	 */
+	public static String selectEncoding(String acceptEncoding)
+	{
+		if (acceptEncoding == null)
+		{
+			return null;
+		}
+		Map<String, Float> qualities = new HashMap<>();
+		for (String coding : acceptEncoding.split(","))
+		{
+			String[] parameters = coding.split(";");
+			float quality = 1.0f;
+			for (int i = 1; i < parameters.length; i++)
+			{
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q="))
+				{
+					try
+					{
+						quality = Float.parseFloat(parameter.substring(2).trim());
+					}
+					catch (NumberFormatException e)
+					{
+						quality = 0.0f;
+					}
+				}
+			}
+			qualities.put(parameters[0].trim().toLowerCase(Locale.ENGLISH), quality);
+		}
+		float wildcard = qualities.getOrDefault("*", 0.0f);
+		float gzip = qualities.getOrDefault(GZIP, wildcard);
+		float deflate = qualities.getOrDefault(DEFLATE, wildcard);
+		if (gzip <= 0.0f && deflate <= 0.0f)
+		{
+			return null;
+		}
+		return gzip >= deflate ? GZIP : DEFLATE;
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException
+	{
+		String encoding = (String)context.getProperty(ENCODING_PROPERTY);
+		if (MINIMUM_SIZE >= 0)
+		{
+			List<Object> vary = context.getHeaders().get(HttpHeaders.VARY);
+			if (vary == null || !vary.contains(HttpHeaders.ACCEPT_ENCODING))
+			{
+				context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+		}
+		if (encoding == null || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING))
+		{
+			context.proceed();
+			return;
+		}
+
+		responses_.increment();
+		String cacheKey = (String)context.getProperty(CACHE_KEY_PROPERTY);
+		// Error responses are plain text strings - only cache the real result of the method
+		if (cacheKey != null && !(context.getEntity() instanceof String))
+		{
+			writeCached(context, encoding, encoding + " " + context.getMediaType() + " " 
+					+ Boolean.TRUE.equals(context.getProperty(CompactJsonWriterInterceptor.COMPACT_JSON_PROPERTY)) + " " + cacheKey);
+			return;
+		}
+
+		CompressingOutputStream compressing = new CompressingOutputStream(context.getOutputStream(), context.getHeaders(), encoding);
+		context.setOutputStream(compressing);
+		boolean written = false;
+		try
+		{
+			context.proceed();
+			written = true;
+		}
+		finally
+		{
+			// The compressor must be released even if the entity couldn't be written - but an incomplete body isn't finished
+			if (written)
+			{
+				compressing.finish();
+			}
+			else
+			{
+				compressing.abort();
+			}
+		}
+	}
+
+	private static void writeCached(WriterInterceptorContext context, String encoding, String key) throws IOException
+	{
+		CompressedBody compressed = compressedBodies_.get(key);
+		if (compressed == null)
+		{
+			OutputStream target = context.getOutputStream();
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			context.setOutputStream(body);
+			context.proceed();
+			context.setOutputStream(target);
+			if (body.size() < MINIMUM_SIZE)
+			{
+				body.writeTo(target);
+				return;
+			}
+
+			long start = System.nanoTime();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() / 4);
+			try (DeflaterOutputStream compressor = compressor(bytes, encoding, false))
+			{
+				body.writeTo(compressor);
+			}
+			compressionTimer_.record(start);
+			compressed = new CompressedBody(bytes.toByteArray(), body.size());
+			compressedBodies_.put(key, compressed);
+			log.debug("Cached the compressed body of {}", key);
+		}
+		context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+		context.getOutputStream().write(compressed.bytes);
+		record(compressed.uncompressedSize, compressed.bytes.length);
+	}
+
+	private static DeflaterOutputStream compressor(OutputStream target, String encoding, boolean syncFlush) throws IOException
+	{
+		// The deflate content coding is the zlib format, which is what DeflaterOutputStream writes
+		return GZIP.equals(encoding) ? new GZIPOutputStream(target, BUFFER_SIZE, syncFlush) : new DeflaterOutputStream(target, syncFlush);
+	}
+
+	private static void record(long uncompressedSize, long compressedSize)
+	{
+		compressedResponses_.increment();
+		uncompressedBytes_.add(uncompressedSize);
+		compressedBytes_.add(compressedSize);
+	}
+
+	/**
+	 * @return the counters of the responses written to clients that accept compression
+	 */
+	public static RestCompressionStatistics getStatistics()
+	{
+		return new RestCompressionStatistics(MINIMUM_SIZE, responses_.sum(), compressedResponses_.sum(), uncompressedBytes_.sum(), 
+				compressedBytes_.sum());
+	}
+
+	/**
+	 * @return the statistics of the cache of compressed {@link ImmutableResponse} bodies
+	 */
+	public static RestCacheStatistics getCacheStatistics()
+	{
+		return compressedBodies_.getStatistics();
+	}
+
+	/**
+	 * @return the time spent compressing responses
+	 */
+	public static RestTimingStatistics getTimingStatistics()
+	{
+		return compressionTimer_.getStatistics();
+	}
+
+	/**
+	 * Holds the start of the body until it reaches the minimum size - then sets the Content-Encoding header, before anything is
+	 * written to the client, and compresses the rest of the body as it is written.  Flushes are passed on (as sync flushes of the 
+	 * compressor) once compression has started, so streamed responses still reach the client as they are produced.
+	 */
+	private static class CompressingOutputStream extends OutputStream
+	{
+		private final OutputStream target_;
+		private final MultivaluedMap<String, Object> headers_;
+		private final String encoding_;
+		private ByteArrayOutputStream buffer_ = new ByteArrayOutputStream();
+		private CountingOutputStream counter_;
+		private DeflaterOutputStream compressor_;
+		private long uncompressedSize_;
+		private long compressionNanos_;
+		private boolean finished_;
+
+		private CompressingOutputStream(OutputStream target, MultivaluedMap<String, Object> headers, String encoding)
+		{
+			target_ = target;
+			headers_ = headers;
+			encoding_ = encoding;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte)b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			uncompressedSize_ += len;
+			if (compressor_ != null)
+			{
+				long start = System.nanoTime();
+				compressor_.write(b, off, len);
+				compressionNanos_ += System.nanoTime() - start;
+			}
+			else
+			{
+				buffer_.write(b, off, len);
+				if (buffer_.size() >= MINIMUM_SIZE)
+				{
+					startCompression();
+				}
+			}
+		}
+
+		private void startCompression() throws IOException
+		{
+			headers_.putSingle(HttpHeaders.CONTENT_ENCODING, encoding_);
+			counter_ = new CountingOutputStream(target_);
+			compressor_ = compressor(counter_, encoding_, true);
+			long start = System.nanoTime();
+			buffer_.writeTo(compressor_);
+			compressionNanos_ += System.nanoTime() - start;
+			buffer_ = null;
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			// Until compression starts, the buffer is below the minimum size - it is written when the body is finished
+			if (compressor_ != null)
+			{
+				long start = System.nanoTime();
+				compressor_.flush();
+				compressionNanos_ += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			finish();
+			target_.close();
+		}
+
+		private void finish() throws IOException
+		{
+			if (finished_)
+			{
+				return;
+			}
+			finished_ = true;
+			if (compressor_ == null)
+			{
+				buffer_.writeTo(target_);
+				return;
+			}
+			long start = System.nanoTime();
+			// Finishes the compressed stream, and releases the compressor - the counter doesn't close the target
+			try
+			{
+				compressor_.close();
+			}
+			catch (IOException e)
+			{
+				release();
+				throw e;
+			}
+			compressionNanos_ += System.nanoTime() - start;
+			compressionTimer_.recordElapsed(compressionNanos_);
+			record(uncompressedSize_, counter_.count_);
+		}
+
+		/**
+		 * Release the compressor of a body that wasn't written in full, without writing anything more to the client
+		 */
+		private void abort()
+		{
+			if (finished_)
+			{
+				return;
+			}
+			finished_ = true;
+			if (compressor_ != null)
+			{
+				release();
+			}
+		}
+
+		/**
+		 * Close the compressor with its output discarded - closing it is what ends its Deflater, and frees the native memory
+		 */
+		private void release()
+		{
+			counter_.discard_ = true;
+			try
+			{
+				compressor_.close();
+			}
+			catch (IOException e)
+			{
+				log.debug("Unexpected error releasing a compressor", e);
+			}
+		}
+	}
+
+	/**
+	 * Counts the bytes written to the client.  Jersey owns the stream - closing the counter only flushes it.  Once discarding, 
+	 * nothing more is passed on to the client.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream
+	{
+		private long count_;
+		private boolean discard_;
+
+		private CountingOutputStream(OutputStream out)
+		{
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			if (!discard_)
+			{
+				out.write(b);
+				count_++;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (!discard_)
+			{
+				out.write(b, off, len);
+				count_ += len;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			if (!discard_)
+			{
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+		}
+	}
+}
@@ -18,14 +18,26 @@
  */
 package gov.vha.isaac.rest.jerseyConfig;
 
+import java.util.concurrent.ConcurrentHashMap;
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.Annotated;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import gov.vha.isaac.rest.session.RequestParameters;
 
 /**
  * 
@@ -36,11 +48,56 @@ import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 @Provider
 public class MyJacksonMapperConfig implements ContextResolver<ObjectMapper>
 {
+	private static final ObjectMapper sharedObjectMapper = createDefaultMapper();
+	private static final ObjectMapper compactObjectMapper = createCompactMapper();
+	private static final ObjectMapper smileObjectMapper = createSmileMapper();
+
+	/**
+	 * The property that type ids are written to - the default for {@link JsonTypeInfo.Id#CLASS}, which all of the model classes use
+	 */
+	public static final String TYPE_PROPERTY = "@class";
+
 	final ObjectMapper defaultObjectMapper;
 
 	public MyJacksonMapperConfig()
 	{
-		defaultObjectMapper = createDefaultMapper();
+		defaultObjectMapper = sharedObjectMapper;
+	}
+
+	/**
+	 * @return the mapper used by Jersey to write JSON responses - for APIs which write their own (streamed) output
+	 */
+	public static ObjectMapper getObjectMapper()
+	{
+		return sharedObjectMapper;
+	}
+
+	/**
+	 * @return the mapper of the compact profile (see {@link RequestParameters#profile}) - which doesn't indent, omits null fields, 
+	 * and writes the simple class name as the type id, in place of the fully qualified class name
+	 */
+	public static ObjectMapper getCompactObjectMapper()
+	{
+		return compactObjectMapper;
+	}
+
+	/**
+	 * @return the mapper of the binary Smile encoding (see {@link MySmileProvider}) - which reads the same annotations, and writes the
+	 * same type ids, as the default mapper
+	 */
+	public static ObjectMapper getSmileObjectMapper()
+	{
+		return smileObjectMapper;
+	}
+
+	/**
+	 * @param type the class of a model object
+	 * @param compact true for the type id written by the compact mapper, false for the type id written by the default mapper
+	 * @return the type id of the class
+	 */
+	public static String getTypeId(Class<?> type, boolean compact)
+	{
+		return compact ? SimpleNameTypeIdResolver.register(type) : type.getName();
 	}
 
 	@Override
@@ -58,6 +115,24 @@ public class MyJacksonMapperConfig implements ContextResolver<ObjectMapper>
 		return result;
 	}
 
+	private static ObjectMapper createCompactMapper()
+	{
+		final ObjectMapper result = new ObjectMapper();
+		result.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		result.setAnnotationIntrospector(AnnotationIntrospector.pair(new SimpleNameTypeIdIntrospector(), 
+				new JaxbAnnotationIntrospector(TypeFactory.defaultInstance())));
+
+		return result;
+	}
+
+	private static ObjectMapper createSmileMapper()
+	{
+		final ObjectMapper result = new ObjectMapper(new SmileFactory());
+		result.setAnnotationIntrospector(createJaxbJacksonAnnotationIntrospector());
+
+		return result;
+	}
+
 	private static AnnotationIntrospector createJaxbJacksonAnnotationIntrospector()
 	{
 
@@ -66,4 +141,87 @@ public class MyJacksonMapperConfig implements ContextResolver<ObjectMapper>
 
 		return AnnotationIntrospector.pair(jacksonIntrospector, jaxbIntrospector);
 	}
+
+	/**
+	 * Reads the JsonTypeInfo annotations as usual, but writes the simple class name as the type id of classes annotated with
+	 * {@link JsonTypeInfo.Id#CLASS}.  The simple names of the model classes are unique.
+	 */
+	private static class SimpleNameTypeIdIntrospector extends JacksonAnnotationIntrospector
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected TypeResolverBuilder<?> _findTypeResolver(MapperConfig<?> config, Annotated ann, JavaType baseType)
+		{
+			JsonTypeInfo info = ann.getAnnotation(JsonTypeInfo.class);
+			if (info != null && info.use() == JsonTypeInfo.Id.CLASS)
+			{
+				return new StdTypeResolverBuilder()
+						.init(JsonTypeInfo.Id.CUSTOM, new SimpleNameTypeIdResolver(baseType))
+						.inclusion(info.include())
+						.typeProperty(TYPE_PROPERTY);
+			}
+			return super._findTypeResolver(config, ann, baseType);
+		}
+	}
+
+	/**
+	 * Uses the simple class name as the type id.  Classes are remembered as their ids are written, so that the ids can be read back.
+	 */
+	private static class SimpleNameTypeIdResolver extends TypeIdResolverBase
+	{
+		private static final ConcurrentHashMap<String, Class<?>> types_ = new ConcurrentHashMap<>();
+
+		private SimpleNameTypeIdResolver(JavaType baseType)
+		{
+			super(baseType, TypeFactory.defaultInstance());
+		}
+
+		private static String register(Class<?> type)
+		{
+			types_.putIfAbsent(type.getSimpleName(), type);
+			return type.getSimpleName();
+		}
+
+		@Override
+		public String idFromValue(Object value)
+		{
+			return register(value.getClass());
+		}
+
+		@Override
+		public String idFromValueAndType(Object value, Class<?> suggestedType)
+		{
+			return register(value == null ? suggestedType : value.getClass());
+		}
+
+		@Override
+		public JavaType typeFromId(DatabindContext context, String id)
+		{
+			return TypeFactory.defaultInstance().constructType(lookup(id));
+		}
+
+		// The form of typeFromId which older versions of Jackson call
+		@Deprecated
+		public JavaType typeFromId(String id)
+		{
+			return TypeFactory.defaultInstance().constructType(lookup(id));
+		}
+
+		private static Class<?> lookup(String id)
+		{
+			Class<?> type = types_.get(id);
+			if (type == null)
+			{
+				throw new IllegalArgumentException("Unknown type id " + id);
+			}
+			return type;
+		}
+
+		@Override
+		public JsonTypeInfo.Id getMechanism()
+		{
+			return JsonTypeInfo.Id.CUSTOM;
+		}
+	}
 }
@@ -0,0 +1,52 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.jerseyConfig;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
+
+/**
+ * {@link MySmileProvider}
+ *
+ * Reads and writes the model classes in the binary Smile encoding of Jackson, for machine clients - selected by an Accept (or 
+ * Content-Type) header of {@link #SMILE}.  The Smile mapper of {@link MyJacksonMapperConfig} is configured in, rather than 
+ * resolved through {@link MyJacksonMapperConfig#getContext(Class)} - which supplies the JSON mapper.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Provider
+@Consumes(MySmileProvider.SMILE)
+@Produces(MySmileProvider.SMILE)
+public class MySmileProvider extends JacksonSmileProvider
+{
+	/**
+	 * The media type of the Smile encoding
+	 */
+	public static final String SMILE = "application/x-jackson-smile";
+	public static final MediaType SMILE_TYPE = new MediaType("application", "x-jackson-smile");
+
+	public MySmileProvider()
+	{
+		super(MyJacksonMapperConfig.getSmileObjectMapper());
+	}
+}
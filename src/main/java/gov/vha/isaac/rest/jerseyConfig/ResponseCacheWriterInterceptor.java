@@ -0,0 +1,114 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.jerseyConfig;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import gov.vha.isaac.rest.cache.ResponseCache;
+
+/**
+ * {@link ResponseCacheWriterInterceptor}
+ *
+ * Copies the serialized body of responses to be cached (those with a {@link #KEY_PROPERTY}) as it is written to the client, and 
+ * stores it in the {@link ResponseCache} once it is complete.  Bodies that grow beyond the largest size the cache will hold stop 
+ * being copied.
+ * 
+ * The priority places this interceptor inside {@link CompressionWriterInterceptor}, so the uncompressed body is cached, and outside
+ * {@link CompactJsonWriterInterceptor}, so the body is cached in the profile it was written in.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER + 50)
+public class ResponseCacheWriterInterceptor implements WriterInterceptor
+{
+	/**
+	 * The request property which carries the {@link ResponseCache.Key} of a response to be cached
+	 */
+	public static final String KEY_PROPERTY = ResponseCacheWriterInterceptor.class.getName() + ".key";
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException
+	{
+		ResponseCache.Key key = (ResponseCache.Key)context.getProperty(KEY_PROPERTY);
+		if (key == null || context.getMediaType() == null)
+		{
+			context.proceed();
+			return;
+		}
+
+		CopyingOutputStream copying = new CopyingOutputStream(context.getOutputStream(), ResponseCache.getInstance().getMaxEntryBytes());
+		context.setOutputStream(copying);
+		context.proceed();
+		if (copying.copy_ != null)
+		{
+			ResponseCache.getInstance().put(key, context.getMediaType().toString(), copying.copy_, copying.length_);
+		}
+	}
+
+	private static class CopyingOutputStream extends FilterOutputStream
+	{
+		private final int maxLength_;
+		private byte[] copy_ = new byte[4096];
+		private int length_;
+
+		private CopyingOutputStream(OutputStream out, int maxLength)
+		{
+			super(out);
+			maxLength_ = maxLength;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte)b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+			if (copy_ == null)
+			{
+				return;
+			}
+			if (length_ + len > maxLength_)
+			{
+				copy_ = null;
+				return;
+			}
+			if (length_ + len > copy_.length)
+			{
+				copy_ = Arrays.copyOf(copy_, Math.min(maxLength_, Math.max(copy_.length * 2, length_ + len)));
+			}
+			System.arraycopy(b, off, copy_, length_, len);
+			length_ += len;
+		}
+	}
+}
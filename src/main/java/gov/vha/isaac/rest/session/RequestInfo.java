@@ -56,9 +56,17 @@ public class RequestInfo
 
 	private String coordinatesToken_ = null;
 
+	// The decoded coordinatesToken_, and the stated and inferred forms of its taxonomy coordinate.  These are resolved once,
+	// when the request is read, as the coordinate getters below are called many times per request (once per child, when
+	// expanding the taxonomy)
+	private CoordinatesToken resolvedToken_ = null;
+	private TaxonomyCoordinate statedTaxonomyCoordinate_ = null;
+	private TaxonomyCoordinate inferredTaxonomyCoordinate_ = null;
+
 	private Set<String> expandablesForDirectExpansion_ = new HashSet<>(0);
 	//Default to this, users may override by specifying expandables=true
 	private boolean returnExpandableLinks_ = ApplicationConfig.getInstance().isDebugDeploy();
+	private boolean compactJson_ = false;
 	
 	private static final ThreadLocal<RequestInfo> requestInfo = new ThreadLocal<RequestInfo>()
 	{
@@ -82,6 +90,15 @@ public class RequestInfo
 		requestInfo.remove();
 	}
 
+	/**
+	 * Install the RequestInfo of a request on the current thread - for work done on behalf of the request outside of the normal
+	 * request lifecycle, such as writing streamed output, which happens after {@link #remove()} has been called by the response filter.
+	 * @param info the RequestInfo to install
+	 */
+	public static void set(RequestInfo info) {
+		requestInfo.set(info);
+	}
+
 	public RequestInfo readExpandables(Map<String, List<String>> parameters) throws RestException
 	{
 		requestInfo.get().expandablesForDirectExpansion_ = new HashSet<>(10);
@@ -120,7 +137,7 @@ public class RequestInfo
 		String serializedTokenByParams = CoordinatesTokens.get(CoordinatesUtil.getCoordinateParameters(parameters));
 		if (serializedTokenByParams != null) {
 			log.debug("Using CoordinatesToken value cached by parameter");
-			requestInfo.get().coordinatesToken_ = serializedTokenByParams;
+			requestInfo.get().setCoordinatesToken(CoordinatesTokens.getOrCreate(serializedTokenByParams));
 		} else {
 			log.debug("Constructing CoordinatesToken from parameters");
 			
@@ -128,12 +145,12 @@ public class RequestInfo
 			Optional<CoordinatesToken> token = CoordinatesUtil.getCoordinatesTokenParameterTokenObjectValue(parameters);
 			if (token.isPresent()) {
 				log.debug("Applying CoordinatesToken " + RequestParameters.coordToken + " parameter \"" + token.get().getSerialized() + "\"");
-				requestInfo.get().coordinatesToken_ = token.get().getSerialized();
+				requestInfo.get().setCoordinatesToken(token.get());
 			} else {
 				log.debug("Applying default coordinates");
 
-				requestInfo.get().coordinatesToken_ = CoordinatesTokens.getDefaultCoordinatesToken().getSerialized();
 				token = Optional.of(CoordinatesTokens.getDefaultCoordinatesToken());
+				requestInfo.get().setCoordinatesToken(token.get());
 			}
 
 			// Determine if any relevant coordinate parameters set
@@ -187,16 +204,44 @@ public class RequestInfo
 						logicDescProfileSeq,
 						logicClassifierSeq);
 
-				requestInfo.get().coordinatesToken_ = tokenObj.getSerialized();
+				requestInfo.get().setCoordinatesToken(tokenObj);
 
 				CoordinatesTokens.put(CoordinatesUtil.getCoordinateParameters(parameters), tokenObj);
 				
 				log.debug("Created CoordinatesToken \"" + requestInfo.get().coordinatesToken_ + "\"");
 			}
 		}
+
+		requestInfo.get().resolveCoordinates();
 		
 		return requestInfo.get();
 	}
+
+	private void setCoordinatesToken(CoordinatesToken token)
+	{
+		coordinatesToken_ = token.getSerialized();
+		resolvedToken_ = token;
+		statedTaxonomyCoordinate_ = null;
+		inferredTaxonomyCoordinate_ = null;
+	}
+
+	/**
+	 * Materialize the coordinates of the current token, and the stated and inferred analogs of its taxonomy coordinate
+	 */
+	private void resolveCoordinates()
+	{
+		TaxonomyCoordinate taxonomyCoordinate = getCoordinatesToken().getTaxonomyCoordinate();
+		if (taxonomyCoordinate.getTaxonomyType() == PremiseType.STATED)
+		{
+			inferredTaxonomyCoordinate_ = taxonomyCoordinate.makeAnalog(PremiseType.INFERRED);
+			statedTaxonomyCoordinate_ = taxonomyCoordinate;
+		}
+		else
+		{
+			statedTaxonomyCoordinate_ = taxonomyCoordinate.makeAnalog(PremiseType.STATED);
+			inferredTaxonomyCoordinate_ = taxonomyCoordinate;
+		}
+	}
 	
 	public boolean shouldExpand(String expandable)
 	{
@@ -208,6 +253,23 @@ public class RequestInfo
 		return returnExpandableLinks_;
 	}
 
+	/**
+	 * @param compactJson true, if JSON responses to the request should be written in the compact profile
+	 * (see {@link RequestParameters#profile})
+	 */
+	public void setCompactJson(boolean compactJson)
+	{
+		compactJson_ = compactJson;
+	}
+
+	/**
+	 * @return true, if JSON responses to the request should be written in the compact profile
+	 */
+	public boolean useCompactJson()
+	{
+		return compactJson_;
+	}
+
 	/**
 	 * @return
 	 */
@@ -244,14 +306,11 @@ public class RequestInfo
 	 */
 	public TaxonomyCoordinate getTaxonomyCoordinate(boolean stated)
 	{
-		if (stated)
+		if (statedTaxonomyCoordinate_ == null || inferredTaxonomyCoordinate_ == null)
 		{
-			return getTaxonomyCoordinate().getTaxonomyType() == PremiseType.STATED ? getTaxonomyCoordinate() : getTaxonomyCoordinate().makeAnalog(PremiseType.STATED);
-		}
-		else // (! stated)
-		{
-			return getTaxonomyCoordinate().getTaxonomyType() == PremiseType.INFERRED ? getTaxonomyCoordinate() : getTaxonomyCoordinate().makeAnalog(PremiseType.INFERRED);
+			resolveCoordinates();
 		}
+		return stated ? statedTaxonomyCoordinate_ : inferredTaxonomyCoordinate_;
 	}
 
 	/**
@@ -273,17 +332,21 @@ public class RequestInfo
 	 * @return CoordinatesToken created from existing coordinates
 	 */
 	public CoordinatesToken getCoordinatesToken() {
-		if (coordinatesToken_ != null) {
+		if (resolvedToken_ != null) {
+			return resolvedToken_;
+		}
+		else if (coordinatesToken_ != null) {
 			try {
-				return CoordinatesTokens.getOrCreate(coordinatesToken_);
+				resolvedToken_ = CoordinatesTokens.getOrCreate(coordinatesToken_);
+				return resolvedToken_;
 			} catch (Exception e) {
 				// Should never fail because validated on readAll()
 				log.error("Unexpected", e);
 				throw new RuntimeException(e);
 			}
 		} else {
-			coordinatesToken_ = CoordinatesTokens.getDefaultCoordinatesToken().getSerialized();
-			return CoordinatesTokens.getDefaultCoordinatesToken();
+			setCoordinatesToken(CoordinatesTokens.getDefaultCoordinatesToken());
+			return resolvedToken_;
 		}
 	}
 }
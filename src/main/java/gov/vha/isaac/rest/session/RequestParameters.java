@@ -81,6 +81,29 @@ public class RequestParameters {
 	public final static String maxPageSize = "maxPageSize";
 	public final static String maxPageSizeDefault = "10";
 
+	public final static String cursor = "cursor";
+
+	/**
+	 * Selects the wire profile of JSON responses.  May also be passed as a parameter of the JSON media type in the Accept header.
+	 * {@link #profileCompact} writes without indenting, omits null fields, and uses the simple class name as the type id.
+	 */
+	public final static String profile = "profile";
+	public final static String profileCompact = "compact";
+
+	/**
+	 * Selects the form of the logic graph returned by the logicGraph version API - {@link #formatTree} (the default) for a tree of 
+	 * RestLogicNode, or {@link #formatTable} for a RestLogicGraphTable.
+	 */
+	public final static String format = "format";
+	public final static String formatTree = "tree";
+	public final static String formatTable = "table";
+
+	/**
+	 * The range of concept sequences of an export - from (inclusive) and to (exclusive)
+	 */
+	public final static String fromSequence = "fromSequence";
+	public final static String toSequence = "toSequence";
+
 	public final static String assemblage = "assemblage";
 	public final static String includeDescriptions = "includeDescriptions";
 	public final static String includeAttributes = "includeAttributes";
@@ -0,0 +1,188 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.session.filters;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.rest.cache.CommitWatcher;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.CompressionWriterInterceptor;
+import gov.vha.isaac.rest.session.RequestInfo;
+import gov.vha.isaac.rest.session.RequestParameters;
+
+/**
+ * {@link ConditionalGetContainerFilter}
+ *
+ * Issues strong ETags for the GET responses of {@link CommitVersioned} resources, and answers requests whose If-None-Match header
+ * carries the current tag with 304 (Not Modified) - before the resource is called, so the response is never built.
+ * 
+ * The tag is a digest of the canonical form of the request - the path, the query parameters other than the coordinate parameters, 
+ * the coordinates token (which identifies the coordinates however they were specified), the Accept header and the content encoding - 
+ * and of the commit generation of {@link CommitWatcher}, so every commit invalidates every tag.  The tags of each server instance
+ * are distinct, as the generation starts over on restart.
+ * 
+ * Priority is set to Priorities.USER - 400, so this filter runs after {@link RestContainerRequestFilter} has read the coordinates
+ * of the request.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Priority(Priorities.USER - 400)
+@Provider
+public class ConditionalGetContainerFilter implements ContainerRequestFilter, ContainerResponseFilter
+{
+	private static Logger log = LogManager.getLogger();
+
+	/**
+	 * The request property which carries the entity tag of the response, for GET requests to {@link CommitVersioned} resources
+	 */
+	public static final String ENTITY_TAG_PROPERTY = ConditionalGetContainerFilter.class.getName() + ".entityTag";
+
+	private static final String instanceId_ = UUID.randomUUID().toString();
+
+	// The parameters which are represented by the coordinates token of the request
+	private static final Set<String> coordinateParameters_ = new HashSet<>();
+
+	static
+	{
+		coordinateParameters_.addAll(Arrays.asList(RequestParameters.coordToken, RequestParameters.stated));
+		coordinateParameters_.addAll(RequestParameters.LANGUAGE_COORDINATE_PARAM_NAMES);
+		coordinateParameters_.addAll(RequestParameters.STAMP_COORDINATE_PARAM_NAMES);
+		coordinateParameters_.addAll(RequestParameters.LOGIC_COORDINATE_PARAM_NAMES);
+	}
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) throws IOException
+	{
+		if (!HttpMethod.GET.equals(requestContext.getMethod()) || !isCommitVersioned(resourceInfo))
+		{
+			return;
+		}
+
+		EntityTag entityTag = entityTag(requestContext);
+		requestContext.setProperty(ENTITY_TAG_PROPERTY, entityTag);
+
+		ResponseBuilder notModified = requestContext.getRequest().evaluatePreconditions(entityTag);
+		if (notModified != null)
+		{
+			log.debug("Request for {} is not modified", requestContext.getUriInfo().getPath());
+			requestContext.abortWith(notModified.build());
+		}
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException
+	{
+		Object entityTag = requestContext.getProperty(ENTITY_TAG_PROPERTY);
+		if (entityTag != null && responseContext.getStatus() == Status.OK.getStatusCode())
+		{
+			responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+		}
+	}
+
+	/**
+	 * @param resourceInfo the resource method matched by a request
+	 * @return true, if the method, or its class, is {@link CommitVersioned}
+	 */
+	static boolean isCommitVersioned(ResourceInfo resourceInfo)
+	{
+		Method method = resourceInfo.getResourceMethod();
+		return method != null && (method.isAnnotationPresent(CommitVersioned.class) 
+				|| resourceInfo.getResourceClass().isAnnotationPresent(CommitVersioned.class));
+	}
+
+	/**
+	 * @param requestContext a request, for which {@link RestContainerRequestFilter} has read the coordinates
+	 * @return the canonical form of the request - the path, the query parameters other than the coordinate parameters (sorted by 
+	 * name), the coordinates token and the Accept header.  Requests with the same canonical form have the same response, until 
+	 * the next commit.
+	 */
+	static String canonicalRequest(ContainerRequestContext requestContext)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(requestContext.getUriInfo().getPath()).append('\n');
+		for (Map.Entry<String, List<String>> parameter : new TreeMap<>(requestContext.getUriInfo().getQueryParameters()).entrySet())
+		{
+			if (!coordinateParameters_.contains(parameter.getKey()))
+			{
+				key.append(parameter.getKey()).append('=').append(parameter.getValue()).append('&');
+			}
+		}
+		key.append('\n');
+		key.append(RequestInfo.get().getCoordinatesToken().getSerialized()).append('\n');
+		key.append(requestContext.getHeaderString(HttpHeaders.ACCEPT));
+		return key.toString();
+	}
+
+	/**
+	 * @param requestContext a request, for which {@link RestContainerRequestFilter} has read the coordinates
+	 * @return the entity tag of the current response to the request
+	 */
+	private static EntityTag entityTag(ContainerRequestContext requestContext)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(instanceId_).append('\n');
+		key.append(CommitWatcher.getGeneration()).append('\n');
+		key.append(canonicalRequest(requestContext)).append('\n');
+		key.append(requestContext.getProperty(CompressionWriterInterceptor.ENCODING_PROPERTY));
+
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+			return new EntityTag(Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 18)));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every java platform is required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+}
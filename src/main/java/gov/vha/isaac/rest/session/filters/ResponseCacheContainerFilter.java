@@ -0,0 +1,99 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.session.filters;
+
+import java.io.IOException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import gov.vha.isaac.rest.cache.CommitWatcher;
+import gov.vha.isaac.rest.cache.ResponseCache;
+import gov.vha.isaac.rest.jerseyConfig.CommitVersioned;
+import gov.vha.isaac.rest.jerseyConfig.ResponseCacheWriterInterceptor;
+
+/**
+ * {@link ResponseCacheContainerFilter}
+ *
+ * Answers GET requests to {@link CommitVersioned} resources from the {@link ResponseCache}, without calling the resource - the 
+ * cached body is written as it was serialized, and is still compressed for the client by the compression interceptor.  On a miss,
+ * the key of the request is recorded in its properties, and the body of a successful response is stored by 
+ * {@link ResponseCacheWriterInterceptor} as it is written.
+ * 
+ * The key is the canonical form of the request (see {@link ConditionalGetContainerFilter}), with the commit generation read before
+ * the response is built.
+ * 
+ * Priority is set to Priorities.USER - 300, so that conditional requests are answered by {@link ConditionalGetContainerFilter} first.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Priority(Priorities.USER - 300)
+@Provider
+public class ResponseCacheContainerFilter implements ContainerRequestFilter, ContainerResponseFilter
+{
+	private static Logger log = LogManager.getLogger();
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) throws IOException
+	{
+		ResponseCache cache = ResponseCache.getInstance();
+		if (!cache.isEnabled() || !HttpMethod.GET.equals(requestContext.getMethod()) 
+				|| !ConditionalGetContainerFilter.isCommitVersioned(resourceInfo))
+		{
+			return;
+		}
+
+		ResponseCache.Key key = new ResponseCache.Key(CommitWatcher.getGeneration(), ConditionalGetContainerFilter.canonicalRequest(requestContext));
+		ResponseCache.Entry cached = cache.get(key);
+		if (cached != null)
+		{
+			log.debug("Answering {} from the response cache", requestContext.getUriInfo().getPath());
+			requestContext.abortWith(Response.ok((StreamingOutput)cached::writeTo, cached.getMediaType()).build());
+			return;
+		}
+		requestContext.setProperty(ResponseCacheWriterInterceptor.KEY_PROPERTY, key);
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException
+	{
+		// Only successful responses are stored - errors are written as plain text, and may be transient
+		if (responseContext.getStatus() != Status.OK.getStatusCode() || responseContext.getEntity() instanceof String)
+		{
+			requestContext.removeProperty(ResponseCacheWriterInterceptor.KEY_PROPERTY);
+		}
+	}
+}
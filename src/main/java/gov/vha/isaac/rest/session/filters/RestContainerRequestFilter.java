@@ -26,10 +26,14 @@ import javax.annotation.Priority;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.ext.Provider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import gov.vha.isaac.rest.ApplicationConfig;
+import gov.vha.isaac.rest.jerseyConfig.CompactJsonWriterInterceptor;
+import gov.vha.isaac.rest.jerseyConfig.CompressionWriterInterceptor;
 import gov.vha.isaac.rest.session.RequestInfo;
 
 /**
@@ -51,6 +55,9 @@ import gov.vha.isaac.rest.session.RequestInfo;
 public class RestContainerRequestFilter implements ContainerRequestFilter {
 	private static Logger LOG = LogManager.getLogger();
 
+	@Context
+	private ResourceInfo resourceInfo;
+
 	/**
 	 * 
 	 */
@@ -89,5 +96,12 @@ public class RestContainerRequestFilter implements ContainerRequestFilter {
 		catch (Exception e) {
 			throw new IOException(e);
 		}
+
+		if (CompactJsonWriterInterceptor.isRequested(requestContext)) {
+			requestContext.setProperty(CompactJsonWriterInterceptor.COMPACT_JSON_PROPERTY, Boolean.TRUE);
+			RequestInfo.get().setCompactJson(true);
+		}
+
+		CompressionWriterInterceptor.configure(requestContext, resourceInfo);
 	}
 }
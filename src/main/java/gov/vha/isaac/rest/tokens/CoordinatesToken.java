@@ -42,18 +42,26 @@ import gov.vha.isaac.ochre.model.coordinate.StampPositionImpl;
 import gov.vha.isaac.ochre.model.coordinate.TaxonomyCoordinateImpl;
 import gov.vha.isaac.rest.ApplicationConfig;
 import gov.vha.isaac.rest.api.exceptions.RestException;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestTimingStatistics;
+import gov.vha.isaac.rest.cache.TimingStatistics;
 
 /**
  * 
  * {@link CoordinatesToken}
  *
+ * Version 2 tokens are signed with a single HMAC-SHA256 pass (see {@link TokenSigner}).  Version 1 tokens, signed with a
+ * 128 round {@link PasswordHasher} hash, are still accepted, but are no longer issued.
+ *
  * @author <a href="mailto:daniel.armbrust.list@gmail.com">Dan Armbrust</a>
  */
 public class CoordinatesToken
 {
 	private static final transient Logger log = LoggerFactory.getLogger(CoordinatesToken.class);
 
-	private static final byte tokenVersion = 1;
+	private static final byte tokenVersion = 2;
+
+	// The parameters of version 1 tokens
+	private static final byte legacyTokenVersion = 1;
 	private static final int hashRounds = 128;
 	private static final int hashLength = 64;
 	private static final int encodedHashLength = (int)Math.ceil(hashLength / 8f / 3f) * 4;  //http://stackoverflow.com/a/4715480
@@ -79,9 +87,13 @@ public class CoordinatesToken
 	private transient StampCoordinate stampCoordinate = null;
 	private transient LanguageCoordinate languageCoordinate = null;
 	private transient LogicCoordinate logicCoordinate = null;
+	private transient String stampCoordinateKey = null;
 
 	private final transient String serialization;
 
+	private static final TimingStatistics decodeTimer_ = new TimingStatistics("coordinatesTokenDecode");
+	private static final TimingStatistics verifyTimer_ = new TimingStatistics("coordinatesTokenVerify");
+
 	private static <E extends Enum<E>> E getFromOrdinal(Class<E> clazz, int ordinal) {
 		for (E value : clazz.getEnumConstants()) {
 			if (value.ordinal() == ordinal) {
@@ -177,21 +189,16 @@ public class CoordinatesToken
 		{
 			serialization = encodedData;
 
-			long time = System.currentTimeMillis();
-			String readHash = serialization.substring(0, encodedHashLength);
-			String calculatedHash = PasswordHasher.hash(serialization.substring(encodedHashLength, serialization.length()), ApplicationConfig.getSecret(), hashRounds, hashLength);
-
-			if (!readHash.equals(calculatedHash))
-			{
-				throw new RestException("Invalid token!");
-			}
+			long time = System.nanoTime();
+			int dataStart = verifySignature(serialization);
+			byte expectedVersion = dataStart == TokenSigner.encodedSignatureLength ? tokenVersion : legacyTokenVersion;
 
-			byte[] readBytes = Base64.getUrlDecoder().decode(serialization.substring(encodedHashLength, serialization.length()));
+			byte[] readBytes = Base64.getUrlDecoder().decode(serialization.substring(dataStart, serialization.length()));
 			ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(readBytes);
 			byte version = buffer.getByte();
-			if (version != tokenVersion)
+			if (version != expectedVersion)
 			{
-				log.warn("Expected token version " + tokenVersion + " but read " + version);
+				log.warn("Expected token version " + expectedVersion + " but read " + version);
 				throw new RestException("Invalid token - old token?");
 			}
 			stampTime = buffer.getLong();
@@ -227,7 +234,8 @@ public class CoordinatesToken
 			logicDescLogicProfile = buffer.getInt();
 			logicClassifier = buffer.getInt();
 
-			log.debug("token decode time " + (System.currentTimeMillis() - time) + "ms");
+			decodeTimer_.record(time);
+			log.debug("token decode time " + ((System.nanoTime() - time) / 1000) + "us");
 		}
 		catch (RestException e)
 		{
@@ -383,11 +391,91 @@ public class CoordinatesToken
 		return serialization;
 	}
 
+	/**
+	 * @return a key which identifies only the stamp coordinate components of this token.  Useful for keying caches
+	 * whose content varies by stamp coordinate, but not by language or logic coordinate.
+	 */
+	public String getStampCoordinateKey()
+	{
+		if (stampCoordinateKey == null)
+		{
+			stampCoordinateKey = stampTime + ":" + stampPath + ":" + stampPrecedence + ":" + Arrays.toString(stampModules) + ":"
+					+ Arrays.toString(stampStates);
+		}
+		return stampCoordinateKey;
+	}
+
+	/**
+	 * Check the signature of a serialized token - in either the current or the legacy format.
+	 * @return the offset of the token data within the serialized token
+	 * @throws RestException if the signature isn't valid
+	 */
+	private static int verifySignature(String serialized) throws Exception
+	{
+		long time = System.nanoTime();
+		try
+		{
+			if (peekVersion(serialized, TokenSigner.encodedSignatureLength) == tokenVersion && TokenSigner.verify(serialized))
+			{
+				return TokenSigner.encodedSignatureLength;
+			}
+			if (peekVersion(serialized, encodedHashLength) == legacyTokenVersion)
+			{
+				if (TokenSigner.isVerified(serialized))
+				{
+					return encodedHashLength;
+				}
+				String readHash = serialized.substring(0, encodedHashLength);
+				String calculatedHash = PasswordHasher.hash(serialized.substring(encodedHashLength, serialized.length()), ApplicationConfig.getSecret(), hashRounds, hashLength);
+				if (readHash.equals(calculatedHash))
+				{
+					TokenSigner.markVerified(serialized);
+					return encodedHashLength;
+				}
+			}
+			throw new RestException("Invalid token!");
+		}
+		finally
+		{
+			verifyTimer_.record(time);
+		}
+	}
+
+	/**
+	 * @return the version byte at the start of the token data, if the token data starts at dataStart, otherwise, -1
+	 */
+	private static int peekVersion(String serialized, int dataStart)
+	{
+		if (serialized.length() < dataStart + 4)
+		{
+			return -1;
+		}
+		try
+		{
+			// 4 base64 characters decode to the first 3 bytes of the data
+			return Base64.getUrlDecoder().decode(serialized.substring(dataStart, dataStart + 4))[0];
+		}
+		catch (IllegalArgumentException e)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * @return the timings of token decoding, and of signature verification (which is part of decoding)
+	 */
+	public static RestTimingStatistics[] getTimingStatistics()
+	{
+		return new RestTimingStatistics[] {decodeTimer_.getStatistics(), verifyTimer_.getStatistics()};
+	}
+
 	private static String serialize(CoordinatesToken token) {
 		try
 		{
 			String data = Base64.getUrlEncoder().encodeToString(token.getBytesToWrite());
-			return PasswordHasher.hash(data, ApplicationConfig.getSecret(), hashRounds, hashLength) + data;
+			String serialized = TokenSigner.sign(data) + data;
+			TokenSigner.markVerified(serialized);
+			return serialized;
 		}
 		catch (Exception e)
 		{
@@ -19,7 +19,6 @@
 
 package gov.vha.isaac.rest.tokens;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,55 +31,31 @@ import gov.vha.isaac.ochre.model.configuration.LanguageCoordinates;
 import gov.vha.isaac.ochre.model.configuration.StampCoordinates;
 import gov.vha.isaac.ochre.model.configuration.TaxonomyCoordinates;
 import gov.vha.isaac.rest.api.exceptions.RestException;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.cache.ConcurrentLruCache;
 import gov.vha.isaac.rest.session.CoordinatesUtil;
 
 /**
  * 
  * {@link CoordinatesTokens}
  *
+ * The caches in here are hit at least twice on every request, so they are backed by a {@link ConcurrentLruCache} rather than
+ * a synchronized map.  The capacity of each cache may be set with the system property {@link #CACHE_SIZE_PROPERTY}.
+ *
  * @author <a href="mailto:joel.kniaz.list@gmail.com">Joel Kniaz</a>
  *
  */
 public class CoordinatesTokens {
-	private final static Object OBJECT_BY_TOKEN_CACHE_LOCK = new Object();
-	private final static Object TOKEN_BY_PARAMS_CACHE_LOCK = new Object();
+	public static final String CACHE_SIZE_PROPERTY = "isaac.rest.coordinatesTokenCacheSize";
 	
 	private static final int DEFAULT_MAX_SIZE = 1024;
-	private static CoordinatesToken defaultCoordinatesToken = null;
-	private static Map<String, CoordinatesToken> OBJECT_BY_TOKEN_CACHE = null;
-	private static Map<String, String> TOKEN_BY_PARAMS_CACHE = null;
-
-	private static void init(final int maxEntries) {
-		synchronized(OBJECT_BY_TOKEN_CACHE_LOCK) {
-			if (OBJECT_BY_TOKEN_CACHE == null) {
-				OBJECT_BY_TOKEN_CACHE = new LinkedHashMap<String, CoordinatesToken>(maxEntries, 0.75F, true) {
-					private static final long serialVersionUID = -1236481390177598762L;
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, CoordinatesToken> eldest){
-						return size() > maxEntries;
-					}
-				};
-
-				defaultCoordinatesToken = CoordinatesTokens.getOrCreate(
-						getDefaultTaxonomyCoordinate().getStampCoordinate(),
-						getDefaultTaxonomyCoordinate().getLanguageCoordinate(),
-						getDefaultTaxonomyCoordinate().getLogicCoordinate(),
-						getDefaultTaxonomyCoordinate().getTaxonomyType()
-						);
-			}
-		}
-		synchronized(TOKEN_BY_PARAMS_CACHE_LOCK) {
-			if (TOKEN_BY_PARAMS_CACHE == null) {
-				TOKEN_BY_PARAMS_CACHE = new LinkedHashMap<String, String>(maxEntries, 0.75F, true) {
-					private static final long serialVersionUID = -2638577900934193146L;
-
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, String> eldest){
-						return size() > maxEntries;
-					}
-				};
-			}
-		}
+	private static final ConcurrentLruCache<String, CoordinatesToken> OBJECT_BY_TOKEN_CACHE = new ConcurrentLruCache<>("coordinatesTokens", getMaxSize());
+	private static final ConcurrentLruCache<String, String> TOKEN_BY_PARAMS_CACHE = new ConcurrentLruCache<>("coordinatesTokensByParameters", getMaxSize());
+
+	private static volatile CoordinatesToken defaultCoordinatesToken = null;
+
+	private static int getMaxSize() {
+		return Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
 	}
 
 	private static TaxonomyCoordinate getDefaultTaxonomyCoordinate() {
@@ -92,8 +67,13 @@ public class CoordinatesTokens {
 	 * @return CoordinatesToken object containing components for default coordinates
 	 */
 	public static CoordinatesToken getDefaultCoordinatesToken() {
-		if (OBJECT_BY_TOKEN_CACHE == null) {
-			init(DEFAULT_MAX_SIZE);
+		if (defaultCoordinatesToken == null) {
+			defaultCoordinatesToken = CoordinatesTokens.getOrCreate(
+					getDefaultTaxonomyCoordinate().getStampCoordinate(),
+					getDefaultTaxonomyCoordinate().getLanguageCoordinate(),
+					getDefaultTaxonomyCoordinate().getLogicCoordinate(),
+					getDefaultTaxonomyCoordinate().getTaxonomyType()
+					);
 		}
 
 		return defaultCoordinatesToken;
@@ -108,13 +88,7 @@ public class CoordinatesTokens {
 	 * @throws Exception
 	 */
 	private static void put(CoordinatesToken value) {
-		if (OBJECT_BY_TOKEN_CACHE == null) {
-			init(DEFAULT_MAX_SIZE);
-		}
-
-		synchronized (OBJECT_BY_TOKEN_CACHE_LOCK) {
-			OBJECT_BY_TOKEN_CACHE.put(value.getSerialized(), value);
-		}
+		OBJECT_BY_TOKEN_CACHE.put(value.getSerialized(), value);
 	}
 
 	/**
@@ -129,12 +103,7 @@ public class CoordinatesTokens {
 	 * @throws Exception
 	 */
 	public static void put(Map<String, List<String>> params, CoordinatesToken value) {
-		if (OBJECT_BY_TOKEN_CACHE == null) {
-			init(DEFAULT_MAX_SIZE);
-		}
-		synchronized (TOKEN_BY_PARAMS_CACHE_LOCK) {
-			TOKEN_BY_PARAMS_CACHE.put(CoordinatesUtil.encodeCoordinateParameters(params), value.getSerialized());
-		}
+		TOKEN_BY_PARAMS_CACHE.put(CoordinatesUtil.encodeCoordinateParameters(params), value.getSerialized());
 	}
 
 	/**
@@ -147,12 +116,7 @@ public class CoordinatesTokens {
 	 * @throws Exception
 	 */
 	private static CoordinatesToken get(String key) {
-		if (OBJECT_BY_TOKEN_CACHE == null) {
-			init(DEFAULT_MAX_SIZE);
-		}
-		synchronized (OBJECT_BY_TOKEN_CACHE_LOCK) {
-			return OBJECT_BY_TOKEN_CACHE.get(key);
-		}
+		return OBJECT_BY_TOKEN_CACHE.get(key);
 	}
 	
 	public static CoordinatesToken getOrCreate(String key) throws RestException {
@@ -163,7 +127,7 @@ public class CoordinatesTokens {
 			put(token);
 		}
 		
-		return get(key);
+		return token;
 	}
 
 	public static CoordinatesToken getOrCreate(
@@ -185,7 +149,7 @@ public class CoordinatesTokens {
 			put(cachedToken);
 		}
 		
-		return get(cachedToken.getSerialized());
+		return cachedToken;
 	}
 
 	public static CoordinatesToken getOrCreate(
@@ -226,7 +190,7 @@ public class CoordinatesTokens {
 			put(cachedToken);
 		}
 		
-		return get(cachedToken.getSerialized());
+		return cachedToken;
 	}
 
 	/**
@@ -237,12 +201,13 @@ public class CoordinatesTokens {
 	 * @return
 	 */
 	public static String get(Map<String, List<String>> params) {
-		if (OBJECT_BY_TOKEN_CACHE == null) {
-			return null;
-		} else {
-			synchronized (TOKEN_BY_PARAMS_CACHE_LOCK) {
-				return TOKEN_BY_PARAMS_CACHE.get(CoordinatesUtil.encodeCoordinateParameters(params));
-			}
-		}
+		return TOKEN_BY_PARAMS_CACHE.get(CoordinatesUtil.encodeCoordinateParameters(params));
+	}
+
+	/**
+	 * @return the usage statistics of the token caches, and of the set of verified tokens
+	 */
+	public static RestCacheStatistics[] getStatistics() {
+		return new RestCacheStatistics[] {OBJECT_BY_TOKEN_CACHE.getStatistics(), TOKEN_BY_PARAMS_CACHE.getStatistics(), TokenSigner.getStatistics()};
 	}
 }
@@ -0,0 +1,171 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.tokens;
+
+import java.util.Base64;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.vha.isaac.ochre.api.externalizable.ByteArrayDataBuffer;
+import gov.vha.isaac.rest.api.exceptions.RestException;
+
+/**
+ * {@link CursorToken}
+ *
+ * An opaque, signed position within a ranked result set, handed back to callers of paged APIs so that the next page
+ * may be requested as a continuation of the previous one, rather than by page number.
+ *
+ * The cursor carries a hash of the query that produced it (so it can't be replayed against a different query), the offset of
+ * the next result, and the score and nid of the last result that was returned.  Signed with the {@link TokenSigner}, in the same 
+ * manner as {@link CoordinatesToken}.  Cursors are not added to the set of verified tokens, as each is typically presented only once.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class CursorToken
+{
+	private static final transient Logger log = LoggerFactory.getLogger(CursorToken.class);
+
+	// Version 1 cursors were signed with the PasswordHasher.  Version 2 is skipped, as the current coordinates tokens are version 2, and
+	// are signed with the same key - a token of one type can then never be read as the other.
+	private static final byte tokenVersion = 3;
+
+	private final int queryHash;
+	private final int offset;
+	private final int lastNid;
+	private final float lastScore;
+
+	private final transient String serialization;
+
+	/**
+	 * @param queryKey a string which uniquely identifies the query that produced the result set
+	 * @param offset the index of the next result to return, within the full result set
+	 * @param lastNid the nid of the last result that was returned
+	 * @param lastScore the score of the last result that was returned
+	 */
+	public CursorToken(String queryKey, int offset, int lastNid, float lastScore)
+	{
+		this.queryHash = queryKey.hashCode();
+		this.offset = offset;
+		this.lastNid = lastNid;
+		this.lastScore = lastScore;
+		serialization = serialize(this);
+	}
+
+	/**
+	 * @param encodedData a serialized cursor, as returned by {@link #getSerialized()}
+	 * @param queryKey the key of the query that the cursor is being applied to
+	 * @throws RestException if the cursor is invalid, or was not produced by the specified query
+	 */
+	public CursorToken(String encodedData, String queryKey) throws RestException
+	{
+		try
+		{
+			serialization = encodedData;
+
+			if (!TokenSigner.verifyUncached(serialization))
+			{
+				throw new RestException("Invalid cursor!");
+			}
+
+			byte[] readBytes = Base64.getUrlDecoder().decode(serialization.substring(TokenSigner.encodedSignatureLength, serialization.length()));
+			ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(readBytes);
+			byte version = buffer.getByte();
+			if (version != tokenVersion)
+			{
+				log.warn("Expected cursor version " + tokenVersion + " but read " + version);
+				throw new RestException("Invalid cursor - old cursor?");
+			}
+			queryHash = buffer.getInt();
+			offset = buffer.getInt();
+			lastNid = buffer.getInt();
+			lastScore = Float.intBitsToFloat(buffer.getInt());
+
+			if (queryHash != queryKey.hashCode())
+			{
+				throw new RestException("The cursor was not produced by this query");
+			}
+		}
+		catch (RestException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			log.error("Unexpected", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the index of the next result to return, within the full result set
+	 */
+	public int getOffset()
+	{
+		return offset;
+	}
+
+	/**
+	 * @return the nid of the last result that was returned
+	 */
+	public int getLastNid()
+	{
+		return lastNid;
+	}
+
+	/**
+	 * @return the score of the last result that was returned
+	 */
+	public float getLastScore()
+	{
+		return lastScore;
+	}
+
+	public String getSerialized()
+	{
+		return serialization;
+	}
+
+	private static String serialize(CursorToken token)
+	{
+		try
+		{
+			ByteArrayDataBuffer buffer = new ByteArrayDataBuffer();
+			buffer.putByte(tokenVersion);
+			buffer.putInt(token.queryHash);
+			buffer.putInt(token.offset);
+			buffer.putInt(token.lastNid);
+			buffer.putInt(Float.floatToIntBits(token.lastScore));
+			buffer.trimToSize();
+
+			String data = Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.getData());
+			return TokenSigner.sign(data) + data;
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CursorToken [offset=" + offset + ", lastNid=" + lastNid + ", lastScore=" + lastScore + "]";
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.tokens;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import gov.vha.isaac.rest.ApplicationConfig;
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+import gov.vha.isaac.rest.cache.ConcurrentLruCache;
+
+/**
+ * {@link TokenSigner}
+ *
+ * Signs and verifies token data with a single HMAC-SHA256 pass, keyed by the server secret.  Tokens which have already been
+ * verified are remembered (by their complete serialized form - signature and data) in a bounded set, so a token presented
+ * repeatedly is only verified once.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+class TokenSigner
+{
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int VERIFIED_TOKENS_MAX_SIZE = 8192;
+
+	/**
+	 * The length of a base64 (url safe, unpadded) encoded HMAC-SHA256 signature
+	 */
+	static final int encodedSignatureLength = 43;
+
+	private static final ThreadLocal<Mac> mac_ = new ThreadLocal<Mac>()
+	{
+		@Override
+		protected Mac initialValue()
+		{
+			try
+			{
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(new SecretKeySpec(ApplicationConfig.getSecret(), ALGORITHM));
+				return mac;
+			}
+			catch (GeneralSecurityException e)
+			{
+				throw new RuntimeException(e);
+			}
+		}
+	};
+
+	private static final ConcurrentLruCache<String, Boolean> verifiedTokens_ = new ConcurrentLruCache<>("verifiedTokens", VERIFIED_TOKENS_MAX_SIZE);
+
+	private TokenSigner()
+	{
+	}
+
+	/**
+	 * @param data the encoded token data
+	 * @return the encoded signature of the data, {@link #encodedSignatureLength} characters long
+	 */
+	static String sign(String data)
+	{
+		byte[] signature = mac_.get().doFinal(data.getBytes(StandardCharsets.US_ASCII));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+	}
+
+	/**
+	 * @param serialized a serialized token - the signature followed by the data
+	 * @return true, if the signature at the start of the token is the signature of the rest of the token
+	 */
+	static boolean verify(String serialized)
+	{
+		if (serialized.length() <= encodedSignatureLength)
+		{
+			return false;
+		}
+		if (verifiedTokens_.get(serialized) != null)
+		{
+			return true;
+		}
+		boolean valid = verifyUncached(serialized);
+		if (valid)
+		{
+			verifiedTokens_.put(serialized, Boolean.TRUE);
+		}
+		return valid;
+	}
+
+	/**
+	 * As {@link #verify(String)}, but the result isn't remembered - for tokens which are rarely presented more than once (such
+	 * as cursors), and would only displace other tokens from the set of verified tokens.
+	 * @param serialized a serialized token - the signature followed by the data
+	 * @return true, if the signature at the start of the token is the signature of the rest of the token
+	 */
+	static boolean verifyUncached(String serialized)
+	{
+		if (serialized.length() <= encodedSignatureLength)
+		{
+			return false;
+		}
+		String expected = sign(serialized.substring(encodedSignatureLength));
+		return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+				serialized.substring(0, encodedSignatureLength).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Record a token that was verified by some other means (a token in an older format) so that it needn't be verified again
+	 * @param serialized the serialized token
+	 */
+	static void markVerified(String serialized)
+	{
+		verifiedTokens_.put(serialized, Boolean.TRUE);
+	}
+
+	/**
+	 * @param serialized the serialized token
+	 * @return true, if the token was previously verified
+	 */
+	static boolean isVerified(String serialized)
+	{
+		return verifiedTokens_.get(serialized) != null;
+	}
+
+	static RestCacheStatistics getStatistics()
+	{
+		return verifiedTokens_.getStatistics();
+	}
+}
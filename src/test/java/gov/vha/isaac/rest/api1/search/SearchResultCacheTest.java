@@ -0,0 +1,152 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.api1.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import gov.vha.isaac.ochre.api.index.SearchResult;
+
+/**
+ * {@link SearchResultCacheTest}
+ *
+ * Unit tests of the expiry, invalidation and keying of {@link SearchResultCache}, with the clock and the commit generation
+ * under the control of the test.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class SearchResultCacheTest
+{
+	private final AtomicLong time_ = new AtomicLong(1000000);
+	private final AtomicLong generation_ = new AtomicLong(0);
+	private final AtomicInteger executions_ = new AtomicInteger();
+
+	private SearchResultCache cache_;
+
+	@BeforeMethod
+	public void setUp()
+	{
+		cache_ = new SearchResultCache(() -> time_.get(), () -> generation_.get());
+		executions_.set(0);
+	}
+
+	/**
+	 * @return a query which returns the given number of (empty) results, and counts its executions
+	 */
+	private Supplier<List<SearchResult>> query(int hits)
+	{
+		return () ->
+		{
+			executions_.incrementAndGet();
+			return Collections.nCopies(hits, (SearchResult)null);
+		};
+	}
+
+	@Test
+	public void testHitsAndLimits()
+	{
+		String key = SearchResultCache.key("prefix", "abc", null, null, "coordinates");
+		List<SearchResult> results = cache_.get(key, 10, query(10));
+		Assert.assertEquals(executions_.get(), 1);
+		// A smaller limit is served from the entry
+		Assert.assertSame(cache_.get(key, 5, query(5)), results);
+		Assert.assertEquals(executions_.get(), 1);
+		// A larger limit isn't, as the query may have been cut off at its limit
+		Assert.assertEquals(cache_.get(key, 20, query(15)).size(), 15);
+		Assert.assertEquals(executions_.get(), 2);
+
+		// Unless the query returned fewer hits than its limit - in which case, the entry holds every result
+		String smallKey = SearchResultCache.key("prefix", "abcd", null, null, "coordinates");
+		List<SearchResult> all = cache_.get(smallKey, 10, query(3));
+		Assert.assertSame(cache_.get(smallKey, 100, query(3)), all);
+		Assert.assertEquals(executions_.get(), 3);
+	}
+
+	@Test
+	public void testTtlExpiry()
+	{
+		String key = SearchResultCache.key("prefix", "abc", null, null, "coordinates");
+		List<SearchResult> results = cache_.get(key, 10, query(10));
+		time_.addAndGet(SearchResultCache.TTL_MILLIS);
+		Assert.assertSame(cache_.get(key, 10, query(10)), results);
+		Assert.assertEquals(executions_.get(), 1);
+
+		time_.incrementAndGet();
+		Assert.assertNotSame(cache_.get(key, 10, query(10)), results);
+		Assert.assertEquals(executions_.get(), 2);
+	}
+
+	@Test
+	public void testCommitInvalidation()
+	{
+		String key = SearchResultCache.key("prefix", "abc", null, null, "coordinates");
+		List<SearchResult> results = cache_.get(key, 10, query(10));
+
+		// An entry built before a commit isn't returned after it, even if the commit listener hasn't cleared the cache yet
+		generation_.incrementAndGet();
+		List<SearchResult> afterCommit = cache_.get(key, 10, query(10));
+		Assert.assertNotSame(afterCommit, results);
+		Assert.assertEquals(executions_.get(), 2);
+		Assert.assertSame(cache_.get(key, 10, query(10)), afterCommit);
+
+		// An entry whose query was executed across a commit is stale as soon as it is stored
+		String acrossKey = SearchResultCache.key("prefix", "across", null, null, "coordinates");
+		cache_.get(acrossKey, 10, () ->
+		{
+			generation_.incrementAndGet();
+			return query(10).get();
+		});
+		cache_.get(acrossKey, 10, query(10));
+		Assert.assertEquals(executions_.get(), 4);
+
+		// The commit listener clears the cache
+		cache_.clear();
+		Assert.assertEquals(cache_.getStatistics().size, 0);
+		cache_.get(key, 10, query(10));
+		Assert.assertEquals(executions_.get(), 5);
+	}
+
+	@Test
+	public void testKeys()
+	{
+		String stated = SearchResultCache.key("prefix", "abc", null, new Integer[] {2, 1}, "statedCoordinates");
+		String inferred = SearchResultCache.key("prefix", "abc", null, new Integer[] {1, 2}, "inferredCoordinates");
+		Assert.assertNotEquals(stated, inferred);
+		// The order of the assemblage restrictions doesn't matter
+		Assert.assertEquals(stated, SearchResultCache.key("prefix", "abc", null, new Integer[] {1, 2}, "statedCoordinates"));
+		Assert.assertNotEquals(stated, SearchResultCache.key("descriptions", "abc", null, new Integer[] {1, 2}, "statedCoordinates"));
+		Assert.assertNotEquals(stated, SearchResultCache.key("prefix", "abc", "FSN", new Integer[] {1, 2}, "statedCoordinates"));
+		Assert.assertNotEquals(stated, SearchResultCache.key("prefix", "abc", null, null, "statedCoordinates"));
+
+		// The same query, on different coordinates, is executed for each
+		List<SearchResult> statedResults = cache_.get(stated, 10, query(4));
+		List<SearchResult> inferredResults = cache_.get(inferred, 10, query(6));
+		Assert.assertEquals(executions_.get(), 2);
+		Assert.assertSame(cache_.get(stated, 10, query(4)), statedResults);
+		Assert.assertSame(cache_.get(inferred, 10, query(6)), inferredResults);
+		Assert.assertEquals(executions_.get(), 2);
+	}
+}
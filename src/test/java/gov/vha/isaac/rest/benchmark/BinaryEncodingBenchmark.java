@@ -0,0 +1,223 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import gov.vha.isaac.rest.api.exceptions.RestException;
+import gov.vha.isaac.rest.api1.data.search.RestSearchResult;
+import gov.vha.isaac.rest.api1.data.search.RestSearchResults;
+import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersion;
+import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersions;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+
+/**
+ * {@link BinaryEncodingBenchmark}
+ *
+ * Compares the encodings a client may negotiate - JSON, Smile (see MySmileProvider) and XML - by payload size, and by encode
+ * and decode throughput, for the samples of {@link JsonProfileBenchmark}.  XML requires a single root element, so the list 
+ * samples are carried in the paged wrappers the APIs return for them (RestSememeVersions, RestSearchResults).
+ *
+ * Run {@link #main(String[])} from the IDE, or via exec:java with the test classpath.  It prints the payload sizes, then runs
+ * the throughput benchmarks.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryEncodingBenchmark
+{
+	private static final String[] SAMPLES = {"taxonomy", "conceptChronology", "descriptions", "searchResults"};
+	private static final String[] ENCODINGS = {"json", "smile", "xml"};
+
+	@Param({"taxonomy", "conceptChronology", "descriptions", "searchResults"})
+	public String sample;
+
+	@Param({"json", "smile", "xml"})
+	public String encoding;
+
+	private Object value_;
+	private byte[] encoded_;
+	private Codec codec_;
+
+	@Setup
+	public void setup() throws Exception
+	{
+		value_ = readSample(sample);
+		codec_ = codec(encoding, value_.getClass());
+		encoded_ = codec_.encode(value_);
+	}
+
+	@Benchmark
+	public byte[] encode() throws Exception
+	{
+		return codec_.encode(value_);
+	}
+
+	@Benchmark
+	public Object decode() throws Exception
+	{
+		return codec_.decode(encoded_);
+	}
+
+	private interface Codec
+	{
+		byte[] encode(Object value) throws Exception;
+
+		Object decode(byte[] encoded) throws Exception;
+	}
+
+	private static Codec codec(String encoding, Class<?> type) throws JAXBException
+	{
+		switch (encoding)
+		{
+			case "json":
+				return jackson(MyJacksonMapperConfig.getObjectMapper(), type);
+			case "smile":
+				return jackson(MyJacksonMapperConfig.getSmileObjectMapper(), type);
+			case "xml":
+				return jaxb(type);
+			default :
+				throw new IllegalArgumentException(encoding);
+		}
+	}
+
+	private static Codec jackson(ObjectMapper mapper, Class<?> type)
+	{
+		final ObjectWriter writer = mapper.writerFor(type);
+		final ObjectReader reader = mapper.reader(type);
+		return new Codec()
+		{
+			@Override
+			public byte[] encode(Object value) throws IOException
+			{
+				return writer.writeValueAsBytes(value);
+			}
+
+			@Override
+			public Object decode(byte[] encoded) throws IOException
+			{
+				return reader.readValue(encoded);
+			}
+		};
+	}
+
+	private static Codec jaxb(Class<?> type) throws JAXBException
+	{
+		// Marshallers aren't thread safe - the benchmark state is per thread, so one of each suffices
+		JAXBContext context = JAXBContext.newInstance(type);
+		final Marshaller marshaller = context.createMarshaller();
+		final Unmarshaller unmarshaller = context.createUnmarshaller();
+		return new Codec()
+		{
+			@Override
+			public byte[] encode(Object value) throws JAXBException
+			{
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				marshaller.marshal(value, out);
+				return out.toByteArray();
+			}
+
+			@Override
+			public Object decode(byte[] encoded) throws JAXBException
+			{
+				return unmarshaller.unmarshal(new ByteArrayInputStream(encoded));
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object readSample(String sample) throws IOException, RestException
+	{
+		Object value = JsonProfileBenchmark.readSample(sample, JsonProfileBenchmark.sampleType(sample));
+		switch (sample)
+		{
+			case "descriptions":
+			{
+				List<RestSememeVersion> results = new ArrayList<>((List<? extends RestSememeVersion>)value);
+				return new RestSememeVersions(1, results.size(), results.size(), "http://localhost/rest/1/concept/descriptions/1", results);
+			}
+			case "searchResults":
+			{
+				List<RestSearchResult> results = (List<RestSearchResult>)value;
+				return new RestSearchResults(1, results.size(), 500, "http://localhost/rest/1/search/descriptions?query=isaac", results);
+			}
+			default :
+				return value;
+		}
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		System.out.print(String.format("%-20s", "sample"));
+		for (String encoding : ENCODINGS)
+		{
+			System.out.print(String.format(" %12s", encoding));
+		}
+		System.out.println();
+		for (String sample : SAMPLES)
+		{
+			Object value = readSample(sample);
+			System.out.print(String.format("%-20s", sample));
+			for (String encoding : ENCODINGS)
+			{
+				System.out.print(String.format(" %12d", codec(encoding, value.getClass()).encode(value).length));
+			}
+			System.out.println();
+		}
+
+		Options options = new OptionsBuilder()
+				.include(BinaryEncodingBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
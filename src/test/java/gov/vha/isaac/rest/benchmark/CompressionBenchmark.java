@@ -0,0 +1,121 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+
+/**
+ * {@link CompressionBenchmark}
+ *
+ * Measures the cost of the response compression done by CompressionWriterInterceptor - the bytes on the wire, and the CPU time
+ * per response (the average time to compress one body) - with gzip and deflate, for the JSON bodies of the samples of 
+ * {@link JsonProfileBenchmark}.
+ *
+ * Run {@link #main(String[])} from the IDE, or via exec:java with the test classpath.  It prints the compressed sizes, then runs
+ * the timing benchmarks.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark
+{
+	private static final String[] SAMPLES = {"taxonomy", "conceptChronology", "descriptions", "searchResults"};
+
+	@Param({"taxonomy", "conceptChronology", "descriptions", "searchResults"})
+	public String sample;
+
+	@Param({"gzip", "deflate"})
+	public String encoding;
+
+	private byte[] body_;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		body_ = body(sample);
+	}
+
+	@Benchmark
+	public byte[] compress() throws IOException
+	{
+		return compress(body_, encoding);
+	}
+
+	private static byte[] body(String sample) throws IOException
+	{
+		JavaType type = JsonProfileBenchmark.sampleType(sample);
+		return MyJacksonMapperConfig.getObjectMapper().writerFor(type).writeValueAsBytes(JsonProfileBenchmark.readSample(sample, type));
+	}
+
+	private static byte[] compress(byte[] body, String encoding) throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+		try (DeflaterOutputStream compressor = encoding.equals("gzip") ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed))
+		{
+			compressor.write(body);
+		}
+		return compressed.toByteArray();
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException
+	{
+		System.out.println(String.format("%-20s %12s %12s %12s %8s", "sample", "json", "gzip", "deflate", "ratio"));
+		for (String sample : SAMPLES)
+		{
+			byte[] body = body(sample);
+			int gzip = compress(body, "gzip").length;
+			int deflate = compress(body, "deflate").length;
+			System.out.println(String.format("%-20s %12d %12d %12d %8.2f", sample, body.length, gzip, deflate, (double)gzip / body.length));
+		}
+
+		Options options = new OptionsBuilder()
+				.include(CompressionBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
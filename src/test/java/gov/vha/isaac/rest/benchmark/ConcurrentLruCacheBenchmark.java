@@ -0,0 +1,143 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gov.vha.isaac.rest.cache.ConcurrentLruCache;
+
+/**
+ * {@link ConcurrentLruCacheBenchmark}
+ *
+ * Compares the throughput of {@link ConcurrentLruCache} with the synchronized, access ordered {@link LinkedHashMap} that
+ * CoordinatesTokens used to use, under the access pattern of the token caches - a get on every request, and a put on a miss.
+ * Most requests use a small set of hot tokens, the rest are spread over more keys than the cache can hold.
+ *
+ * Run {@link #main(String[])} from the IDE, or via exec:java with the test classpath.  It runs each benchmark with 1, 8 and 64 threads.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentLruCacheBenchmark
+{
+	private static final int CAPACITY = 1024;
+	private static final int HOT_KEYS = 64;
+	private static final int ALL_KEYS = 4 * CAPACITY;
+
+	private String[] keys_;
+	private ConcurrentLruCache<String, String> concurrentLruCache_;
+	private Map<String, String> linkedHashMap_;
+
+	@Setup
+	public void setup()
+	{
+		keys_ = new String[ALL_KEYS];
+		for (int i = 0; i < keys_.length; i++)
+		{
+			keys_[i] = "token-" + i;
+		}
+
+		concurrentLruCache_ = new ConcurrentLruCache<>("benchmark", CAPACITY);
+		linkedHashMap_ = new LinkedHashMap<String, String>(CAPACITY, 0.75F, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+			{
+				return size() > CAPACITY;
+			}
+		};
+		for (int i = 0; i < CAPACITY; i++)
+		{
+			concurrentLruCache_.put(keys_[i], keys_[i]);
+			linkedHashMap_.put(keys_[i], keys_[i]);
+		}
+	}
+
+	private String nextKey()
+	{
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return keys_[random.nextInt(10) < 9 ? random.nextInt(HOT_KEYS) : random.nextInt(ALL_KEYS)];
+	}
+
+	@Benchmark
+	public String concurrentLruCache()
+	{
+		String key = nextKey();
+		String value = concurrentLruCache_.get(key);
+		if (value == null)
+		{
+			concurrentLruCache_.put(key, key);
+			value = key;
+		}
+		return value;
+	}
+
+	@Benchmark
+	public String synchronizedLinkedHashMap()
+	{
+		String key = nextKey();
+		synchronized (linkedHashMap_)
+		{
+			String value = linkedHashMap_.get(key);
+			if (value == null)
+			{
+				linkedHashMap_.put(key, key);
+				value = key;
+			}
+			return value;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		for (int threads : new int[] {1, 8, 64})
+		{
+			Options options = new OptionsBuilder()
+					.include(ConcurrentLruCacheBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import gov.vha.isaac.rest.api1.data.RestIdentifiedObject;
+import gov.vha.isaac.rest.api1.data.RestStampedVersion;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptChronology;
+import gov.vha.isaac.rest.api1.data.concept.RestConceptVersion;
+import gov.vha.isaac.rest.api1.data.search.RestSearchResult;
+import gov.vha.isaac.rest.api1.data.sememe.RestSememeChronology;
+import gov.vha.isaac.rest.api1.data.sememe.RestSememeDescriptionVersion;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+
+/**
+ * {@link JsonProfileBenchmark}
+ *
+ * Compares the default JSON profile (indented, nulls written, fully qualified class names as type ids) with the compact profile
+ * (see RequestParameters.profile) - the size of the payload, and the serialization throughput - for the main model types:
+ * a taxonomy expansion (a concept version with its children), a concept chronology with its versions, the descriptions of a 
+ * concept, and a page of search results with their referenced concepts.
+ *
+ * The model objects can't be built outside of a running server, so they are read from JSON shaped like the real responses.
+ *
+ * Run {@link #main(String[])} from the IDE, or via exec:java with the test classpath.  It prints the payload sizes, then runs
+ * the throughput benchmarks.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonProfileBenchmark
+{
+	private static final String[] SAMPLES = {"taxonomy", "conceptChronology", "descriptions", "searchResults"};
+
+	@Param({"taxonomy", "conceptChronology", "descriptions", "searchResults"})
+	public String sample;
+
+	@Param({"default", "compact"})
+	public String profile;
+
+	private Object value_;
+	private ObjectWriter writer_;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		JavaType type = sampleType(sample);
+		value_ = readSample(sample, type);
+		writer_ = writer(profile.equals("compact"), type);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException
+	{
+		return writer_.writeValueAsBytes(value_);
+	}
+
+	private static ObjectWriter writer(boolean compact, JavaType type)
+	{
+		return (compact ? MyJacksonMapperConfig.getCompactObjectMapper() : MyJacksonMapperConfig.getObjectMapper()).writerFor(type);
+	}
+
+	static JavaType sampleType(String sample)
+	{
+		ObjectMapper mapper = MyJacksonMapperConfig.getObjectMapper();
+		switch (sample)
+		{
+			case "taxonomy":
+				return mapper.getTypeFactory().constructType(RestConceptVersion.class);
+			case "conceptChronology":
+				return mapper.getTypeFactory().constructType(RestConceptChronology.class);
+			case "descriptions":
+				return mapper.getTypeFactory().constructCollectionType(List.class, RestSememeDescriptionVersion.class);
+			case "searchResults":
+				return mapper.getTypeFactory().constructCollectionType(List.class, RestSearchResult.class);
+			default :
+				throw new IllegalArgumentException(sample);
+		}
+	}
+
+	static Object readSample(String sample, JavaType type) throws IOException
+	{
+		JsonNodeFactory factory = JsonNodeFactory.instance;
+		Object json;
+		switch (sample)
+		{
+			case "taxonomy":
+			{
+				ObjectNode root = conceptVersion(1);
+				ArrayNode children = root.putArray("children");
+				for (int i = 0; i < 50; i++)
+				{
+					children.add(conceptVersion(100 + i).put("childCount", i % 4));
+				}
+				json = root;
+				break;
+			}
+			case "conceptChronology":
+			{
+				ObjectNode chronology = conceptChronology(1);
+				ArrayNode versions = chronology.putArray("versions");
+				for (int i = 0; i < 5; i++)
+				{
+					ObjectNode version = typed(RestConceptVersion.class);
+					version.set("conVersion", stamp(i));
+					versions.add(version);
+				}
+				json = chronology;
+				break;
+			}
+			case "descriptions":
+			{
+				ArrayNode descriptions = factory.arrayNode();
+				for (int i = 0; i < 20; i++)
+				{
+					ObjectNode sememeChronology = typed(RestSememeChronology.class)
+							.put("sememeSequence", 1000 + i).put("assemblageSequence", 12).put("referencedComponentNid", -2000);
+					sememeChronology.set("identifiers", identifiers());
+					ObjectNode description = typed(RestSememeDescriptionVersion.class)
+							.put("caseSignificanceConceptSequence", 30).put("languageConceptSequence", 31)
+							.put("text", "description text number " + i + " (ISAAC)").put("descriptionTypeConceptSequence", 32);
+					description.set("sememeChronology", sememeChronology);
+					description.set("sememeVersion", stamp(i));
+					descriptions.add(description);
+				}
+				json = descriptions;
+				break;
+			}
+			case "searchResults":
+			{
+				ArrayNode results = factory.arrayNode();
+				for (int i = 0; i < 25; i++)
+				{
+					ObjectNode result = typed(RestSearchResult.class).put("matchNid", -3000 - i).put("matchText", "matching text " + i)
+							.put("score", 1.0f / (i + 1)).put("active", true);
+					result.set("identifiers", identifiers());
+					result.set("referencedConcept", conceptChronology(200 + i));
+					results.add(result);
+				}
+				json = results;
+				break;
+			}
+			default :
+				throw new IllegalArgumentException(sample);
+		}
+		ObjectMapper mapper = MyJacksonMapperConfig.getObjectMapper();
+		return mapper.readValue(mapper.writeValueAsBytes(json), type);
+	}
+
+	static ObjectNode typed(Class<?> type)
+	{
+		return JsonNodeFactory.instance.objectNode().put(MyJacksonMapperConfig.TYPE_PROPERTY, type.getName());
+	}
+
+	private static ObjectNode identifiers()
+	{
+		ObjectNode identifiers = typed(RestIdentifiedObject.class);
+		identifiers.putArray("uuids").add(UUID.randomUUID().toString());
+		return identifiers;
+	}
+
+	private static ObjectNode stamp(int i)
+	{
+		return typed(RestStampedVersion.class).put("stampSequence", 10 + i).put("state", "ACTIVE").put("time", 1463000000000L + i)
+				.put("authorSequence", 4).put("moduleSequence", 5).put("pathSequence", 6);
+	}
+
+	private static ObjectNode conceptChronology(int sequence)
+	{
+		ObjectNode chronology = typed(RestConceptChronology.class).put("conceptSequence", sequence)
+				.put("description", "concept number " + sequence + " (ISAAC)");
+		chronology.set("identifiers", identifiers());
+		return chronology;
+	}
+
+	static ObjectNode conceptVersion(int sequence)
+	{
+		ObjectNode version = typed(RestConceptVersion.class).put("isConceptDefined", false);
+		version.set("conChronology", conceptChronology(sequence));
+		version.set("conVersion", stamp(sequence));
+		return version;
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException
+	{
+		System.out.println(String.format("%-20s %12s %12s %8s", "sample", "default", "compact", "ratio"));
+		for (String sample : SAMPLES)
+		{
+			JavaType type = sampleType(sample);
+			Object value = readSample(sample, type);
+			int defaultSize = writer(false, type).writeValueAsBytes(value).length;
+			int compactSize = writer(true, type).writeValueAsBytes(value).length;
+			System.out.println(String.format("%-20s %12d %12d %8.2f", sample, defaultSize, compactSize, (double)compactSize / defaultSize));
+		}
+
+		Options options = new OptionsBuilder()
+				.include(JsonProfileBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
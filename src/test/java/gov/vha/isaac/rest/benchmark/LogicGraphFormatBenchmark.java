@@ -0,0 +1,271 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import gov.vha.isaac.ochre.api.logic.NodeSemantic;
+import gov.vha.isaac.rest.api1.data.enumerations.RestNodeSemanticType;
+import gov.vha.isaac.rest.api1.data.logic.RestConceptNode;
+import gov.vha.isaac.rest.api1.data.logic.RestLogicGraphTable;
+import gov.vha.isaac.rest.api1.data.logic.RestLogicNode;
+import gov.vha.isaac.rest.api1.data.logic.RestRoleNode;
+import gov.vha.isaac.rest.api1.data.logic.RestUntypedConnectorNode;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+
+/**
+ * {@link LogicGraphFormatBenchmark}
+ *
+ * Compares the two forms of a logic graph the logicGraph version API can return (see RequestParameters.format) - the tree of 
+ * RestLogicNode, and the RestLogicGraphTable - by payload size and by client side parse throughput, for a large definition:
+ * a sufficient set of {@link #PARENTS} parents and {@link #ROLE_GROUPS} role groups of two roles each, drawing on a pool of 
+ * {@link #CONCEPT_POOL} concepts (so concepts repeat, as they do in real definitions).  With expandVersions, each concept 
+ * carries its RestConceptVersion, as with expand=version.
+ *
+ * The model objects can't be built outside of a running server, so they are read from JSON shaped like the real responses.
+ *
+ * Run {@link #main(String[])} from the IDE, or via exec:java with the test classpath.  It prints the payload sizes, then runs
+ * the throughput benchmarks.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogicGraphFormatBenchmark
+{
+	private static final int PARENTS = 3;
+	private static final int ROLE_GROUPS = 25;
+	private static final int CONCEPT_POOL = 30;
+
+	@Param({"tree", "table"})
+	public String format;
+
+	@Param({"false", "true"})
+	public boolean expandVersions;
+
+	private byte[] json_;
+	private ObjectReader reader_;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		json_ = serverJson(format, expandVersions);
+		reader_ = MyJacksonMapperConfig.getObjectMapper().reader(type(format));
+	}
+
+	@Benchmark
+	public Object parse() throws IOException
+	{
+		return reader_.readValue(json_);
+	}
+
+	private static Class<?> type(String format)
+	{
+		return "tree".equals(format) ? RestLogicNode.class : RestLogicGraphTable.class;
+	}
+
+	/**
+	 * @return the sample, as the server writes it - read into the model, and written back out
+	 */
+	private static byte[] serverJson(String format, boolean expandVersions) throws IOException
+	{
+		ObjectMapper mapper = MyJacksonMapperConfig.getObjectMapper();
+		ObjectNode sample = "tree".equals(format) ? tree(expandVersions) : table(expandVersions);
+		return mapper.writeValueAsBytes(mapper.reader(type(format)).readValue(mapper.writeValueAsBytes(sample)));
+	}
+
+	private static int concept(int i)
+	{
+		return 1000 + (i * 7) % CONCEPT_POOL;
+	}
+
+	private static ObjectNode semantic(NodeSemantic semantic)
+	{
+		return JsonProfileBenchmark.typed(RestNodeSemanticType.class).put("name", semantic.name()).put("enumId", semantic.ordinal());
+	}
+
+	private static ObjectNode node(Class<?> type, NodeSemantic semantic)
+	{
+		ObjectNode node = JsonProfileBenchmark.typed(type);
+		node.set("nodeSemantic", semantic(semantic));
+		return node;
+	}
+
+	private static ObjectNode conceptNode(int sequence, boolean expandVersions)
+	{
+		ObjectNode node = node(RestConceptNode.class, NodeSemantic.CONCEPT).put("conceptSequence", sequence)
+				.put("isConceptDefined", sequence % 3 == 0).put("conceptDescription", "concept number " + sequence + " (ISAAC)");
+		if (expandVersions)
+		{
+			node.set("conceptVersion", JsonProfileBenchmark.conceptVersion(sequence));
+		}
+		return node;
+	}
+
+	private static ObjectNode roleNode(int typeSequence, ObjectNode child, boolean expandVersions)
+	{
+		ObjectNode node = node(RestRoleNode.class, NodeSemantic.ROLE_SOME).put("connectorTypeConceptSequence", typeSequence)
+				.put("connectorTypeConceptDescription", "concept number " + typeSequence + " (ISAAC)");
+		if (expandVersions)
+		{
+			node.set("connectorTypeConceptVersion", JsonProfileBenchmark.conceptVersion(typeSequence));
+		}
+		node.putArray("children").add(child);
+		return node;
+	}
+
+	private static ObjectNode tree(boolean expandVersions)
+	{
+		ObjectNode and = node(RestUntypedConnectorNode.class, NodeSemantic.AND);
+		ArrayNode terms = and.putArray("children");
+		int next = 0;
+		for (int i = 0; i < PARENTS; i++)
+		{
+			terms.add(conceptNode(concept(next++), expandVersions));
+		}
+		for (int i = 0; i < ROLE_GROUPS; i++)
+		{
+			ObjectNode group = node(RestUntypedConnectorNode.class, NodeSemantic.AND);
+			ArrayNode roles = group.putArray("children");
+			for (int j = 0; j < 2; j++)
+			{
+				int type = concept(next++);
+				roles.add(roleNode(type, conceptNode(concept(next++), expandVersions), expandVersions));
+			}
+			terms.add(roleNode(concept(next++), group, expandVersions));
+		}
+		ObjectNode sufficientSet = node(RestUntypedConnectorNode.class, NodeSemantic.SUFFICIENT_SET);
+		sufficientSet.putArray("children").add(and);
+		ObjectNode root = node(RestUntypedConnectorNode.class, NodeSemantic.DEFINITION_ROOT);
+		root.putArray("children").add(sufficientSet);
+		return root;
+	}
+
+	/**
+	 * The table of the same graph as {@link #tree(boolean)} - built by laying out that tree breadth first, as RestLogicGraphTable
+	 * does.
+	 */
+	private static ObjectNode table(boolean expandVersions)
+	{
+		ArrayNode semantic = JsonNodeFactory.instance.arrayNode();
+		ArrayNode payload = JsonNodeFactory.instance.arrayNode();
+		ArrayNode firstChild = JsonNodeFactory.instance.arrayNode();
+		ArrayNode childCount = JsonNodeFactory.instance.arrayNode();
+		HashMap<Integer, Integer> conceptIndexes = new HashMap<>();
+		ArrayNode conceptSequence = JsonNodeFactory.instance.arrayNode();
+		ArrayNode conceptDescription = JsonNodeFactory.instance.arrayNode();
+		ArrayNode conceptDefined = JsonNodeFactory.instance.arrayNode();
+		ArrayNode conceptVersion = JsonNodeFactory.instance.arrayNode();
+
+		List<ObjectNode> nodes = new ArrayList<>();
+		nodes.add(tree(false));
+		int nextChild = 1;
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			ObjectNode node = nodes.get(i);
+			int children = node.has("children") ? node.get("children").size() : 0;
+			semantic.add(node.get("nodeSemantic").get("enumId").asInt());
+			firstChild.add(nextChild);
+			childCount.add(children);
+			nextChild += children;
+			for (int j = 0; j < children; j++)
+			{
+				nodes.add((ObjectNode)node.get("children").get(j));
+			}
+
+			int sequence = node.has("conceptSequence") ? node.get("conceptSequence").asInt() 
+					: node.has("connectorTypeConceptSequence") ? node.get("connectorTypeConceptSequence").asInt() : -1;
+			if (sequence < 0)
+			{
+				payload.add(-1);
+				continue;
+			}
+			Integer index = conceptIndexes.get(sequence);
+			if (index == null)
+			{
+				index = conceptIndexes.size();
+				conceptIndexes.put(sequence, index);
+				conceptSequence.add(sequence);
+				conceptDescription.add("concept number " + sequence + " (ISAAC)");
+				conceptDefined.add(sequence % 3 == 0);
+				conceptVersion.add(JsonProfileBenchmark.conceptVersion(sequence));
+			}
+			payload.add(index);
+		}
+
+		ObjectNode table = JsonProfileBenchmark.typed(RestLogicGraphTable.class);
+		table.set("semantic", semantic);
+		table.set("payload", payload);
+		table.set("firstChild", firstChild);
+		table.set("childCount", childCount);
+		table.set("conceptSequence", conceptSequence);
+		table.set("conceptDescription", conceptDescription);
+		table.set("conceptDefined", conceptDefined);
+		if (expandVersions)
+		{
+			table.set("conceptVersion", conceptVersion);
+		}
+		return table;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		System.out.println(String.format("%-16s %12s %12s %8s", "expandVersions", "tree", "table", "ratio"));
+		for (boolean expandVersions : new boolean[] {false, true})
+		{
+			int treeSize = serverJson("tree", expandVersions).length;
+			int tableSize = serverJson("table", expandVersions).length;
+			System.out.println(String.format("%-16s %12d %12d %8.2f", expandVersions, treeSize, tableSize, (double)tableSize / treeSize));
+		}
+
+		Options options = new OptionsBuilder()
+				.include(LogicGraphFormatBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
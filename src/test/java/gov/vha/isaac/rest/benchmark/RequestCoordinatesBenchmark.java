@@ -0,0 +1,111 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import gov.vha.isaac.ochre.api.coordinate.PremiseType;
+import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
+import gov.vha.isaac.rest.api.exceptions.RestException;
+import gov.vha.isaac.rest.tokens.CoordinatesToken;
+import gov.vha.isaac.rest.tokens.CoordinatesTokens;
+
+/**
+ * {@link RequestCoordinatesBenchmark}
+ *
+ * Measures the per request cost of the coordinate lookups made by RequestInfo, for a request that reads its coordinates
+ * {@link #coordinateReads} times (a taxonomy expansion reads the stamp and taxonomy coordinates once per child).
+ *
+ * {@link #perCallLookup(Blackhole)} is what RequestInfo used to do - look the serialized token up in CoordinatesTokens, and
+ * build the stated / inferred analog, on every call.  {@link #resolvedOncePerRequest(Blackhole)} is what it does now - resolve
+ * the token and both analogs once, then read fields.
+ *
+ * RequestInfo itself can't be built outside of a running server, so this exercises the same calls directly.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestCoordinatesBenchmark
+{
+	@Param({"1", "100", "5000"})
+	public int coordinateReads;
+
+	private String serializedToken_;
+
+	@Setup
+	public void setup()
+	{
+		CoordinatesToken token = CoordinatesTokens.getOrCreate(Long.MAX_VALUE, 1, (byte)0, new int[0], new byte[] {0}, 2, new int[] {3, 4},
+				new int[] {5, 6}, (byte)PremiseType.STATED.ordinal(), 7, 8, 9, 10);
+		serializedToken_ = token.getSerialized();
+	}
+
+	@Benchmark
+	public void perCallLookup(Blackhole blackhole) throws RestException
+	{
+		for (int i = 0; i < coordinateReads; i++)
+		{
+			TaxonomyCoordinate taxonomyCoordinate = CoordinatesTokens.getOrCreate(serializedToken_).getTaxonomyCoordinate();
+			blackhole.consume(taxonomyCoordinate.getStampCoordinate());
+			blackhole.consume(taxonomyCoordinate.getTaxonomyType() == PremiseType.INFERRED ? taxonomyCoordinate
+					: taxonomyCoordinate.makeAnalog(PremiseType.INFERRED));
+		}
+	}
+
+	@Benchmark
+	public void resolvedOncePerRequest(Blackhole blackhole) throws RestException
+	{
+		TaxonomyCoordinate taxonomyCoordinate = CoordinatesTokens.getOrCreate(serializedToken_).getTaxonomyCoordinate();
+		TaxonomyCoordinate inferred = taxonomyCoordinate.getTaxonomyType() == PremiseType.INFERRED ? taxonomyCoordinate
+				: taxonomyCoordinate.makeAnalog(PremiseType.INFERRED);
+		for (int i = 0; i < coordinateReads; i++)
+		{
+			blackhole.consume(taxonomyCoordinate.getStampCoordinate());
+			blackhole.consume(inferred);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException
+	{
+		Options options = new OptionsBuilder().include(RequestCoordinatesBenchmark.class.getSimpleName()).build();
+		new Runner(options).run();
+	}
+}
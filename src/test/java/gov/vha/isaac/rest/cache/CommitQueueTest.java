@@ -0,0 +1,164 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link CommitQueueTest}
+ *
+ * Unit tests of the ordering, currency and failure handling of {@link CommitQueue}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class CommitQueueTest
+{
+	private static final int THREADS = 8;
+
+	@Test
+	public void testHeldUntilStarted()
+	{
+		List<Runnable> tasks = new ArrayList<>();
+		List<Integer> applied = new ArrayList<>();
+		CommitQueue queue = new CommitQueue("test", task -> tasks.add(task), sememes -> applied.add(sememes[0]), () -> Assert.fail());
+
+		queue.add(new int[] {1});
+		queue.add(new int[] {2});
+		Assert.assertFalse(queue.isCurrent());
+		Assert.assertTrue(tasks.isEmpty());
+
+		queue.start();
+		Assert.assertFalse(queue.isCurrent());
+		Assert.assertEquals(tasks.size(), 1);
+		tasks.remove(0).run();
+		Assert.assertEquals(applied, Arrays.asList(1, 2));
+		Assert.assertTrue(queue.isCurrent());
+
+		// Once started, each commit is scheduled as it arrives, and the queue isn't current until it has been applied
+		queue.add(new int[] {3});
+		Assert.assertFalse(queue.isCurrent());
+		Assert.assertEquals(tasks.size(), 1);
+		tasks.remove(0).run();
+		Assert.assertEquals(applied, Arrays.asList(1, 2, 3));
+		Assert.assertTrue(queue.isCurrent());
+		Assert.assertTrue(tasks.isEmpty());
+	}
+
+	@Test
+	public void testFailure()
+	{
+		List<Runnable> tasks = new ArrayList<>();
+		AtomicInteger failures = new AtomicInteger();
+		CommitQueue queue = new CommitQueue("test", task -> tasks.add(task), sememes -> 
+		{
+			if (sememes[0] == 2)
+			{
+				throw new IllegalStateException("Expected");
+			}
+		}, () -> failures.incrementAndGet());
+
+		queue.start();
+		queue.add(new int[] {1});
+		queue.add(new int[] {2});
+		queue.add(new int[] {3});
+		Assert.assertEquals(tasks.size(), 1);
+		tasks.remove(0).run();
+		Assert.assertEquals(failures.get(), 1);
+		Assert.assertFalse(queue.isCurrent());
+
+		// Nothing more is applied once a commit has failed
+		queue.add(new int[] {4});
+		while (!tasks.isEmpty())
+		{
+			tasks.remove(0).run();
+		}
+		Assert.assertEquals(failures.get(), 1);
+		Assert.assertFalse(queue.isCurrent());
+	}
+
+	@Test
+	public void testConcurrentCommits() throws InterruptedException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try
+		{
+			AtomicInteger applying = new AtomicInteger();
+			AtomicInteger overlaps = new AtomicInteger();
+			AtomicInteger failures = new AtomicInteger();
+			ConcurrentLinkedQueue<Integer> applied = new ConcurrentLinkedQueue<>();
+			CommitQueue queue = new CommitQueue("test", executor, sememes -> 
+			{
+				if (applying.incrementAndGet() != 1)
+				{
+					overlaps.incrementAndGet();
+				}
+				applied.add(sememes[0]);
+				applying.decrementAndGet();
+			}, () -> failures.incrementAndGet());
+			queue.start();
+
+			CountDownLatch done = new CountDownLatch(THREADS);
+			for (int t = 0; t < THREADS; t++)
+			{
+				int thread = t;
+				executor.execute(() ->
+				{
+					for (int i = 0; i < 1000; i++)
+					{
+						queue.add(new int[] {thread * 1000 + i});
+					}
+					done.countDown();
+				});
+			}
+			Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+			for (int wait = 0; !queue.isCurrent(); wait++)
+			{
+				Assert.assertTrue(wait < 3000, "The queue wasn't drained");
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(applied.size(), THREADS * 1000);
+			Assert.assertEquals(overlaps.get(), 0, "Commits were applied concurrently");
+			Assert.assertEquals(failures.get(), 0);
+
+			// The commits of each thread are applied in the order they were queued
+			int[] last = new int[THREADS];
+			Arrays.fill(last, -1);
+			for (int sememe : applied)
+			{
+				Assert.assertTrue(sememe % 1000 > last[sememe / 1000]);
+				last[sememe / 1000] = sememe % 1000;
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
+
+/**
+ * {@link ConcurrentLruCacheTest}
+ *
+ * Unit tests of the eviction, statistics and concurrent behavior of {@link ConcurrentLruCache}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ConcurrentLruCacheTest
+{
+	private static final int THREADS = 8;
+
+	@Test
+	public void testEvictionToTarget()
+	{
+		ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>("test", 10);
+		for (int i = 0; i < 10; i++)
+		{
+			cache.put(i, "v" + i);
+		}
+		Assert.assertEquals(cache.size(), 10);
+
+		// Reading 0 makes it more recent than 1 and 2, which are the ones evicted when the cache goes over its capacity
+		Assert.assertEquals(cache.get(0), "v0");
+		cache.put(10, "v10");
+		Assert.assertEquals(cache.size(), (int)(10 * ConcurrentLruCache.EVICTION_TARGET));
+		Assert.assertNull(cache.get(1));
+		Assert.assertNull(cache.get(2));
+		for (int i : new int[] {0, 3, 4, 5, 6, 7, 8, 9, 10})
+		{
+			Assert.assertEquals(cache.get(i), "v" + i);
+		}
+
+		// Replacing an entry doesn't grow the cache, so doesn't evict
+		Assert.assertEquals(cache.put(3, "w3"), "v3");
+		Assert.assertEquals(cache.size(), 9);
+		Assert.assertEquals(cache.get(3), "w3");
+	}
+
+	@Test
+	public void testConditionalRemove()
+	{
+		ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>("remove", 10);
+		String first = new String("v");
+		String second = new String("v");
+		cache.put(1, first);
+		cache.put(1, second);
+		// Only the value now held is removed - an equal value that it replaced isn't enough
+		Assert.assertFalse(cache.remove(1, first));
+		Assert.assertSame(cache.get(1), second);
+		Assert.assertTrue(cache.remove(1, second));
+		Assert.assertNull(cache.get(1));
+		Assert.assertFalse(cache.remove(1, second));
+	}
+
+	@Test
+	public void testStatistics()
+	{
+		ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>("statistics", 10);
+		for (int i = 0; i < 12; i++)
+		{
+			cache.put(i, "v" + i);
+		}
+		cache.get(11);
+		cache.get(11);
+		cache.get(0);
+		Assert.assertEquals(cache.computeIfAbsent(20, k -> "v" + k), "v20");
+		Assert.assertEquals(cache.computeIfAbsent(20, k -> "unused"), "v20");
+		Assert.assertNull(cache.computeIfAbsent(21, k -> null));
+		Assert.assertEquals(cache.remove(20), "v20");
+
+		RestCacheStatistics statistics = cache.getStatistics();
+		Assert.assertEquals(statistics.name, "statistics");
+		Assert.assertEquals(statistics.maxSize, 10);
+		// The 11th put evicts 0 and 1, the computed value of 20 takes the cache over its capacity again, and 20 was then removed
+		Assert.assertEquals(statistics.evictions, 4);
+		Assert.assertEquals(statistics.size, 8);
+		// 11 twice, and 20 once - 0 was evicted, and the first computeIfAbsent calls for 20 and 21 each missed
+		Assert.assertEquals(statistics.hits, 3);
+		Assert.assertEquals(statistics.misses, 3);
+
+		// Clearing counts as evictions
+		cache.clear();
+		statistics = cache.getStatistics();
+		Assert.assertEquals(statistics.size, 0);
+		Assert.assertEquals(statistics.evictions, 12);
+	}
+
+	@Test
+	public void testConcurrentComputeIfAbsent() throws Exception
+	{
+		ConcurrentLruCache<Integer, Object> cache = new ConcurrentLruCache<>("concurrent", 1000);
+		ConcurrentHashMap<Integer, AtomicInteger> computations = new ConcurrentHashMap<>();
+		List<List<Object>> results = runConcurrently(() ->
+		{
+			List<Object> values = new ArrayList<>();
+			for (int i = 0; i < 500; i++)
+			{
+				values.add(cache.computeIfAbsent(i, k ->
+				{
+					computations.computeIfAbsent(k, key -> new AtomicInteger()).incrementAndGet();
+					return new Object();
+				}));
+			}
+			return values;
+		});
+
+		// Every key was computed exactly once, and every thread saw the same value for it
+		Assert.assertEquals(computations.size(), 500);
+		for (AtomicInteger count : computations.values())
+		{
+			Assert.assertEquals(count.get(), 1);
+		}
+		for (List<Object> values : results)
+		{
+			for (int i = 0; i < 500; i++)
+			{
+				Assert.assertSame(values.get(i), results.get(0).get(i));
+			}
+		}
+		Assert.assertEquals(cache.size(), 500);
+		Assert.assertEquals(cache.getStatistics().evictions, 0);
+	}
+
+	@Test
+	public void testConcurrentEviction() throws Exception
+	{
+		ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>("eviction", 100);
+		AtomicInteger next = new AtomicInteger();
+		runConcurrently(() ->
+		{
+			for (int i = 0; i < 10000; i++)
+			{
+				int key = next.getAndIncrement();
+				cache.put(key, key);
+				cache.get(key);
+			}
+			return null;
+		});
+
+		// Once the writers are done, the cache is back within its capacity, and every entry it dropped was counted
+		Assert.assertTrue(cache.size() <= 100, "Size " + cache.size());
+		Assert.assertEquals(cache.getStatistics().evictions, THREADS * 10000 - cache.size());
+		for (Integer value : cache.values())
+		{
+			Assert.assertEquals(cache.get(value), value);
+		}
+	}
+
+	/**
+	 * Run the task on {@link #THREADS} threads, released at the same time
+	 * @return the result of each thread
+	 */
+	private static <T> List<T> runConcurrently(Callable<T> task) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try
+		{
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<T>> futures = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++)
+			{
+				futures.add(executor.submit(() ->
+				{
+					start.await();
+					return task.call();
+				}));
+			}
+			start.countDown();
+			List<T> results = new ArrayList<>();
+			for (Future<T> future : futures)
+			{
+				results.add(future.get());
+			}
+			return results;
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+}
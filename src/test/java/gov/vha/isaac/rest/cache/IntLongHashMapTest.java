@@ -0,0 +1,155 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link IntLongHashMapTest}
+ *
+ * Unit tests of {@link IntLongHashMap} - in particular, that removals leave every remaining key reachable.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class IntLongHashMapTest
+{
+	private static final long MISSING = Long.MIN_VALUE;
+
+	@Test
+	public void testPutGetRemove()
+	{
+		IntLongHashMap map = new IntLongHashMap(4);
+		Assert.assertEquals(map.get(1, MISSING), MISSING);
+		map.put(1, 10);
+		map.put(-1, -10);
+		map.put(Integer.MAX_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(map.size(), 3);
+		Assert.assertEquals(map.get(1, MISSING), 10);
+		Assert.assertEquals(map.get(-1, MISSING), -10);
+		Assert.assertEquals(map.get(Integer.MAX_VALUE, MISSING), Long.MAX_VALUE);
+
+		// Replacing doesn't change the size
+		map.put(1, 11);
+		Assert.assertEquals(map.size(), 3);
+		Assert.assertEquals(map.get(1, MISSING), 11);
+
+		map.remove(1);
+		map.remove(1);
+		map.remove(2);
+		Assert.assertEquals(map.size(), 2);
+		Assert.assertEquals(map.get(1, MISSING), MISSING);
+		Assert.assertEquals(map.get(-1, MISSING), -10);
+
+		map.clear();
+		Assert.assertEquals(map.size(), 0);
+		Assert.assertEquals(map.get(-1, MISSING), MISSING);
+	}
+
+	@Test
+	public void testZeroKey()
+	{
+		// 0 marks the free slots of the table, so is held on the side
+		IntLongHashMap map = new IntLongHashMap(4);
+		Assert.assertEquals(map.get(0, MISSING), MISSING);
+		map.put(0, 5);
+		map.put(0, 6);
+		Assert.assertEquals(map.size(), 1);
+		Assert.assertEquals(map.get(0, MISSING), 6);
+		map.remove(0);
+		map.remove(0);
+		Assert.assertEquals(map.size(), 0);
+		Assert.assertEquals(map.get(0, MISSING), MISSING);
+	}
+
+	@Test
+	public void testGrowth()
+	{
+		IntLongHashMap map = new IntLongHashMap(1);
+		for (int i = 1; i <= 100000; i++)
+		{
+			map.put(i, i * 3L);
+		}
+		Assert.assertEquals(map.size(), 100000);
+		for (int i = 1; i <= 100000; i++)
+		{
+			Assert.assertEquals(map.get(i, MISSING), i * 3L);
+		}
+		Assert.assertEquals(map.get(100001, MISSING), MISSING);
+	}
+
+	/**
+	 * Fill a small table with long probe runs, which wrap around the end of the table, and remove the keys in a random order,
+	 * checking after each removal that the keys which remain are all still found - which they only are if the backward shift
+	 * moves each displaced entry of the run into the gap, and leaves in place those which are already at or after their home slot.
+	 */
+	@Test
+	public void testRemoveBackwardShift()
+	{
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++)
+		{
+			// Sized for 16 entries, so a 32 slot table - with 16 keys, the runs are long, and wrap
+			IntLongHashMap map = new IntLongHashMap(16);
+			Map<Integer, Long> expected = new HashMap<>();
+			while (expected.size() < 16)
+			{
+				int key = random.nextInt(1000) - 500;
+				map.put(key, key * 7L);
+				expected.put(key, key * 7L);
+			}
+			check(map, expected);
+
+			List<Integer> keys = new ArrayList<>(expected.keySet());
+			while (!keys.isEmpty())
+			{
+				int key = keys.remove(random.nextInt(keys.size()));
+				map.remove(key);
+				expected.remove(key);
+				check(map, expected);
+				Assert.assertEquals(map.get(key, MISSING), MISSING);
+
+				// Interleave some re-insertions, so that the slots freed by removals are reused
+				if (random.nextInt(4) == 0)
+				{
+					map.put(key, key * 11L);
+					expected.put(key, key * 11L);
+					keys.add(key);
+					check(map, expected);
+				}
+			}
+			Assert.assertEquals(map.size(), 0);
+		}
+	}
+
+	private static void check(IntLongHashMap map, Map<Integer, Long> expected)
+	{
+		Assert.assertEquals(map.size(), expected.size());
+		for (Map.Entry<Integer, Long> entry : expected.entrySet())
+		{
+			Assert.assertEquals(map.get(entry.getKey(), MISSING), entry.getValue().longValue(), "Key " + entry.getKey());
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * {@link LongIntHashMapTest}
+ *
+ * Unit tests of {@link LongIntHashMap}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class LongIntHashMapTest
+{
+	private static final int MISSING = Integer.MIN_VALUE;
+
+	@Test
+	public void testPutGet()
+	{
+		LongIntHashMap map = new LongIntHashMap(4);
+		Assert.assertEquals(map.get(1, MISSING), MISSING);
+		map.put(1, 10);
+		map.put(-1, -10);
+		map.put(Long.MAX_VALUE, Integer.MAX_VALUE);
+		// Keys which only differ in their high bits - as ids of different namespaces do
+		map.put(1L << 40, 40);
+		map.put(1L << 50, 50);
+		Assert.assertEquals(map.size(), 5);
+		Assert.assertEquals(map.get(1, MISSING), 10);
+		Assert.assertEquals(map.get(-1, MISSING), -10);
+		Assert.assertEquals(map.get(Long.MAX_VALUE, MISSING), Integer.MAX_VALUE);
+		Assert.assertEquals(map.get(1L << 40, MISSING), 40);
+		Assert.assertEquals(map.get(1L << 50, MISSING), 50);
+
+		map.put(1, 11);
+		Assert.assertEquals(map.size(), 5);
+		Assert.assertEquals(map.get(1, MISSING), 11);
+
+		map.clear();
+		Assert.assertEquals(map.size(), 0);
+		Assert.assertEquals(map.get(1, MISSING), MISSING);
+	}
+
+	@Test
+	public void testZeroKey()
+	{
+		LongIntHashMap map = new LongIntHashMap(4);
+		Assert.assertEquals(map.get(0, MISSING), MISSING);
+		map.put(0, 5);
+		map.put(0, 6);
+		Assert.assertEquals(map.size(), 1);
+		Assert.assertEquals(map.get(0, MISSING), 6);
+		map.clear();
+		Assert.assertEquals(map.get(0, MISSING), MISSING);
+	}
+
+	@Test
+	public void testGrowth()
+	{
+		// SCTIDs - large, and sparse, with a check digit and partition in the low digits
+		Random random = new Random(7);
+		Map<Long, Integer> expected = new HashMap<>();
+		LongIntHashMap map = new LongIntHashMap(1);
+		for (int i = 0; i < 100000; i++)
+		{
+			long key = (random.nextInt(100000000) * 1000L) + 10 + random.nextInt(10);
+			map.put(key, i);
+			expected.put(key, i);
+		}
+		Assert.assertEquals(map.size(), expected.size());
+		for (Map.Entry<Long, Integer> entry : expected.entrySet())
+		{
+			Assert.assertEquals(map.get(entry.getKey(), MISSING), entry.getValue().intValue());
+		}
+		Assert.assertEquals(map.get(5, MISSING), MISSING);
+	}
+}
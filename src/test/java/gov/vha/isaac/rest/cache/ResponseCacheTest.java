@@ -0,0 +1,114 @@
+/**
+ * Copyright Notice
+ *
+ * This is a work of the U.S. Government and is not subject to copyright
+ * protection in the United States. Foreign copyrights may apply.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rest.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import gov.vha.isaac.rest.api1.data.systeminfo.RestResponseCacheStatistics;
+
+/**
+ * {@link ResponseCacheTest}
+ *
+ * Unit tests of the TinyLFU admission of {@link ResponseCache}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ResponseCacheTest
+{
+	private static final int MB = 1024 * 1024;
+	private static final String TYPE = "application/json";
+
+	private final byte[] body_ = new byte[MB];
+
+	/**
+	 * Look up the request, as the response filter does before building the response, and cache the body if it is a miss
+	 */
+	private boolean request(ResponseCache cache, ResponseCache.Key key)
+	{
+		return cache.get(key) == null && cache.put(key, TYPE, body_, MB);
+	}
+
+	private static ResponseCache.Key key(String request)
+	{
+		return new ResponseCache.Key(CommitWatcher.getGeneration(), request);
+	}
+
+	@Test
+	public void testAdmission()
+	{
+		ResponseCache cache = new ResponseCache(8L * MB, MB, false);
+		for (int i = 0; i < 8; i++)
+		{
+			Assert.assertTrue(request(cache, key("r" + i)));
+		}
+		RestResponseCacheStatistics statistics = cache.getStatistics();
+		Assert.assertEquals(statistics.bytes, 8L * MB);
+		Assert.assertEquals(statistics.rejections, 0);
+
+		// A request made no more often than the least recently used one doesn't displace it
+		Assert.assertFalse(request(cache, key("oneOff")));
+		Assert.assertEquals(cache.getStatistics().rejections, 1);
+		Assert.assertEquals(cache.getStatistics().evictions, 0);
+
+		// A more frequent one does
+		cache.get(key("popular"));
+		cache.get(key("popular"));
+		Assert.assertTrue(request(cache, key("popular")));
+		statistics = cache.getStatistics();
+		Assert.assertEquals(statistics.evictions, 1);
+		Assert.assertEquals(statistics.bytes, 8L * MB);
+		Assert.assertNotNull(cache.get(key("popular")));
+
+		// Reading an entry makes it recently used, so the next victim is the one after it
+		Assert.assertNotNull(cache.get(key("r1")));
+		cache.get(key("popular2"));
+		cache.get(key("popular2"));
+		Assert.assertTrue(request(cache, key("popular2")));
+		Assert.assertNotNull(cache.get(key("r1")));
+		Assert.assertNull(cache.get(key("r2")));
+		Assert.assertNull(cache.get(key("r0")));
+		Assert.assertEquals(cache.getStatistics().evictions, 2);
+	}
+
+	@Test
+	public void testFrequencySurvivesGenerations()
+	{
+		ResponseCache cache = new ResponseCache(2L * MB, MB, false);
+		Assert.assertTrue(request(cache, key("a")));
+		Assert.assertTrue(request(cache, key("b")));
+
+		// The request was made under an earlier generation, but its frequency is recorded for the request alone
+		ResponseCache.Key earlier = new ResponseCache.Key(CommitWatcher.getGeneration() - 1, "c");
+		cache.get(earlier);
+		cache.get(earlier);
+		Assert.assertTrue(request(cache, key("c")));
+		Assert.assertNull(cache.get(key("a")));
+		Assert.assertNotNull(cache.get(key("b")));
+	}
+
+	@Test
+	public void testSize()
+	{
+		ResponseCache cache = new ResponseCache(2L * MB, MB, false);
+		Assert.assertFalse(cache.put(key("large"), TYPE, new byte[MB + 1], MB + 1));
+		Assert.assertEquals(cache.getStatistics().rejections, 1);
+		Assert.assertFalse(new ResponseCache(0, MB, false).put(key("disabled"), TYPE, body_, MB));
+	}
+}
@@ -20,20 +20,35 @@ package gov.vha.isaac.rest.testng;
 
 import static gov.vha.isaac.ochre.api.constants.Constants.DATA_STORE_ROOT_LOCATION_PROPERTY;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -53,33 +68,59 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.vha.isaac.MetaData;
 import gov.vha.isaac.ochre.api.Get;
 import gov.vha.isaac.ochre.api.State;
+import gov.vha.isaac.ochre.api.chronicle.LatestVersion;
 import gov.vha.isaac.ochre.api.chronicle.ObjectChronologyType;
 import gov.vha.isaac.ochre.api.commit.CommitService;
+import gov.vha.isaac.ochre.api.component.concept.ConceptChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeChronology;
+import gov.vha.isaac.ochre.api.component.sememe.SememeType;
+import gov.vha.isaac.ochre.api.component.sememe.version.DescriptionSememe;
+import gov.vha.isaac.ochre.api.component.sememe.version.LogicGraphSememe;
 import gov.vha.isaac.ochre.api.constants.DynamicSememeConstants;
+import gov.vha.isaac.ochre.api.coordinate.LanguageCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.PremiseType;
+import gov.vha.isaac.ochre.api.coordinate.StampCoordinate;
 import gov.vha.isaac.ochre.api.coordinate.StampPrecedence;
 import gov.vha.isaac.ochre.api.coordinate.TaxonomyCoordinate;
 import gov.vha.isaac.ochre.api.externalizable.BinaryDataReaderService;
 import gov.vha.isaac.ochre.api.index.IndexServiceBI;
 import gov.vha.isaac.ochre.api.logic.NodeSemantic;
+import gov.vha.isaac.ochre.api.tree.Tree;
+import gov.vha.isaac.ochre.api.util.PasswordHasher;
+import gov.vha.isaac.ochre.impl.utility.Frills;
+import gov.vha.isaac.ochre.model.concept.ConceptVersionImpl;
 import gov.vha.isaac.ochre.model.configuration.LanguageCoordinates;
 import gov.vha.isaac.ochre.model.configuration.LogicCoordinates;
 import gov.vha.isaac.ochre.model.configuration.StampCoordinates;
 import gov.vha.isaac.ochre.model.configuration.TaxonomyCoordinates;
+import gov.vha.isaac.ochre.model.sememe.version.SememeVersionImpl;
 import gov.vha.isaac.rest.ApplicationConfig;
 import gov.vha.isaac.rest.ExpandUtil;
 import gov.vha.isaac.rest.LocalJettyRunner;
+import gov.vha.isaac.rest.StreamingUtil;
+import gov.vha.isaac.rest.api.exceptions.RestException;
 import gov.vha.isaac.rest.api1.RestPaths;
 import gov.vha.isaac.rest.api1.data.RestCoordinatesToken;
 import gov.vha.isaac.rest.api1.data.RestSystemInfo;
 import gov.vha.isaac.rest.api1.data.coordinate.RestTaxonomyCoordinate;
 import gov.vha.isaac.rest.api1.data.enumerations.RestObjectChronologyType;
+import gov.vha.isaac.rest.api1.data.logic.RestConceptNode;
+import gov.vha.isaac.rest.api1.data.logic.RestLogicGraphDefinition;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeLogicGraphVersion;
 import gov.vha.isaac.rest.api1.data.sememe.RestSememeVersions;
 import gov.vha.isaac.rest.api1.data.systeminfo.RestIdentifiedObjectsResult;
+import gov.vha.isaac.rest.cache.AssemblageMembershipIndex;
+import gov.vha.isaac.rest.cache.DefinedConceptIndex;
+import gov.vha.isaac.rest.cache.DescriptionResolver;
+import gov.vha.isaac.rest.cache.IdentifierIndex;
+import gov.vha.isaac.rest.cache.ResponseCache;
+import gov.vha.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+import gov.vha.isaac.rest.jerseyConfig.MySmileProvider;
+import gov.vha.isaac.rest.session.RequestInfo;
 import gov.vha.isaac.rest.session.RequestParameters;
 import gov.vha.isaac.rest.tokens.CoordinatesToken;
 import gov.vha.isaac.rest.tokens.CoordinatesTokens;
+import gov.vha.isaac.rest.tokens.CursorToken;
 
 /**
  * {@link RestTest}
@@ -96,6 +137,7 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 	private final static String logicCoordinateRequestPath = RestPaths.coordinateAPIsPathComponent + RestPaths.logicCoordinatePathComponent;
 	private final static String descriptionSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.descriptionsComponent;
 	private final static String taxonomyRequestPath = RestPaths.taxonomyAPIsPathComponent + RestPaths.versionComponent;
+	private final static String taxonomyChildrenRequestPath = RestPaths.taxonomyAPIsPathComponent + RestPaths.taxonomyChildrenComponent;
 
 	private final static String sememeSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.sememesComponent;
 	private final static String prefixSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.prefixComponent;
@@ -105,6 +147,8 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 
 	private final static String conceptDescriptionsRequestPath = RestPaths.conceptAPIsPathComponent +  RestPaths.descriptionsComponent;
 	private final static String conceptVersionRequestPath = RestPaths.conceptAPIsPathComponent +  RestPaths.versionComponent;
+	private final static String conceptVersionsBatchRequestPath = RestPaths.conceptAPIsPathComponent +  RestPaths.versionsComponent + RestPaths.batchComponent;
+	private final static String conceptChronologyBatchRequestPath = RestPaths.conceptAPIsPathComponent +  RestPaths.chronologyComponent + RestPaths.batchComponent;
 
 	private static final String coordinatesTokenRequestPath = RestPaths.coordinateAPIsPathComponent + RestPaths.coordinatesTokenComponent;
 
@@ -146,6 +190,8 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 			});
 
 			Get.startIndexTask((Class<IndexServiceBI>[])null).get();
+			//The import doesn't commit, so the identifier index won't have seen the test data
+			IdentifierIndex.rebuild();
 		}
 		catch (FileNotFoundException | InterruptedException | ExecutionException e)
 		{
@@ -256,6 +302,54 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 		}
 	}
 
+	/**
+	 * Pages through a large assemblage, deepest page first (so that the first request records the checkpoints of the skip index, 
+	 * and the rest start from them) and then with a page size that doesn't align with the checkpoints, and checks that the pages
+	 * add up to the complete, single page result.
+	 */
+	@Test
+	public void testAssemblageSkipIndex() throws IOException
+	{
+		final String url = sememeByAssemblageRequestPath + MetaData.ENGLISH_DESCRIPTION_ASSEMBLAGE.getPrimordialUuid();
+		ObjectMapper mapper = new ObjectMapper();
+
+		List<Integer> all = readSememeSequences(mapper, url, 1, 100000);
+		// More than two checkpoints (of 128 members) worth
+		Assert.assertTrue(all.size() > 256, "Too few members to test with: " + all.size());
+
+		final int pageSize = 50;
+		int pages = (all.size() + pageSize - 1) / pageSize;
+		for (int pageNum = pages + 1; pageNum >= 1; pageNum--)
+		{
+			Assert.assertEquals(readSememeSequences(mapper, url, pageNum, pageSize), 
+					all.subList(Math.min(all.size(), (pageNum - 1) * pageSize), Math.min(all.size(), pageNum * pageSize)), "page " + pageNum);
+		}
+
+		final int unalignedPageSize = 37;
+		pages = (all.size() + unalignedPageSize - 1) / unalignedPageSize;
+		List<Integer> paged = new ArrayList<>();
+		for (int pageNum = 1; pageNum <= pages; pageNum++)
+		{
+			paged.addAll(readSememeSequences(mapper, url, pageNum, unalignedPageSize));
+		}
+		Assert.assertEquals(paged, all);
+	}
+
+	private List<Integer> readSememeSequences(ObjectMapper mapper, String url, int pageNum, int maxPageSize) throws IOException
+	{
+		JsonNode page = mapper.readTree(checkFail(target(url)
+				.queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable)
+				.queryParam(RequestParameters.pageNum, pageNum)
+				.queryParam(RequestParameters.maxPageSize, maxPageSize)
+				.request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		List<Integer> sememeSequences = new ArrayList<>();
+		for (JsonNode result : page.get("results"))
+		{
+			sememeSequences.add(result.get("sememeChronology").get("sememeSequence").asInt());
+		}
+		return sememeSequences;
+	}
+
 	/**
 	 * This test validates that the XML serializers, description search API and pagination are working correctly 
 	 */
@@ -392,6 +486,68 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 
 		checkFail(response);
 	}
+	/**
+	 * This test validates that the batch concept APIs return one element per requested id, in order, with the ids that 
+	 * can't be resolved reported inline.
+	 */
+	@Test
+	public void testConceptBatchReturn() throws IOException
+	{
+		String ids = "[\"" + MetaData.ISAAC_ROOT.getPrimordialUuid() + "\", \"" + MetaData.ISAAC_ROOT.getConceptSequence() + "\", \"notAnId\"]";
+
+		for (String url : new String[] {conceptVersionsBatchRequestPath, conceptChronologyBatchRequestPath})
+		{
+			Response response = target(url).request()
+					.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).post(Entity.entity(ids, MediaType.APPLICATION_JSON));
+
+			JsonNode root = new ObjectMapper().readTree(checkFail(response).readEntity(String.class));
+			Assert.assertEquals(root.size(), 3);
+			Assert.assertEquals(root.get(0).get("id").asText(), MetaData.ISAAC_ROOT.getPrimordialUuid().toString());
+			Assert.assertTrue(hasValue(root.get(0), "result"));
+			Assert.assertFalse(hasValue(root.get(0), "error"));
+			Assert.assertTrue(hasValue(root.get(1), "result"));
+			Assert.assertEquals(root.get(2).get("id").asText(), "notAnId");
+			Assert.assertFalse(hasValue(root.get(2), "result"));
+			Assert.assertTrue(hasValue(root.get(2), "error"));
+		}
+	}
+
+	/**
+	 * This test validates that the batch id translation API accepts one id per line, and returns one line per id when 
+	 * newline delimited JSON is requested.
+	 */
+	@Test
+	public void testIdBatchReturn() throws IOException
+	{
+		final String url = RestPaths.idAPIsPathComponent + RestPaths.idTranslateComponent + RestPaths.batchComponent;
+		String ids = MetaData.ISAAC_ROOT.getPrimordialUuid() + "\n\n" + "notAnId" + "\n";
+
+		Response response = target(url).queryParam("outputType", "conceptSequence").request()
+				.header(Header.Accept.toString(), StreamingUtil.NDJSON).post(Entity.entity(ids, MediaType.TEXT_PLAIN));
+
+		String[] lines = checkFail(response).readEntity(String.class).split("\n");
+		Assert.assertEquals(lines.length, 2);
+		JsonNode first = new ObjectMapper().readTree(lines[0]);
+		Assert.assertEquals(first.get("result").get("value").asText(), MetaData.ISAAC_ROOT.getConceptSequence() + "");
+		Assert.assertTrue(hasValue(new ObjectMapper().readTree(lines[1]), "error"));
+
+		// A body larger than the buffers, with quoted ids and CRLF line endings, comes back line for line
+		StringBuilder many = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+		{
+			many.append(i % 2 == 0 ? "\"" + MetaData.ISAAC_ROOT.getPrimordialUuid() + "\"" : i + "").append("\r\n");
+		}
+		response = target(url).queryParam("inputType", "conceptSequence").queryParam("outputType", "uuid").request()
+				.header(Header.Accept.toString(), StreamingUtil.NDJSON).post(Entity.entity(many.toString(), StreamingUtil.NDJSON));
+		lines = checkFail(response).readEntity(String.class).split("\n");
+		Assert.assertEquals(lines.length, 5000);
+		Assert.assertEquals(new ObjectMapper().readTree(lines[4999]).get("id").asText(), "4999");
+	}
+
+	private static boolean hasValue(JsonNode node, String field)
+	{
+		return node.get(field) != null && !node.get(field).isNull();
+	}
 	/**
 	 * This test validates that both the JSON and XML serializers are working correctly with returns that contain
 	 * LogicGraph data.
@@ -472,6 +628,102 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 		}
 	}
 
+	/**
+	 * Checks that the table format of a logic graph carries the same nodes, in breadth first order, and the same concepts, as 
+	 * the tree format - and that the XML serializer handles it.
+	 */
+	@Test
+	public void testLogicGraphTable() throws IOException
+	{
+		final String url = RestPaths.logicGraphAPIsPathComponent + RestPaths.versionComponent +
+				DynamicSememeConstants.get().DYNAMIC_SEMEME_EXTENSION_DEFINITION.getPrimordialUuid().toString();
+		ObjectMapper mapper = new ObjectMapper();
+
+		JsonNode tree = mapper.readTree(checkFail(target(url).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get())
+				.readEntity(String.class));
+		JsonNode table = mapper.readTree(checkFail(target(url, buildParams(param(RequestParameters.format, RequestParameters.formatTable)))
+				.request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Assert.assertFalse(hasValue(table, "rootLogicNode"));
+		Assert.assertEquals(table.get("referencedConceptDescription").asText(), tree.get("referencedConceptDescription").asText());
+		JsonNode logicGraphTable = table.get("logicGraphTable");
+
+		// Walk the tree breadth first, which is the order of the nodes of the table
+		List<JsonNode> nodes = new ArrayList<>();
+		nodes.add(tree.get("rootLogicNode"));
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			JsonNode node = nodes.get(i);
+			Assert.assertEquals(logicGraphTable.get("semantic").get(i).asInt(), node.get("nodeSemantic").get("enumId").asInt());
+			int childCount = hasValue(node, "children") ? node.get("children").size() : 0;
+			Assert.assertEquals(logicGraphTable.get("childCount").get(i).asInt(), childCount);
+			if (childCount > 0)
+			{
+				Assert.assertEquals(logicGraphTable.get("firstChild").get(i).asInt(), nodes.size());
+				for (JsonNode child : node.get("children"))
+				{
+					nodes.add(child);
+				}
+			}
+			if (hasValue(node, "conceptSequence"))
+			{
+				int conceptIndex = logicGraphTable.get("payload").get(i).asInt();
+				Assert.assertEquals(logicGraphTable.get("conceptSequence").get(conceptIndex).asInt(), node.get("conceptSequence").asInt());
+				Assert.assertEquals(logicGraphTable.get("conceptDescription").get(conceptIndex).asText(), node.get("conceptDescription").asText());
+				Assert.assertEquals(logicGraphTable.get("conceptDefined").get(conceptIndex).asBoolean(), node.get("isConceptDefined").asBoolean());
+			}
+		}
+		Assert.assertEquals(logicGraphTable.get("semantic").size(), nodes.size());
+		Assert.assertEquals(NodeSemantic.values()[logicGraphTable.get("semantic").get(0).asInt()], NodeSemantic.DEFINITION_ROOT);
+
+		checkFail(target(url, buildParams(param(RequestParameters.format, RequestParameters.formatTable))).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_XML).get());
+
+		Response response = target(url, buildParams(param(RequestParameters.format, "graph"))).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get();
+		Assert.assertTrue(response.getStatus() != Status.OK.getStatusCode());
+	}
+
+	/**
+	 * Exports the stated logic graphs, as newline delimited JSON and as a JSON array, and checks that they are ordered by concept 
+	 * sequence, and that the ranges of a split export add up to the whole export.
+	 */
+	@Test
+	public void testLogicGraphExport() throws IOException
+	{
+		final String url = RestPaths.logicGraphAPIsPathComponent + RestPaths.exportComponent;
+		ObjectMapper mapper = new ObjectMapper();
+
+		String ndjson = checkFail(target(url).request().header(Header.Accept.toString(), StreamingUtil.NDJSON).get()).readEntity(String.class);
+		List<Integer> exported = new ArrayList<>();
+		for (String line : ndjson.split("\n"))
+		{
+			JsonNode definition = mapper.readTree(line);
+			Assert.assertEquals(definition.get("@class").asText(), RestLogicGraphDefinition.class.getName());
+			Assert.assertTrue(hasValue(definition.get("logicGraphTable"), "semantic"));
+			Assert.assertTrue(exported.isEmpty() || exported.get(exported.size() - 1) <= definition.get("conceptSequence").asInt());
+			exported.add(definition.get("conceptSequence").asInt());
+		}
+		Assert.assertTrue(exported.size() > 1);
+		Assert.assertTrue(exported.contains(DynamicSememeConstants.get().DYNAMIC_SEMEME_EXTENSION_DEFINITION.getConceptSequence()));
+
+		// Split at a concept sequence in the middle of the export - the two ranges should make up the whole
+		int split = exported.get(exported.size() / 2);
+		JsonNode first = mapper.readTree(checkFail(target(url, buildParams(param(RequestParameters.toSequence, split))).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		JsonNode rest = mapper.readTree(checkFail(target(url, buildParams(param(RequestParameters.fromSequence, split))).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Assert.assertEquals(first.size() + rest.size(), exported.size());
+		for (int i = 0; i < exported.size(); i++)
+		{
+			JsonNode definition = i < first.size() ? first.get(i) : rest.get(i - first.size());
+			Assert.assertEquals(definition.get("conceptSequence").asInt(), exported.get(i).intValue());
+		}
+
+		Response response = target(url, buildParams(param(RequestParameters.fromSequence, split), param(RequestParameters.toSequence, split - 1)))
+				.request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get();
+		Assert.assertTrue(response.getStatus() != Status.OK.getStatusCode());
+	}
+
 	/**
 	 * This test validates that both the JSON and XML serializers are working correctly with returns that contain
 	 * taxonomy data.
@@ -493,6 +745,374 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 	}
 
 
+	/**
+	 * This test validates that the compact JSON profile - selected by query parameter, or by the Accept header - carries the 
+	 * same data as the default profile, without nulls, indenting or fully qualified type ids.
+	 */
+	@Test
+	public void testCompactJsonProfile() throws IOException
+	{
+		String full = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+		String compact = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1")
+				.queryParam(RequestParameters.profile, RequestParameters.profileCompact).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+		String compactByHeader = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON + ";" + RequestParameters.profile + "=" + RequestParameters.profileCompact)
+				.get()).readEntity(String.class);
+
+		Assert.assertTrue(compact.length() < full.length());
+		Assert.assertEquals(compactByHeader, compact);
+		Assert.assertFalse(compact.contains("\n"));
+		Assert.assertFalse(compact.contains(":null"));
+		Assert.assertFalse(compact.contains("gov.vha.isaac"));
+
+		JsonNode fullRoot = new ObjectMapper().readTree(full);
+		JsonNode compactRoot = new ObjectMapper().readTree(compact);
+		Assert.assertEquals(compactRoot.get("@class").asText(), "RestConceptVersion");
+		Assert.assertEquals(compactRoot.get("children").size(), fullRoot.get("children").size());
+		Assert.assertEquals(compactRoot.get("conChronology").get("description"), fullRoot.get("conChronology").get("description"));
+	}
+
+	/**
+	 * This test validates that the Smile encoding carries exactly the same data, and type ids, as the JSON encoding.
+	 */
+	@Test
+	public void testSmileEncoding() throws IOException
+	{
+		String json = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+		Response response = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MySmileProvider.SMILE).get());
+		Assert.assertTrue(MySmileProvider.SMILE_TYPE.isCompatible(response.getMediaType()));
+		byte[] smile = response.readEntity(byte[].class);
+
+		Assert.assertTrue(smile.length < json.length());
+		Assert.assertEquals(MyJacksonMapperConfig.getSmileObjectMapper().readTree(smile), new ObjectMapper().readTree(json));
+	}
+
+	/**
+	 * This test validates that responses are compressed with the encoding accepted by the client, and decompress to the
+	 * uncompressed response - including the cached bodies of immutable responses.
+	 */
+	@Test
+	public void testCompression() throws IOException
+	{
+		String plain = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+		Assert.assertTrue(plain.length() > 1024);
+
+		Response gzip = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+				.header(Header.AcceptEncoding.toString(), "gzip, deflate").get());
+		Assert.assertEquals(gzip.getHeaderString(Header.ContentEncoding.toString()), "gzip");
+		byte[] gzipped = gzip.readEntity(byte[].class);
+		Assert.assertTrue(gzipped.length < plain.length());
+		Assert.assertEquals(new ObjectMapper().readTree(new GZIPInputStream(new ByteArrayInputStream(gzipped))), 
+				new ObjectMapper().readTree(plain));
+
+		Response deflate = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+				.header(Header.AcceptEncoding.toString(), "gzip;q=0.5, deflate").get());
+		Assert.assertEquals(deflate.getHeaderString(Header.ContentEncoding.toString()), "deflate");
+		Assert.assertEquals(new ObjectMapper().readTree(new InflaterInputStream(new ByteArrayInputStream(deflate.readEntity(byte[].class)))), 
+				new ObjectMapper().readTree(plain));
+
+		Response identity = checkFail(target(taxonomyRequestPath).queryParam("childDepth", "1").request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+				.header(Header.AcceptEncoding.toString(), "identity").get());
+		Assert.assertNull(identity.getHeaderString(Header.ContentEncoding.toString()));
+		Assert.assertEquals(identity.readEntity(String.class), plain);
+
+		// Immutable responses are served from the cache, once compressed
+		String systemInfoPath = RestPaths.systemAPIsPathComponent + RestPaths.systemInfoComponent;
+		String systemInfo = checkFail(target(systemInfoPath).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get())
+				.readEntity(String.class);
+		for (int i = 0; i < 2; i++)
+		{
+			Response response = checkFail(target(systemInfoPath).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+					.header(Header.AcceptEncoding.toString(), "gzip").get());
+			byte[] body = response.readEntity(byte[].class);
+			Assert.assertEquals(new ObjectMapper().readTree("gzip".equals(response.getHeaderString(Header.ContentEncoding.toString())) 
+					? new GZIPInputStream(new ByteArrayInputStream(body)) : new ByteArrayInputStream(body)), new ObjectMapper().readTree(systemInfo));
+		}
+	}
+
+	/**
+	 * This test validates that concept reads carry an ETag, that a conditional request with the current tag is answered with 304, 
+	 * and that the tag depends on the parameters of the request.
+	 */
+	@Test
+	public void testConditionalGet()
+	{
+		String path = conceptVersionRequestPath + MetaData.ISAAC_ROOT.getPrimordialUuid();
+		Response first = checkFail(target(path).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get());
+		EntityTag entityTag = first.getEntityTag();
+		Assert.assertNotNull(entityTag);
+		Assert.assertFalse(entityTag.isWeak());
+		String body = first.readEntity(String.class);
+
+		Response notModified = target(path).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+				.header(Header.IfNoneMatch.toString(), entityTag.toString()).get();
+		Assert.assertEquals(notModified.getStatus(), Status.NOT_MODIFIED.getStatusCode());
+		Assert.assertEquals(notModified.getEntityTag(), entityTag);
+		Assert.assertFalse(notModified.hasEntity());
+
+		Response stale = checkFail(target(path).request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON)
+				.header(Header.IfNoneMatch.toString(), "\"stale\"").get());
+		Assert.assertEquals(stale.getEntityTag(), entityTag);
+		Assert.assertEquals(stale.readEntity(String.class), body);
+
+		Response expanded = checkFail(target(path).queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).header(Header.IfNoneMatch.toString(), entityTag.toString()).get());
+		Assert.assertNotEquals(expanded.getEntityTag(), entityTag);
+	}
+
+	/**
+	 * This test validates that a repeated read is answered from the response cache, with the same body as the original response.
+	 */
+	@Test
+	public void testResponseCache() throws IOException
+	{
+		String statisticsPath = RestPaths.systemAPIsPathComponent + RestPaths.responseCacheStatisticsComponent;
+		String path = conceptVersionRequestPath + MetaData.ISAAC_ROOT.getPrimordialUuid();
+
+		String first = checkFail(target(path).queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+		long hits = new ObjectMapper().readTree(checkFail(target(statisticsPath).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class)).get("hits").asLong();
+
+		Response second = checkFail(target(path).queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get());
+		Assert.assertTrue(MediaType.APPLICATION_JSON_TYPE.isCompatible(second.getMediaType()));
+		Assert.assertEquals(second.readEntity(String.class), first);
+
+		JsonNode statistics = new ObjectMapper().readTree(checkFail(target(statisticsPath).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Assert.assertTrue(statistics.get("hits").asLong() > hits);
+		Assert.assertTrue(statistics.get("bytes").asLong() > 0);
+	}
+
+	/**
+	 * This test validates that paging through the children of a concept with a cursor, or by page number, returns the same 
+	 * children, in the same order, as a single large page.
+	 */
+	@Test
+	public void testTaxonomyChildrenPaging() throws IOException
+	{
+		JsonNode all = new ObjectMapper().readTree(checkFail(target(taxonomyChildrenRequestPath)
+				.queryParam(RequestParameters.maxPageSize, 1000).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		List<Integer> expected = new ArrayList<>();
+		all.get("results").forEach(child -> expected.add(child.get("conChronology").get("conceptSequence").asInt()));
+		Assert.assertTrue(expected.size() > 1);
+
+		List<Integer> paged = new ArrayList<>();
+		String cursor = null;
+		do
+		{
+			WebTarget target = target(taxonomyChildrenRequestPath).queryParam(RequestParameters.maxPageSize, 1);
+			if (cursor != null)
+			{
+				target = target.queryParam(RequestParameters.cursor, cursor);
+			}
+			JsonNode page = new ObjectMapper().readTree(checkFail(target.request()
+					.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+			page.get("results").forEach(child -> paged.add(child.get("conChronology").get("conceptSequence").asInt()));
+			JsonNode nextCursor = page.get("paginationData").get("nextCursor");
+			cursor = nextCursor == null || nextCursor.isNull() ? null : nextCursor.asText();
+			if (cursor != null)
+			{
+				Assert.assertTrue(page.get("paginationData").get("nextUrl").asText()
+						.endsWith("&" + RequestParameters.cursor + "=" + URLEncoder.encode(cursor, "UTF-8")));
+			}
+		}
+		while (cursor != null && paged.size() <= expected.size());
+
+		Assert.assertEquals(paged, expected);
+
+		// Page numbers count only the children which are returned, so the pages neither overlap nor skip any
+		List<Integer> numbered = new ArrayList<>();
+		for (int pageNum = 1; pageNum <= expected.size() + 1; pageNum++)
+		{
+			JsonNode page = new ObjectMapper().readTree(checkFail(target(taxonomyChildrenRequestPath)
+					.queryParam(RequestParameters.maxPageSize, 2).queryParam(RequestParameters.pageNum, pageNum).request()
+					.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+			Assert.assertEquals(page.get("paginationData").get("approximateTotal").asInt(), expected.size());
+			page.get("results").forEach(child -> numbered.add(child.get("conChronology").get("conceptSequence").asInt()));
+		}
+		Assert.assertEquals(numbered, expected);
+
+		// A page beyond the int range of child offsets is empty, rather than an error
+		JsonNode beyond = new ObjectMapper().readTree(checkFail(target(taxonomyChildrenRequestPath)
+				.queryParam(RequestParameters.maxPageSize, 100000).queryParam(RequestParameters.pageNum, 100000).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Assert.assertTrue(!hasValue(beyond, "results") || beyond.get("results").size() == 0);
+	}
+
+	/**
+	 * Checks that expanding several levels of children gives the same response with the expansion run in the request thread as
+	 * on the pool - and that a concept reached by more than one path is expanded only at its first occurrence, in level order.
+	 */
+	@Test
+	public void testTaxonomyExpansionThreads() throws IOException
+	{
+		final int childDepth = 4;
+		Map<String, Object> parameters = buildParams(param("childDepth", childDepth), param("countChildren", "true"));
+		String parallel = readTaxonomy(parameters);
+		String sequential;
+		System.setProperty("isaac.rest.taxonomyExpansionThreads", "1");
+		try
+		{
+			// Otherwise, the same request is answered with the response cached from the parallel expansion
+			ResponseCache.getInstance().clear();
+			sequential = readTaxonomy(parameters);
+		}
+		finally
+		{
+			System.clearProperty("isaac.rest.taxonomyExpansionThreads");
+		}
+		Assert.assertEquals(sequential, parallel);
+
+		// Expand the tree directly, recording the depth and the parent at which each concept with active children is expanded
+		Tree tree = Get.taxonomyService().getTaxonomyTree(CoordinatesTokens.getDefaultCoordinatesToken().getTaxonomyCoordinate());
+		Map<Integer, String> expected = new HashMap<>();
+		Set<Integer> expanded = new HashSet<>();
+		List<int[]> level = new ArrayList<>();
+		level.add(new int[] {MetaData.ISAAC_ROOT.getConceptSequence(), -1});
+		for (int depth = 0; depth < childDepth; depth++)
+		{
+			List<int[]> next = new ArrayList<>();
+			for (int[] node : level)
+			{
+				if (!expanded.add(node[0]))
+				{
+					continue;
+				}
+				for (int child : tree.getChildrenSequences(node[0]))
+				{
+					if (isActive(child))
+					{
+						expected.put(node[0], depth + " under " + node[1]);
+						next.add(new int[] {child, node[0]});
+					}
+				}
+			}
+			level = next;
+		}
+		Assert.assertTrue(expected.size() > 1);
+
+		Map<Integer, String> found = new HashMap<>();
+		findExpansions(new ObjectMapper().readTree(parallel), 0, -1, found);
+		Assert.assertEquals(found, expected);
+	}
+
+	/**
+	 * Checks the childCount, parentCount and descendantCount of a taxonomy expansion against a direct walk of the taxonomy tree.
+	 */
+	@Test
+	public void testTaxonomyCounts() throws IOException
+	{
+		Tree tree = Get.taxonomyService().getTaxonomyTree(CoordinatesTokens.getDefaultCoordinatesToken().getTaxonomyCoordinate());
+		JsonNode root = new ObjectMapper().readTree(readTaxonomy(buildParams(param("childDepth", 2), param("countChildren", "true"), 
+				param("countParents", "true"), param("countDescendants", "true"))));
+		Assert.assertTrue(checkCounts(tree, root, 0, 2) > 1);
+	}
+
+	/**
+	 * @return the number of concepts checked
+	 */
+	private static int checkCounts(Tree tree, JsonNode concept, int depth, int childDepth)
+	{
+		int conceptSequence = concept.get("conChronology").get("conceptSequence").asInt();
+		int checked = 1;
+		Assert.assertEquals(concept.get("descendantCount").asInt(), countDescendants(tree, conceptSequence), "descendantCount of " + conceptSequence);
+		Assert.assertEquals(concept.get("parentCount").asInt(), countActive(tree.getParentSequences(conceptSequence)), 
+				"parentCount of " + conceptSequence);
+		if (depth == childDepth)
+		{
+			Assert.assertEquals(concept.get("childCount").asInt(), countActive(tree.getChildrenSequences(conceptSequence)), 
+					"childCount of " + conceptSequence);
+		}
+		else if (hasValue(concept, "children"))
+		{
+			for (JsonNode child : concept.get("children"))
+			{
+				checked += checkCounts(tree, child, depth + 1, childDepth);
+			}
+		}
+		return checked;
+	}
+
+	private static int countActive(int[] conceptSequences)
+	{
+		int count = 0;
+		for (int conceptSequence : conceptSequences)
+		{
+			if (isActive(conceptSequence))
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of distinct active concepts reachable through active children of the concept
+	 */
+	private static int countDescendants(Tree tree, int conceptSequence)
+	{
+		Set<Integer> descendants = new HashSet<>();
+		List<Integer> toVisit = new ArrayList<>();
+		toVisit.add(conceptSequence);
+		while (!toVisit.isEmpty())
+		{
+			for (int child : tree.getChildrenSequences(toVisit.remove(toVisit.size() - 1)))
+			{
+				if (child != conceptSequence && isActive(child) && descendants.add(child))
+				{
+					toVisit.add(child);
+				}
+			}
+		}
+		return descendants.size();
+	}
+
+	private String readTaxonomy(Map<String, Object> parameters)
+	{
+		return checkFail(target(taxonomyRequestPath, parameters).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+	}
+
+	/**
+	 * Record the depth and the parent of each concept in the response which has its children expanded - failing if any concept 
+	 * has its children expanded more than once.
+	 */
+	private static void findExpansions(JsonNode concept, int depth, int parent, Map<Integer, String> found)
+	{
+		int conceptSequence = concept.get("conChronology").get("conceptSequence").asInt();
+		if (hasValue(concept, "children") && concept.get("children").size() > 0)
+		{
+			Assert.assertNull(found.put(conceptSequence, depth + " under " + parent), "The children of " + conceptSequence 
+					+ " were expanded more than once");
+			for (JsonNode child : concept.get("children"))
+			{
+				findExpansions(child, depth + 1, conceptSequence, found);
+			}
+		}
+	}
+
+	/**
+	 * @return true, if the concept has a version on the default coordinates
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static boolean isActive(int conceptSequence)
+	{
+		ConceptChronology concept = Get.conceptService().getConcept(conceptSequence);
+		return concept.getLatestVersion(ConceptVersionImpl.class, CoordinatesTokens.getDefaultCoordinatesToken().getStampCoordinate())
+				.isPresent();
+	}
+
 	@Test
 	public void testSearchAssemblageRestriction1()
 	{
@@ -725,6 +1345,30 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 		Assert.assertFalse(result.contains(DynamicSememeConstants.get().DYNAMIC_SEMEME_EXTENSION_DEFINITION.getPrimordialUuid().toString()));
 	}
 
+	/**
+	 * This test validates that the streamed JSON array, and the newline delimited JSON, of the descriptions API carry the same 
+	 * descriptions.
+	 */
+	@Test
+	public void testDescriptionsStreaming() throws IOException
+	{
+		JsonNode array = new ObjectMapper().readTree(checkFail(target(conceptDescriptionsRequestPath + MetaData.USER.getConceptSequence())
+				.request().header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get())
+				.readEntity(String.class));
+
+		String[] lines = checkFail(target(conceptDescriptionsRequestPath + MetaData.USER.getConceptSequence())
+				.request().header(Header.Accept.toString(), StreamingUtil.NDJSON).get())
+				.readEntity(String.class).split("\n");
+
+		Assert.assertTrue(array.isArray());
+		Assert.assertEquals(array.size(), 2);
+		Assert.assertEquals(lines.length, array.size());
+		for (int i = 0; i < lines.length; i++)
+		{
+			Assert.assertEquals(new ObjectMapper().readTree(lines[i]), array.get(i));
+		}
+	}
+
 	@Test
 	public void testDescriptionsFetch()
 	{
@@ -785,6 +1429,117 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 	}
 
 
+	/**
+	 * Checks that coordinates tokens are accepted in the current (HMAC signed, version 2) and legacy (version 1) formats, and that 
+	 * tampered, truncated and wrongly versioned tokens are rejected - as are cursors presented as coordinates tokens, and vice versa.
+	 */
+	@Test
+	public void testTokenSignatures() throws Exception
+	{
+		final int signatureLength = 43;  // HMAC-SHA256, base64 encoded without padding
+		CoordinatesToken token = CoordinatesTokens.getDefaultCoordinatesToken();
+		String serialized = token.getSerialized();
+		byte[] data = Base64.getUrlDecoder().decode(serialized.substring(signatureLength));
+		Assert.assertEquals(data[0], 2);
+		Assert.assertEquals(CoordinatesTokens.getOrCreate(serialized).getSerialized(), serialized);
+		Assert.assertEquals(CoordinatesTokens.getOrCreate(hmacSign(data)).getSerialized(), serialized);
+
+		// The same data, as a version 1 token
+		byte[] legacyData = data.clone();
+		legacyData[0] = 1;
+		CoordinatesToken legacy = CoordinatesTokens.getOrCreate(legacySign(legacyData));
+		Assert.assertEquals(legacy.getStampCoordinateKey(), token.getStampCoordinateKey());
+		Assert.assertEquals(legacy.getLangCoord(), token.getLangCoord());
+		Assert.assertTrue(Arrays.equals(legacy.getLangDialects(), token.getLangDialects()));
+		Assert.assertTrue(Arrays.equals(legacy.getLangDescTypePrefs(), token.getLangDescTypePrefs()));
+		Assert.assertEquals(legacy.getTaxonomyType(), token.getTaxonomyType());
+		Assert.assertEquals(legacy.getLogicStatedAssemblage(), token.getLogicStatedAssemblage());
+		Assert.assertEquals(legacy.getLogicInferredAssemblage(), token.getLogicInferredAssemblage());
+		Assert.assertEquals(legacy.getLogicDescLogicProfile(), token.getLogicDescLogicProfile());
+		Assert.assertEquals(legacy.getLogicClassifier(), token.getLogicClassifier());
+
+		// Tampered signature, tampered data
+		assertInvalidToken(replaceChar(serialized, 5));
+		assertInvalidToken(replaceChar(serialized, signatureLength + 10));
+		assertInvalidToken(replaceChar(legacySign(legacyData), 3));
+
+		// Truncated
+		assertInvalidToken("");
+		assertInvalidToken(serialized.substring(0, 10));
+		assertInvalidToken(serialized.substring(0, signatureLength));
+		assertInvalidToken(serialized.substring(0, signatureLength + 4));
+		assertInvalidToken(serialized.substring(0, serialized.length() - 4));
+
+		// A version 2 token signed in the legacy manner, a version 1 token signed with HMAC, and an unknown version
+		assertInvalidToken(legacySign(data));
+		assertInvalidToken(hmacSign(legacyData));
+		byte[] futureData = data.clone();
+		futureData[0] = 3;
+		assertInvalidToken(hmacSign(futureData));
+
+		// Cursors
+		CursorToken cursor = new CursorToken("query", 20, 5, 1.5f);
+		CursorToken readCursor = new CursorToken(cursor.getSerialized(), "query");
+		Assert.assertEquals(readCursor.getOffset(), 20);
+		Assert.assertEquals(readCursor.getLastNid(), 5);
+		Assert.assertEquals(readCursor.getLastScore(), 1.5f);
+		assertInvalidCursor(cursor.getSerialized(), "another query");
+		assertInvalidCursor(replaceChar(cursor.getSerialized(), 5), "query");
+		assertInvalidCursor(replaceChar(cursor.getSerialized(), signatureLength + 2), "query");
+		assertInvalidCursor(cursor.getSerialized().substring(0, signatureLength), "query");
+		assertInvalidCursor(serialized, "query");
+		assertInvalidToken(cursor.getSerialized());
+	}
+
+	private static String hmacSign(byte[] data) throws Exception
+	{
+		String encoded = Base64.getUrlEncoder().encodeToString(data);
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(ApplicationConfig.getSecret(), "HmacSHA256"));
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(encoded.getBytes(StandardCharsets.US_ASCII))) + encoded;
+	}
+
+	private static String legacySign(byte[] data) throws Exception
+	{
+		String encoded = Base64.getUrlEncoder().encodeToString(data);
+		return PasswordHasher.hash(encoded, ApplicationConfig.getSecret(), 128, 64) + encoded;
+	}
+
+	/**
+	 * @return the string, with the character at the position replaced by a different (base64) character
+	 */
+	private static String replaceChar(String string, int position)
+	{
+		char replacement = string.charAt(position) == 'A' ? 'B' : 'A';
+		return string.substring(0, position) + replacement + string.substring(position + 1);
+	}
+
+	private static void assertInvalidToken(String token)
+	{
+		try
+		{
+			CoordinatesTokens.getOrCreate(token);
+			Assert.fail("Accepted an invalid token: " + token);
+		}
+		catch (RestException e)
+		{
+			// expected
+		}
+	}
+
+	private static void assertInvalidCursor(String cursor, String queryKey)
+	{
+		try
+		{
+			new CursorToken(cursor, queryKey);
+			Assert.fail("Accepted an invalid cursor: " + cursor);
+		}
+		catch (RestException e)
+		{
+			// expected
+		}
+	}
+
 	@Test
 	public void testCoordinatesToken()
 	{
@@ -1265,6 +2020,248 @@ public class RestTest extends JerseyTestNg.ContainerPerClassTest
 		}
 	}
 	
+	/**
+	 * Renders the 20 largest stated definitions (by node count) with expanded concept versions, and checks that every concept node
+	 * carries its description and concept version.
+	 */
+	@Test
+	public void testLargestLogicGraphs() throws IOException
+	{
+		int statedAssemblage = LogicCoordinates.getStandardElProfile().getStatedAssemblageSequence();
+		List<int[]> nodeCounts = new ArrayList<>();  // concept sequence, node count
+		Get.sememeService().getSememesFromAssemblage(statedAssemblage).forEach(sc ->
+		{
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Optional<LatestVersion<LogicGraphSememe>> lgs = ((SememeChronology)sc).getLatestVersion(LogicGraphSememe.class,
+					StampCoordinates.getDevelopmentLatest());
+			if (lgs.isPresent())
+			{
+				nodeCounts.add(new int[] {Get.identifierService().getConceptSequence(sc.getReferencedComponentNid()),
+						lgs.get().value().getLogicalExpression().getNodeCount()});
+			}
+		});
+		Assert.assertTrue(nodeCounts.size() > 0);
+		nodeCounts.sort((a, b) -> Integer.compare(b[1], a[1]));
+
+		ObjectMapper mapper = new ObjectMapper();
+		for (int[] nodeCount : nodeCounts.subList(0, Math.min(20, nodeCounts.size())))
+		{
+			String json = checkFail(target(RestPaths.logicGraphAPIsPathComponent + RestPaths.versionComponent + nodeCount[0],
+					buildParams(param(RequestParameters.expand, ExpandUtil.versionExpandable))).request()
+					.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class);
+			Assert.assertTrue(checkConceptNodes(mapper.readTree(json).get("rootLogicNode")) > 0);
+		}
+	}
+
+	/**
+	 * @return the number of concept nodes in the tree, after checking that each carries its description and concept version
+	 */
+	private static int checkConceptNodes(JsonNode node)
+	{
+		int conceptNodes = 0;
+		if (node.get("@class").asText().equals(RestConceptNode.class.getName()))
+		{
+			Assert.assertTrue(hasValue(node, "conceptDescription"));
+			Assert.assertTrue(hasValue(node, "conceptVersion"));
+			conceptNodes++;
+		}
+		if (hasValue(node, "children"))
+		{
+			for (JsonNode child : node.get("children"))
+			{
+				conceptNodes += checkConceptNodes(child);
+			}
+		}
+		return conceptNodes;
+	}
+
+	/**
+	 * Checks that resolving the descriptions of a batch of concepts gives the same descriptions as resolving each concept alone, 
+	 * and as reading them directly - the fully specified name when it is preferred, falling back to the preferred description when
+	 * there is no fully specified name, and an active description over an inactive one of the same time.
+	 */
+	@Test
+	public void testDescriptionResolver() throws Exception
+	{
+		int statedAssemblage = LogicCoordinates.getStandardElProfile().getStatedAssemblageSequence();
+		int[] nids = Get.sememeService().getSememesFromAssemblage(statedAssemblage).limit(300).mapToInt(sc -> sc.getReferencedComponentNid())
+				.toArray();
+		Assert.assertTrue(nids.length > 0);
+
+		Map<String, String[]> resolved = new HashMap<>();
+		for (String descriptionTypePrefs : new String[] {"fsn,synonym", "synonym,fsn"})
+		{
+			Map<String, List<String>> parameters = new HashMap<>();
+			parameters.put(RequestParameters.descriptionTypePrefs, Arrays.asList(descriptionTypePrefs));
+			RequestInfo.remove();
+			try
+			{
+				RequestInfo requestInfo = RequestInfo.get().readAll(parameters);
+				String[] expected = new String[nids.length];
+				for (int i = 0; i < nids.length; i++)
+				{
+					expected[i] = readDescription(nids[i], requestInfo.getLanguageCoordinate(), requestInfo.getStampCoordinate());
+					Assert.assertNotNull(expected[i], "No description of " + nids[i]);
+				}
+
+				DescriptionResolver.clear();
+				Assert.assertEquals(DescriptionResolver.resolve(nids), expected);
+				DescriptionResolver.clear();
+				for (int i = 0; i < nids.length; i++)
+				{
+					Assert.assertEquals(DescriptionResolver.resolve(nids[i]), expected[i], "Description of " + nids[i]);
+				}
+				// And once more, from the cache
+				Assert.assertEquals(DescriptionResolver.resolve(nids), expected);
+				resolved.put(descriptionTypePrefs, expected);
+			}
+			finally
+			{
+				RequestInfo.remove();
+			}
+		}
+		Assert.assertFalse(Arrays.equals(resolved.get("fsn,synonym"), resolved.get("synonym,fsn")), 
+				"The fully specified names and the preferred descriptions should differ");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static String readDescription(int conceptNid, LanguageCoordinate languageCoordinate, StampCoordinate stampCoordinate)
+	{
+		List descriptions = Get.sememeService().getDescriptionsForComponent(conceptNid).collect(Collectors.toList());
+		Optional<LatestVersion<DescriptionSememe<?>>> description = Optional.empty();
+		if (languageCoordinate.isFSNPreferred())
+		{
+			description = languageCoordinate.getFullySpecifiedDescription(descriptions, stampCoordinate);
+		}
+		if (!description.isPresent())
+		{
+			description = languageCoordinate.getPreferredDescription(descriptions, stampCoordinate);
+		}
+		if (!description.isPresent())
+		{
+			return null;
+		}
+		List<DescriptionSememe<?>> tied = new ArrayList<>();
+		tied.add(description.get().value());
+		if (description.get().contradictions().isPresent())
+		{
+			description.get().contradictions().get().forEach(contradiction -> tied.add(contradiction));
+		}
+		return tied.stream().filter(version -> version.getState() == State.ACTIVE).findFirst().orElse(tied.get(0)).getText();
+	}
+
+	/**
+	 * Checks that the isConceptDefined field of concept versions is the same before and after the defined concept index has been 
+	 * built - and matches the stated logic graph of each concept.
+	 */
+	@Test
+	public void testDefinedConceptIndex() throws IOException, InterruptedException
+	{
+		int statedAssemblage = LogicCoordinates.getStandardElProfile().getStatedAssemblageSequence();
+		Map<Integer, Boolean> expected = new HashMap<>();
+		Get.sememeService().getSememesFromAssemblage(statedAssemblage).forEach(sc ->
+		{
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Optional<LatestVersion<LogicGraphSememe>> lgs = ((SememeChronology)sc).getLatestVersion(LogicGraphSememe.class,
+					StampCoordinates.getDevelopmentLatest());
+			if (lgs.isPresent() && expected.size() < 200)
+			{
+				expected.put(Get.identifierService().getConceptSequence(sc.getReferencedComponentNid()), 
+						Frills.isConceptFullyDefined(lgs.get().value()));
+			}
+		});
+		Assert.assertTrue(expected.size() > 0);
+
+		ObjectMapper mapper = new ObjectMapper();
+		// The first request starts the build of the index, for the default coordinates
+		for (int wait = 0; DefinedConceptIndex.getTimingStatistics().count == 0; wait++)
+		{
+			Assert.assertTrue(wait < 600, "The defined concept index wasn't built");
+			for (Map.Entry<Integer, Boolean> concept : expected.entrySet())
+			{
+				checkDefined(mapper, concept.getKey(), concept.getValue(), null);
+			}
+			Thread.sleep(50);
+		}
+		ResponseCache.getInstance().clear();
+		for (Map.Entry<Integer, Boolean> concept : expected.entrySet())
+		{
+			checkDefined(mapper, concept.getKey(), concept.getValue(), null);
+		}
+	}
+
+	private void checkDefined(ObjectMapper mapper, int conceptSequence, boolean defined, Map<String, Object> parameters) throws IOException
+	{
+		JsonNode concept = mapper.readTree(checkFail(target(conceptVersionRequestPath + conceptSequence, parameters).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Assert.assertEquals(concept.get("isConceptDefined").asBoolean(), defined, "isConceptDefined of " + conceptSequence);
+	}
+
+	/**
+	 * Checks that the sememeMembership field of concept versions is the same before and after the assemblage membership index has 
+	 * been built - and matches the sememes of each concept.
+	 */
+	@Test
+	public void testAssemblageMembershipIndex() throws IOException, InterruptedException
+	{
+		Map<Integer, Set<Integer>> expected = new HashMap<>();
+		Get.sememeService().getSememesFromAssemblage(DynamicSememeConstants.get().DYNAMIC_SEMEME_EXTENSION_DEFINITION.getConceptSequence())
+			.forEach(sc ->
+			{
+				int nid = sc.getReferencedComponentNid();
+				if (expected.size() < 50 && Get.identifierService().getChronologyTypeForNid(nid) == ObjectChronologyType.CONCEPT)
+				{
+					Set<Integer> assemblages = new HashSet<>();
+					Get.sememeService().getSememesForComponent(nid).forEach(member ->
+					{
+						@SuppressWarnings({ "unchecked", "rawtypes" })
+						boolean current = ((SememeChronology)member).getLatestVersion(SememeVersionImpl.class, StampCoordinates.getDevelopmentLatest())
+								.isPresent();
+						if (current && member.getSememeType() != SememeType.LOGIC_GRAPH && member.getSememeType() != SememeType.RELATIONSHIP_ADAPTOR
+								&& member.getSememeType() != SememeType.DESCRIPTION)
+						{
+							assemblages.add(member.getAssemblageSequence());
+						}
+					});
+					expected.put(Get.identifierService().getConceptSequence(nid), assemblages);
+				}
+			});
+		Assert.assertTrue(expected.size() > 0);
+
+		ObjectMapper mapper = new ObjectMapper();
+		// The first request starts the build of the index, for the default stamp coordinate
+		for (int wait = 0; AssemblageMembershipIndex.getTimingStatistics().count == 0; wait++)
+		{
+			Assert.assertTrue(wait < 600, "The assemblage membership index wasn't built");
+			for (Map.Entry<Integer, Set<Integer>> concept : expected.entrySet())
+			{
+				checkMembership(mapper, concept.getKey(), concept.getValue(), buildParams(param("sememeMembership", "true")));
+			}
+			Thread.sleep(50);
+		}
+		ResponseCache.getInstance().clear();
+		for (Map.Entry<Integer, Set<Integer>> concept : expected.entrySet())
+		{
+			checkMembership(mapper, concept.getKey(), concept.getValue(), buildParams(param("sememeMembership", "true")));
+		}
+	}
+
+	private void checkMembership(ObjectMapper mapper, int conceptSequence, Set<Integer> assemblages, Map<String, Object> parameters) 
+			throws IOException
+	{
+		JsonNode concept = mapper.readTree(checkFail(target(conceptVersionRequestPath + conceptSequence, parameters).request()
+				.header(Header.Accept.toString(), MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+		Set<Integer> found = new HashSet<>();
+		if (hasValue(concept, "sememeMembership"))
+		{
+			for (JsonNode assemblage : concept.get("sememeMembership"))
+			{
+				found.add(assemblage.asInt());
+			}
+		}
+		Assert.assertEquals(found, assemblages, "sememeMembership of " + conceptSequence);
+	}
+
 	public static void main(String[] argv) {
 	}
 }
\ No newline at end of file